@@ -0,0 +1,340 @@
+package com.github.hippoom.runner.challenges.application;
+
+import com.github.hippoom.runner.challenges.application.ActivityAdmissionProperties.OverflowPolicy;
+import com.github.hippoom.runner.challenges.domain.activity.UserActivity;
+import com.github.hippoom.runner.challenges.messaging.wal.ActivityCodec;
+import com.github.hippoom.runner.challenges.messaging.wal.DurableActivityQueue;
+import com.github.hippoom.runner.challenges.messaging.wal.WriteAheadLog;
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Admits user activities into {@link CompleteChallengeCommandHandler} at a rate and concurrency the
+ * database can absorb without starving HTTP reads.
+ * <p>
+ * An activity is processed right away on the publishing thread when an in-flight slot and a rate permit are
+ * available and nothing is waiting ahead of it. Otherwise the overflow policy applies: it is either parked in
+ * a bounded buffer, or spilled to a log on disk. Drainers, one per in-flight slot, process the buffered
+ * activities at the admitted rate and, once the buffer is empty, the spilled ones, which survive a restart.
+ * They retry an activity that fails with a growing backoff, and spill it again once it failed every attempt, so
+ * that an outage of the database delays activities rather than losing them. Only an activity that cannot be
+ * spilled, the spill log being full, is shed.
+ * <p>
+ * With the {@link DurableActivityQueue} enabled, every activity is logged to it instead and its consumers
+ * process activities as the in-flight slots and rate allow, waiting rather than shedding.
+ */
+@Slf4j
+@Component
+public class ActivityAdmissionControl implements InitializingBean, DisposableBean {
+
+    private static final long IDLE_POLL_MILLIS = 100;
+    private static final int SPILL_CHECKPOINT_INTERVAL = 1000;
+
+    private final CompleteChallengeCommandHandler commandHandler;
+    private final OverflowPolicy overflowPolicy;
+    private final TokenBucket rateLimiter;
+    private final int maxInFlight;
+    private final int maxAttempts;
+    private final Duration retryBackoff;
+    private final Semaphore inFlight;
+    private final BlockingQueue<UserActivity> buffer;
+    private final Counter admitted;
+    private final Counter deferred;
+    private final Counter spilled;
+    private final Counter shed;
+    private final Counter failed;
+    private final Counter logged;
+    private final DurableActivityQueue durableQueue;
+    private final WriteAheadLog spillLog;
+    // Guards reading, replaying and checkpointing the spilled activities
+    private final ReentrantLock spillReadLock = new ReentrantLock();
+    private WriteAheadLog.Reader spillReader;
+    private long replayedPosition;
+    private int replayedSinceCheckpoint;
+    private Thread[] drainers;
+
+    public ActivityAdmissionControl(CompleteChallengeCommandHandler commandHandler,
+                                    ActivityAdmissionProperties properties,
+                                    DataSource dataSource,
+                                    ObjectProvider<DurableActivityQueue> durableQueue,
+                                    MeterRegistry meterRegistry) throws IOException {
+        this.commandHandler = commandHandler;
+        this.overflowPolicy = properties.getOverflowPolicy();
+        this.rateLimiter = new TokenBucket(properties.getPermitsPerSecond(), properties.getBurst());
+        this.maxInFlight = maxInFlightOf(properties, dataSource);
+        this.maxAttempts = properties.getMaxAttempts();
+        this.retryBackoff = properties.getRetryBackoff();
+        this.inFlight = new Semaphore(maxInFlight);
+        this.buffer = new ArrayBlockingQueue<>(properties.getBufferCapacity());
+        this.durableQueue = durableQueue.getIfAvailable();
+        this.spillLog = this.durableQueue == null ? WriteAheadLog.open(properties.getSpillDirectory(),
+                (int) properties.getSpillSegmentSize().toBytes(), properties.getSpillMaxSegments()) : null;
+
+        this.admitted = outcomeCounter(meterRegistry, "admitted");
+        this.deferred = outcomeCounter(meterRegistry, "deferred");
+        this.spilled = outcomeCounter(meterRegistry, "spilled");
+        this.shed = outcomeCounter(meterRegistry, "shed");
+        this.failed = outcomeCounter(meterRegistry, "failed");
+        this.logged = outcomeCounter(meterRegistry, "logged");
+        Gauge.builder("challenges.ingestion.queue.depth", buffer, BlockingQueue::size)
+                .description("Activities waiting in the local buffer")
+                .register(meterRegistry);
+        Gauge.builder("challenges.ingestion.in-flight", inFlight, permits -> maxInFlight - permits.availablePermits())
+                .description("Activities being processed")
+                .register(meterRegistry);
+        if (spillLog != null) {
+            Gauge.builder("challenges.ingestion.spilled", spillLog,
+                            wal -> wal.getWritePosition() - wal.getCheckpoint())
+                    .description("Bytes of spilled activities not processed yet")
+                    .baseUnit("bytes")
+                    .register(meterRegistry);
+        }
+        log.info("Admitting activities at {}/s (burst {}), at most {} in flight, overflow policy {}",
+                properties.getPermitsPerSecond(), properties.getBurst(), maxInFlight, overflowPolicy);
+    }
+
+    public void submit(UserActivity activity) {
+        if (durableQueue != null) {
+            if (durableQueue.append(activity)) {
+                logged.increment();
+            } else {
+                shed.increment();
+                log.error("Shed activity {} of {}: the activity log and its dead letters are full",
+                        activity.getId(), activity.getUserId());
+            }
+            return;
+        }
+        // The slot first: it is given back for free, unlike a rate permit
+        if (buffer.isEmpty() && inFlight.tryAcquire()) {
+            if (rateLimiter.tryAcquire()) {
+                admitted.increment();
+                process(activity);
+                return;
+            }
+            inFlight.release();
+        }
+        if (overflowPolicy == OverflowPolicy.BUFFER && buffer.offer(activity)) {
+            deferred.increment();
+            return;
+        }
+        spill(activity);
+    }
+
+    @Override
+    public void afterPropertiesSet() {
+        if (durableQueue != null) {
+            durableQueue.start(this::admit);
+            return;
+        }
+        replayedPosition = spillLog.getCheckpoint();
+        spillReader = spillLog.reader(replayedPosition);
+        drainers = new Thread[maxInFlight];
+        for (int i = 0; i < drainers.length; i++) {
+            drainers[i] = new Thread(this::drain, "activity-admission-drainer-" + (i + 1));
+            drainers[i].setDaemon(true);
+            drainers[i].start();
+        }
+    }
+
+    @Override
+    public void destroy() throws IOException, InterruptedException {
+        if (spillLog == null) {
+            return;
+        }
+        if (drainers != null) {
+            for (Thread drainer : drainers) {
+                drainer.interrupt();
+            }
+            for (Thread drainer : drainers) {
+                drainer.join();
+            }
+        }
+        List<UserActivity> buffered = new ArrayList<>(buffer.size());
+        buffer.drainTo(buffered);
+        buffered.forEach(this::spill);
+        if (!buffered.isEmpty()) {
+            log.info("Spilled {} buffered activities on shutdown", buffered.size());
+        }
+        spillLog.checkpoint(replayedPosition);
+        spillLog.close();
+    }
+
+    private void drain() {
+        while (!Thread.currentThread().isInterrupted()) {
+            UserActivity activity;
+            try {
+                activity = buffer.poll(IDLE_POLL_MILLIS, TimeUnit.MILLISECONDS);
+                if (activity == null) {
+                    replaySpilled();
+                    continue;
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            try {
+                admitWithRetries(activity);
+            } catch (InterruptedException e) {
+                spill(activity); // Shutting down before it was processed
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    /**
+     * Processes the oldest spilled activity, unless another drainer is replaying them already. An activity
+     * replayed after the last checkpoint, or interrupted by a shutdown while it was retried, is replayed again
+     * after a restart, and skipped by its id if it was processed.
+     */
+    private void replaySpilled() throws InterruptedException {
+        if (!spillReadLock.tryLock()) {
+            return;
+        }
+        try {
+            byte[] record = spillReader.next();
+            if (record == null) {
+                checkpointSpillSafely();
+                return;
+            }
+            UserActivity activity = null;
+            try {
+                activity = ActivityCodec.decode(record);
+            } catch (IllegalArgumentException e) {
+                failed.increment();
+                log.error("Skipping unreadable spilled activity before {} of the spill log",
+                        spillReader.position(), e);
+            }
+            if (activity != null) {
+                admitWithRetries(activity);
+            }
+            replayedPosition = spillReader.position();
+            if (++replayedSinceCheckpoint == SPILL_CHECKPOINT_INTERVAL) {
+                checkpointSpillSafely();
+            }
+        } finally {
+            spillReadLock.unlock();
+        }
+    }
+
+    /**
+     * Appends the activity to the spill log, forcing it to disk right away. Only a full spill log sheds it.
+     */
+    private void spill(UserActivity activity) {
+        try {
+            if (spillLog.append(ActivityCodec.encode(activity)) >= 0) {
+                spillLog.flush();
+                spilled.increment();
+                return;
+            }
+            log.error("Shed activity {} of {}: ingestion is saturated and the spill log is full",
+                    activity.getId(), activity.getUserId());
+        } catch (RuntimeException e) {
+            log.error("Shed activity {} of {}: failed to spill it", activity.getId(), activity.getUserId(), e);
+        }
+        shed.increment();
+    }
+
+    private void checkpointSpillSafely() {
+        try {
+            spillLog.checkpoint(replayedPosition);
+            replayedSinceCheckpoint = 0;
+        } catch (IOException | RuntimeException e) {
+            log.warn("Failed to checkpoint the spill log", e);
+        }
+    }
+
+    /**
+     * Processes a buffered or spilled activity, retrying it after a growing backoff while it fails. Once every
+     * attempt failed, it is spilled again: it is retried after the activities spilled before it.
+     */
+    private void admitWithRetries(UserActivity activity) throws InterruptedException {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                admit(activity);
+                return;
+            } catch (RuntimeException e) {
+                if (attempt >= maxAttempts) {
+                    failed.increment();
+                    log.error("Giving up on activity {} of {} after {} attempts for now, spilling it again",
+                            activity.getId(), activity.getUserId(), attempt, e);
+                    spill(activity);
+                    return;
+                }
+                log.warn("Failed to process activity of {}, retrying: {}", activity.getUserId(), e.toString());
+                TimeUnit.MILLISECONDS.sleep(retryBackoff.toMillis() * attempt);
+            }
+        }
+    }
+
+    /**
+     * Processes an activity as soon as an in-flight slot and the rate allow it, leaving failures to the caller.
+     * The slot is taken first, so that no rate permit is spent waiting for one.
+     */
+    private void admit(UserActivity activity) throws InterruptedException {
+        inFlight.acquire();
+        try {
+            rateLimiter.acquire();
+        } catch (InterruptedException e) {
+            inFlight.release();
+            throw e;
+        }
+        admitted.increment();
+        process(activity);
+    }
+
+    /**
+     * Runs the command handler, releasing the in-flight slot acquired by the caller.
+     */
+    private void process(UserActivity activity) {
+        try {
+            commandHandler.handle(activity);
+        } finally {
+            inFlight.release();
+        }
+    }
+
+    private static int maxInFlightOf(ActivityAdmissionProperties properties, DataSource dataSource) {
+        if (properties.getMaxInFlight() != null) {
+            return properties.getMaxInFlight();
+        }
+        return Math.max(1, poolSizeOf(dataSource) - properties.getReservedConnections());
+    }
+
+    private static int poolSizeOf(DataSource dataSource) {
+        try {
+            if (dataSource.isWrapperFor(HikariDataSource.class)) {
+                return dataSource.unwrap(HikariDataSource.class).getMaximumPoolSize();
+            }
+        } catch (SQLException e) {
+            log.warn("Cannot inspect the connection pool: {}", e.getMessage());
+        }
+        throw new IllegalStateException("Cannot derive max in-flight activities from " + dataSource
+                + ", set challenges.ingestion.max-in-flight");
+    }
+
+    private static Counter outcomeCounter(MeterRegistry meterRegistry, String outcome) {
+        return Counter.builder("challenges.ingestion.activities")
+                .description("User activities by admission outcome")
+                .tag("outcome", outcome)
+                .register(meterRegistry);
+    }
+}
@@ -0,0 +1,54 @@
+package com.github.hippoom.runner.challenges.application;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import java.nio.file.Path;
+import java.time.Duration;
+
+@Data
+@Component
+@ConfigurationProperties(prefix = "challenges.ingestion")
+public class ActivityAdmissionProperties {
+    private double permitsPerSecond;
+    private int burst;
+    /**
+     * Cap on activities processed at the same time. When not set, it is the connection pool size
+     * minus {@link #reservedConnections}.
+     */
+    private Integer maxInFlight;
+    /**
+     * Connections left to HTTP reads when deriving {@link #maxInFlight} from the pool size.
+     */
+    private int reservedConnections;
+    private OverflowPolicy overflowPolicy;
+    private int bufferCapacity;
+    /**
+     * Where excess activities are spilled to disk. Not used with the activity log, which takes them all.
+     */
+    private Path spillDirectory;
+    private DataSize spillSegmentSize;
+    /**
+     * Segments the spilled activities may span before new ones are dropped. Bounds the disk space used.
+     */
+    private int spillMaxSegments;
+    /**
+     * Attempts at a buffered or spilled activity before it is spilled again, each after a longer backoff.
+     */
+    private int maxAttempts;
+    private Duration retryBackoff;
+
+    public enum OverflowPolicy {
+        /**
+         * Park excess activities in a bounded local buffer drained at the admitted rate, spilling them once
+         * it is full.
+         */
+        BUFFER,
+        /**
+         * Spill excess activities right away.
+         */
+        SPILL
+    }
+}
@@ -0,0 +1,26 @@
+package com.github.hippoom.runner.challenges.application;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+@Data
+@Component
+@ConfigurationProperties(prefix = "challenges.import")
+public class ActivityImportProperties {
+    /**
+     * Activities recorded per transaction.
+     */
+    private int groupSize;
+    /**
+     * Pause after every group, so that an import leaves the database to live activities between groups.
+     */
+    private Duration pauseBetweenGroups;
+    /**
+     * Errors reported line by line, further ones are only counted.
+     */
+    private int maxReportedErrors;
+    private int maxConcurrentImports;
+}
@@ -0,0 +1,91 @@
+package com.github.hippoom.runner.challenges.application;
+
+import com.github.hippoom.runner.challenges.domain.activity.UserActivity;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.NestedExceptionUtils;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Records historical activities in bulk, a group per transaction.
+ * <p>
+ * A group that fails is retried one activity at a time, each in a transaction of its own under its user's lock,
+ * so that only the activities at fault are rejected. That includes a group failed by a live command of one of
+ * its users committing first; the retries then record its activities after the live ones.
+ * <p>
+ * Imports bypass {@link ActivityAdmissionControl}: they are paced by their groups instead, pausing after each
+ * one so that live activities get the database in between.
+ */
+@Slf4j
+@Component
+public class ActivityImporter {
+
+    private final CompleteChallengeCommandHandler commandHandler;
+    private final ActivityImportProperties properties;
+    private final Counter imported;
+    private final Counter failed;
+    private final Counter retriedGroups;
+
+    public ActivityImporter(CompleteChallengeCommandHandler commandHandler,
+                            ActivityImportProperties properties,
+                            MeterRegistry meterRegistry) {
+        this.commandHandler = commandHandler;
+        this.properties = properties;
+        this.imported = outcomeCounter(meterRegistry, "imported");
+        this.failed = outcomeCounter(meterRegistry, "failed");
+        this.retriedGroups = Counter.builder("challenges.import.retried-groups")
+                .description("Imported groups that failed and were retried one activity at a time")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Records the group in order, then pauses.
+     *
+     * @return why activities failed, by their index within the group
+     */
+    public Map<Integer, String> importGroup(List<UserActivity> group) {
+        Map<Integer, String> failures = new TreeMap<>();
+        try {
+            commandHandler.handleAll(group);
+        } catch (RuntimeException e) {
+            log.info("Failed to import a group of {} activities, retrying them one by one: {}",
+                    group.size(), messageOf(e));
+            retriedGroups.increment();
+            for (int i = 0; i < group.size(); i++) {
+                try {
+                    commandHandler.handle(group.get(i));
+                } catch (RuntimeException activityFailure) {
+                    failures.put(i, messageOf(activityFailure));
+                }
+            }
+        }
+        imported.increment(group.size() - failures.size());
+        failed.increment(failures.size());
+        pause();
+        return failures;
+    }
+
+    private void pause() {
+        try {
+            Thread.sleep(properties.getPauseBetweenGroups().toMillis());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static String messageOf(RuntimeException e) {
+        return NestedExceptionUtils.getMostSpecificCause(e).getMessage();
+    }
+
+    private static Counter outcomeCounter(MeterRegistry meterRegistry, String outcome) {
+        return Counter.builder("challenges.import.activities")
+                .description("Imported activities by outcome")
+                .tag("outcome", outcome)
+                .register(meterRegistry);
+    }
+}
@@ -0,0 +1,91 @@
+package com.github.hippoom.runner.challenges.application;
+
+import com.github.hippoom.runner.challenges.domain.challenge.ChallengeRepository;
+import com.github.hippoom.runner.challenges.domain.challenge.catalog.ChallengeCatalog;
+import com.github.hippoom.runner.challenges.domain.challenge.catalog.ChallengeCatalogSource;
+import com.github.hippoom.runner.challenges.domain.challenge.catalog.ChallengeDefinition;
+import com.github.hippoom.runner.challenges.domain.challenge.catalog.InvalidChallengeCatalogException;
+import com.github.hippoom.runner.challenges.domain.challenge.progress.ProgressChangeBus;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Compiles the catalog from its source at startup and swaps in a new snapshot whenever the source changes,
+ * so challenges can be added or retuned without a redeploy.
+ * <p>
+ * An invalid catalog fails the startup, but is only logged on reload: the current snapshot keeps serving.
+ */
+@Slf4j
+@Component
+public class ChallengeCatalogReloader implements InitializingBean {
+
+    private final ChallengeCatalogSource source;
+    private final ChallengeRepository challengeRepository;
+    private final ProgressChangeBus progressChangeBus;
+    private final Counter appliedCounter;
+    private final Counter rejectedCounter;
+
+    public ChallengeCatalogReloader(ChallengeCatalogSource source,
+                                    ChallengeRepository challengeRepository,
+                                    ProgressChangeBus progressChangeBus,
+                                    MeterRegistry meterRegistry) {
+        this.source = source;
+        this.challengeRepository = challengeRepository;
+        this.progressChangeBus = progressChangeBus;
+        this.appliedCounter = reloadCounter(meterRegistry, "applied");
+        this.rejectedCounter = reloadCounter(meterRegistry, "rejected");
+    }
+
+    @Override
+    public void afterPropertiesSet() {
+        if (!reload()) {
+            throw new InvalidChallengeCatalogException("No challenges read from " + source.describe());
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${challenges.catalog.poll-interval}",
+               initialDelayString = "${challenges.catalog.poll-interval}")
+    public void reloadSafely() {
+        try {
+            reload();
+        } catch (InvalidChallengeCatalogException e) {
+            rejectedCounter.increment();
+            log.warn("Keeping challenge catalog {}, {} is invalid: {}",
+                    Long.toHexString(challengeRepository.snapshot().getVersion()), source.describe(), e.getMessage());
+        }
+    }
+
+    /**
+     * @return whether the source was read, whether or not the catalog changed
+     */
+    private boolean reload() {
+        Optional<List<ChallengeDefinition>> definitions = source.readIfChanged();
+        if (!definitions.isPresent()) {
+            return false;
+        }
+        ChallengeCatalog catalog = ChallengeCatalog.compile(definitions.get());
+        ChallengeCatalog current = challengeRepository.snapshot();
+        if (catalog.getVersion() != current.getVersion()) {
+            challengeRepository.replace(catalog);
+            appliedCounter.increment();
+            log.info("Loaded challenge catalog {} with {} challenges from {}",
+                    Long.toHexString(catalog.getVersion()), catalog.findAll().size(), source.describe());
+            progressChangeBus.publishAvailabilityChanged();
+        }
+        return true;
+    }
+
+    private static Counter reloadCounter(MeterRegistry meterRegistry, String outcome) {
+        return Counter.builder("challenges.catalog.reloads")
+                .description("Challenge catalogs read from their source, by whether they were applied")
+                .tag("outcome", outcome)
+                .register(meterRegistry);
+    }
+}
@@ -0,0 +1,28 @@
+package com.github.hippoom.runner.challenges.application;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+@Data
+@Component
+@ConfigurationProperties(prefix = "challenges.expiry")
+public class ChallengeExpiryProperties {
+    /**
+     * Granularity of expiry: attempts expire at most this late after their deadline.
+     */
+    private Duration tick;
+    /**
+     * Slots of the timer wheel. Deadlines further than this many ticks away wait for later turns.
+     */
+    private int wheelSize;
+    private int batchSize;
+    private Duration pauseBetweenBatches;
+    private int maxBatchesPerRun;
+    /**
+     * How often every challenge is swept, catching attempts started on other nodes or before a restart.
+     */
+    private Duration sweepInterval;
+}
@@ -0,0 +1,191 @@
+package com.github.hippoom.runner.challenges.application;
+
+import com.github.hippoom.runner.challenges.domain.challenge.ChallengeNumber;
+import com.github.hippoom.runner.challenges.domain.challenge.stats.ChallengeStats;
+import com.github.hippoom.runner.challenges.domain.challenge.stats.ChallengeStatsRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-challenge completion and start counters, served from memory.
+ * <p>
+ * Commands record their effect on the counters within their transaction, which writes the deltas to a table of
+ * their own right before committing, so the deltas commit or roll back with the command and outlive a crash of
+ * the node. Every flush interval the deltas are folded into the stats table in batches, by whichever node gets to
+ * them, and the stats of all nodes are read back. Every reconcile interval the counters are corrected from the
+ * base tables, which catches any drift, e.g. from rows changed by hand.
+ */
+@Slf4j
+@Component
+public class ChallengeStatistics implements InitializingBean, DisposableBean {
+
+    private static final int COMPLETIONS = 0;
+    private static final int COMPLETERS = 1;
+    private static final int STARTERS = 2;
+    private static final int KINDS = 3;
+
+    private final ChallengeStatsRepository challengeStatsRepository;
+    private final Duration flushInterval;
+    private final Duration reconcileInterval;
+    private final int flushBatchSize;
+    private final ScheduledExecutorService flusher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "challenge-stats-flusher");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private volatile Map<Integer, ChallengeStats> current = Collections.emptyMap();
+
+    public ChallengeStatistics(ChallengeStatsRepository challengeStatsRepository,
+                               @Value("${challenges.stats.flush-interval}") Duration flushInterval,
+                               @Value("${challenges.stats.reconcile-interval}") Duration reconcileInterval,
+                               @Value("${challenges.stats.flush-batch-size}") int flushBatchSize) {
+        this.challengeStatsRepository = challengeStatsRepository;
+        this.flushInterval = flushInterval;
+        this.reconcileInterval = reconcileInterval;
+        this.flushBatchSize = flushBatchSize;
+    }
+
+    public ChallengeStats of(ChallengeNumber number) {
+        return current.getOrDefault(number.getValue(), ChallengeStats.NONE);
+    }
+
+    /**
+     * Records that a user started a challenge, leaving the one they had started before, if any.
+     */
+    public void started(ChallengeNumber number, ChallengeNumber previous) {
+        if (number.equals(previous)) {
+            return;
+        }
+        Map<Integer, long[]> deltas = transactionDeltas();
+        deltas.computeIfAbsent(number.getValue(), key -> new long[KINDS])[STARTERS]++;
+        if (previous != null) {
+            deltas.computeIfAbsent(previous.getValue(), key -> new long[KINDS])[STARTERS]--;
+        }
+    }
+
+    /**
+     * Records a completion, which is the user's first one of the challenge unless {@code repeated}.
+     */
+    public void completed(ChallengeNumber number, boolean repeated) {
+        long[] delta = transactionDeltas().computeIfAbsent(number.getValue(), key -> new long[KINDS]);
+        delta[COMPLETIONS]++;
+        if (!repeated) {
+            delta[COMPLETERS]++;
+        }
+    }
+
+    @Override
+    public void afterPropertiesSet() {
+        flusher.execute(this::refreshSafely);
+        flusher.scheduleWithFixedDelay(this::flushSafely,
+                flushInterval.toMillis(), flushInterval.toMillis(), TimeUnit.MILLISECONDS);
+        flusher.scheduleWithFixedDelay(this::reconcileSafely,
+                reconcileInterval.toMillis(), reconcileInterval.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public void destroy() throws InterruptedException {
+        // Deltas are in the database already, whatever is left is folded by the next flush of any node
+        flusher.shutdown();
+        flusher.awaitTermination(flushInterval.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Folds the committed deltas into the counters, a batch per statement, then reads the counters back.
+     */
+    void flush() {
+        while (challengeStatsRepository.fold(flushBatchSize) == flushBatchSize) {
+            log.debug("Folded a full batch of challenge stats deltas, folding the next one");
+        }
+        refresh();
+    }
+
+    void reconcile() {
+        challengeStatsRepository.reconcile();
+        refresh();
+    }
+
+    private void refresh() {
+        current = Collections.unmodifiableMap(challengeStatsRepository.findAll());
+    }
+
+    private Map<Integer, long[]> transactionDeltas() {
+        @SuppressWarnings("unchecked")
+        Map<Integer, long[]> deltas = (Map<Integer, long[]>) TransactionSynchronizationManager.getResource(this);
+        if (deltas != null) {
+            return deltas;
+        }
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            throw new IllegalStateException("Challenge statistics must be recorded within a transaction");
+        }
+        Map<Integer, long[]> newDeltas = new HashMap<>();
+        TransactionSynchronizationManager.bindResource(this, newDeltas);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void beforeCommit(boolean readOnly) {
+                record(newDeltas);
+            }
+
+            @Override
+            public void afterCompletion(int status) {
+                TransactionSynchronizationManager.unbindResource(ChallengeStatistics.this);
+            }
+        });
+        return newDeltas;
+    }
+
+    private void record(Map<Integer, long[]> deltas) {
+        deltas.values().removeIf(delta -> delta[COMPLETIONS] == 0 && delta[COMPLETERS] == 0 && delta[STARTERS] == 0);
+        if (deltas.isEmpty()) {
+            return;
+        }
+        int[] numbers = new int[deltas.size()];
+        long[][] columns = new long[KINDS][deltas.size()];
+        int i = 0;
+        for (Map.Entry<Integer, long[]> entry : deltas.entrySet()) {
+            numbers[i] = entry.getKey();
+            for (int kind = 0; kind < KINDS; kind++) {
+                columns[kind][i] = entry.getValue()[kind];
+            }
+            i++;
+        }
+        challengeStatsRepository.recordDeltas(numbers, columns[COMPLETIONS], columns[COMPLETERS], columns[STARTERS]);
+    }
+
+    private void flushSafely() {
+        try {
+            flush();
+        } catch (RuntimeException e) {
+            log.warn("Failed to flush challenge statistics, retrying later", e);
+        }
+    }
+
+    private void refreshSafely() {
+        try {
+            refresh();
+        } catch (RuntimeException e) {
+            log.warn("Failed to load challenge statistics", e);
+        }
+    }
+
+    private void reconcileSafely() {
+        try {
+            reconcile();
+        } catch (RuntimeException e) {
+            log.warn("Failed to reconcile challenge statistics", e);
+        }
+    }
+}
@@ -0,0 +1,128 @@
+package com.github.hippoom.runner.challenges.application;
+
+import com.github.hippoom.runner.challenges.domain.challenge.progress.ProgressChangeBus;
+import com.github.hippoom.runner.challenges.domain.challenge.progress.ProgressChangeListener;
+import com.github.hippoom.runner.challenges.domain.challenge.progress.ProgressChanged;
+import com.github.hippoom.runner.challenges.domain.challenge.progress.UserProgress;
+import com.github.hippoom.runner.challenges.domain.challenge.progress.UserProgressLoader;
+import com.github.hippoom.runner.challenges.domain.user.UserId;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Lets concurrent reads of the same user's progress share one in-flight load.
+ * <p>
+ * The first caller loads, everyone arriving while that load is running waits for its result.
+ * A waiter gives up after {@code max-wait} (or when the shared load fails) and loads on its own,
+ * so a slow leader never turns into a slow follower. A change of the user reported by the {@link ProgressChangeBus}
+ * detaches the load in flight, so that callers arriving after the change start a fresh one rather than join a load
+ * that may predate it. Loaded progress is kept in the {@link UserProgressCache} until a change is reported. Only use
+ * it for reads: a joined or cached load may predate the caller's request by the time the bus takes to report it.
+ */
+@Slf4j
+@Component
+public class CoalescingUserProgressLoader implements ProgressChangeListener {
+
+    private final UserProgressLoader userProgressLoader;
+    private final UserProgressCache userProgressCache;
+    private final Duration maxWait;
+    private final ConcurrentMap<UserId, CompletableFuture<UserProgress>> inFlight = new ConcurrentHashMap<>();
+    private final Counter cachedLoads;
+    private final Counter leaderLoads;
+    private final Counter coalescedLoads;
+    private final Counter fallbackLoads;
+
+    public CoalescingUserProgressLoader(UserProgressLoader userProgressLoader,
+                                        UserProgressCache userProgressCache,
+                                        ProgressChangeBus progressChangeBus,
+                                        @Value("${challenges.progress.coalescing.max-wait:500ms}") Duration maxWait,
+                                        MeterRegistry meterRegistry) {
+        this.userProgressLoader = userProgressLoader;
+        this.userProgressCache = userProgressCache;
+        this.maxWait = maxWait;
+        this.cachedLoads = loadCounter(meterRegistry, "cached");
+        this.leaderLoads = loadCounter(meterRegistry, "leader");
+        this.coalescedLoads = loadCounter(meterRegistry, "coalesced");
+        this.fallbackLoads = loadCounter(meterRegistry, "fallback");
+        progressChangeBus.subscribe(this);
+    }
+
+    public UserProgress load(UserId userId) {
+        UserProgress cached = userProgressCache.get(userId);
+        if (cached != null) {
+            cachedLoads.increment();
+            return cached;
+        }
+        CompletableFuture<UserProgress> mine = new CompletableFuture<>();
+        CompletableFuture<UserProgress> leading = inFlight.putIfAbsent(userId, mine);
+        if (leading == null) {
+            return lead(userId, mine);
+        }
+        return follow(userId, leading);
+    }
+
+    @Override
+    public void onProgressChanged(ProgressChanged change) {
+        // The load keeps running for the callers that joined it before the change
+        inFlight.remove(change.getUserId());
+    }
+
+    @Override
+    public void onChangesMissed() {
+        inFlight.clear();
+    }
+
+    @Override
+    public void onAvailabilityChanged() {
+        // Availability is not loaded, only progress
+    }
+
+    private UserProgress lead(UserId userId, CompletableFuture<UserProgress> mine) {
+        leaderLoads.increment();
+        try {
+            long epoch = userProgressCache.epoch(userId);
+            UserProgress progress = userProgressLoader.load(userId);
+            userProgressCache.put(progress, epoch);
+            mine.complete(progress);
+            return progress;
+        } catch (RuntimeException e) {
+            mine.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(userId, mine);
+        }
+    }
+
+    private UserProgress follow(UserId userId, CompletableFuture<UserProgress> leading) {
+        try {
+            UserProgress progress = leading.get(maxWait.toMillis(), TimeUnit.MILLISECONDS);
+            coalescedLoads.increment();
+            return progress;
+        } catch (TimeoutException | ExecutionException e) {
+            log.debug("Falling back to own progress load of {}: {}", userId, e.toString());
+            fallbackLoads.increment();
+            return userProgressLoader.load(userId);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for progress of " + userId, e);
+        }
+    }
+
+    private static Counter loadCounter(MeterRegistry meterRegistry, String role) {
+        return Counter.builder("challenges.progress.loads")
+                .description("Per-user progress loads by whether they hit the database or joined one in flight")
+                .tag("role", role)
+                .register(meterRegistry);
+    }
+}
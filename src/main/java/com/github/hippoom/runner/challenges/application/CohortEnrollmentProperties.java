@@ -0,0 +1,20 @@
+package com.github.hippoom.runner.challenges.application;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+@Data
+@Component
+@ConfigurationProperties(prefix = "challenges.enrollment")
+public class CohortEnrollmentProperties {
+    /**
+     * Users enrolled per transaction. Their lock stripes are held until the batch commits, blocking live commands
+     * of the users sharing them, so batches are kept small.
+     */
+    private int batchSize;
+    /**
+     * Users enrolled by one request at most.
+     */
+    private int maxCohortSize;
+}
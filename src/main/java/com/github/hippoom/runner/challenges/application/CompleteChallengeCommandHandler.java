@@ -1,53 +1,104 @@
 package com.github.hippoom.runner.challenges.application;
 
+import com.github.hippoom.runner.challenges.domain.activity.ProcessedActivityRepository;
 import com.github.hippoom.runner.challenges.domain.activity.UserActivity;
+import com.github.hippoom.runner.challenges.domain.activity.UserActivityTotals;
+import com.github.hippoom.runner.challenges.domain.activity.UserActivityTotalsRepository;
 import com.github.hippoom.runner.challenges.domain.challenge.Challenge;
 import com.github.hippoom.runner.challenges.domain.challenge.completion.ChallengeCompletionSpecification;
 import com.github.hippoom.runner.challenges.domain.challenge.ChallengeRepository;
 import com.github.hippoom.runner.challenges.domain.challenge.progress.CompletedChallenge;
 import com.github.hippoom.runner.challenges.domain.challenge.progress.CompletedChallengeRepository;
+import com.github.hippoom.runner.challenges.domain.challenge.progress.ProgressChangePublisher;
 import com.github.hippoom.runner.challenges.domain.challenge.progress.StartedChallenge;
 import com.github.hippoom.runner.challenges.domain.challenge.progress.StartedChallengeRepository;
+import com.github.hippoom.runner.challenges.domain.challenge.progress.UserProgressRecord;
+import com.github.hippoom.runner.challenges.domain.challenge.progress.UserProgressRecordRepository;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.util.List;
 import java.util.Optional;
-import java.util.UUID;
 
+@Slf4j
 @Service
 @RequiredArgsConstructor
 public class CompleteChallengeCommandHandler {
 
-    private final StartedChallengeRepository startedChallengeRepository;
+    private final UserProgressRecordRepository userProgressRecordRepository;
     private final ChallengeRepository challengeRepository;
     private final CompletedChallengeRepository completedChallengeRepository;
+    private final StartedChallengeRepository startedChallengeRepository;
+    private final ProcessedActivityRepository processedActivityRepository;
     private final ChallengeCompletionSpecification completionSpecification;
+    private final UserActivityTotalsRepository userActivityTotalsRepository;
+    private final ProgressChangePublisher progressChangePublisher;
+    private final ChallengeStatistics challengeStatistics;
+    private final TeamDistanceAccumulators teamDistanceAccumulators;
+    private final UserCommandLocks userCommandLocks;
+    private final TransactionTemplate transactionTemplate;
 
-    @Transactional
     public void handle(UserActivity userActivity) {
-        // 1. Load required entities early
-        Optional<StartedChallenge> maybeStarted = startedChallengeRepository.findById(userActivity.getUserId());
-        if (!maybeStarted.isPresent()) {
+        // Serialize commands of the same user before the transaction takes a connection
+        userCommandLocks.runWithLock(userActivity.getUserId(),
+                () -> transactionTemplate.executeWithoutResult(status -> doHandle(userActivity)));
+    }
+
+    /**
+     * Handles activities in order within a single transaction, for bulk imports: either all of them are recorded
+     * or none is.
+     * <p>
+     * No user lock is held, which would stall the live commands of every stripe the group touches. The versions
+     * of the users' rows catch a live command racing the group instead, failing the group, which is then to be
+     * retried an activity at a time with {@link #handle}. Activities the live command recorded meanwhile are
+     * skipped by their ids.
+     */
+    public void handleAll(List<UserActivity> userActivities) {
+        transactionTemplate.executeWithoutResult(status -> userActivities.forEach(this::doHandle));
+    }
+
+    private void doHandle(UserActivity userActivity) {
+        // 1. Record an activity once however many times it is delivered: the claim commits or rolls back with it
+        if (!processedActivityRepository.claim(userActivity)) {
+            log.debug("Skipped activity {} of user {}, already recorded",
+                    userActivity.getId(), userActivity.getUserId().getValue());
+            return;
+        }
+        if (userActivity.getMetricSummary() != null) {
+            teamDistanceAccumulators.record(userActivity);
+        }
+
+        // 2. Load required entities early, keeping the totals of the started attempt up to date
+        UserProgressRecord record = userProgressRecordRepository.getOrCreate(userActivity.getUserId());
+        Optional<StartedChallenge> started = record.getStartedChallenge() == null
+                ? Optional.empty() : startedChallengeRepository.findById(userActivity.getUserId());
+        if (started.isEmpty()) {
             return; // No started challenge to complete
         }
 
-        StartedChallenge startedChallenge = maybeStarted.get();
-        Challenge challenge = challengeRepository.getOrThrow(startedChallenge.getNumber());
+        Challenge challenge = challengeRepository.getOrThrow(record.getStartedChallenge());
+        UserActivityTotals totals = userActivityTotalsRepository.getOrCreate(userActivity.getUserId());
+        totals.record(userActivity, started.get().getWhen());
+        totals = userActivityTotalsRepository.save(totals);
 
-        // 2. Validate preconditions early - using clean polymorphic approach
-        if (!completionSpecification.canBeCompletedBy(challenge, userActivity)) {
+        // 3. Validate preconditions early - using clean polymorphic approach
+        if (!completionSpecification.canBeCompletedBy(challenge, userActivity, totals)) {
             return; // Criteria not met
         }
 
-        // 3. Execute business logic
+        // 4. Execute business logic
         CompletedChallenge completedChallenge = new CompletedChallenge();
         completedChallenge.setUserId(userActivity.getUserId());
         completedChallenge.setNumber(challenge.getNumber());
-        completedChallenge.setActivityId(UUID.randomUUID().toString());
+        completedChallenge.setActivityId(userActivity.getId());
         completedChallenge.setWhen(userActivity.getWhen());
+        boolean repeated = record.complete(challenge.getNumber());
 
-        // 4. Persist changes
+        // 5. Persist changes
         completedChallengeRepository.save(completedChallenge);
+        challengeStatistics.completed(challenge.getNumber(), repeated);
+        progressChangePublisher.publishAfterCommit(userProgressRecordRepository.save(record));
     }
 }
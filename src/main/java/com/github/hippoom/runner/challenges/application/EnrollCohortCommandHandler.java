@@ -0,0 +1,124 @@
+package com.github.hippoom.runner.challenges.application;
+
+import com.github.hippoom.runner.challenges.command.EnrollCohortCommand;
+import com.github.hippoom.runner.challenges.domain.challenge.Challenge;
+import com.github.hippoom.runner.challenges.domain.challenge.ChallengeRepository;
+import com.github.hippoom.runner.challenges.domain.challenge.availability.ChallengeUnavailableException;
+import com.github.hippoom.runner.challenges.domain.challenge.availability.StartChallengeSpecification;
+import com.github.hippoom.runner.challenges.domain.challenge.progress.ProgressChangePublisher;
+import com.github.hippoom.runner.challenges.domain.challenge.progress.UserProgress;
+import com.github.hippoom.runner.challenges.domain.challenge.progress.UserProgressLoader;
+import com.github.hippoom.runner.challenges.domain.user.UserId;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Starts a challenge for a whole cohort of users, e.g. a running club enrolled by its coach.
+ * <p>
+ * Users are processed in small batches, each batch in its own transaction: one query loads the progress of
+ * the whole batch, availability is checked in memory and the started challenges and progress rows are
+ * written with an upsert each. A batch holds the lock stripes of its users only for its own short transaction,
+ * so live commands of the cohort, and of the users sharing their stripes, wait for one batch at most.
+ */
+@Service
+@RequiredArgsConstructor
+public class EnrollCohortCommandHandler {
+
+    private static final String UPSERT_STARTED = "INSERT INTO started_challenge (user_id, challenge_number, when_) "
+            + "SELECT user_id, ?, ? FROM unnest(?::uuid[]) AS started(user_id) "
+            + "ON CONFLICT (user_id) DO UPDATE "
+            + "SET challenge_number = EXCLUDED.challenge_number, when_ = EXCLUDED.when_";
+
+    private static final String UPSERT_PROGRESS = "INSERT INTO user_progress "
+            + "(user_id, completed, started_challenge, version) "
+            + "SELECT user_id, ''::bytea, ?, 0 FROM unnest(?::uuid[]) AS started(user_id) "
+            + "ON CONFLICT (user_id) DO UPDATE "
+            + "SET started_challenge = EXCLUDED.started_challenge, version = user_progress.version + 1 "
+            + "RETURNING user_id, version";
+
+    private final ChallengeRepository challengeRepository;
+    private final StartChallengeSpecification specification;
+    private final UserProgressLoader userProgressLoader;
+    private final ProgressChangePublisher progressChangePublisher;
+    private final ChallengeStatistics challengeStatistics;
+    private final UserCommandLocks userCommandLocks;
+    private final TransactionTemplate transactionTemplate;
+    private final JdbcTemplate jdbcTemplate;
+    private final CohortEnrollmentProperties properties;
+    private final StartedChallengeExpiry startedChallengeExpiry;
+
+    public List<EnrollmentOutcome> handle(EnrollCohortCommand command) {
+        Challenge challenge = challengeRepository.getOrThrow(command.getChallengeNumber());
+        List<UserId> userIds = new ArrayList<>(new LinkedHashSet<>(command.getUserIds()));
+
+        List<EnrollmentOutcome> outcomes = new ArrayList<>(userIds.size());
+        int batchSize = properties.getBatchSize();
+        for (int from = 0; from < userIds.size(); from += batchSize) {
+            List<UserId> batch = userIds.subList(from, Math.min(from + batchSize, userIds.size()));
+            // Hold the batch's lock stripes so single-user commands cannot interleave with the batch
+            outcomes.addAll(userCommandLocks.callWithLocks(batch,
+                    () -> transactionTemplate.execute(status -> enroll(challenge, batch))));
+        }
+        return outcomes;
+    }
+
+    private List<EnrollmentOutcome> enroll(Challenge challenge, List<UserId> batch) {
+        // 1. Load required entities early, for the whole batch at once
+        Map<UserId, UserProgress> progresses = userProgressLoader.loadAll(batch);
+
+        // 2. Validate preconditions per user
+        List<EnrollmentOutcome> outcomes = new ArrayList<>(batch.size());
+        List<UserId> starting = new ArrayList<>(batch.size());
+        for (UserProgress progress : progresses.values()) {
+            EnrollmentOutcome outcome = outcomeOf(challenge, progress);
+            outcomes.add(outcome);
+            if (outcome.getStatus() == EnrollmentOutcome.Status.STARTED) {
+                starting.add(progress.getUserId());
+                challengeStatistics.started(challenge.getNumber(), progress.getStarted());
+            }
+        }
+        if (starting.isEmpty()) {
+            return outcomes;
+        }
+
+        // 3. Persist changes with a single upsert, replacing any other started challenge as a single start does
+        String[] values = starting.stream().map(UserId::getValue).toArray(String[]::new);
+        Instant now = Instant.now();
+        jdbcTemplate.update(UPSERT_STARTED, challenge.getNumber().getValue(), Timestamp.from(now), (Object) values);
+        Map<UserId, Long> versions = new HashMap<>(values.length * 2);
+        RowCallbackHandler versionHandler = rs ->
+                versions.put(UserId.of(rs.getString("user_id")), rs.getLong("version"));
+        jdbcTemplate.query(UPSERT_PROGRESS, versionHandler, challenge.getNumber().getValue(), values);
+        progressChangePublisher.publishAfterCommit(versions);
+        startedChallengeExpiry.scheduleExpiry(challenge, now);
+        return outcomes;
+    }
+
+    private EnrollmentOutcome outcomeOf(Challenge challenge, UserProgress progress) {
+        if (progress.hasStarted(challenge.getNumber())) {
+            return new EnrollmentOutcome(progress.getUserId(), EnrollmentOutcome.Status.ALREADY_STARTED, null);
+        }
+        if (specification.test(challenge, progress)) {
+            return new EnrollmentOutcome(progress.getUserId(), EnrollmentOutcome.Status.STARTED, null);
+        }
+        // Only users who cannot start pay for the exception carrying the reason
+        try {
+            specification.validate(challenge, progress);
+            throw new IllegalStateException("Challenge " + challenge.getNumber().getValue()
+                    + " failed availability test but passed validation");
+        } catch (ChallengeUnavailableException e) {
+            return new EnrollmentOutcome(progress.getUserId(), EnrollmentOutcome.Status.UNAVAILABLE, e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,21 @@
+package com.github.hippoom.runner.challenges.application;
+
+import com.github.hippoom.runner.challenges.domain.user.UserId;
+import lombok.Value;
+
+@Value
+public class EnrollmentOutcome {
+
+    public enum Status {
+        STARTED,
+        ALREADY_STARTED,
+        UNAVAILABLE
+    }
+
+    private final UserId userId;
+    private final Status status;
+    /**
+     * Why the challenge is unavailable to the user, {@code null} otherwise.
+     */
+    private final String reason;
+}
@@ -0,0 +1,115 @@
+package com.github.hippoom.runner.challenges.application;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.stereotype.Component;
+
+import java.util.Optional;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Runs the independent data loads of a request at the same time, so the request waits for the slowest of them
+ * rather than their sum.
+ * <p>
+ * Loads run on a dedicated bounded pool, each with a deadline counted from its submission. A load that fails,
+ * misses its deadline or finds the pool saturated yields nothing and the request degrades the parts depending
+ * on it instead of failing. A missed load is abandoned, not interrupted: the pool size bounds how many of those
+ * can pile up.
+ */
+@Slf4j
+@Component
+public class FanOutLoader implements DisposableBean {
+
+    private final ThreadPoolExecutor executor;
+    private final long timeoutNanos;
+    private final MeterRegistry meterRegistry;
+
+    public FanOutLoader(FanOutProperties properties, MeterRegistry meterRegistry) {
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(properties.getThreads(), properties.getThreads(),
+                0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(properties.getQueueCapacity()),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "fan-out-" + threadNumber.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        this.timeoutNanos = properties.getTimeout().toNanos();
+        this.meterRegistry = meterRegistry;
+    }
+
+    /**
+     * Starts a load. Submit every load of a request before awaiting any of them.
+     *
+     * @param branch names the load in the {@code challenges.fan-out.loads} timer
+     */
+    public <T> Branch<T> submit(String branch, Supplier<T> loader) {
+        long submittedAt = System.nanoTime();
+        try {
+            return new Branch<>(branch, executor.submit(loader::get), submittedAt);
+        } catch (RejectedExecutionException e) {
+            return new Branch<>(branch, null, submittedAt);
+        }
+    }
+
+    @Override
+    public void destroy() {
+        executor.shutdownNow();
+    }
+
+    public final class Branch<T> {
+
+        private final String name;
+        private final Future<T> future;
+        private final long submittedAt;
+
+        private Branch(String name, Future<T> future, long submittedAt) {
+            this.name = name;
+            this.future = future;
+            this.submittedAt = submittedAt;
+        }
+
+        /**
+         * Waits for the load until its deadline.
+         *
+         * @return what was loaded, or nothing if the load failed, timed out or was rejected
+         */
+        public Optional<T> await() {
+            if (future == null) {
+                return finish("rejected", null);
+            }
+            try {
+                long remaining = submittedAt + timeoutNanos - System.nanoTime();
+                return finish("success", future.get(Math.max(0, remaining), TimeUnit.NANOSECONDS));
+            } catch (TimeoutException e) {
+                return finish("timeout", null);
+            } catch (ExecutionException e) {
+                log.warn("Load of {} failed", name, e.getCause());
+                return finish("failed", null);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return finish("interrupted", null);
+            }
+        }
+
+        private Optional<T> finish(String outcome, T value) {
+            Timer.builder("challenges.fan-out.loads")
+                    .description("Data loads of requests, from submission until awaited or abandoned")
+                    .tag("branch", name)
+                    .tag("outcome", outcome)
+                    .register(meterRegistry)
+                    .record(System.nanoTime() - submittedAt, TimeUnit.NANOSECONDS);
+            return Optional.ofNullable(value);
+        }
+    }
+}
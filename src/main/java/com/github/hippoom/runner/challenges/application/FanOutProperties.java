@@ -0,0 +1,25 @@
+package com.github.hippoom.runner.challenges.application;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+@Data
+@Component
+@ConfigurationProperties(prefix = "challenges.fan-out")
+public class FanOutProperties {
+    /**
+     * Threads running the loads of all requests. Loads beyond them wait in a queue of {@link #queueCapacity}.
+     */
+    private int threads;
+    /**
+     * Loads waiting for a thread before further ones are rejected, degrading their requests.
+     */
+    private int queueCapacity;
+    /**
+     * How long a request waits for a load, counted from when it was submitted.
+     */
+    private Duration timeout;
+}
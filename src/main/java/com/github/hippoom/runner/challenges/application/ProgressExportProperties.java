@@ -0,0 +1,19 @@
+package com.github.hippoom.runner.challenges.application;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+@Data
+@Component
+@ConfigurationProperties(prefix = "challenges.export")
+public class ProgressExportProperties {
+    /**
+     * Rows fetched from the server-side cursor at a time, which bounds the rows held in memory by an export.
+     */
+    private int fetchSize;
+    /**
+     * Exports running at once, each holding a database connection of its own for its whole duration.
+     */
+    private int maxConcurrentExports;
+}
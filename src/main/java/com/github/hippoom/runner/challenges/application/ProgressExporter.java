@@ -0,0 +1,150 @@
+package com.github.hippoom.runner.challenges.application;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.SimpleDriverDataSource;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Streams whole progress tables in constant memory, for bulk exports.
+ * <p>
+ * Rows are read through a server-side cursor, a fetch size at a time, within a read-only transaction, and handed
+ * to the writer as they are fetched. An export runs on a connection of its own, opened for it outside the
+ * application's pool, so a long export neither holds a pooled connection nor competes with API requests for one.
+ * <p>
+ * Exports are incremental on {@code when_}: rows are not ordered, so the watermark of the next export is the
+ * latest {@code when_} exported. {@code when_} is the time of the activity or start rather than of the commit, so
+ * incremental exports should overlap a little and deduplicate on the rows' keys.
+ */
+@Slf4j
+@Component
+public class ProgressExporter {
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final Map<Dataset, Counter> exported = new EnumMap<>(Dataset.class);
+
+    public ProgressExporter(DataSourceProperties dataSourceProperties,
+                            ProgressExportProperties properties,
+                            MeterRegistry meterRegistry) {
+        DataSource dataSource = dataSourceProperties.initializeDataSourceBuilder()
+                .type(SimpleDriverDataSource.class)
+                .build();
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.jdbcTemplate.setFetchSize(properties.getFetchSize());
+        // The PostgreSQL driver only fetches through a cursor outside of auto-commit
+        this.transactionTemplate = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+        this.transactionTemplate.setReadOnly(true);
+        for (Dataset dataset : Dataset.values()) {
+            exported.put(dataset, Counter.builder("challenges.export.rows")
+                    .description("Rows written by bulk exports")
+                    .tag("dataset", dataset.getPath())
+                    .register(meterRegistry));
+        }
+    }
+
+    /**
+     * Hands every row of the dataset, or those after the watermark if there is one, to the writer as they are
+     * read, and returns how many there were. Fails with an {@link UncheckedIOException} when the writer fails.
+     */
+    public long export(Dataset dataset, Instant since, RowWriter writer) {
+        long started = System.nanoTime();
+        Object[] values = new Object[dataset.getColumns().length];
+        long[] rows = new long[1];
+        RowCallbackHandler handler = rs -> write(rs, values, writer, rows);
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                if (since == null) {
+                    jdbcTemplate.query(dataset.getSql(), handler);
+                } else {
+                    jdbcTemplate.query(dataset.getSql() + " WHERE when_ > ?", handler, Timestamp.from(since));
+                }
+            });
+        } finally {
+            exported.get(dataset).increment(rows[0]);
+        }
+        log.info("Exported {} rows of {} since {} in {} ms",
+                rows[0], dataset.getPath(), since, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started));
+        return rows[0];
+    }
+
+    private static void write(ResultSet rs, Object[] values, RowWriter writer, long[] rows) throws SQLException {
+        for (int i = 0; i < values.length; i++) {
+            Object value = rs.getObject(i + 1);
+            if (value instanceof Timestamp) {
+                values[i] = ((Timestamp) value).toInstant();
+            } else if (value instanceof UUID) {
+                values[i] = value.toString();
+            } else {
+                values[i] = value;
+            }
+        }
+        try {
+            writer.write(values);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        rows[0]++;
+    }
+
+    @Getter
+    public enum Dataset {
+        // Archived completions are history too
+        COMPLETIONS("completions",
+                "SELECT id, user_id, challenge_number, activity_id, when_ FROM ("
+                + "SELECT id, user_id, challenge_number, activity_id, when_ FROM challenge_completed"
+                + " UNION ALL SELECT id, user_id, challenge_number, activity_id, when_ FROM challenge_completed_archive"
+                + ") completions",
+                "id", "user_id", "challenge_number", "activity_id", "completed_at"),
+        STARTED("started",
+                "SELECT user_id, challenge_number, when_ FROM started_challenge",
+                "user_id", "challenge_number", "started_at");
+
+        private final String path;
+        private final String sql;
+        private final String[] columns;
+
+        Dataset(String path, String sql, String... columns) {
+            this.path = path;
+            this.sql = sql;
+            this.columns = columns;
+        }
+
+        public static Dataset of(String path) {
+            for (Dataset dataset : values()) {
+                if (dataset.path.equals(path)) {
+                    return dataset;
+                }
+            }
+            throw new IllegalArgumentException("No dataset " + path);
+        }
+    }
+
+    @FunctionalInterface
+    public interface RowWriter {
+        /**
+         * Writes a row, its values in the order of the dataset's columns: Strings for ids, Integers and
+         * Instants. The array is reused for the next row.
+         */
+        void write(Object[] values) throws IOException;
+    }
+}
@@ -0,0 +1,208 @@
+package com.github.hippoom.runner.challenges.application;
+
+import com.github.hippoom.runner.challenges.domain.activity.ProcessedActivityRepository;
+import com.github.hippoom.runner.challenges.domain.challenge.progress.ProgressChangePublisher;
+import com.github.hippoom.runner.challenges.domain.user.UserId;
+import com.github.hippoom.runner.challenges.domain.user.UuidStringType;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.Value;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Moves stale progress rows into archive tables so the hot tables stay small.
+ * <p>
+ * Rows are moved oldest first in bounded batches, keyset-paginated on ({@code when_}, key). Every batch is a
+ * single statement in its own transaction, and batches are separated by a pause, so the job never holds locks
+ * for long. A batch skips the rows it archives when another transaction locked them, but not the
+ * {@code user_progress} and {@code challenge_stats} rows updated for archived started challenges: it waits for
+ * a foreground command or a stats fold holding one of them to commit.
+ * <p>
+ * Every completion past the horizon is archived, prerequisites being evaluated against {@code user_progress}
+ * which keeps its bit, and the completion history and exports reading the archive too. Archived started
+ * challenges are cleared from {@code user_progress} and taken off the challenge stats' starters by the same
+ * statement, and the change is published on the progress change bus once the batch commits, so that progress
+ * streams and cached listings stop showing them as started.
+ * <p>
+ * Ids of activities recorded before the processed activity horizon are forgotten the same way, in batches.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(prefix = "challenges.retention", name = "enabled", havingValue = "true")
+public class ProgressRetentionJob {
+
+    private static final String ARCHIVE_STARTED_BATCH =
+            "WITH batch AS ("
+            + "  SELECT user_id FROM started_challenge"
+            + "  WHERE when_ < ? AND (when_, user_id) > (?, ?)"
+            + "  ORDER BY when_, user_id LIMIT ? FOR UPDATE SKIP LOCKED"
+            + "), moved AS ("
+            + "  DELETE FROM started_challenge s USING batch b WHERE s.user_id = b.user_id"
+            + "  RETURNING s.user_id, s.challenge_number, s.when_"
+            + "), counted AS ("
+            + "  UPDATE challenge_stats st SET starters = st.starters - m.starters"
+            + "  FROM (SELECT challenge_number, count(*) AS starters FROM moved GROUP BY challenge_number) m"
+            + "  WHERE st.challenge_number = m.challenge_number"
+            + "), cleared AS ("
+            + "  UPDATE user_progress p SET started_challenge = NULL, version = p.version + 1"
+            + "  FROM moved m WHERE p.user_id = m.user_id AND p.started_challenge = m.challenge_number"
+            + "  RETURNING p.user_id, p.version"
+            + "), archived AS ("
+            + "  INSERT INTO started_challenge_archive (user_id, challenge_number, when_, archived_at)"
+            + "  SELECT user_id, challenge_number, when_, now() FROM moved"
+            + "  RETURNING when_, user_id"
+            + ") SELECT a.when_ AS last_when, a.user_id AS last_key, count(*) OVER () AS size, c.user_id, c.version"
+            + " FROM archived a LEFT JOIN cleared c ON c.user_id = a.user_id"
+            + " ORDER BY a.when_ DESC, a.user_id DESC";
+
+    private static final String ARCHIVE_COMPLETED_BATCH =
+            "WITH batch AS ("
+            + "  SELECT c.id FROM challenge_completed c"
+            + "  WHERE c.when_ < ? AND (c.when_, c.id) > (?, ?)"
+            + "  ORDER BY c.when_, c.id LIMIT ? FOR UPDATE SKIP LOCKED"
+            + "), moved AS ("
+            + "  DELETE FROM challenge_completed c USING batch b WHERE c.id = b.id"
+            + "  RETURNING c.id, c.user_id, c.challenge_number, c.activity_id, c.when_"
+            + "), archived AS ("
+            + "  INSERT INTO challenge_completed_archive"
+            + "  (id, user_id, challenge_number, activity_id, when_, archived_at)"
+            + "  SELECT id, user_id, challenge_number, activity_id, when_, now() FROM moved"
+            + "  RETURNING when_, id"
+            + ") SELECT when_ AS last_when, id AS last_key, count(*) OVER () AS size,"
+            + " NULL AS user_id, NULL::bigint AS version"
+            + " FROM archived ORDER BY when_ DESC, id DESC LIMIT 1";
+
+    private static final String LOWEST_KEY = "00000000-0000-0000-0000-000000000000";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ProcessedActivityRepository processedActivityRepository;
+    private final ProgressChangePublisher progressChangePublisher;
+    private final ProgressRetentionProperties properties;
+    private final Counter archivedStarted;
+    private final Counter archivedCompleted;
+
+    public ProgressRetentionJob(JdbcTemplate jdbcTemplate,
+                                TransactionTemplate transactionTemplate,
+                                ProcessedActivityRepository processedActivityRepository,
+                                ProgressChangePublisher progressChangePublisher,
+                                ProgressRetentionProperties properties,
+                                MeterRegistry meterRegistry) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.processedActivityRepository = processedActivityRepository;
+        this.progressChangePublisher = progressChangePublisher;
+        this.properties = properties;
+        this.archivedStarted = archivedCounter(meterRegistry, "started_challenge");
+        this.archivedCompleted = archivedCounter(meterRegistry, "challenge_completed");
+    }
+
+    @Scheduled(fixedDelayString = "${challenges.retention.interval:PT1H}",
+               initialDelayString = "${challenges.retention.initial-delay:PT5M}")
+    public void run() {
+        Instant now = Instant.now();
+        int started = archive(ARCHIVE_STARTED_BATCH, now.minus(properties.getStartedMaxAge()), archivedStarted);
+        int completed = archive(ARCHIVE_COMPLETED_BATCH, now.minus(properties.getCompletedHorizon()),
+                archivedCompleted);
+        int forgotten = pruneProcessedActivities(now.minus(properties.getProcessedActivityHorizon()));
+        log.info("Archived {} started challenges and {} completions, forgot {} processed activities",
+                started, completed, forgotten);
+    }
+
+    private int pruneProcessedActivities(Instant processedBefore) {
+        int total = 0;
+        for (int batch = 0; batch < properties.getMaxBatchesPerRun(); batch++) {
+            int pruned = processedActivityRepository.pruneBatch(processedBefore, properties.getBatchSize());
+            total += pruned;
+            if (pruned < properties.getBatchSize() || !pause()) {
+                break;
+            }
+        }
+        return total;
+    }
+
+    private int archive(String batchSql, Instant olderThan, Counter archivedCounter) {
+        Timestamp cutoff = Timestamp.from(olderThan);
+        Timestamp lastWhen = new Timestamp(0);
+        String lastKey = LOWEST_KEY;
+        int total = 0;
+
+        for (int batch = 0; batch < properties.getMaxBatchesPerRun(); batch++) {
+            Timestamp after = lastWhen;
+            String afterKey = lastKey;
+            Batch last = transactionTemplate.execute(status -> archiveBatch(batchSql, cutoff, after, afterKey));
+            if (last == null) {
+                break;
+            }
+            total += last.getSize();
+            archivedCounter.increment(last.getSize());
+            if (last.getSize() < properties.getBatchSize()) {
+                break;
+            }
+            lastWhen = last.getLastWhen();
+            lastKey = last.getLastKey();
+            if (!pause()) {
+                break;
+            }
+        }
+        return total;
+    }
+
+    /**
+     * Moves a batch, publishing the progress changes of users whose started challenge it cleared once it commits.
+     *
+     * @return the keyset position after the batch, or null if nothing was left to move
+     */
+    private Batch archiveBatch(String batchSql, Timestamp cutoff, Timestamp lastWhen, String lastKey) {
+        Map<UserId, Long> versions = new HashMap<>();
+        Batch[] last = new Batch[1];
+        jdbcTemplate.query(batchSql, rs -> {
+            if (last[0] == null) {
+                last[0] = new Batch(rs.getTimestamp("last_when"), rs.getString("last_key"), rs.getInt("size"));
+            }
+            long version = rs.getLong("version");
+            if (!rs.wasNull()) {
+                versions.put(UserId.of(rs.getString("user_id")), version);
+            }
+        }, cutoff, lastWhen, UuidStringType.parameter(lastKey), properties.getBatchSize());
+        progressChangePublisher.publishAfterCommit(versions);
+        return last[0];
+    }
+
+    private boolean pause() {
+        try {
+            Thread.sleep(properties.getPauseBetweenBatches().toMillis());
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    private static Counter archivedCounter(MeterRegistry meterRegistry, String table) {
+        return Counter.builder("challenges.retention.archived")
+                .description("Rows moved to archive tables by the retention job")
+                .tag("table", table)
+                .register(meterRegistry);
+    }
+
+    /**
+     * Keyset position after a batch, i.e. its last archived row, and how many rows it moved.
+     */
+    @Value
+    private static class Batch {
+        private final Timestamp lastWhen;
+        private final String lastKey;
+        private final int size;
+    }
+}
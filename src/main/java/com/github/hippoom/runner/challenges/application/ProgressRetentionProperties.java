@@ -0,0 +1,32 @@
+package com.github.hippoom.runner.challenges.application;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+@Data
+@Component
+@ConfigurationProperties(prefix = "challenges.retention")
+public class ProgressRetentionProperties {
+    private boolean enabled = false;
+    /**
+     * Started challenges older than this are considered abandoned.
+     */
+    private Duration startedMaxAge;
+    /**
+     * Completions older than this leave the hot table.
+     */
+    private Duration completedHorizon;
+    /**
+     * Ids of recorded activities older than this are forgotten, a redelivery of the activity being recorded again.
+     */
+    private Duration processedActivityHorizon;
+    private int batchSize;
+    /**
+     * Pause between two batches, so that archiving never competes with foreground queries for long.
+     */
+    private Duration pauseBetweenBatches;
+    private int maxBatchesPerRun;
+}
@@ -5,10 +5,14 @@ import com.github.hippoom.runner.challenges.domain.challenge.Challenge;
 import com.github.hippoom.runner.challenges.domain.challenge.ChallengeRepository;
 import com.github.hippoom.runner.challenges.domain.challenge.availability.StartChallengeSpecification;
 import com.github.hippoom.runner.challenges.domain.challenge.progress.StartedChallenge;
+import com.github.hippoom.runner.challenges.domain.challenge.progress.ProgressChangePublisher;
 import com.github.hippoom.runner.challenges.domain.challenge.progress.StartedChallengeRepository;
+import com.github.hippoom.runner.challenges.domain.challenge.progress.UserProgress;
+import com.github.hippoom.runner.challenges.domain.challenge.progress.UserProgressRecord;
+import com.github.hippoom.runner.challenges.domain.challenge.progress.UserProgressRecordRepository;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.time.Instant;
 
@@ -19,22 +23,40 @@ public class StartChallengeCommandHandler {
     private final ChallengeRepository challengeRepository;
     private final StartedChallengeRepository startedChallengeRepository;
     private final StartChallengeSpecification specification;
+    private final UserProgressRecordRepository userProgressRecordRepository;
+    private final ProgressChangePublisher progressChangePublisher;
+    private final ChallengeStatistics challengeStatistics;
+    private final UserCommandLocks userCommandLocks;
+    private final TransactionTemplate transactionTemplate;
+    private final StartedChallengeExpiry startedChallengeExpiry;
 
-    @Transactional
     public StartedChallenge handle(StartChallengeCommand command) {
+        // Serialize commands of the same user before the transaction takes a connection
+        return userCommandLocks.callWithLock(command.getUserId(),
+                () -> transactionTemplate.execute(status -> doHandle(command)));
+    }
+
+    private StartedChallenge doHandle(StartChallengeCommand command) {
         // 1. Load required entities early
         Challenge challenge = challengeRepository.getOrThrow(command.getChallengeNumber());
+        UserProgressRecord record = userProgressRecordRepository.getOrCreate(command.getUserId());
+        UserProgress progress = record.toProgress();
         
         // 2. Validate preconditions early
-        specification.validate(challenge, command.getUserId());
+        specification.validate(challenge, progress);
+        challengeStatistics.started(challenge.getNumber(), progress.getStarted());
         
         // 3. Execute business logic
         StartedChallenge startedChallenge = new StartedChallenge();
         startedChallenge.setUserId(command.getUserId());
         startedChallenge.setNumber(command.getChallengeNumber());
         startedChallenge.setWhen(Instant.now());
+        record.start(challenge.getNumber());
 
         // 4. Persist changes
-        return startedChallengeRepository.save(startedChallenge);
+        StartedChallenge saved = startedChallengeRepository.save(startedChallenge);
+        progressChangePublisher.publishAfterCommit(userProgressRecordRepository.save(record));
+        startedChallengeExpiry.scheduleExpiry(challenge, startedChallenge.getWhen());
+        return saved;
     }
 }
@@ -0,0 +1,209 @@
+package com.github.hippoom.runner.challenges.application;
+
+import com.github.hippoom.runner.challenges.domain.challenge.Challenge;
+import com.github.hippoom.runner.challenges.domain.challenge.ChallengeNumber;
+import com.github.hippoom.runner.challenges.domain.challenge.ChallengeRepository;
+import com.github.hippoom.runner.challenges.domain.challenge.catalog.ChallengeCatalog;
+import com.github.hippoom.runner.challenges.domain.challenge.progress.ProgressChangePublisher;
+import com.github.hippoom.runner.challenges.domain.user.UserId;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Expires started challenges once their time limit is over or their challenge closed.
+ * <p>
+ * Starts schedule their deadline on a {@link TimerWheel}, as do closing challenges. When a tick finds deadlines
+ * due, each challenge concerned is expired by deleting its attempts started before the cutoff, oldest first, in
+ * bounded batches found through {@code idx_started_challenge_when}. A batch is one statement in its own
+ * transaction that clears the users' started challenge and tells their progress changed. Only the
+ * {@code started_challenge} rows it picks are skipped when another transaction locked them; the
+ * {@code user_progress} and {@code challenge_stats} rows it then updates are locked as usual, so a batch waits
+ * for a foreground command or a stats fold holding one of them to commit. Every challenge is also swept when the
+ * catalog changes and every sweep interval, which catches attempts scheduled on another node or before a
+ * restart.
+ */
+@Slf4j
+@Component
+public class StartedChallengeExpiry implements InitializingBean, DisposableBean {
+
+    private static final String EXPIRE_BATCH =
+            "WITH batch AS ("
+            + "  SELECT user_id FROM started_challenge"
+            + "  WHERE when_ < ? AND challenge_number = ?"
+            + "  ORDER BY when_ LIMIT ? FOR UPDATE SKIP LOCKED"
+            + "), moved AS ("
+            + "  DELETE FROM started_challenge s USING batch b WHERE s.user_id = b.user_id"
+            + "  RETURNING s.user_id, s.challenge_number"
+            + "), counted AS ("
+            + "  UPDATE challenge_stats st SET starters = st.starters - m.starters"
+            + "  FROM (SELECT challenge_number, count(*) AS starters FROM moved GROUP BY challenge_number) m"
+            + "  WHERE st.challenge_number = m.challenge_number"
+            + "), cleared AS ("
+            + "  UPDATE user_progress p SET started_challenge = NULL, version = p.version + 1"
+            + "  FROM moved m WHERE p.user_id = m.user_id AND p.started_challenge = m.challenge_number"
+            + "  RETURNING p.user_id, p.version"
+            + ") SELECT m.user_id, c.version FROM moved m LEFT JOIN cleared c ON c.user_id = m.user_id";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ChallengeRepository challengeRepository;
+    private final ProgressChangePublisher progressChangePublisher;
+    private final ChallengeExpiryProperties properties;
+    private final TimerWheel<ChallengeNumber> wheel;
+    private final ScheduledExecutorService ticker = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "started-challenge-expiry");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final Counter expired;
+    // Only accessed by the ticker
+    private ChallengeCatalog scheduledCatalog;
+
+    public StartedChallengeExpiry(JdbcTemplate jdbcTemplate,
+                                  TransactionTemplate transactionTemplate,
+                                  ChallengeRepository challengeRepository,
+                                  ProgressChangePublisher progressChangePublisher,
+                                  ChallengeExpiryProperties properties,
+                                  MeterRegistry meterRegistry) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.challengeRepository = challengeRepository;
+        this.progressChangePublisher = progressChangePublisher;
+        this.properties = properties;
+        this.wheel = new TimerWheel<>(properties.getTick().toMillis(), properties.getWheelSize(),
+                System.currentTimeMillis());
+        this.expired = Counter.builder("challenges.expiry.expired")
+                .description("Started challenges expired past their time limit or window")
+                .register(meterRegistry);
+        Gauge.builder("challenges.expiry.pending", wheel, TimerWheel::pending)
+                .description("Deadlines waiting on the timer wheel")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public void afterPropertiesSet() {
+        long tickMillis = properties.getTick().toMillis();
+        ticker.scheduleWithFixedDelay(this::tickSafely, tickMillis, tickMillis, TimeUnit.MILLISECONDS);
+        long sweepMillis = properties.getSweepInterval().toMillis();
+        ticker.scheduleWithFixedDelay(this::sweepSafely, sweepMillis, sweepMillis, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public void destroy() {
+        ticker.shutdownNow();
+    }
+
+    /**
+     * Schedules the expiry of an attempt of the challenge started at the instant, if it can expire.
+     */
+    public void scheduleExpiry(Challenge challenge, Instant startedAt) {
+        Instant deadline = challenge.expiryOf(startedAt);
+        if (deadline != null) {
+            wheel.schedule(challenge.getNumber(), deadline.toEpochMilli());
+        }
+    }
+
+    void tick() {
+        ChallengeCatalog catalog = challengeRepository.snapshot();
+        if (catalog != scheduledCatalog) {
+            // Closing instants or time limits may have changed: schedule the closings and catch up at once
+            scheduledCatalog = catalog;
+            Instant now = Instant.now();
+            for (Challenge challenge : catalog.findAll()) {
+                if (challenge.getClosesAt() != null && challenge.getClosesAt().isAfter(now)) {
+                    wheel.schedule(challenge.getNumber(), challenge.getClosesAt().toEpochMilli());
+                }
+            }
+            sweep(catalog);
+        }
+        long now = System.currentTimeMillis();
+        for (ChallengeNumber number : wheel.advance(now)) {
+            Challenge challenge = catalog.find(number);
+            if (challenge != null) {
+                expire(challenge, Instant.ofEpochMilli(now));
+            }
+        }
+    }
+
+    private void sweep(ChallengeCatalog catalog) {
+        Instant now = Instant.now();
+        for (Challenge challenge : catalog.findAll()) {
+            expire(challenge, now);
+        }
+    }
+
+    private void expire(Challenge challenge, Instant now) {
+        Instant cutoff = challenge.expiryCutoff(now);
+        if (cutoff == null) {
+            return;
+        }
+        int total = 0;
+        for (int batch = 0; batch < properties.getMaxBatchesPerRun(); batch++) {
+            Integer size = transactionTemplate.execute(status -> expireBatch(challenge.getNumber(), cutoff));
+            total += size;
+            if (size < properties.getBatchSize() || !pause()) {
+                break;
+            }
+        }
+        if (total > 0) {
+            expired.increment(total);
+            log.info("Expired {} attempts of challenge {} started before {}",
+                    total, challenge.getNumber().getValue(), cutoff);
+        }
+    }
+
+    private int expireBatch(ChallengeNumber number, Instant cutoff) {
+        Map<UserId, Long> versions = new HashMap<>();
+        int[] size = new int[1];
+        jdbcTemplate.query(EXPIRE_BATCH, rs -> {
+            size[0]++;
+            long version = rs.getLong("version");
+            if (!rs.wasNull()) {
+                versions.put(UserId.of(rs.getString("user_id")), version);
+            }
+        }, Timestamp.from(cutoff), number.getValue(), properties.getBatchSize());
+        progressChangePublisher.publishAfterCommit(versions);
+        return size[0];
+    }
+
+    private boolean pause() {
+        try {
+            Thread.sleep(properties.getPauseBetweenBatches().toMillis());
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    private void tickSafely() {
+        try {
+            tick();
+        } catch (RuntimeException e) {
+            log.warn("Failed to expire started challenges, retrying at the next sweep", e);
+        }
+    }
+
+    private void sweepSafely() {
+        try {
+            sweep(challengeRepository.snapshot());
+        } catch (RuntimeException e) {
+            log.warn("Failed to sweep expired started challenges", e);
+        }
+    }
+}
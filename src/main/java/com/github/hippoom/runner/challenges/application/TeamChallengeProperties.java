@@ -0,0 +1,25 @@
+package com.github.hippoom.runner.challenges.application;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+@Data
+@Component
+@ConfigurationProperties(prefix = "challenges.teams")
+public class TeamChallengeProperties {
+    /**
+     * How often the contributions of activities are added to the team challenges.
+     */
+    private Duration flushInterval;
+    /**
+     * Distance in km contributed to one team challenge on this node that has it flushed early.
+     */
+    private double flushThreshold;
+    /**
+     * Contributions folded per transaction.
+     */
+    private int flushBatchSize;
+}
@@ -0,0 +1,138 @@
+package com.github.hippoom.runner.challenges.application;
+
+import com.github.hippoom.runner.challenges.domain.activity.UserActivity;
+import com.github.hippoom.runner.challenges.domain.team.TeamChallengeRepository;
+import com.github.hippoom.runner.challenges.domain.team.TeamDistance;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Adds up the distance members run for their team challenges, so that a busy team's row is written once per
+ * flush instead of once per activity.
+ * <p>
+ * Each activity appends its contributions to the team challenges in its own transaction, which contends on no
+ * row, and the flushes fold them into the team challenges in batches: a batch of contributions is deleted and
+ * added to the teams' rows in one transaction. So a contribution is counted exactly once whichever node folds
+ * it, and contributions left by a node that crashed are folded by the next flush of any node.
+ */
+@Slf4j
+@Component
+public class TeamDistanceAccumulators implements InitializingBean, DisposableBean {
+
+    private final TeamChallengeRepository teamChallengeRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final TeamChallengeProperties properties;
+    private final long flushThreshold;
+    /**
+     * Distance contributed on this node since the last flush, per team challenge, to flush busy teams early.
+     */
+    private final ConcurrentMap<String, LongAdder> pending = new ConcurrentHashMap<>();
+    private final AtomicBoolean flushRequested = new AtomicBoolean();
+    private final ScheduledExecutorService flusher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "team-distance-flusher");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final Counter completedCounter;
+    private final Counter failedFlushCounter;
+
+    public TeamDistanceAccumulators(TeamChallengeRepository teamChallengeRepository,
+                                    TransactionTemplate transactionTemplate,
+                                    TeamChallengeProperties properties,
+                                    MeterRegistry meterRegistry) {
+        this.teamChallengeRepository = teamChallengeRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.properties = properties;
+        this.flushThreshold = TeamDistance.fromKilometres(properties.getFlushThreshold());
+        this.completedCounter = Counter.builder("challenges.team.completed")
+                .description("Team challenges whose target was reached by a flush of this node")
+                .register(meterRegistry);
+        this.failedFlushCounter = Counter.builder("challenges.team.flushes.failed")
+                .description("Flushes of team distances that will be retried")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Contributes the activity's distance to the open team challenges of its user, within the current
+     * transaction.
+     */
+    public void record(UserActivity activity) {
+        long distance = TeamDistance.fromKilometres(activity.getMetricSummary().getDistance());
+        if (distance <= 0) {
+            return;
+        }
+        List<String> teamChallengeIds =
+                teamChallengeRepository.findOpenIdsFor(activity.getUserId(), activity.getWhen());
+        if (teamChallengeIds.isEmpty()) {
+            return;
+        }
+        teamChallengeRepository.contribute(teamChallengeIds, distance);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                teamChallengeIds.forEach(id -> added(id, distance));
+            }
+        });
+    }
+
+    @Override
+    public void afterPropertiesSet() {
+        long intervalMillis = properties.getFlushInterval().toMillis();
+        flusher.scheduleWithFixedDelay(this::flushSafely, intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public void destroy() throws InterruptedException {
+        flusher.shutdown();
+        flusher.awaitTermination(properties.getFlushInterval().toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    private void added(String teamChallengeId, long distance) {
+        LongAdder contributed = pending.computeIfAbsent(teamChallengeId, id -> new LongAdder());
+        contributed.add(distance);
+        if (contributed.sum() >= flushThreshold && flushRequested.compareAndSet(false, true)) {
+            flusher.execute(this::flushSafely);
+        }
+    }
+
+    void flush() {
+        flushRequested.set(false);
+        pending.clear();
+        int folded;
+        do {
+            TeamChallengeRepository.Fold fold = transactionTemplate.execute(status ->
+                    teamChallengeRepository.fold(properties.getFlushBatchSize()));
+            folded = fold.getContributions();
+            for (String teamChallengeId : fold.getCompleted()) {
+                log.info("Team challenge {} completed", teamChallengeId);
+                completedCounter.increment();
+            }
+        } while (folded == properties.getFlushBatchSize());
+    }
+
+    private void flushSafely() {
+        try {
+            flush();
+        } catch (RuntimeException e) {
+            // Contributions stay in the table until a flush folds them
+            log.warn("Failed to flush team distances, retrying later", e);
+            failedFlushCounter.increment();
+        }
+    }
+}
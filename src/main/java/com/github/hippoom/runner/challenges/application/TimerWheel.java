@@ -0,0 +1,100 @@
+package com.github.hippoom.runner.challenges.application;
+
+import lombok.Value;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Hashed timing wheel: deadlines are rounded up to ticks and hashed to a slot by their tick, so scheduling
+ * costs the same however many deadlines are pending, and advancing only visits the slots of the elapsed ticks.
+ * <p>
+ * The same item due at the same tick is kept once, so the pending timeouts are bounded by the distinct items
+ * times the ticks they span rather than by how often they are scheduled. Not driven by a thread of its own:
+ * the owner calls {@link #advance} every tick.
+ */
+final class TimerWheel<T> {
+
+    private final long tickMillis;
+    private final List<Set<Timeout<T>>> slots;
+    private final ReentrantLock lock = new ReentrantLock();
+    // Guarded by lock
+    private long currentTick;
+
+    TimerWheel(long tickMillis, int size, long nowMillis) {
+        this.tickMillis = tickMillis;
+        this.slots = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            slots.add(new HashSet<>());
+        }
+        this.currentTick = nowMillis / tickMillis;
+    }
+
+    /**
+     * Schedules the item to be due at the deadline, or at the next tick if it is already past.
+     */
+    void schedule(T item, long deadlineMillis) {
+        lock.lock();
+        try {
+            long tick = Math.max(Math.floorDiv(deadlineMillis + tickMillis - 1, tickMillis), currentTick + 1);
+            slots.get(slotOf(tick)).add(new Timeout<>(item, tick));
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Removes and returns the items due by now, each once.
+     */
+    Set<T> advance(long nowMillis) {
+        lock.lock();
+        try {
+            long target = nowMillis / tickMillis;
+            Set<T> due = new LinkedHashSet<>();
+            // Past a full turn every slot has been visited, timeouts of later turns stay where they are
+            long ticks = Math.min(target - currentTick, slots.size());
+            for (long tick = currentTick + 1; tick <= currentTick + ticks; tick++) {
+                Iterator<Timeout<T>> timeouts = slots.get(slotOf(tick)).iterator();
+                while (timeouts.hasNext()) {
+                    Timeout<T> timeout = timeouts.next();
+                    if (timeout.getTick() <= target) {
+                        due.add(timeout.getItem());
+                        timeouts.remove();
+                    }
+                }
+            }
+            currentTick = Math.max(currentTick, target);
+            return due;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    int pending() {
+        lock.lock();
+        try {
+            int pending = 0;
+            for (Set<Timeout<T>> slot : slots) {
+                pending += slot.size();
+            }
+            return pending;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private int slotOf(long tick) {
+        return (int) Math.floorMod(tick, (long) slots.size());
+    }
+
+    @Value
+    private static class Timeout<T> {
+        private final T item;
+        private final long tick;
+    }
+}
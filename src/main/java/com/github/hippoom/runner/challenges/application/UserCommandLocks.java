@@ -0,0 +1,108 @@
+package com.github.hippoom.runner.challenges.application;
+
+import com.github.hippoom.runner.challenges.domain.user.UserId;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+/**
+ * Orders commands of the same user within this node.
+ * <p>
+ * Locks are striped on the {@link UserId} hash, so commands for one user run one at a time while
+ * commands for users in different stripes never contend. Callers should take the lock before opening
+ * a transaction, so that waiting commands do not hold a database connection.
+ */
+@Component
+public class UserCommandLocks {
+
+    private static final int HASH_SPREAD_SHIFT = 16;
+
+    private final ReentrantLock[] stripes;
+    private final Counter contendedCounter;
+    private final Timer waitTimer;
+
+    public UserCommandLocks(@Value("${challenges.user-locks.stripes:256}") int stripes,
+                            MeterRegistry meterRegistry) {
+        if (Integer.bitCount(stripes) != 1) {
+            throw new IllegalArgumentException("Stripes must be a power of two: " + stripes);
+        }
+        this.stripes = new ReentrantLock[stripes];
+        for (int i = 0; i < stripes; i++) {
+            this.stripes[i] = new ReentrantLock();
+        }
+        this.contendedCounter = Counter.builder("challenges.user.locks.contended")
+                .description("Commands that had to wait for another command of a user in the same stripe")
+                .register(meterRegistry);
+        this.waitTimer = Timer.builder("challenges.user.locks.wait")
+                .description("Time contended commands waited for their stripe")
+                .register(meterRegistry);
+    }
+
+    public <T> T callWithLock(UserId userId, Supplier<T> command) {
+        ReentrantLock lock = stripeOf(userId);
+        acquire(lock);
+        try {
+            return command.get();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void runWithLock(UserId userId, Runnable command) {
+        callWithLock(userId, () -> {
+            command.run();
+            return null;
+        });
+    }
+
+    /**
+     * Runs a command holding the stripes of all given users. Stripes are taken in ascending order,
+     * so concurrent multi-user commands cannot deadlock with each other or with single-user ones.
+     */
+    public <T> T callWithLocks(Collection<UserId> userIds, Supplier<T> command) {
+        BitSet held = new BitSet(stripes.length);
+        for (UserId userId : userIds) {
+            held.set(stripeIndexOf(userId));
+        }
+        int acquired = 0;
+        try {
+            for (int i = held.nextSetBit(0); i >= 0; i = held.nextSetBit(i + 1)) {
+                acquire(stripes[i]);
+                acquired++;
+            }
+            return command.get();
+        } finally {
+            for (int i = held.nextSetBit(0); i >= 0 && acquired > 0; i = held.nextSetBit(i + 1)) {
+                stripes[i].unlock();
+                acquired--;
+            }
+        }
+    }
+
+    private void acquire(ReentrantLock lock) {
+        if (lock.tryLock()) {
+            return;
+        }
+        contendedCounter.increment();
+        long start = System.nanoTime();
+        lock.lock();
+        waitTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+    }
+
+    private ReentrantLock stripeOf(UserId userId) {
+        return stripes[stripeIndexOf(userId)];
+    }
+
+    int stripeIndexOf(UserId userId) {
+        int hash = userId.hashCode();
+        return (hash ^ (hash >>> HASH_SPREAD_SHIFT)) & (stripes.length - 1);
+    }
+}
@@ -0,0 +1,111 @@
+package com.github.hippoom.runner.challenges.application;
+
+import com.github.hippoom.runner.challenges.domain.challenge.progress.ProgressChangeBus;
+import com.github.hippoom.runner.challenges.domain.challenge.progress.ProgressChangeListener;
+import com.github.hippoom.runner.challenges.domain.challenge.progress.ProgressChanged;
+import com.github.hippoom.runner.challenges.domain.challenge.progress.UserProgress;
+import com.github.hippoom.runner.challenges.domain.user.UserId;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Short-lived cache of users' progress for reads, dropped whenever the {@link ProgressChangeBus}
+ * reports a change from any node.
+ * <p>
+ * A load racing with a change must not put stale progress back, so callers take the user's {@link #epoch}
+ * before loading, which holds the user's slot for the load, and {@link #put} only succeeds if no change of that
+ * user was reported since. Changes of other users do not get in the way.
+ */
+@Component
+public class UserProgressCache implements ProgressChangeListener {
+
+    private static final long NO_EPOCH = 0;
+
+    private final Duration timeToLive;
+    private final int maxEntries;
+    private final ConcurrentMap<UserId, Entry> entries = new ConcurrentHashMap<>();
+    private final AtomicLong epochs = new AtomicLong();
+
+    public UserProgressCache(ProgressChangeBus progressChangeBus,
+                             @Value("${challenges.progress.cache.time-to-live}") Duration timeToLive,
+                             @Value("${challenges.progress.cache.max-entries}") int maxEntries) {
+        this.timeToLive = timeToLive;
+        this.maxEntries = maxEntries;
+        progressChangeBus.subscribe(this);
+    }
+
+    public UserProgress get(UserId userId) {
+        Entry entry = entries.get(userId);
+        if (entry == null || entry.getProgress() == null) {
+            return null;
+        }
+        if (entry.getExpiresAt() - System.nanoTime() < 0) {
+            entries.remove(userId, entry);
+            return null;
+        }
+        return entry.getProgress();
+    }
+
+    /**
+     * Starts a load of the user's progress, to {@link #put} with the returned epoch once loaded.
+     */
+    public long epoch(UserId userId) {
+        if (entries.size() >= maxEntries && !evictExpired()) {
+            return NO_EPOCH;
+        }
+        long epoch = epochs.incrementAndGet();
+        entries.put(userId, new Entry(null, expiresAt(), epoch));
+        return epoch;
+    }
+
+    /**
+     * Caches the progress unless a change of the user was reported since the load started.
+     */
+    public void put(UserProgress progress, long loadedAtEpoch) {
+        entries.computeIfPresent(progress.getUserId(), (userId, current) -> current.getEpoch() == loadedAtEpoch
+                ? new Entry(progress, expiresAt(), loadedAtEpoch) : current);
+    }
+
+    @Override
+    public void onProgressChanged(ProgressChanged change) {
+        entries.remove(change.getUserId());
+    }
+
+    @Override
+    public void onChangesMissed() {
+        entries.clear();
+    }
+
+    @Override
+    public void onAvailabilityChanged() {
+        // Availability is not cached, only progress
+    }
+
+    private long expiresAt() {
+        return System.nanoTime() + timeToLive.toNanos();
+    }
+
+    private boolean evictExpired() {
+        long now = System.nanoTime();
+        entries.values().removeIf(entry -> entry.getExpiresAt() - now < 0);
+        return entries.size() < maxEntries;
+    }
+
+    /**
+     * Loaded progress, or none while a load started at the epoch is running.
+     */
+    @Getter
+    @RequiredArgsConstructor
+    private static final class Entry {
+        private final UserProgress progress;
+        private final long expiresAt;
+        private final long epoch;
+    }
+}
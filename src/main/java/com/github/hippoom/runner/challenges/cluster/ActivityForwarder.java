@@ -0,0 +1,11 @@
+package com.github.hippoom.runner.challenges.cluster;
+
+import com.github.hippoom.runner.challenges.domain.activity.UserActivity;
+
+public interface ActivityForwarder {
+
+    /**
+     * Hands the activity over to the owning node for processing.
+     */
+    void forward(UserActivity activity, ClusterNode owner);
+}
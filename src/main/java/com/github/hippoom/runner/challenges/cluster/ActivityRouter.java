@@ -0,0 +1,72 @@
+package com.github.hippoom.runner.challenges.cluster;
+
+import com.github.hippoom.runner.challenges.application.ActivityAdmissionControl;
+import com.github.hippoom.runner.challenges.domain.activity.UserActivity;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+/**
+ * Processes an activity on the node owning its user, so that one node keeps each user's state warm
+ * and one user's writes do not contend across nodes.
+ * <p>
+ * If the owner cannot be reached the activity is processed locally: correctness never depends on
+ * ownership, only locality does.
+ */
+@Slf4j
+@Component
+public class ActivityRouter {
+
+    private final UserPartitioning userPartitioning;
+    private final ActivityForwarder activityForwarder;
+    private final ActivityAdmissionControl admissionControl;
+    private final Counter local;
+    private final Counter forwarded;
+    private final Counter forwardFailed;
+
+    public ActivityRouter(UserPartitioning userPartitioning,
+                          ActivityForwarder activityForwarder,
+                          ActivityAdmissionControl admissionControl,
+                          MeterRegistry meterRegistry) {
+        this.userPartitioning = userPartitioning;
+        this.activityForwarder = activityForwarder;
+        this.admissionControl = admissionControl;
+        this.local = routeCounter(meterRegistry, "local");
+        this.forwarded = routeCounter(meterRegistry, "forwarded");
+        this.forwardFailed = routeCounter(meterRegistry, "forward-failed");
+    }
+
+    public void route(UserActivity activity) {
+        if (userPartitioning.isOwnedLocally(activity.getUserId())) {
+            local.increment();
+            admissionControl.submit(activity);
+            return;
+        }
+        ClusterNode owner = userPartitioning.ownerOf(activity.getUserId());
+        try {
+            activityForwarder.forward(activity, owner);
+            forwarded.increment();
+        } catch (RuntimeException e) {
+            log.warn("Cannot forward activity of {} to {}, processing it locally", activity.getUserId(), owner, e);
+            forwardFailed.increment();
+            admissionControl.submit(activity);
+        }
+    }
+
+    /**
+     * Processes an activity forwarded by another node, without routing it again, so that nodes briefly
+     * disagreeing on membership never bounce activities between them.
+     */
+    public void accept(UserActivity activity) {
+        local.increment();
+        admissionControl.submit(activity);
+    }
+
+    private static Counter routeCounter(MeterRegistry meterRegistry, String route) {
+        return Counter.builder("challenges.cluster.activities")
+                .description("User activities by where they were processed")
+                .tag("route", route)
+                .register(meterRegistry);
+    }
+}
@@ -0,0 +1,19 @@
+package com.github.hippoom.runner.challenges.cluster;
+
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Tells which nodes take part in processing activities.
+ */
+public interface ClusterMembership {
+
+    ClusterNode self();
+
+    List<ClusterNode> members();
+
+    /**
+     * Registers a callback run with the new members whenever membership changes.
+     */
+    void subscribe(Consumer<List<ClusterNode>> listener);
+}
@@ -0,0 +1,12 @@
+package com.github.hippoom.runner.challenges.cluster;
+
+import lombok.Value;
+
+@Value
+public class ClusterNode {
+    private final String id;
+    /**
+     * Base URL other nodes reach this node's API at, e.g. {@code http://10.0.0.12:8080}.
+     */
+    private final String baseUrl;
+}
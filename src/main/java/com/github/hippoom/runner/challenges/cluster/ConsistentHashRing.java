@@ -0,0 +1,79 @@
+package com.github.hippoom.runner.challenges.cluster;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Immutable consistent hash ring placing each node at a number of virtual points.
+ * <p>
+ * A key belongs to the first point at or after its hash. Adding or removing a node only moves the keys
+ * between that node's points and their predecessors, about 1/N of all keys.
+ */
+public final class ConsistentHashRing {
+
+    private static final long FNV_OFFSET_BASIS = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+    private static final long MIX_MULTIPLIER_1 = 0xff51afd7ed558ccdL;
+    private static final long MIX_MULTIPLIER_2 = 0xc4ceb9fe1a85ec53L;
+    private static final int MIX_SHIFT = 33;
+    private static final int BYTE_MASK = 0xff;
+
+    private final long[] points;
+    private final ClusterNode[] owners;
+
+    public ConsistentHashRing(List<ClusterNode> nodes, int pointsPerNode) {
+        if (nodes.isEmpty()) {
+            throw new IllegalArgumentException("A ring needs at least one node");
+        }
+        Point[] placed = new Point[nodes.size() * pointsPerNode];
+        int i = 0;
+        for (ClusterNode node : nodes) {
+            for (int replica = 0; replica < pointsPerNode; replica++) {
+                placed[i++] = new Point(hash(node.getId() + "#" + replica), node);
+            }
+        }
+        Arrays.sort(placed, Comparator.comparingLong((Point point) -> point.position)
+                .thenComparing(point -> point.owner.getId()));
+        this.points = new long[placed.length];
+        this.owners = new ClusterNode[placed.length];
+        for (int p = 0; p < placed.length; p++) {
+            points[p] = placed[p].position;
+            owners[p] = placed[p].owner;
+        }
+    }
+
+    public ClusterNode ownerOf(String key) {
+        int index = Arrays.binarySearch(points, hash(key));
+        if (index < 0) {
+            index = -index - 1;
+        }
+        return owners[index == points.length ? 0 : index];
+    }
+
+    static long hash(String key) {
+        long hash = FNV_OFFSET_BASIS;
+        for (byte b : key.getBytes(StandardCharsets.UTF_8)) {
+            hash ^= b & BYTE_MASK;
+            hash *= FNV_PRIME;
+        }
+        // Finalize so that similar keys spread over the whole ring
+        hash ^= hash >>> MIX_SHIFT;
+        hash *= MIX_MULTIPLIER_1;
+        hash ^= hash >>> MIX_SHIFT;
+        hash *= MIX_MULTIPLIER_2;
+        hash ^= hash >>> MIX_SHIFT;
+        return hash;
+    }
+
+    private static final class Point {
+        private final long position;
+        private final ClusterNode owner;
+
+        private Point(long position, ClusterNode owner) {
+            this.position = position;
+            this.owner = owner;
+        }
+    }
+}
@@ -0,0 +1,37 @@
+package com.github.hippoom.runner.challenges.cluster;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Membership from a fixed list of nodes, e.g. from configuration.
+ */
+public class StaticClusterMembership implements ClusterMembership {
+
+    private final ClusterNode self;
+    private final List<ClusterNode> members;
+
+    public StaticClusterMembership(String selfId, List<ClusterNode> members) {
+        this.members = Collections.unmodifiableList(members);
+        this.self = members.stream()
+                .filter(node -> node.getId().equals(selfId))
+                .findFirst()
+                .orElseThrow(() -> new IllegalArgumentException("Node " + selfId + " is not a member"));
+    }
+
+    @Override
+    public ClusterNode self() {
+        return self;
+    }
+
+    @Override
+    public List<ClusterNode> members() {
+        return members;
+    }
+
+    @Override
+    public void subscribe(Consumer<List<ClusterNode>> listener) {
+        // Members never change
+    }
+}
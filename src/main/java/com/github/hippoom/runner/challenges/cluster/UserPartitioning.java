@@ -0,0 +1,33 @@
+package com.github.hippoom.runner.challenges.cluster;
+
+import com.github.hippoom.runner.challenges.domain.user.UserId;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Maps each user to the node owning their activity processing, rebuilding the ring when membership changes.
+ */
+@Slf4j
+public class UserPartitioning {
+
+    private final ClusterMembership membership;
+    private final int pointsPerNode;
+    private volatile ConsistentHashRing ring;
+
+    public UserPartitioning(ClusterMembership membership, int pointsPerNode) {
+        this.membership = membership;
+        this.pointsPerNode = pointsPerNode;
+        this.ring = new ConsistentHashRing(membership.members(), pointsPerNode);
+        membership.subscribe(members -> {
+            log.info("Cluster membership changed to {}, rebalancing users", members);
+            ring = new ConsistentHashRing(members, this.pointsPerNode);
+        });
+    }
+
+    public ClusterNode ownerOf(UserId userId) {
+        return ring.ownerOf(userId.getValue());
+    }
+
+    public boolean isOwnedLocally(UserId userId) {
+        return ownerOf(userId).equals(membership.self());
+    }
+}
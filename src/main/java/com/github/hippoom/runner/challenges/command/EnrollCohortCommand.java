@@ -0,0 +1,13 @@
+package com.github.hippoom.runner.challenges.command;
+
+import com.github.hippoom.runner.challenges.domain.challenge.ChallengeNumber;
+import com.github.hippoom.runner.challenges.domain.user.UserId;
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+public class EnrollCohortCommand {
+    private final ChallengeNumber challengeNumber;
+    private final List<UserId> userIds;
+}
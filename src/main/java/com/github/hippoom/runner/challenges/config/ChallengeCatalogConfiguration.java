@@ -0,0 +1,27 @@
+package com.github.hippoom.runner.challenges.config;
+
+import com.github.hippoom.runner.challenges.domain.challenge.catalog.ChallengeCatalogSource;
+import com.github.hippoom.runner.challenges.domain.challenge.catalog.EnvironmentChallengeCatalogSource;
+import com.github.hippoom.runner.challenges.domain.challenge.catalog.FileChallengeCatalogSource;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.ConfigurableEnvironment;
+
+import java.nio.file.Paths;
+
+@Configuration
+public class ChallengeCatalogConfiguration {
+
+    /**
+     * Challenges are read from {@code challenges.catalog.file} when set, from the application properties otherwise.
+     */
+    @Bean
+    public ChallengeCatalogSource challengeCatalogSource(ConfigurableEnvironment environment,
+                                                         @Value("${challenges.catalog.file:}") String file) {
+        if (file.isEmpty()) {
+            return new EnvironmentChallengeCatalogSource(environment);
+        }
+        return new FileChallengeCatalogSource(Paths.get(file));
+    }
+}
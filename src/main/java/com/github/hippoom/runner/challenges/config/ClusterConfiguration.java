@@ -0,0 +1,54 @@
+package com.github.hippoom.runner.challenges.config;
+
+import com.github.hippoom.runner.challenges.cluster.ActivityForwarder;
+import com.github.hippoom.runner.challenges.cluster.ClusterMembership;
+import com.github.hippoom.runner.challenges.cluster.ClusterNode;
+import com.github.hippoom.runner.challenges.cluster.StaticClusterMembership;
+import com.github.hippoom.runner.challenges.cluster.UserPartitioning;
+import com.github.hippoom.runner.challenges.messaging.http.HttpActivityForwarder;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.web.client.RestTemplateBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.util.StringUtils;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+
+@Configuration
+public class ClusterConfiguration {
+
+    @Bean
+    @ConditionalOnMissingBean(ClusterMembership.class)
+    public ClusterMembership staticClusterMembership(ClusterProperties properties) {
+        List<ClusterNode> nodes = properties.getNodes().stream()
+                .map(node -> new ClusterNode(node.getId(), node.getBaseUrl()))
+                .collect(Collectors.toList());
+        if (nodes.isEmpty()) {
+            return new StaticClusterMembership(properties.getSelf(),
+                    Collections.singletonList(new ClusterNode(properties.getSelf(), null)));
+        }
+        return new StaticClusterMembership(properties.getSelf(), nodes);
+    }
+
+    @Bean
+    public UserPartitioning userPartitioning(ClusterMembership membership, ClusterProperties properties) {
+        return new UserPartitioning(membership, properties.getPointsPerNode());
+    }
+
+    @Bean
+    public ActivityForwarder httpActivityForwarder(RestTemplateBuilder restTemplateBuilder,
+                                                   ClusterProperties properties) {
+        if (!properties.getNodes().isEmpty() && !StringUtils.hasText(properties.getSecret())) {
+            throw new IllegalStateException("A cluster of nodes needs challenges.cluster.secret");
+        }
+        RestTemplateBuilder builder = restTemplateBuilder
+                .setConnectTimeout(properties.getForwardTimeout())
+                .setReadTimeout(properties.getForwardTimeout());
+        if (StringUtils.hasText(properties.getSecret())) {
+            builder = builder.defaultHeader(HttpActivityForwarder.SECRET_HEADER, properties.getSecret());
+        }
+        return new HttpActivityForwarder(builder.build());
+    }
+}
@@ -0,0 +1,33 @@
+package com.github.hippoom.runner.challenges.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+@Component
+@ConfigurationProperties(prefix = "challenges.cluster")
+public class ClusterProperties {
+    /**
+     * Id of this node among {@link #nodes}. With no nodes configured, this node owns every user.
+     */
+    private String self;
+    private int pointsPerNode;
+    private Duration forwardTimeout;
+    /**
+     * Secret shared by the nodes, presented when forwarding activities. Required once {@link #nodes} are set,
+     * since the nodes accept forwarded activities for any user.
+     */
+    private String secret;
+    private List<Node> nodes = new ArrayList<>();
+
+    @Data
+    public static class Node {
+        private String id;
+        private String baseUrl;
+    }
+}
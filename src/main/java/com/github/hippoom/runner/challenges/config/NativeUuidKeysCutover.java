@@ -0,0 +1,149 @@
+package com.github.hippoom.runner.challenges.config;
+
+import com.github.hippoom.runner.challenges.config.NativeUuidKeysMigration.Table;
+import lombok.extern.slf4j.Slf4j;
+import org.flywaydb.core.api.MigrationVersion;
+import org.flywaydb.core.api.migration.Context;
+import org.flywaydb.core.api.migration.JavaMigration;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+
+import static com.github.hippoom.runner.challenges.config.NativeUuidKeysMigration.PAUSE_BETWEEN_BATCHES_MILLIS;
+import static com.github.hippoom.runner.challenges.config.NativeUuidKeysMigration.SHADOW;
+import static com.github.hippoom.runner.challenges.config.NativeUuidKeysMigration.TABLES;
+import static com.github.hippoom.runner.challenges.config.NativeUuidKeysMigration.columnExists;
+
+/**
+ * V10: swaps the {@code uuid} columns added by {@link NativeUuidKeysMigration} in for the old id columns, in a
+ * single short transaction that only changes the catalog.
+ * <p>
+ * Nodes of the release before V9 bind ids as text and break once it is done, while nodes of later releases bind
+ * ids untyped and work with either column type. So this contract half is only registered with
+ * {@code challenges.uuid-keys.cutover} enabled, to be set by a deployment once every node runs a release with
+ * V9; it is meant to stay enabled from then on. Dropped columns keep their space in the heap until rows are
+ * rewritten, e.g. by {@code VACUUM FULL}, while the indexes are compact right away.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(prefix = "challenges.uuid-keys", name = "cutover", havingValue = "true")
+public class NativeUuidKeysCutover implements JavaMigration {
+
+    private static final String CUTOVER_LOCK_TIMEOUT = "5s";
+    private static final int CUTOVER_ATTEMPTS = 20;
+    private static final String LOCK_NOT_AVAILABLE = "55P03";
+
+    @Override
+    public MigrationVersion getVersion() {
+        return MigrationVersion.fromVersion("10");
+    }
+
+    @Override
+    public String getDescription() {
+        return "swap in native uuid columns for progress ids";
+    }
+
+    @Override
+    public Integer getChecksum() {
+        return null;
+    }
+
+    @Override
+    public boolean isUndo() {
+        return false;
+    }
+
+    @Override
+    public boolean isStateScript() {
+        return false;
+    }
+
+    /**
+     * The cutover is retried in transactions of its own when the tables are busy.
+     */
+    @Override
+    public boolean canExecuteInTransaction() {
+        return false;
+    }
+
+    @Override
+    public void migrate(Context context) throws SQLException, InterruptedException {
+        Connection connection = context.getConnection();
+        boolean autoCommit = connection.getAutoCommit();
+        connection.setAutoCommit(true);
+        try (Statement statement = connection.createStatement()) {
+            cutOver(connection, statement);
+        } finally {
+            connection.setAutoCommit(autoCommit);
+        }
+    }
+
+    /**
+     * Swaps all tables at once, so that no query ever joins a converted table with one that is not.
+     */
+    private void cutOver(Connection connection, Statement statement) throws SQLException, InterruptedException {
+        List<String> pending = new ArrayList<>();
+        for (Table table : TABLES) {
+            if (columnExists(statement, table.getName(), table.getColumns().get(0) + SHADOW, "uuid")) {
+                pending.add(table.getName());
+            }
+        }
+        if (pending.isEmpty()) {
+            return;
+        }
+        for (int attempt = 1; ; attempt++) {
+            connection.setAutoCommit(false);
+            try {
+                statement.execute("SET LOCAL lock_timeout = '" + CUTOVER_LOCK_TIMEOUT + "'");
+                statement.execute("LOCK TABLE " + String.join(", ", pending) + " IN ACCESS EXCLUSIVE MODE");
+                for (Table table : TABLES) {
+                    if (pending.contains(table.getName())) {
+                        swap(statement, table);
+                    }
+                }
+                connection.commit();
+                log.info("Swapped in the uuid columns of {}", pending);
+                return;
+            } catch (SQLException e) {
+                connection.rollback();
+                if (!LOCK_NOT_AVAILABLE.equals(e.getSQLState()) || attempt >= CUTOVER_ATTEMPTS) {
+                    throw e;
+                }
+                log.warn("Tables busy, retrying the cutover ({}/{})", attempt, CUTOVER_ATTEMPTS);
+                Thread.sleep(PAUSE_BETWEEN_BATCHES_MILLIS * attempt);
+            } finally {
+                connection.setAutoCommit(true);
+            }
+        }
+    }
+
+    private void swap(Statement statement, Table table) throws SQLException {
+        String name = table.getName();
+        statement.execute("DROP TRIGGER " + name + "_uuid_sync ON " + name);
+        statement.execute("DROP FUNCTION " + name + "_uuid_sync()");
+        if (table.getPrimaryKey() != null) {
+            statement.execute("ALTER TABLE " + name + " DROP CONSTRAINT " + table.getPrimaryKey());
+        }
+        for (String column : table.getColumns()) {
+            // The validated check spares SET NOT NULL a scan of the table
+            statement.execute("ALTER TABLE " + name + " ALTER COLUMN " + column + SHADOW + " SET NOT NULL");
+            statement.execute("ALTER TABLE " + name + " DROP CONSTRAINT " + name + "_" + column + SHADOW
+                    + "_not_null");
+            // Drops the indexes on the old column along with it
+            statement.execute("ALTER TABLE " + name + " DROP COLUMN " + column);
+            statement.execute("ALTER TABLE " + name + " RENAME COLUMN " + column + SHADOW + " TO " + column);
+        }
+        if (table.getPrimaryKey() != null) {
+            statement.execute("ALTER TABLE " + name + " ADD CONSTRAINT " + table.getPrimaryKey()
+                    + " PRIMARY KEY USING INDEX " + table.getPrimaryKey() + SHADOW);
+        }
+        for (String index : table.getIndexes().keySet()) {
+            statement.execute("ALTER INDEX " + index + SHADOW + " RENAME TO " + index);
+        }
+    }
+}
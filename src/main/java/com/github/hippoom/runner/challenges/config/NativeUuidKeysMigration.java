@@ -0,0 +1,242 @@
+package com.github.hippoom.runner.challenges.config;
+
+import lombok.Value;
+import lombok.extern.slf4j.Slf4j;
+import org.flywaydb.core.api.MigrationVersion;
+import org.flywaydb.core.api.migration.Context;
+import org.flywaydb.core.api.migration.JavaMigration;
+import org.springframework.stereotype.Component;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * V9: adds native {@code uuid} columns next to the ids of the progress tables, 16 bytes instead of 36 characters
+ * in every row, index entry and join. This is the expand half of the conversion, {@link NativeUuidKeysCutover}
+ * is the contract half, run by a later deployment.
+ * <p>
+ * The tables are converted online, so nodes of the previous release keep serving while it runs and after:
+ * <ol>
+ *     <li>a {@code uuid} shadow column is added next to each id column, and a trigger fills it on every write,</li>
+ *     <li>existing rows are backfilled in batches of heap pages, each batch a transaction of its own,</li>
+ *     <li>the indexes on the shadow columns are built concurrently, and their not null check is validated
+ *     without blocking writes.</li>
+ * </ol>
+ * Nothing reads the shadow columns yet, and the old columns keep their type. The steps are idempotent, so a
+ * failed run can be repaired and run again.
+ */
+@Slf4j
+@Component
+public class NativeUuidKeysMigration implements JavaMigration {
+
+    private static final String UUID_PATTERN = "^[0-9a-fA-F]{8}-[0-9a-fA-F]{4}-[0-9a-fA-F]{4}-[0-9a-fA-F]{4}-"
+            + "[0-9a-fA-F]{12}$";
+    // 8 MB of heap with the default block size
+    private static final int PAGES_PER_BATCH = 1_000;
+    static final String SHADOW = "_uuid";
+    static final long PAUSE_BETWEEN_BATCHES_MILLIS = 20;
+
+    static final List<Table> TABLES = Arrays.asList(
+            new Table("started_challenge", Collections.singletonList("user_id"),
+                    "started_challenge_pkey", "user_id", Collections.emptyMap()),
+            new Table("user_progress", Collections.singletonList("user_id"),
+                    "user_progress_pkey", "user_id", Collections.emptyMap()),
+            new Table("user_activity_totals", Collections.singletonList("user_id"),
+                    "user_activity_totals_pkey", "user_id", Collections.emptyMap()),
+            new Table("challenge_completed", Arrays.asList("id", "user_id", "activity_id"),
+                    "challenge_completed_pkey", "id",
+                    indexes("idx_challenge_completed_user_when", "user_id, when_ DESC, id DESC")),
+            new Table("started_challenge_archive", Collections.singletonList("user_id"),
+                    null, null, indexes("idx_started_challenge_archive_user", "user_id")),
+            new Table("challenge_completed_archive", Arrays.asList("id", "user_id", "activity_id"),
+                    "challenge_completed_archive_pkey", "id",
+                    indexes("idx_challenge_completed_archive_user", "user_id")));
+
+    @Override
+    public MigrationVersion getVersion() {
+        return MigrationVersion.fromVersion("9");
+    }
+
+    @Override
+    public String getDescription() {
+        return "add native uuid columns for progress ids";
+    }
+
+    @Override
+    public Integer getChecksum() {
+        return null;
+    }
+
+    @Override
+    public boolean isUndo() {
+        return false;
+    }
+
+    @Override
+    public boolean isStateScript() {
+        return false;
+    }
+
+    /**
+     * Batches and concurrent index builds need transactions of their own.
+     */
+    @Override
+    public boolean canExecuteInTransaction() {
+        return false;
+    }
+
+    @Override
+    public void migrate(Context context) throws SQLException, InterruptedException {
+        Connection connection = context.getConnection();
+        boolean autoCommit = connection.getAutoCommit();
+        connection.setAutoCommit(true);
+        try (Statement statement = connection.createStatement()) {
+            for (Table table : TABLES) {
+                checkIds(statement, table);
+            }
+            for (Table table : TABLES) {
+                addShadowColumns(statement, table);
+                backfill(statement, table);
+                buildIndexes(statement, table);
+            }
+        } finally {
+            connection.setAutoCommit(autoCommit);
+        }
+    }
+
+    private void checkIds(Statement statement, Table table) throws SQLException {
+        if (!columnExists(statement, table.getName(), table.getColumns().get(0), "character varying")) {
+            return;
+        }
+        String invalid = table.getColumns().stream()
+                .map(column -> column + " !~ '" + UUID_PATTERN + "'")
+                .collect(Collectors.joining(" OR "));
+        try (ResultSet rs = statement.executeQuery("SELECT count(*) FROM " + table.getName() + " WHERE " + invalid)) {
+            rs.next();
+            if (rs.getLong(1) > 0) {
+                throw new IllegalStateException(rs.getLong(1) + " rows of " + table.getName()
+                        + " hold ids that are not UUIDs, fix or remove them before migrating");
+            }
+        }
+    }
+
+    private void addShadowColumns(Statement statement, Table table) throws SQLException {
+        String name = table.getName();
+        if (!columnExists(statement, name, table.getColumns().get(0), "character varying")) {
+            return;
+        }
+        List<String> assignments = new ArrayList<>();
+        for (String column : table.getColumns()) {
+            statement.execute("ALTER TABLE " + name + " ADD COLUMN IF NOT EXISTS " + column + SHADOW + " uuid");
+            assignments.add("NEW." + column + SHADOW + " := NEW." + column + "::uuid;");
+        }
+        statement.execute("CREATE OR REPLACE FUNCTION " + name + "_uuid_sync() RETURNS trigger AS $$ BEGIN "
+                + String.join(" ", assignments) + " RETURN NEW; END $$ LANGUAGE plpgsql");
+        statement.execute("CREATE OR REPLACE TRIGGER " + name + "_uuid_sync BEFORE INSERT OR UPDATE ON " + name
+                + " FOR EACH ROW EXECUTE FUNCTION " + name + "_uuid_sync()");
+    }
+
+    private void backfill(Statement statement, Table table) throws SQLException, InterruptedException {
+        String name = table.getName();
+        if (!columnExists(statement, name, table.getColumns().get(0) + SHADOW, "uuid")) {
+            return;
+        }
+        long pages;
+        try (ResultSet rs = statement.executeQuery("SELECT pg_relation_size('" + name + "') "
+                + "/ current_setting('block_size')::int")) {
+            rs.next();
+            pages = rs.getLong(1);
+        }
+        String assignments = table.getColumns().stream()
+                .map(column -> column + SHADOW + " = " + column + "::uuid")
+                .collect(Collectors.joining(", "));
+        String missing = table.getColumns().stream()
+                .map(column -> column + SHADOW + " IS NULL")
+                .collect(Collectors.joining(" OR "));
+        // Rows written since the trigger exists are filled by it, whatever page they land on
+        long updated = 0;
+        for (long page = 0; page < pages; page += PAGES_PER_BATCH) {
+            updated += statement.executeUpdate("UPDATE " + name + " SET " + assignments
+                    + " WHERE ctid >= '(" + page + ",0)'::tid AND ctid < '(" + (page + PAGES_PER_BATCH) + ",0)'::tid"
+                    + " AND (" + missing + ")");
+            Thread.sleep(PAUSE_BETWEEN_BATCHES_MILLIS);
+        }
+        log.info("Backfilled {} rows of {} over {} pages", updated, name, pages);
+
+        for (String column : table.getColumns()) {
+            String check = name + "_" + column + SHADOW + "_not_null";
+            statement.execute("ALTER TABLE " + name + " DROP CONSTRAINT IF EXISTS " + check);
+            statement.execute("ALTER TABLE " + name + " ADD CONSTRAINT " + check
+                    + " CHECK (" + column + SHADOW + " IS NOT NULL) NOT VALID");
+            statement.execute("ALTER TABLE " + name + " VALIDATE CONSTRAINT " + check);
+        }
+    }
+
+    private void buildIndexes(Statement statement, Table table) throws SQLException {
+        String name = table.getName();
+        if (!columnExists(statement, name, table.getColumns().get(0) + SHADOW, "uuid")) {
+            return;
+        }
+        // Dropped first, as an interrupted concurrent build leaves an invalid index behind
+        if (table.getPrimaryKey() != null) {
+            statement.execute("DROP INDEX CONCURRENTLY IF EXISTS " + table.getPrimaryKey() + SHADOW);
+            statement.execute("CREATE UNIQUE INDEX CONCURRENTLY " + table.getPrimaryKey() + SHADOW
+                    + " ON " + name + " (" + table.getPrimaryKeyColumn() + SHADOW + ")");
+        }
+        for (Map.Entry<String, String> index : table.getIndexes().entrySet()) {
+            statement.execute("DROP INDEX CONCURRENTLY IF EXISTS " + index.getKey() + SHADOW);
+            statement.execute("CREATE INDEX CONCURRENTLY " + index.getKey() + SHADOW + " ON " + name
+                    + " (" + shadowed(index.getValue(), table.getColumns()) + ")");
+        }
+        log.info("Built the uuid indexes of {}", name);
+    }
+
+    static boolean columnExists(Statement statement, String table, String column, String type)
+            throws SQLException {
+        try (ResultSet rs = statement.executeQuery("SELECT 1 FROM information_schema.columns "
+                + "WHERE table_schema = current_schema() AND table_name = '" + table + "' "
+                + "AND column_name = '" + column + "' AND data_type = '" + type + "'")) {
+            return rs.next();
+        }
+    }
+
+    private static String shadowed(String definition, List<String> columns) {
+        List<String> parts = new ArrayList<>();
+        for (String part : definition.split(",")) {
+            String[] words = part.trim().split(" ", 2);
+            String column = columns.contains(words[0]) ? words[0] + SHADOW : words[0];
+            parts.add(words.length > 1 ? column + " " + words[1] : column);
+        }
+        return String.join(", ", parts);
+    }
+
+    private static Map<String, String> indexes(String name, String definition) {
+        Map<String, String> indexes = new LinkedHashMap<>();
+        indexes.put(name, definition);
+        return indexes;
+    }
+
+    /**
+     * A table whose id columns are converted, with the primary key and indexes that involve them.
+     */
+    @Value
+    static class Table {
+        private final String name;
+        private final List<String> columns;
+        private final String primaryKey;
+        private final String primaryKeyColumn;
+        /**
+         * Index names and their columns, as they are once converted.
+         */
+        private final Map<String, String> indexes;
+    }
+}
@@ -0,0 +1,40 @@
+package com.github.hippoom.runner.challenges.config;
+
+import com.github.hippoom.runner.challenges.domain.challenge.progress.ProgressChangeBus;
+import com.github.hippoom.runner.challenges.messaging.inmemory.InMemoryProgressChangeBus;
+import com.github.hippoom.runner.challenges.messaging.postgres.PostgresProgressChangeBus;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.DriverManager;
+import java.time.Duration;
+
+@Configuration
+public class ProgressChangeBusConfiguration {
+
+    @Bean
+    @ConditionalOnProperty(prefix = "challenges.progress-bus", name = "type", havingValue = "postgres",
+            matchIfMissing = true)
+    public ProgressChangeBus postgresProgressChangeBus(
+            JdbcTemplate jdbcTemplate,
+            DataSourceProperties dataSourceProperties,
+            @Value("${challenges.progress-bus.channel}") String channel,
+            @Value("${challenges.progress-bus.flush-interval}") Duration flushInterval,
+            @Value("${challenges.progress-bus.reconnect-backoff}") Duration reconnectBackoff) {
+        // Listen on a connection of its own, it is held for the lifetime of the application
+        return new PostgresProgressChangeBus(jdbcTemplate,
+                () -> DriverManager.getConnection(dataSourceProperties.determineUrl(),
+                        dataSourceProperties.determineUsername(), dataSourceProperties.determinePassword()),
+                channel, flushInterval, reconnectBackoff);
+    }
+
+    @Bean
+    @ConditionalOnProperty(prefix = "challenges.progress-bus", name = "type", havingValue = "in-memory")
+    public ProgressChangeBus inMemoryProgressChangeBus() {
+        return new InMemoryProgressChangeBus();
+    }
+}
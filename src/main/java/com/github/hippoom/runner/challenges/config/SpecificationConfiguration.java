@@ -14,8 +14,9 @@ public class SpecificationConfiguration {
     @Bean
     public List<ChallengeAvailabilitySpecification> challengeAvailabilitySpecs(
             @Qualifier("challengeNotLockedSpec") ChallengeAvailabilitySpecification notLockedSpec,
+            @Qualifier("challengeOpenSpec") ChallengeAvailabilitySpecification openSpec,
             @Qualifier("prerequisitesMetSpec") ChallengeAvailabilitySpecification prerequisitesSpec
     ) {
-        return Arrays.asList(notLockedSpec, prerequisitesSpec);
+        return Arrays.asList(notLockedSpec, openSpec, prerequisitesSpec);
     }
 } 
\ No newline at end of file
@@ -0,0 +1,44 @@
+package com.github.hippoom.runner.challenges.domain.activity;
+
+import com.github.hippoom.runner.challenges.domain.user.UuidStringType;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+
+/**
+ * Ids of the activities already recorded, so that an activity delivered more than once is recorded once.
+ */
+@Repository
+@RequiredArgsConstructor
+public class ProcessedActivityRepository {
+
+    private static final String PRUNE_BATCH =
+            "DELETE FROM processed_activity WHERE activity_id IN ("
+            + "  SELECT activity_id FROM processed_activity WHERE processed_at < ?"
+            + "  LIMIT ? FOR UPDATE SKIP LOCKED)";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Marks the activity as recorded by the current transaction. A transaction claiming the same activity
+     * concurrently waits for this one to end. Must run in the transaction recording the activity.
+     *
+     * @return false if the activity was already recorded
+     */
+    public boolean claim(UserActivity activity) {
+        return jdbcTemplate.update("INSERT INTO processed_activity (activity_id, processed_at) VALUES (?, now()) "
+                + "ON CONFLICT (activity_id) DO NOTHING", UuidStringType.parameter(activity.getId())) == 1;
+    }
+
+    /**
+     * Forgets a batch of activities recorded before the given time.
+     *
+     * @return how many were forgotten
+     */
+    public int pruneBatch(Instant processedBefore, int limit) {
+        return jdbcTemplate.update(PRUNE_BATCH, Timestamp.from(processedBefore), limit);
+    }
+}
@@ -3,12 +3,38 @@ package com.github.hippoom.runner.challenges.domain.activity;
 import com.github.hippoom.runner.challenges.domain.user.UserId;
 import lombok.Data;
 
+import java.nio.charset.StandardCharsets;
 import java.time.Instant;
+import java.util.UUID;
 
 @Data
 public class UserActivity {
+    private String id;
     private UserId userId;
     private Instant when;
     private String type;
     private UserActivityMetricSummary metricSummary;
+
+    /**
+     * Sets the id the producer gave the activity, which must be a UUID.
+     */
+    public void setId(String id) {
+        this.id = id == null ? null : UUID.fromString(id.trim()).toString();
+    }
+
+    /**
+     * Identifies the activity however many times it is delivered: the id the producer gave it, or else one
+     * derived from what the activity is, so that every delivery of the same activity gets the same id.
+     */
+    public String getId() {
+        if (id != null) {
+            return id;
+        }
+        String identity = String.join("|",
+                userId == null ? "" : userId.getValue(),
+                String.valueOf(when),
+                String.valueOf(type),
+                metricSummary == null ? "" : metricSummary.getDistance() + "|" + metricSummary.getDuration());
+        return UUID.nameUUIDFromBytes(identity.getBytes(StandardCharsets.UTF_8)).toString();
+    }
 }
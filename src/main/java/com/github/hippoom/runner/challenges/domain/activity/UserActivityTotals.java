@@ -0,0 +1,145 @@
+package com.github.hippoom.runner.challenges.domain.activity;
+
+import com.github.hippoom.runner.challenges.domain.user.UserId;
+import lombok.AccessLevel;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.ToString;
+
+import javax.persistence.AttributeOverride;
+import javax.persistence.Column;
+import javax.persistence.EmbeddedId;
+import javax.persistence.Entity;
+import javax.persistence.Table;
+import javax.persistence.Version;
+import java.nio.ByteBuffer;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+
+/**
+ * Rolling per-user totals of activity distance and duration, bucketed by UTC day.
+ * <p>
+ * The buckets form a ring of {@link #MAX_WINDOW_DAYS} days packed into two small byte arrays,
+ * so recording an activity and evaluating a window never touch the activity history.
+ * <p>
+ * Totals are kept for the user's current attempt at a challenge only: they start afresh when another attempt
+ * starts, and leave out activities done before it started.
+ */
+@Entity
+@Table(name = "user_activity_totals")
+@Getter
+@EqualsAndHashCode(of = "userId")
+@ToString(of = "userId")
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+public class UserActivityTotals {
+    public static final int MAX_WINDOW_DAYS = 32;
+
+    private static final int BUCKET_BYTES = Integer.BYTES;
+    private static final double METERS_PER_KM = 1000.0;
+
+    @EmbeddedId
+    @AttributeOverride(name = "value", column = @Column(name = "user_id"))
+    private UserId userId;
+
+    @Column(name = "attempt_started_at")
+    private Instant attemptStartedAt;
+
+    @Column(name = "latest_day")
+    private long latestDay;
+
+    @Column(name = "distances")
+    private byte[] distances; // meters per day
+
+    @Column(name = "durations")
+    private byte[] durations; // seconds per day
+
+    @Version
+    private long version;
+
+    public UserActivityTotals(UserId userId) {
+        this.userId = userId;
+        this.distances = new byte[MAX_WINDOW_DAYS * BUCKET_BYTES];
+        this.durations = new byte[MAX_WINDOW_DAYS * BUCKET_BYTES];
+    }
+
+    /**
+     * Records the activity into the totals of the attempt started at the given time.
+     */
+    public void record(UserActivity activity, Instant attemptStart) {
+        if (!attemptStart.equals(attemptStartedAt)) {
+            startAttempt(attemptStart);
+        }
+        UserActivityMetricSummary summary = activity.getMetricSummary();
+        if (summary == null || activity.getWhen().isBefore(attemptStartedAt)) {
+            return;
+        }
+        long day = epochDay(activity.getWhen());
+        if (day > latestDay) {
+            advanceTo(day);
+        } else if (day <= latestDay - MAX_WINDOW_DAYS) {
+            return; // Too old to fall into any window
+        }
+        int index = bucketIndex(day);
+        add(distances, index, (int) Math.round(summary.getDistance() * METERS_PER_KM));
+        add(durations, index, summary.getDuration());
+    }
+
+    /**
+     * Total distance in km of the given number of days ending with the day of {@code asOf}.
+     */
+    public double distanceWithin(int days, Instant asOf) {
+        return sumWithin(distances, days, asOf) / METERS_PER_KM;
+    }
+
+    /**
+     * Total duration in seconds of the given number of days ending with the day of {@code asOf}.
+     */
+    public long durationWithin(int days, Instant asOf) {
+        return sumWithin(durations, days, asOf);
+    }
+
+    private long sumWithin(byte[] buckets, int days, Instant asOf) {
+        if (days < 1 || days > MAX_WINDOW_DAYS) {
+            throw new IllegalArgumentException("Window must be between 1 and " + MAX_WINDOW_DAYS + " days");
+        }
+        long lastDay = Math.min(epochDay(asOf), latestDay);
+        long firstDay = Math.max(epochDay(asOf) - days + 1, latestDay - MAX_WINDOW_DAYS + 1);
+        long sum = 0;
+        for (long day = firstDay; day <= lastDay; day++) {
+            sum += ByteBuffer.wrap(buckets).getInt(bucketIndex(day) * BUCKET_BYTES);
+        }
+        return sum;
+    }
+
+    private void startAttempt(Instant attemptStart) {
+        attemptStartedAt = attemptStart;
+        latestDay = 0;
+        Arrays.fill(distances, (byte) 0);
+        Arrays.fill(durations, (byte) 0);
+    }
+
+    private void advanceTo(long day) {
+        long staleDays = Math.min(day - latestDay, MAX_WINDOW_DAYS);
+        for (long offset = 1; offset <= staleDays; offset++) {
+            int index = bucketIndex(latestDay + offset);
+            ByteBuffer.wrap(distances).putInt(index * BUCKET_BYTES, 0);
+            ByteBuffer.wrap(durations).putInt(index * BUCKET_BYTES, 0);
+        }
+        latestDay = day;
+    }
+
+    private static void add(byte[] buckets, int index, int amount) {
+        ByteBuffer buffer = ByteBuffer.wrap(buckets);
+        buffer.putInt(index * BUCKET_BYTES, buffer.getInt(index * BUCKET_BYTES) + amount);
+    }
+
+    private static int bucketIndex(long day) {
+        return (int) Math.floorMod(day, (long) MAX_WINDOW_DAYS);
+    }
+
+    private static long epochDay(Instant when) {
+        return when.atZone(ZoneOffset.UTC).toLocalDate().toEpochDay();
+    }
+}
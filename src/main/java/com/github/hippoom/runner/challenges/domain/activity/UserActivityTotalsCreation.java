@@ -0,0 +1,16 @@
+package com.github.hippoom.runner.challenges.domain.activity;
+
+import com.github.hippoom.runner.challenges.domain.user.UserId;
+
+/**
+ * Creates the totals row of a new user, which commands of the user running on several nodes, or an import
+ * running beside them, may race to do.
+ */
+public interface UserActivityTotalsCreation {
+
+    /**
+     * Inserts empty totals unless the user has some. A transaction creating them concurrently makes this one
+     * wait for it to end, and then do nothing.
+     */
+    void createIfAbsent(UserId userId);
+}
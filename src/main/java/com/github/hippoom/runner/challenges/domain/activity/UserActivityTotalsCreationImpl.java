@@ -0,0 +1,21 @@
+package com.github.hippoom.runner.challenges.domain.activity;
+
+import com.github.hippoom.runner.challenges.domain.user.UserId;
+import com.github.hippoom.runner.challenges.domain.user.UuidStringType;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+@RequiredArgsConstructor
+class UserActivityTotalsCreationImpl implements UserActivityTotalsCreation {
+
+    private static final int BUCKETS_BYTES = UserActivityTotals.MAX_WINDOW_DAYS * Integer.BYTES;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Override
+    public void createIfAbsent(UserId userId) {
+        jdbcTemplate.update("INSERT INTO user_activity_totals (user_id, latest_day, distances, durations, version) "
+                        + "VALUES (?, 0, ?, ?, 0) ON CONFLICT (user_id) DO NOTHING",
+                UuidStringType.parameter(userId.getValue()), new byte[BUCKETS_BYTES], new byte[BUCKETS_BYTES]);
+    }
+}
@@ -0,0 +1,20 @@
+package com.github.hippoom.runner.challenges.domain.activity;
+
+import com.github.hippoom.runner.challenges.domain.user.UserId;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface UserActivityTotalsRepository extends JpaRepository<UserActivityTotals, UserId>,
+        UserActivityTotalsCreation {
+
+    /**
+     * Loads the user's totals, creating them first if the user has none. Must run in a transaction.
+     */
+    default UserActivityTotals getOrCreate(UserId userId) {
+        return findById(userId).orElseGet(() -> {
+            createIfAbsent(userId);
+            return findById(userId).orElseThrow(() -> new IllegalStateException("No totals for " + userId));
+        });
+    }
+}
@@ -1,18 +1,61 @@
 package com.github.hippoom.runner.challenges.domain.challenge;
 
-import lombok.Data;
+import lombok.Builder;
 import lombok.EqualsAndHashCode;
 import lombok.ToString;
+import lombok.Value;
 
+import java.time.Duration;
+import java.time.Instant;
 import java.util.List;
 
-@Data
+/**
+ * A challenge of the catalog. Immutable, so a catalog snapshot can be shared by all requests.
+ */
+@Value
+@Builder
 @EqualsAndHashCode(of = "number")
 @ToString(of = "number")
 public class Challenge {
-    private ChallengeNumber number;
-    private boolean locked;
-    private List<ChallengeNumber> prerequisites;
-    private Double minimumDistance;
-    private Double minimumPace;
+    private final ChallengeNumber number;
+    private final boolean locked;
+    private final List<ChallengeNumber> prerequisites;
+    private final Double minimumDistance;
+    private final Double minimumPace;
+    private final Double minimumTotalDistance;
+    private final Integer minimumTotalDuration;
+    private final Integer windowDays;
+    private final Instant opensAt;
+    private final Instant closesAt;
+    private final Duration timeLimit;
+
+    public boolean hasWindow() {
+        return opensAt != null || closesAt != null;
+    }
+
+    public boolean isOpenAt(Instant instant) {
+        return (opensAt == null || !instant.isBefore(opensAt)) && (closesAt == null || instant.isBefore(closesAt));
+    }
+
+    /**
+     * When an attempt started at the instant expires, at the end of its time limit or when the challenge
+     * closes, whichever comes first. Null if it never does.
+     */
+    public Instant expiryOf(Instant startedAt) {
+        Instant limit = timeLimit == null ? null : startedAt.plus(timeLimit);
+        if (closesAt == null || limit != null && limit.isBefore(closesAt)) {
+            return limit;
+        }
+        return closesAt;
+    }
+
+    /**
+     * Attempts started before the returned instant have expired by {@code now}. Null if none has.
+     */
+    public Instant expiryCutoff(Instant now) {
+        if (closesAt != null && !now.isBefore(closesAt)) {
+            return now;
+        }
+        return timeLimit == null ? null : now.minus(timeLimit);
+    }
 }
@@ -1,29 +1,43 @@
 package com.github.hippoom.runner.challenges.domain.challenge;
 
-import lombok.Data;
-import lombok.NoArgsConstructor;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.ToString;
 
-import javax.persistence.Embeddable;
+/**
+ * Immutable challenge number. Numbers up to {@link #CANONICAL_LIMIT} are canonical instances shared by the
+ * catalog, requests and persisted entities, so resolving a number does not allocate.
+ */
+@Getter
+@EqualsAndHashCode
+@ToString
+public final class ChallengeNumber implements Comparable<ChallengeNumber> {
 
-@Data
-@NoArgsConstructor
-@Embeddable
-public class ChallengeNumber implements Comparable<ChallengeNumber> {
-    private Integer value;
+    static final int CANONICAL_LIMIT = 1024;
 
-    public ChallengeNumber(Integer value) {
-        if (value == null || value < 1) {
-            throw new IllegalArgumentException("Challenge number must start from 1");
+    private static final ChallengeNumber[] CANONICAL = new ChallengeNumber[CANONICAL_LIMIT + 1];
+
+    static {
+        for (int value = 1; value <= CANONICAL_LIMIT; value++) {
+            CANONICAL[value] = new ChallengeNumber(value);
         }
+    }
+
+    private final int value;
+
+    private ChallengeNumber(int value) {
         this.value = value;
     }
 
-    public static ChallengeNumber of(Integer value) {
-        return new ChallengeNumber(value);
+    public static ChallengeNumber of(int value) {
+        if (value < 1) {
+            throw new IllegalArgumentException("Challenge number must start from 1");
+        }
+        return value <= CANONICAL_LIMIT ? CANONICAL[value] : new ChallengeNumber(value);
     }
 
     @Override
     public int compareTo(ChallengeNumber other) {
-        return this.value.compareTo(other.value);
+        return Integer.compare(this.value, other.value);
     }
 }
@@ -0,0 +1,21 @@
+package com.github.hippoom.runner.challenges.domain.challenge;
+
+import javax.persistence.AttributeConverter;
+import javax.persistence.Converter;
+
+/**
+ * Maps challenge numbers to their integer column, hydrating them as canonical instances.
+ */
+@Converter
+public class ChallengeNumberAttributeConverter implements AttributeConverter<ChallengeNumber, Integer> {
+
+    @Override
+    public Integer convertToDatabaseColumn(ChallengeNumber number) {
+        return number == null ? null : number.getValue();
+    }
+
+    @Override
+    public ChallengeNumber convertToEntityAttribute(Integer value) {
+        return value == null ? null : ChallengeNumber.of(value);
+    }
+}
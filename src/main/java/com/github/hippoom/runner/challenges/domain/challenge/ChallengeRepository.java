@@ -1,29 +1,38 @@
 package com.github.hippoom.runner.challenges.domain.challenge;
 
-import org.springframework.boot.context.properties.ConfigurationProperties;
+import com.github.hippoom.runner.challenges.domain.challenge.catalog.ChallengeCatalog;
 import org.springframework.stereotype.Repository;
-import lombok.Data;
+
 import java.util.List;
-import java.util.ArrayList;
-import java.util.Comparator;
-import java.util.stream.Collectors;
 
+/**
+ * Serves challenges from the current {@link ChallengeCatalog} snapshot.
+ * <p>
+ * Snapshots are immutable and replaced as a whole, so readers go through a single volatile read and never
+ * lock. A request that needs several lookups to agree should take the {@link #snapshot()} once.
+ */
 @Repository
-@ConfigurationProperties(prefix = "")
-@Data
 public class ChallengeRepository {
-    private List<Challenge> challenges = new ArrayList<>();
+
+    private volatile ChallengeCatalog catalog = ChallengeCatalog.EMPTY;
+
+    public ChallengeCatalog snapshot() {
+        return catalog;
+    }
+
+    public void replace(ChallengeCatalog catalog) {
+        this.catalog = catalog;
+    }
 
     public List<Challenge> findAll() {
-        return challenges.stream()
-                .sorted(Comparator.comparing(Challenge::getNumber))
-                .collect(Collectors.toList());
+        return catalog.findAll();
     }
-    
+
     public Challenge getOrThrow(ChallengeNumber number) {
-        return challenges.stream()
-                .filter(challenge -> challenge.getNumber().equals(number))
-                .findFirst()
-                .orElseThrow(() -> new NoSuchChallengeException(number));
+        Challenge challenge = catalog.find(number);
+        if (challenge == null) {
+            throw new NoSuchChallengeException(number);
+        }
+        return challenge;
     }
 }
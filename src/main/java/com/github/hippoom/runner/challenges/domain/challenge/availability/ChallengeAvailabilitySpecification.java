@@ -1,9 +1,9 @@
 package com.github.hippoom.runner.challenges.domain.challenge.availability;
 
 import com.github.hippoom.runner.challenges.domain.challenge.Challenge;
-import com.github.hippoom.runner.challenges.domain.user.UserId;
+import com.github.hippoom.runner.challenges.domain.challenge.progress.UserProgress;
 
 public interface ChallengeAvailabilitySpecification {
-    boolean test(Challenge challenge, UserId userId);
-    void validate(Challenge challenge, UserId userId);
-} 
\ No newline at end of file
+    boolean test(Challenge challenge, UserProgress progress);
+    void validate(Challenge challenge, UserProgress progress);
+}
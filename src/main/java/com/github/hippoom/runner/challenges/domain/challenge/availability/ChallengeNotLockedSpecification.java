@@ -3,21 +3,21 @@ package com.github.hippoom.runner.challenges.domain.challenge.availability;
 import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.stereotype.Component;
 import com.github.hippoom.runner.challenges.domain.challenge.Challenge;
-import com.github.hippoom.runner.challenges.domain.user.UserId;
+import com.github.hippoom.runner.challenges.domain.challenge.progress.UserProgress;
 
 @Component
 @Qualifier("challengeNotLockedSpec")
 public class ChallengeNotLockedSpecification implements ChallengeAvailabilitySpecification {
     
     @Override
-    public boolean test(Challenge challenge, UserId userId) {
+    public boolean test(Challenge challenge, UserProgress progress) {
         return !challenge.isLocked();
     }
     
     @Override
-    public void validate(Challenge challenge, UserId userId) {
+    public void validate(Challenge challenge, UserProgress progress) {
         if (challenge.isLocked()) {
             throw ChallengeUnavailableException.locked(challenge.getNumber());
         }
     }
-} 
\ No newline at end of file
+}
@@ -0,0 +1,110 @@
+package com.github.hippoom.runner.challenges.domain.challenge.availability;
+
+import com.github.hippoom.runner.challenges.domain.challenge.Challenge;
+import com.github.hippoom.runner.challenges.domain.challenge.ChallengeRepository;
+import com.github.hippoom.runner.challenges.domain.challenge.catalog.ChallengeWindows;
+import com.github.hippoom.runner.challenges.domain.challenge.progress.ProgressChangeBus;
+import com.github.hippoom.runner.challenges.domain.challenge.progress.UserProgress;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A challenge with a window can only be started while it is open.
+ * <p>
+ * Checks never look at the clock: they test the set of open challenges, which a timer swaps for the next one
+ * when a challenge opens or closes, telling the {@link ProgressChangeBus} listeners of this node. A new catalog
+ * is picked up by the first check that sees it.
+ */
+@Slf4j
+@Component
+@Qualifier("challengeOpenSpec")
+public class ChallengeOpenSpecification implements ChallengeAvailabilitySpecification, InitializingBean,
+        DisposableBean {
+
+    private static final long MIN_SWAP_DELAY_MILLIS = 1;
+
+    private final ChallengeRepository challengeRepository;
+    private final ProgressChangeBus progressChangeBus;
+    private final ScheduledExecutorService switcher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "challenge-window-switcher");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private volatile ChallengeWindows.Active active;
+    // Guarded by this
+    private ScheduledFuture<?> nextSwap;
+
+    public ChallengeOpenSpecification(ChallengeRepository challengeRepository, ProgressChangeBus progressChangeBus) {
+        this.challengeRepository = challengeRepository;
+        this.progressChangeBus = progressChangeBus;
+    }
+
+    @Override
+    public void afterPropertiesSet() {
+        swap();
+    }
+
+    @Override
+    public void destroy() {
+        switcher.shutdownNow();
+    }
+
+    @Override
+    public boolean test(Challenge challenge, UserProgress progress) {
+        if (!challenge.hasWindow()) {
+            return true;
+        }
+        ChallengeWindows.Active current = active;
+        if (!current.isOf(challengeRepository.snapshot().getWindows())) {
+            current = swap();
+        }
+        return current.isOpen(challenge.getNumber());
+    }
+
+    @Override
+    public void validate(Challenge challenge, UserProgress progress) {
+        if (!test(challenge, progress)) {
+            throw ChallengeUnavailableException.notOpen(challenge.getNumber());
+        }
+    }
+
+    /**
+     * Computes the open challenges of the current catalog and arms the timer for the next boundary.
+     */
+    private synchronized ChallengeWindows.Active swap() {
+        Instant now = Instant.now();
+        ChallengeWindows.Active current = challengeRepository.snapshot().getWindows().activeAt(now);
+        active = current;
+        if (nextSwap != null) {
+            nextSwap.cancel(false);
+            nextSwap = null;
+        }
+        if (current.getUntil() != null) {
+            long delay = Math.max(MIN_SWAP_DELAY_MILLIS, Duration.between(now, current.getUntil()).toMillis());
+            nextSwap = switcher.schedule(this::swapSafely, delay, TimeUnit.MILLISECONDS);
+        }
+        return current;
+    }
+
+    private void swapSafely() {
+        try {
+            ChallengeWindows.Active previous = active;
+            // The timer may fire a little early, leaving the same challenges open
+            if (!swap().opensSameAs(previous)) {
+                progressChangeBus.publishAvailabilityChanged();
+            }
+        } catch (RuntimeException e) {
+            log.warn("Failed to swap the open challenges", e);
+        }
+    }
+}
@@ -8,6 +8,10 @@ public final class ChallengeUnavailableException extends RuntimeException {
         return new ChallengeUnavailableException(challengeNumber, "locked");
     }
     
+    public static ChallengeUnavailableException notOpen(ChallengeNumber challengeNumber) {
+        return new ChallengeUnavailableException(challengeNumber, "not open");
+    }
+    
     public static ChallengeUnavailableException prerequisitesNotMet(ChallengeNumber challengeNumber) {
         return new ChallengeUnavailableException(challengeNumber, "prerequisites not met");
     }
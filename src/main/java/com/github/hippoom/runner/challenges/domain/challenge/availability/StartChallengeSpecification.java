@@ -1,7 +1,7 @@
 package com.github.hippoom.runner.challenges.domain.challenge.availability;
 
 import com.github.hippoom.runner.challenges.domain.challenge.Challenge;
-import com.github.hippoom.runner.challenges.domain.user.UserId;
+import com.github.hippoom.runner.challenges.domain.challenge.progress.UserProgress;
 import lombok.RequiredArgsConstructor;
 import org.springframework.context.annotation.Primary;
 import org.springframework.stereotype.Component;
@@ -16,13 +16,17 @@ public class StartChallengeSpecification implements ChallengeAvailabilitySpecifi
     private final List<ChallengeAvailabilitySpecification> specifications;
     
     @Override
-    public boolean test(Challenge challenge, UserId userId) {
-        return specifications.stream()
-                .allMatch(spec -> spec.test(challenge, userId));
+    public boolean test(Challenge challenge, UserProgress progress) {
+        for (int i = 0; i < specifications.size(); i++) {
+            if (!specifications.get(i).test(challenge, progress)) {
+                return false;
+            }
+        }
+        return true;
     }
     
     @Override
-    public void validate(Challenge challenge, UserId userId) {
-        specifications.forEach(spec -> spec.validate(challenge, userId));
+    public void validate(Challenge challenge, UserProgress progress) {
+        specifications.forEach(spec -> spec.validate(challenge, progress));
     }
-} 
\ No newline at end of file
+}
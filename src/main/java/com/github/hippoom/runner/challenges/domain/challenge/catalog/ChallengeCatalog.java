@@ -0,0 +1,191 @@
+package com.github.hippoom.runner.challenges.domain.challenge.catalog;
+
+import com.github.hippoom.runner.challenges.domain.activity.UserActivityTotals;
+import com.github.hippoom.runner.challenges.domain.challenge.Challenge;
+import com.github.hippoom.runner.challenges.domain.challenge.ChallengeNumber;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Immutable snapshot of the challenges, validated and indexed once when compiled so that readers never
+ * sort, scan or lock.
+ * <p>
+ * The version is derived from the content, so nodes loading the same catalog agree on it and it only
+ * changes when a challenge does. Caches and ETags may key on it.
+ */
+public final class ChallengeCatalog {
+
+    private static final long FNV_OFFSET_BASIS = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+    private static final int MAX_NUMBER = 65_535;
+    private static final int BYTE_MASK = 0xFF;
+
+    public static final ChallengeCatalog EMPTY = new ChallengeCatalog(FNV_OFFSET_BASIS, Collections.emptyList(),
+            new Challenge[0], PrerequisiteGraph.compile(Collections.emptyList()),
+            ChallengeWindows.compile(Collections.emptyList()));
+
+    private final long version;
+    private final List<Challenge> challenges;
+    private final Challenge[] byNumber;
+    private final PrerequisiteGraph prerequisites;
+    private final ChallengeWindows windows;
+
+    private ChallengeCatalog(long version, List<Challenge> challenges, Challenge[] byNumber,
+                             PrerequisiteGraph prerequisites, ChallengeWindows windows) {
+        this.version = version;
+        this.challenges = challenges;
+        this.byNumber = byNumber;
+        this.prerequisites = prerequisites;
+        this.windows = windows;
+    }
+
+    /**
+     * Validates the definitions and compiles them into a snapshot.
+     *
+     * @throws InvalidChallengeCatalogException if a challenge has no or a duplicate number, requires a challenge
+     *                                          that is not in the catalog, closes before it opens, has a time
+     *                                          limit that is not positive, has cumulative criteria without a
+     *                                          window, has a window out of range, or prerequisites form a cycle
+     */
+    public static ChallengeCatalog compile(List<ChallengeDefinition> definitions) {
+        List<ChallengeDefinition> sorted = new ArrayList<>(definitions.size());
+        for (ChallengeDefinition definition : definitions) {
+            if (definition.getNumber() == null) {
+                throw new InvalidChallengeCatalogException("Challenge without a number");
+            }
+            if (definition.getNumber().getValue() > MAX_NUMBER) {
+                throw new InvalidChallengeCatalogException(
+                        "Challenge number out of range: " + definition.getNumber().getValue());
+            }
+            sorted.add(definition);
+        }
+        sorted.sort(Comparator.comparing(ChallengeDefinition::getNumber));
+
+        Challenge[] byNumber = new Challenge[sorted.isEmpty()
+                ? 0
+                : sorted.get(sorted.size() - 1).getNumber().getValue() + 1];
+        List<Challenge> challenges = new ArrayList<>(sorted.size());
+        long version = FNV_OFFSET_BASIS;
+        for (ChallengeDefinition definition : sorted) {
+            Challenge challenge = toChallenge(definition);
+            if (byNumber[challenge.getNumber().getValue()] != null) {
+                throw new InvalidChallengeCatalogException(
+                        "Duplicate challenge number: " + challenge.getNumber().getValue());
+            }
+            byNumber[challenge.getNumber().getValue()] = challenge;
+            challenges.add(challenge);
+            version = hash(version, definition.toString());
+        }
+        PrerequisiteGraph prerequisites = PrerequisiteGraph.compile(challenges);
+        return new ChallengeCatalog(version, Collections.unmodifiableList(challenges), byNumber, prerequisites,
+                ChallengeWindows.compile(challenges));
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    public PrerequisiteGraph getPrerequisites() {
+        return prerequisites;
+    }
+
+    public ChallengeWindows getWindows() {
+        return windows;
+    }
+
+    /**
+     * All challenges, ordered by number.
+     */
+    public List<Challenge> findAll() {
+        return challenges;
+    }
+
+    /**
+     * Challenges numbered from {@code from} to {@code to}, both inclusive, ordered by number. A view of the
+     * catalog found by binary search, so it costs the same however large the catalog is.
+     */
+    public List<Challenge> findBetween(int from, int to) {
+        int start = indexOf(from);
+        int end = to == Integer.MAX_VALUE ? challenges.size() : indexOf(to + 1);
+        return start < end ? challenges.subList(start, end) : Collections.emptyList();
+    }
+
+    public Challenge find(ChallengeNumber number) {
+        int value = number.getValue();
+        return value < byNumber.length ? byNumber[value] : null;
+    }
+
+    /**
+     * Index of the first challenge numbered {@code number} or more.
+     */
+    private int indexOf(int number) {
+        int low = 0;
+        int high = challenges.size();
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (challenges.get(middle).getNumber().getValue() < number) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    private static Challenge toChallenge(ChallengeDefinition definition) {
+        if (definition.getOpensAt() != null && definition.getClosesAt() != null
+                && !definition.getClosesAt().isAfter(definition.getOpensAt())) {
+            throw new InvalidChallengeCatalogException(
+                    "Challenge " + definition.getNumber().getValue() + " closes before it opens");
+        }
+        if (definition.getTimeLimit() != null
+                && (definition.getTimeLimit().isNegative() || definition.getTimeLimit().isZero())) {
+            throw new InvalidChallengeCatalogException(
+                    "Challenge " + definition.getNumber().getValue() + " has a time limit that is not positive");
+        }
+        Integer windowDays = definition.getWindowDays();
+        if ((definition.getMinimumTotalDistance() != null || definition.getMinimumTotalDuration() != null)
+                && windowDays == null) {
+            throw new InvalidChallengeCatalogException(
+                    "Challenge " + definition.getNumber().getValue() + " has cumulative criteria but no window days");
+        }
+        if (windowDays != null && (windowDays < 1 || windowDays > UserActivityTotals.MAX_WINDOW_DAYS)) {
+            throw new InvalidChallengeCatalogException("Challenge " + definition.getNumber().getValue()
+                    + " has a window that is not between 1 and " + UserActivityTotals.MAX_WINDOW_DAYS + " days");
+        }
+        List<ChallengeNumber> prerequisites = new ArrayList<>();
+        if (definition.getPrerequisites() != null) {
+            for (ChallengeNumber prerequisite : definition.getPrerequisites()) {
+                if (prerequisite != null) {
+                    prerequisites.add(prerequisite);
+                }
+            }
+        }
+        return Challenge.builder()
+                .number(definition.getNumber())
+                .locked(definition.isLocked())
+                .prerequisites(Collections.unmodifiableList(prerequisites))
+                .minimumDistance(definition.getMinimumDistance())
+                .minimumPace(definition.getMinimumPace())
+                .minimumTotalDistance(definition.getMinimumTotalDistance())
+                .minimumTotalDuration(definition.getMinimumTotalDuration())
+                .windowDays(windowDays)
+                .opensAt(definition.getOpensAt())
+                .closesAt(definition.getClosesAt())
+                .timeLimit(definition.getTimeLimit())
+                .build();
+    }
+
+    private static long hash(long hash, String value) {
+        long result = hash;
+        for (byte b : value.getBytes(StandardCharsets.UTF_8)) {
+            result ^= b & BYTE_MASK;
+            result *= FNV_PRIME;
+        }
+        return result;
+    }
+}
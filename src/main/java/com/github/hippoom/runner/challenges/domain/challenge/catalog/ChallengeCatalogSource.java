@@ -0,0 +1,23 @@
+package com.github.hippoom.runner.challenges.domain.challenge.catalog;
+
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Where challenge definitions come from, e.g. the application properties or a watched file.
+ */
+public interface ChallengeCatalogSource {
+
+    /**
+     * Reads the definitions if they may have changed since the previous call, the first call always reads.
+     *
+     * @return the definitions, or empty if unchanged
+     * @throws InvalidChallengeCatalogException if the source cannot be read or bound
+     */
+    Optional<List<ChallengeDefinition>> readIfChanged();
+
+    /**
+     * Names the source in logs.
+     */
+    String describe();
+}
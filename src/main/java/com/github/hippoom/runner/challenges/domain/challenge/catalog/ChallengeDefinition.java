@@ -0,0 +1,36 @@
+package com.github.hippoom.runner.challenges.domain.challenge.catalog;
+
+import com.github.hippoom.runner.challenges.domain.challenge.ChallengeNumber;
+import lombok.Data;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A challenge as written in a catalog source, e.g. {@code challenges[0].number=1}, before validation.
+ */
+@Data
+public class ChallengeDefinition {
+    private ChallengeNumber number;
+    private boolean locked;
+    private List<ChallengeNumber> prerequisites = new ArrayList<>();
+    private Double minimumDistance;
+    private Double minimumPace;
+    private Double minimumTotalDistance;
+    private Integer minimumTotalDuration;
+    private Integer windowDays;
+    /**
+     * The challenge can be started from this instant on, e.g. {@code 2026-11-01T00:00:00Z}.
+     */
+    private Instant opensAt;
+    /**
+     * The challenge can no longer be started from this instant on, and attempts still running expire.
+     */
+    private Instant closesAt;
+    /**
+     * Attempts not completed within this long after they started expire, e.g. {@code P7D}.
+     */
+    private Duration timeLimit;
+}
@@ -0,0 +1,40 @@
+package com.github.hippoom.runner.challenges.domain.challenge.catalog;
+
+import com.github.hippoom.runner.challenges.domain.challenge.ChallengeNumberConverter;
+import org.springframework.boot.context.properties.bind.BindException;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.boot.context.properties.bind.PlaceholdersResolver;
+import org.springframework.boot.context.properties.source.ConfigurationPropertySource;
+import org.springframework.boot.convert.ApplicationConversionService;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Binds definitions written in the properties format, {@code challenges[0].number=1} and so on,
+ * whatever the source of the properties.
+ */
+final class ChallengeDefinitions {
+
+    private static final String PREFIX = "challenges";
+    private static final ApplicationConversionService CONVERSION_SERVICE = new ApplicationConversionService();
+
+    static {
+        CONVERSION_SERVICE.addConverter(new ChallengeNumberConverter());
+    }
+
+    private ChallengeDefinitions() {
+    }
+
+    static List<ChallengeDefinition> bind(Iterable<ConfigurationPropertySource> sources,
+                                          PlaceholdersResolver placeholdersResolver) {
+        try {
+            return new Binder(sources, placeholdersResolver, CONVERSION_SERVICE)
+                    .bind(PREFIX, Bindable.listOf(ChallengeDefinition.class))
+                    .orElse(Collections.emptyList());
+        } catch (BindException e) {
+            throw new InvalidChallengeCatalogException("Cannot bind challenges: " + e.getMessage(), e);
+        }
+    }
+}
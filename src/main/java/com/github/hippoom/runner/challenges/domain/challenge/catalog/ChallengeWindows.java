@@ -0,0 +1,114 @@
+package com.github.hippoom.runner.challenges.domain.challenge.catalog;
+
+import com.github.hippoom.runner.challenges.domain.challenge.Challenge;
+import com.github.hippoom.runner.challenges.domain.challenge.ChallengeNumber;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+import java.util.TreeSet;
+
+/**
+ * Interval index of the challenges' windows, compiled with the catalog.
+ * <p>
+ * The instants challenges open and close at split time into intervals in each of which the same challenges
+ * are open. The set of each interval is computed once, so what is open at an instant is found by a binary
+ * search over the boundaries, and whether a challenge is open by a bit test. Only challenges with a window
+ * take space: the others are always open.
+ */
+public final class ChallengeWindows {
+
+    private final Instant[] boundaries;
+    // open[i] holds the challenges open from boundaries[i - 1] to boundaries[i], open[0] those open until the
+    // first boundary
+    private final BitSet[] open;
+
+    private ChallengeWindows(Instant[] boundaries, BitSet[] open) {
+        this.boundaries = boundaries;
+        this.open = open;
+    }
+
+    static ChallengeWindows compile(List<Challenge> challenges) {
+        List<Challenge> windowed = new ArrayList<>();
+        TreeSet<Instant> instants = new TreeSet<>();
+        for (Challenge challenge : challenges) {
+            if (challenge.hasWindow()) {
+                windowed.add(challenge);
+                if (challenge.getOpensAt() != null) {
+                    instants.add(challenge.getOpensAt());
+                }
+                if (challenge.getClosesAt() != null) {
+                    instants.add(challenge.getClosesAt());
+                }
+            }
+        }
+        Instant[] boundaries = instants.toArray(new Instant[0]);
+        BitSet[] open = new BitSet[boundaries.length + 1];
+        for (int i = 0; i < open.length; i++) {
+            Instant start = i == 0 ? Instant.MIN : boundaries[i - 1];
+            BitSet set = new BitSet();
+            for (Challenge challenge : windowed) {
+                if (challenge.isOpenAt(start)) {
+                    set.set(challenge.getNumber().getValue());
+                }
+            }
+            open[i] = set;
+        }
+        return new ChallengeWindows(boundaries, open);
+    }
+
+    /**
+     * The challenges open at the instant, and until when that holds.
+     */
+    public Active activeAt(Instant instant) {
+        int interval = Arrays.binarySearch(boundaries, instant);
+        // On a boundary the interval starting there applies, otherwise the one before the insertion point
+        interval = interval >= 0 ? interval + 1 : -interval - 1;
+        return new Active(this, open[interval], interval < boundaries.length ? boundaries[interval] : null);
+    }
+
+    /**
+     * Challenges open during an interval of time.
+     */
+    public static final class Active {
+        private final ChallengeWindows windows;
+        private final BitSet open;
+        private final Instant until;
+
+        private Active(ChallengeWindows windows, BitSet open, Instant until) {
+            this.windows = windows;
+            this.open = open;
+            this.until = until;
+        }
+
+        /**
+         * Whether the challenge is open, given it has a window: challenges without are always open.
+         */
+        public boolean isOpen(ChallengeNumber number) {
+            return open.get(number.getValue());
+        }
+
+        /**
+         * When the next challenge opens or closes, null if none ever does.
+         */
+        public Instant getUntil() {
+            return until;
+        }
+
+        /**
+         * Whether this was computed from the windows, i.e. from the same catalog.
+         */
+        public boolean isOf(ChallengeWindows windows) {
+            return this.windows == windows;
+        }
+
+        /**
+         * Whether the same challenges are open in both, as computed from the same catalog.
+         */
+        public boolean opensSameAs(Active other) {
+            return other != null && other.isOf(windows) && open.equals(other.open);
+        }
+    }
+}
@@ -0,0 +1,39 @@
+package com.github.hippoom.runner.challenges.domain.challenge.catalog;
+
+import org.springframework.boot.context.properties.bind.PropertySourcesPlaceholdersResolver;
+import org.springframework.boot.context.properties.source.ConfigurationPropertySources;
+import org.springframework.core.env.ConfigurableEnvironment;
+
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Reads the challenges from the application's own properties. These only change with a restart,
+ * so only the first read returns them.
+ */
+public class EnvironmentChallengeCatalogSource implements ChallengeCatalogSource {
+
+    private final ConfigurableEnvironment environment;
+    private boolean read;
+
+    public EnvironmentChallengeCatalogSource(ConfigurableEnvironment environment) {
+        this.environment = environment;
+    }
+
+    @Override
+    public synchronized Optional<List<ChallengeDefinition>> readIfChanged() {
+        if (read) {
+            return Optional.empty();
+        }
+        List<ChallengeDefinition> definitions = ChallengeDefinitions.bind(
+                ConfigurationPropertySources.get(environment),
+                new PropertySourcesPlaceholdersResolver(environment));
+        read = true;
+        return Optional.of(definitions);
+    }
+
+    @Override
+    public String describe() {
+        return "application properties";
+    }
+}
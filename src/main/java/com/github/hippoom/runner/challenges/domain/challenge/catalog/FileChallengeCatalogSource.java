@@ -0,0 +1,60 @@
+package com.github.hippoom.runner.challenges.domain.challenge.catalog;
+
+import org.springframework.boot.context.properties.source.ConfigurationPropertySource;
+import org.springframework.boot.context.properties.source.MapConfigurationPropertySource;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.Properties;
+
+/**
+ * Reads the challenges from a properties file in the same format as the application properties.
+ * <p>
+ * The file is read again whenever its modification time or size changes. Deployments replacing it should
+ * do so atomically, e.g. by a rename or a ConfigMap's symlink swap, so a half-written file is never read.
+ */
+public class FileChallengeCatalogSource implements ChallengeCatalogSource {
+
+    private final Path path;
+    private long lastModified = -1;
+    private long lastSize = -1;
+
+    public FileChallengeCatalogSource(Path path) {
+        this.path = path;
+    }
+
+    @Override
+    public synchronized Optional<List<ChallengeDefinition>> readIfChanged() {
+        BasicFileAttributes attributes;
+        Properties properties = new Properties();
+        try {
+            attributes = Files.readAttributes(path, BasicFileAttributes.class);
+            if (attributes.lastModifiedTime().toMillis() == lastModified && attributes.size() == lastSize) {
+                return Optional.empty();
+            }
+            try (Reader reader = Files.newBufferedReader(path, StandardCharsets.UTF_8)) {
+                properties.load(reader);
+            }
+        } catch (IOException e) {
+            throw new InvalidChallengeCatalogException("Cannot read challenges from " + path, e);
+        }
+        // Remembered before binding, so an invalid file is reported once rather than on every poll
+        lastModified = attributes.lastModifiedTime().toMillis();
+        lastSize = attributes.size();
+        return Optional.of(ChallengeDefinitions.bind(
+                Collections.<ConfigurationPropertySource>singletonList(new MapConfigurationPropertySource(properties)),
+                null));
+    }
+
+    @Override
+    public String describe() {
+        return path.toString();
+    }
+}
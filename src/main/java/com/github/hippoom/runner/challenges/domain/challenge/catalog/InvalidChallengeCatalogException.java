@@ -0,0 +1,12 @@
+package com.github.hippoom.runner.challenges.domain.challenge.catalog;
+
+public final class InvalidChallengeCatalogException extends RuntimeException {
+
+    public InvalidChallengeCatalogException(String message) {
+        super(message);
+    }
+
+    public InvalidChallengeCatalogException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
@@ -0,0 +1,215 @@
+package com.github.hippoom.runner.challenges.domain.challenge.catalog;
+
+import com.github.hippoom.runner.challenges.domain.challenge.Challenge;
+import com.github.hippoom.runner.challenges.domain.challenge.ChallengeNumber;
+import com.github.hippoom.runner.challenges.domain.challenge.progress.UserProgress;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.StringJoiner;
+
+/**
+ * The prerequisites of a catalog compiled into a DAG, once per snapshot.
+ * <p>
+ * Challenges are indexed by their dense position in the catalog, ordered by number, so however sparse the numbers
+ * the transitive prerequisite sets are bitmasks of one bit per challenge and checking one is a word operation.
+ * Direct prerequisites, few per challenge, are checked against the user one by one. The reverse index tells which
+ * challenges a completion may unlock without scanning the catalog.
+ */
+public final class PrerequisiteGraph {
+
+    private static final int BITS_PER_WORD_SHIFT = 6;
+
+    private final int[] numbers;
+    private final List<ChallengeNumber> topologicalOrder;
+    private final int[] topologicalPositions;
+    private final List<List<ChallengeNumber>> direct;
+    private final long[][] transitive;
+    private final List<List<ChallengeNumber>> unlocks;
+
+    private PrerequisiteGraph(int[] numbers, List<ChallengeNumber> topologicalOrder, int[] topologicalPositions,
+                              List<List<ChallengeNumber>> direct, long[][] transitive,
+                              List<List<ChallengeNumber>> unlocks) {
+        this.numbers = numbers;
+        this.topologicalOrder = topologicalOrder;
+        this.topologicalPositions = topologicalPositions;
+        this.direct = direct;
+        this.transitive = transitive;
+        this.unlocks = unlocks;
+    }
+
+    /**
+     * @param challenges the catalog's challenges ordered by number
+     * @throws InvalidChallengeCatalogException if a prerequisite is not in the catalog or prerequisites form a cycle
+     */
+    static PrerequisiteGraph compile(List<Challenge> challenges) {
+        int size = challenges.size();
+        int words = (size + Long.SIZE - 1) >>> BITS_PER_WORD_SHIFT;
+        int[] numbers = new int[size];
+        for (int position = 0; position < size; position++) {
+            numbers[position] = challenges.get(position).getNumber().getValue();
+        }
+        long[][] directMasks = new long[size][];
+        List<List<ChallengeNumber>> direct = new ArrayList<>(size);
+        List<List<ChallengeNumber>> unlocks = new ArrayList<>(Collections.nCopies(size, null));
+        int[] pending = new int[size];
+
+        for (int position = 0; position < size; position++) {
+            Challenge challenge = challenges.get(position);
+            long[] mask = new long[words];
+            List<ChallengeNumber> prerequisites = new ArrayList<>(challenge.getPrerequisites().size());
+            for (ChallengeNumber prerequisite : challenge.getPrerequisites()) {
+                int required = positionOf(numbers, prerequisite);
+                if (required < 0) {
+                    throw new InvalidChallengeCatalogException("Challenge " + numbers[position]
+                            + " requires unknown challenge " + prerequisite.getValue());
+                }
+                if (!isSet(mask, required)) {
+                    mask[required >>> BITS_PER_WORD_SHIFT] |= 1L << required;
+                    prerequisites.add(prerequisite);
+                    pending[position]++;
+                    if (unlocks.get(required) == null) {
+                        unlocks.set(required, new ArrayList<>());
+                    }
+                    unlocks.get(required).add(challenge.getNumber());
+                }
+            }
+            directMasks[position] = mask;
+            direct.add(Collections.unmodifiableList(prerequisites));
+        }
+
+        // Kahn's algorithm, seeded in number order so a given catalog always compiles to the same order
+        List<ChallengeNumber> order = new ArrayList<>(size);
+        long[][] transitive = new long[size][];
+        int[] ready = new int[size];
+        int head = 0;
+        int tail = 0;
+        for (int position = 0; position < size; position++) {
+            if (pending[position] == 0) {
+                ready[tail++] = position;
+            }
+        }
+        while (head < tail) {
+            int position = ready[head++];
+            order.add(challenges.get(position).getNumber());
+            long[] ancestors = directMasks[position].clone();
+            for (ChallengeNumber prerequisite : direct.get(position)) {
+                or(ancestors, transitive[positionOf(numbers, prerequisite)]);
+            }
+            transitive[position] = ancestors;
+            List<ChallengeNumber> dependents = unlocks.get(position);
+            if (dependents != null) {
+                for (ChallengeNumber dependent : dependents) {
+                    int dependentPosition = positionOf(numbers, dependent);
+                    if (--pending[dependentPosition] == 0) {
+                        ready[tail++] = dependentPosition;
+                    }
+                }
+                unlocks.set(position, Collections.unmodifiableList(dependents));
+            }
+        }
+        if (order.size() < size) {
+            StringJoiner cycle = new StringJoiner(", ");
+            for (int position = 0; position < size; position++) {
+                if (pending[position] > 0) {
+                    cycle.add(Integer.toString(numbers[position]));
+                }
+            }
+            throw new InvalidChallengeCatalogException("Prerequisites form a cycle through challenges " + cycle);
+        }
+        return new PrerequisiteGraph(numbers, Collections.unmodifiableList(order), ready, direct, transitive,
+                unlocks);
+    }
+
+    /**
+     * All challenges, each after its prerequisites.
+     */
+    public List<ChallengeNumber> topologicalOrder() {
+        return topologicalOrder;
+    }
+
+    public boolean prerequisitesMet(ChallengeNumber number, UserProgress progress) {
+        int position = positionOf(numbers, number);
+        if (position < 0) {
+            return true;
+        }
+        List<ChallengeNumber> prerequisites = direct.get(position);
+        for (int i = 0; i < prerequisites.size(); i++) {
+            if (!progress.hasCompleted(prerequisites.get(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Whether {@code prerequisite} must be completed, directly or not, before {@code number} can be started.
+     */
+    public boolean requires(ChallengeNumber number, ChallengeNumber prerequisite) {
+        int position = positionOf(numbers, number);
+        int required = positionOf(numbers, prerequisite);
+        return position >= 0 && required >= 0 && isSet(transitive[position], required);
+    }
+
+    /**
+     * Challenges whose prerequisites the user met by completing {@code completed}, given their progress
+     * including that completion.
+     */
+    public List<ChallengeNumber> unlockedBy(ChallengeNumber completed, UserProgress progress) {
+        int position = positionOf(numbers, completed);
+        List<ChallengeNumber> dependents = position < 0 ? null : unlocks.get(position);
+        if (dependents == null) {
+            return Collections.emptyList();
+        }
+        List<ChallengeNumber> unlocked = new ArrayList<>(dependents.size());
+        for (int i = 0; i < dependents.size(); i++) {
+            ChallengeNumber dependent = dependents.get(i);
+            if (!progress.hasCompleted(dependent) && prerequisitesMet(dependent, progress)) {
+                unlocked.add(dependent);
+            }
+        }
+        return unlocked;
+    }
+
+    /**
+     * The challenges the user still has to complete to be able to complete {@code target}, target included,
+     * each after its prerequisites. Since every prerequisite is required, these are exactly the target's
+     * outstanding transitive prerequisites: no shorter path exists.
+     */
+    public List<ChallengeNumber> pathTo(ChallengeNumber target, UserProgress progress) {
+        int targetPosition = positionOf(numbers, target);
+        if (targetPosition < 0) {
+            return Collections.emptyList();
+        }
+        long[] ancestors = transitive[targetPosition];
+        List<ChallengeNumber> path = new ArrayList<>();
+        for (int i = 0; i < topologicalOrder.size(); i++) {
+            ChallengeNumber number = topologicalOrder.get(i);
+            int position = topologicalPositions[i];
+            boolean onPath = position == targetPosition || isSet(ancestors, position);
+            if (onPath && !progress.hasCompleted(number)) {
+                path.add(number);
+            }
+        }
+        return path;
+    }
+
+    /**
+     * Position of the challenge in the catalog, or a negative value when it is not in the catalog.
+     */
+    private static int positionOf(int[] numbers, ChallengeNumber number) {
+        return Arrays.binarySearch(numbers, number.getValue());
+    }
+
+    private static boolean isSet(long[] mask, int position) {
+        return (mask[position >>> BITS_PER_WORD_SHIFT] & (1L << position)) != 0;
+    }
+
+    private static void or(long[] target, long[] source) {
+        for (int i = 0; i < source.length; i++) {
+            target[i] |= source[i];
+        }
+    }
+}
@@ -1,6 +1,7 @@
 package com.github.hippoom.runner.challenges.domain.challenge.completion;
 
 import com.github.hippoom.runner.challenges.domain.activity.UserActivity;
+import com.github.hippoom.runner.challenges.domain.activity.UserActivityTotals;
 import com.github.hippoom.runner.challenges.domain.challenge.Challenge;
 import org.springframework.stereotype.Component;
 
@@ -10,12 +11,12 @@ import java.util.List;
 @Component
 public class ChallengeCompletionSpecification {
     
-    public boolean canBeCompletedBy(Challenge challenge, UserActivity activity) {
+    public boolean canBeCompletedBy(Challenge challenge, UserActivity activity, UserActivityTotals totals) {
         if (activity == null) {
             return false;
         }
         
-        List<CompletionCriterion> criteria = createCompletionCriteria(challenge);
+        List<CompletionCriterion> criteria = createCompletionCriteria(challenge, totals);
         
         // No criteria means any activity completes the challenge
         if (criteria.isEmpty()) {
@@ -27,7 +28,7 @@ public class ChallengeCompletionSpecification {
                 .allMatch(criterion -> criterion.isSatisfiedBy(activity));
     }
     
-    private List<CompletionCriterion> createCompletionCriteria(Challenge challenge) {
+    private List<CompletionCriterion> createCompletionCriteria(Challenge challenge, UserActivityTotals totals) {
         List<CompletionCriterion> criteria = new ArrayList<>();
         
         if (challenge.getMinimumDistance() != null) {
@@ -37,7 +38,17 @@ public class ChallengeCompletionSpecification {
         if (challenge.getMinimumPace() != null) {
             criteria.add(new MinimumPaceCriterion(challenge.getMinimumPace()));
         }
+
+        if (challenge.getMinimumTotalDistance() != null) {
+            criteria.add(new MinimumTotalDistanceCriterion(
+                    challenge.getMinimumTotalDistance(), challenge.getWindowDays(), totals));
+        }
+
+        if (challenge.getMinimumTotalDuration() != null) {
+            criteria.add(new MinimumTotalDurationCriterion(
+                    challenge.getMinimumTotalDuration(), challenge.getWindowDays(), totals));
+        }
         
         return criteria;
     }
-} 
\ No newline at end of file
+}
\ No newline at end of file
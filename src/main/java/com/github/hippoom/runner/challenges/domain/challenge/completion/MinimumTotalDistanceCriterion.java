@@ -0,0 +1,17 @@
+package com.github.hippoom.runner.challenges.domain.challenge.completion;
+
+import com.github.hippoom.runner.challenges.domain.activity.UserActivity;
+import com.github.hippoom.runner.challenges.domain.activity.UserActivityTotals;
+import lombok.Value;
+
+@Value
+public class MinimumTotalDistanceCriterion implements CompletionCriterion {
+    private final Double minimumTotalDistance; // km
+    private final int windowDays;
+    private final UserActivityTotals totals;
+
+    @Override
+    public boolean isSatisfiedBy(UserActivity activity) {
+        return totals.distanceWithin(windowDays, activity.getWhen()) >= minimumTotalDistance;
+    }
+}
@@ -0,0 +1,17 @@
+package com.github.hippoom.runner.challenges.domain.challenge.completion;
+
+import com.github.hippoom.runner.challenges.domain.activity.UserActivity;
+import com.github.hippoom.runner.challenges.domain.activity.UserActivityTotals;
+import lombok.Value;
+
+@Value
+public class MinimumTotalDurationCriterion implements CompletionCriterion {
+    private final Integer minimumTotalDuration; // seconds
+    private final int windowDays;
+    private final UserActivityTotals totals;
+
+    @Override
+    public boolean isSatisfiedBy(UserActivity activity) {
+        return totals.durationWithin(windowDays, activity.getWhen()) >= minimumTotalDuration;
+    }
+}
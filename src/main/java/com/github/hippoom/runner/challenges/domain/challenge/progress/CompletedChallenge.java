@@ -1,16 +1,20 @@
 package com.github.hippoom.runner.challenges.domain.challenge.progress;
 
 import com.github.hippoom.runner.challenges.domain.challenge.ChallengeNumber;
+import com.github.hippoom.runner.challenges.domain.challenge.ChallengeNumberAttributeConverter;
 import com.github.hippoom.runner.challenges.domain.user.UserId;
+import com.github.hippoom.runner.challenges.domain.user.UuidStringType;
 import lombok.Data;
 import lombok.EqualsAndHashCode;
 import lombok.ToString;
+import org.hibernate.annotations.Type;
 
 import javax.persistence.Entity;
 import javax.persistence.Table;
 import javax.persistence.Id;
 import javax.persistence.Column;
 import javax.persistence.Embedded;
+import javax.persistence.Convert;
 import javax.persistence.AttributeOverride;
 import java.time.Instant;
 import java.util.UUID;
@@ -23,17 +27,19 @@ import java.util.UUID;
 public class CompletedChallenge {
     @Id
     @Column(name = "id")
+    @Type(type = UuidStringType.NAME)
     private String id = UUID.randomUUID().toString();
     
     @Embedded
     @AttributeOverride(name = "value", column = @Column(name = "user_id"))
     private UserId userId;
     
-    @Embedded
-    @AttributeOverride(name = "value", column = @Column(name = "challenge_number"))
+    @Column(name = "challenge_number")
+    @Convert(converter = ChallengeNumberAttributeConverter.class)
     private ChallengeNumber number;
     
     @Column(name = "activity_id")
+    @Type(type = UuidStringType.NAME)
     private String activityId;
     
     @Column(name = "when_")
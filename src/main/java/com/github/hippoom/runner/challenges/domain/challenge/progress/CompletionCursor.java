@@ -0,0 +1,42 @@
+package com.github.hippoom.runner.challenges.domain.challenge.progress;
+
+import lombok.Value;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+import java.util.UUID;
+
+/**
+ * Position in a user's completion history, i.e. the last completion of a page. Clients get it as an opaque
+ * token, so its content can change without breaking them.
+ */
+@Value
+public class CompletionCursor {
+
+    private static final String SEPARATOR = "|";
+
+    private final Instant when;
+    private final String id;
+
+    public String encode() {
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString((when + SEPARATOR + id).getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static CompletionCursor decode(String token) {
+        try {
+            String decoded = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            int separator = decoded.indexOf(SEPARATOR);
+            if (separator < 0) {
+                throw new IllegalArgumentException("Invalid cursor: " + token);
+            }
+            // Ids are matched against a uuid column, reject anything else before it reaches the database
+            String id = UUID.fromString(decoded.substring(separator + 1)).toString();
+            return new CompletionCursor(Instant.parse(decoded.substring(0, separator)), id);
+        } catch (DateTimeParseException | IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid cursor: " + token, e);
+        }
+    }
+}
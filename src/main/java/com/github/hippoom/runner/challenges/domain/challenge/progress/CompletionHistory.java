@@ -0,0 +1,68 @@
+package com.github.hippoom.runner.challenges.domain.challenge.progress;
+
+import com.github.hippoom.runner.challenges.domain.challenge.ChallengeNumber;
+import com.github.hippoom.runner.challenges.domain.user.UserId;
+import com.github.hippoom.runner.challenges.domain.user.UuidStringType;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.core.SqlParameterValue;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+
+/**
+ * Reads a user's completions newest first, a page at a time, without loading the whole history.
+ * <p>
+ * Pages are keyset-paginated on ({@code when_}, {@code id}) over the hot completions and those the retention
+ * job archived, in a single statement so that a completion archived meanwhile is read once. The hot side is
+ * served by the (user_id, when_ DESC, id DESC) index, so its pages cost the same however deep into the history
+ * they are; the archive side sorts the user's archived completions, found by the archive's user index.
+ */
+@Repository
+@RequiredArgsConstructor
+public class CompletionHistory {
+
+    private static final String FIRST_PAGE = "SELECT id, challenge_number, activity_id, when_ FROM ("
+            + "  (SELECT id, challenge_number, activity_id, when_ FROM challenge_completed"
+            + "   WHERE user_id = ? ORDER BY when_ DESC, id DESC LIMIT ?)"
+            + "  UNION ALL"
+            + "  (SELECT id, challenge_number, activity_id, when_ FROM challenge_completed_archive"
+            + "   WHERE user_id = ? ORDER BY when_ DESC, id DESC LIMIT ?)"
+            + ") c ORDER BY when_ DESC, id DESC LIMIT ?";
+    private static final String NEXT_PAGE = "SELECT id, challenge_number, activity_id, when_ FROM ("
+            + "  (SELECT id, challenge_number, activity_id, when_ FROM challenge_completed"
+            + "   WHERE user_id = ? AND (when_, id) < (?, ?) ORDER BY when_ DESC, id DESC LIMIT ?)"
+            + "  UNION ALL"
+            + "  (SELECT id, challenge_number, activity_id, when_ FROM challenge_completed_archive"
+            + "   WHERE user_id = ? AND (when_, id) < (?, ?) ORDER BY when_ DESC, id DESC LIMIT ?)"
+            + ") c ORDER BY when_ DESC, id DESC LIMIT ?";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Hands the completions after the cursor, or from the newest if there is none, to the consumer
+     * one by one, as they are read.
+     */
+    public void forEachAfter(UserId userId, CompletionCursor cursor, int limit, CompletionConsumer consumer) {
+        RowCallbackHandler handler = rs -> consumer.accept(
+                rs.getString("id"),
+                ChallengeNumber.of(rs.getInt("challenge_number")),
+                rs.getString("activity_id"),
+                rs.getTimestamp("when_").toInstant());
+        SqlParameterValue user = UuidStringType.parameter(userId.getValue());
+        if (cursor == null) {
+            jdbcTemplate.query(FIRST_PAGE, handler, user, limit, user, limit, limit);
+        } else {
+            Timestamp when = Timestamp.from(cursor.getWhen());
+            SqlParameterValue id = UuidStringType.parameter(cursor.getId());
+            jdbcTemplate.query(NEXT_PAGE, handler, user, when, id, limit, user, when, id, limit, limit);
+        }
+    }
+
+    @FunctionalInterface
+    public interface CompletionConsumer {
+        void accept(String id, ChallengeNumber number, String activityId, Instant when);
+    }
+}
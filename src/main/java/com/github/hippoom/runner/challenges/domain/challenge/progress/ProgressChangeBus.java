@@ -0,0 +1,21 @@
+package com.github.hippoom.runner.challenges.domain.challenge.progress;
+
+/**
+ * Spreads progress changes to every node, so that anything derived from a user's progress
+ * can be dropped when another node changes it.
+ */
+public interface ProgressChangeBus {
+
+    /**
+     * Publishes the change to listeners of this node right away and to other nodes eventually.
+     */
+    void publish(ProgressChanged change);
+
+    /**
+     * Tells listeners of this node that what users may start changed. Not spread to other nodes, which switch
+     * windows on their own clock and reload the catalog on their own.
+     */
+    void publishAvailabilityChanged();
+
+    void subscribe(ProgressChangeListener listener);
+}
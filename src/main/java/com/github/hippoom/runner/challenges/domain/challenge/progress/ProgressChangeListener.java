@@ -0,0 +1,17 @@
+package com.github.hippoom.runner.challenges.domain.challenge.progress;
+
+public interface ProgressChangeListener {
+
+    void onProgressChanged(ProgressChanged change);
+
+    /**
+     * Called when changes may have been missed, e.g. while the bus was disconnected.
+     */
+    void onChangesMissed();
+
+    /**
+     * Called when challenges opened or closed, or the catalog changed, which changes what users may start
+     * without changing their progress.
+     */
+    void onAvailabilityChanged();
+}
@@ -0,0 +1,47 @@
+package com.github.hippoom.runner.challenges.domain.challenge.progress;
+
+import com.github.hippoom.runner.challenges.domain.user.UserId;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Map;
+
+@Component
+@RequiredArgsConstructor
+public class ProgressChangePublisher {
+
+    private final ProgressChangeBus progressChangeBus;
+
+    /**
+     * Publishes the change once the current transaction commits, so that nobody reloads
+     * the user's progress before the change is visible.
+     * <p>
+     * The version is read after commit, once flushing the record has incremented it.
+     */
+    public void publishAfterCommit(UserProgressRecord record) {
+        afterCommit(() -> progressChangeBus.publish(new ProgressChanged(record.getUserId(), record.getVersion())));
+    }
+
+    /**
+     * Publishes changes of many users once the current transaction commits, with the versions
+     * their {@code user_progress} rows were written with.
+     */
+    public void publishAfterCommit(Map<UserId, Long> versions) {
+        afterCommit(() -> versions.forEach(
+                (userId, version) -> progressChangeBus.publish(new ProgressChanged(userId, version))));
+    }
+
+    private void afterCommit(Runnable publish) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            throw new IllegalStateException("Progress changes must be published within a transaction");
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                publish.run();
+            }
+        });
+    }
+}
@@ -0,0 +1,13 @@
+package com.github.hippoom.runner.challenges.domain.challenge.progress;
+
+import com.github.hippoom.runner.challenges.domain.user.UserId;
+import lombok.Value;
+
+/**
+ * Tells that the progress of a user changed. Newer changes of the same user carry higher versions.
+ */
+@Value
+public class ProgressChanged {
+    private final UserId userId;
+    private final long version;
+}
@@ -1,6 +1,7 @@
 package com.github.hippoom.runner.challenges.domain.challenge.progress;
 
 import com.github.hippoom.runner.challenges.domain.challenge.ChallengeNumber;
+import com.github.hippoom.runner.challenges.domain.challenge.ChallengeNumberAttributeConverter;
 import com.github.hippoom.runner.challenges.domain.user.UserId;
 import lombok.Data;
 import lombok.EqualsAndHashCode;
@@ -9,7 +10,7 @@ import lombok.ToString;
 import javax.persistence.Entity;
 import javax.persistence.Table;
 import javax.persistence.EmbeddedId;
-import javax.persistence.Embedded;
+import javax.persistence.Convert;
 import javax.persistence.AttributeOverride;
 import javax.persistence.Column;
 import java.time.Instant;
@@ -24,8 +25,8 @@ public class StartedChallenge {
     @AttributeOverride(name = "value", column = @Column(name = "user_id"))
     private UserId userId;
     
-    @Embedded
-    @AttributeOverride(name = "value", column = @Column(name = "challenge_number"))
+    @Column(name = "challenge_number")
+    @Convert(converter = ChallengeNumberAttributeConverter.class)
     private ChallengeNumber number;
     
     @Column(name = "when_")
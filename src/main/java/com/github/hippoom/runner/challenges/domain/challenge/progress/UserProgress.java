@@ -0,0 +1,59 @@
+package com.github.hippoom.runner.challenges.domain.challenge.progress;
+
+import com.github.hippoom.runner.challenges.domain.challenge.ChallengeNumber;
+import com.github.hippoom.runner.challenges.domain.user.UserId;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * Snapshot of what a user has completed and started, loaded once and shared by everything
+ * that needs to know the user's status while serving a request.
+ * <p>
+ * Completed challenges are kept as a bitmask indexed by challenge number, so lookups neither box nor hash.
+ */
+@EqualsAndHashCode
+@ToString(of = {"userId", "started"})
+public final class UserProgress {
+
+    private static final int BITS_PER_WORD_SHIFT = 6;
+    private static final int BYTES_PER_WORD = Long.BYTES;
+    private static final long BYTE_MASK = 0xFFL;
+
+    @Getter
+    private final UserId userId;
+    private final long[] completed;
+    @Getter
+    private final ChallengeNumber started;
+
+    private UserProgress(UserId userId, long[] completed, ChallengeNumber started) {
+        this.userId = userId;
+        this.completed = completed;
+        this.started = started;
+    }
+
+    /**
+     * Unpacks a bitmask as stored in {@code user_progress}: bit {@code n % 8} of byte {@code n / 8}
+     * is set once challenge {@code n} was completed.
+     */
+    public static UserProgress of(UserId userId, byte[] completedBitmask, ChallengeNumber started) {
+        long[] completed = new long[(completedBitmask.length + BYTES_PER_WORD - 1) / BYTES_PER_WORD];
+        for (int i = 0; i < completedBitmask.length; i++) {
+            completed[i / BYTES_PER_WORD] |= (completedBitmask[i] & BYTE_MASK) << (i % BYTES_PER_WORD * Byte.SIZE);
+        }
+        return new UserProgress(userId, completed, started);
+    }
+
+    public boolean hasCompleted(int number) {
+        int word = number >>> BITS_PER_WORD_SHIFT;
+        return word < completed.length && (completed[word] & (1L << number)) != 0;
+    }
+
+    public boolean hasCompleted(ChallengeNumber number) {
+        return hasCompleted(number.getValue());
+    }
+
+    public boolean hasStarted(ChallengeNumber number) {
+        return started != null && started.getValue() == number.getValue();
+    }
+}
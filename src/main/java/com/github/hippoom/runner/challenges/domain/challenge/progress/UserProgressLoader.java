@@ -0,0 +1,61 @@
+package com.github.hippoom.runner.challenges.domain.challenge.progress;
+
+import com.github.hippoom.runner.challenges.domain.challenge.ChallengeNumber;
+import com.github.hippoom.runner.challenges.domain.user.UserId;
+import com.github.hippoom.runner.challenges.domain.user.UuidStringType;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Reads users' progress from their {@link UserProgressRecord}, a single primary key lookup per user
+ * however many challenges they completed.
+ */
+@Component
+@RequiredArgsConstructor
+public class UserProgressLoader {
+
+    private static final String SELECT_PROGRESS =
+            "SELECT user_id, completed, started_challenge FROM user_progress WHERE user_id = ANY (?)";
+
+    private final UserProgressRecordRepository userProgressRecordRepository;
+    private final JdbcTemplate jdbcTemplate;
+
+    public UserProgress load(UserId userId) {
+        return userProgressRecordRepository.getOrCreate(userId).toProgress();
+    }
+
+    /**
+     * Loads the progress of many users with one query, keyed in the order of the given ids.
+     */
+    public Map<UserId, UserProgress> loadAll(Collection<UserId> userIds) {
+        Map<String, UserProgress> found = new HashMap<>(userIds.size() * 2);
+        String[] values = new String[userIds.size()];
+        int i = 0;
+        for (UserId userId : userIds) {
+            values[i++] = userId.getValue();
+        }
+
+        RowCallbackHandler progressHandler = rs -> {
+            int startedNumber = rs.getInt("started_challenge");
+            ChallengeNumber started = rs.wasNull() ? null : ChallengeNumber.of(startedNumber);
+            UserProgress progress = UserProgress.of(
+                    UserId.of(rs.getString("user_id")), rs.getBytes("completed"), started);
+            found.put(progress.getUserId().getValue(), progress);
+        };
+        jdbcTemplate.query(SELECT_PROGRESS, progressHandler, UuidStringType.arrayParameter(values));
+
+        Map<UserId, UserProgress> progresses = new LinkedHashMap<>(userIds.size() * 2);
+        for (UserId userId : userIds) {
+            UserProgress progress = found.get(userId.getValue());
+            progresses.put(userId, progress != null ? progress : new UserProgressRecord(userId).toProgress());
+        }
+        return progresses;
+    }
+}
@@ -0,0 +1,87 @@
+package com.github.hippoom.runner.challenges.domain.challenge.progress;
+
+import com.github.hippoom.runner.challenges.domain.challenge.ChallengeNumber;
+import com.github.hippoom.runner.challenges.domain.challenge.ChallengeNumberAttributeConverter;
+import com.github.hippoom.runner.challenges.domain.user.UserId;
+import lombok.AccessLevel;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.ToString;
+
+import javax.persistence.AttributeOverride;
+import javax.persistence.Column;
+import javax.persistence.Convert;
+import javax.persistence.EmbeddedId;
+import javax.persistence.Entity;
+import javax.persistence.Table;
+import javax.persistence.Version;
+import java.util.Arrays;
+
+/**
+ * Denormalized progress of a user, kept in step with the started and completed challenges by the
+ * command handlers in the same transaction.
+ * <p>
+ * Completed challenges are packed into a bitmask, bit {@code n} set once challenge {@code n} was completed,
+ * so the row stays a few bytes whatever the length of the user's history. The version grows with every
+ * change and is what the {@link ProgressChangeBus} carries.
+ */
+@Entity
+@Table(name = "user_progress")
+@Getter
+@EqualsAndHashCode(of = "userId")
+@ToString(of = {"userId", "startedChallenge", "version"})
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+public class UserProgressRecord {
+    private static final int BITS_PER_BYTE_SHIFT = 3;
+    private static final int BIT_INDEX_MASK = 7;
+
+    @EmbeddedId
+    @AttributeOverride(name = "value", column = @Column(name = "user_id"))
+    private UserId userId;
+
+    @Column(name = "completed")
+    private byte[] completed;
+
+    @Column(name = "started_challenge")
+    @Convert(converter = ChallengeNumberAttributeConverter.class)
+    private ChallengeNumber startedChallenge;
+
+    @Version
+    private long version;
+
+    public UserProgressRecord(UserId userId) {
+        this.userId = userId;
+        this.completed = new byte[0];
+    }
+
+    public void start(ChallengeNumber number) {
+        this.startedChallenge = number;
+    }
+
+    /**
+     * Records the completion of a challenge.
+     *
+     * @return whether the user had completed it before
+     */
+    public boolean complete(ChallengeNumber number) {
+        boolean repeated = hasCompleted(number);
+        if (!repeated) {
+            int index = number.getValue() >>> BITS_PER_BYTE_SHIFT;
+            if (index >= completed.length) {
+                completed = Arrays.copyOf(completed, index + 1);
+            }
+            completed[index] |= (byte) (1 << (number.getValue() & BIT_INDEX_MASK));
+        }
+        return repeated;
+    }
+
+    public boolean hasCompleted(ChallengeNumber number) {
+        int index = number.getValue() >>> BITS_PER_BYTE_SHIFT;
+        return index < completed.length && (completed[index] & (1 << (number.getValue() & BIT_INDEX_MASK))) != 0;
+    }
+
+    public UserProgress toProgress() {
+        return UserProgress.of(userId, completed, startedChallenge);
+    }
+}
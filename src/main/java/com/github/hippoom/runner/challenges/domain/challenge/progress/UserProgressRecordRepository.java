@@ -0,0 +1,13 @@
+package com.github.hippoom.runner.challenges.domain.challenge.progress;
+
+import com.github.hippoom.runner.challenges.domain.user.UserId;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface UserProgressRecordRepository extends JpaRepository<UserProgressRecord, UserId> {
+
+    default UserProgressRecord getOrCreate(UserId userId) {
+        return findById(userId).orElseGet(() -> new UserProgressRecord(userId));
+    }
+}
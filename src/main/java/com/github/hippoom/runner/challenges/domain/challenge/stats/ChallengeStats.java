@@ -0,0 +1,21 @@
+package com.github.hippoom.runner.challenges.domain.challenge.stats;
+
+import lombok.Value;
+
+@Value
+public class ChallengeStats {
+    public static final ChallengeStats NONE = new ChallengeStats(0, 0, 0);
+
+    /**
+     * Completions ever recorded, including repeated ones.
+     */
+    private final long completions;
+    /**
+     * Distinct runners who completed the challenge.
+     */
+    private final long completers;
+    /**
+     * Runners whose current challenge is this one.
+     */
+    private final long starters;
+}
@@ -0,0 +1,105 @@
+package com.github.hippoom.runner.challenges.domain.challenge.stats;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.util.HashMap;
+import java.util.Map;
+
+@Repository
+@RequiredArgsConstructor
+public class ChallengeStatsRepository {
+
+    private static final String RECORD_DELTAS =
+            "INSERT INTO challenge_stats_delta (challenge_number, completions, completers, starters) "
+            + "SELECT * FROM unnest(?::int[], ?::bigint[], ?::bigint[], ?::bigint[])";
+
+    private static final String FOLD_BATCH =
+            "WITH moved AS ("
+            + "  DELETE FROM challenge_stats_delta WHERE id IN ("
+            + "    SELECT id FROM challenge_stats_delta ORDER BY id LIMIT ? FOR UPDATE SKIP LOCKED)"
+            + "  RETURNING challenge_number, completions, completers, starters"
+            + "), folded AS ("
+            + "  INSERT INTO challenge_stats (challenge_number, completions, completers, starters)"
+            + "  SELECT challenge_number, sum(completions), sum(completers), sum(starters)"
+            + "  FROM moved GROUP BY challenge_number"
+            + "  ON CONFLICT (challenge_number) DO UPDATE SET"
+            + "  completions = challenge_stats.completions + EXCLUDED.completions,"
+            + "  completers = challenge_stats.completers + EXCLUDED.completers,"
+            + "  starters = challenge_stats.starters + EXCLUDED.starters"
+            + ") SELECT count(*) FROM moved";
+
+    private static final String RECONCILE =
+            "WITH actual AS ("
+            + "  SELECT challenge_number,"
+            + "  coalesce(c.completions, 0) + coalesce(a.completions, 0) AS completions,"
+            + "  coalesce(d.completers, 0) AS completers, coalesce(s.starters, 0) AS starters"
+            + "  FROM (SELECT challenge_number, count(*) AS completions"
+            + "    FROM challenge_completed GROUP BY challenge_number) c"
+            + "  FULL JOIN (SELECT challenge_number, count(*) AS completions"
+            + "    FROM challenge_completed_archive GROUP BY challenge_number) a USING (challenge_number)"
+            + "  FULL JOIN (SELECT n AS challenge_number, count(*) AS completers"
+            + "    FROM user_progress, generate_series(0, length(completed) * 8 - 1) AS n"
+            + "    WHERE get_bit(completed, n) = 1 GROUP BY n) d USING (challenge_number)"
+            + "  FULL JOIN (SELECT challenge_number, count(*) AS starters"
+            + "    FROM started_challenge GROUP BY challenge_number) s USING (challenge_number)"
+            + "), pending AS ("
+            + "  SELECT challenge_number, sum(completions) AS completions, sum(completers) AS completers,"
+            + "  sum(starters) AS starters FROM challenge_stats_delta GROUP BY challenge_number"
+            + "), correction AS ("
+            + "  SELECT challenge_number,"
+            + "  coalesce(a.completions, 0) - coalesce(st.completions, 0) - coalesce(p.completions, 0)"
+            + "    AS completions,"
+            + "  coalesce(a.completers, 0) - coalesce(st.completers, 0) - coalesce(p.completers, 0) AS completers,"
+            + "  coalesce(a.starters, 0) - coalesce(st.starters, 0) - coalesce(p.starters, 0) AS starters"
+            + "  FROM actual a FULL JOIN challenge_stats st USING (challenge_number)"
+            + "  FULL JOIN pending p USING (challenge_number)"
+            + ") INSERT INTO challenge_stats (challenge_number, completions, completers, starters, reconciled_at)"
+            + " SELECT challenge_number, completions, completers, starters, now() FROM correction"
+            + " ON CONFLICT (challenge_number) DO UPDATE SET"
+            + " completions = challenge_stats.completions + EXCLUDED.completions,"
+            + " completers = challenge_stats.completers + EXCLUDED.completers,"
+            + " starters = challenge_stats.starters + EXCLUDED.starters, reconciled_at = now()";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Writes the deltas of several challenges in one statement. Arrays are indexed alike. Must run in the
+     * transaction of the command they come from.
+     */
+    public void recordDeltas(int[] numbers, long[] completions, long[] completers, long[] starters) {
+        jdbcTemplate.update(RECORD_DELTAS, numbers, completions, completers, starters);
+    }
+
+    /**
+     * Adds a batch of deltas, oldest first, to the counters and deletes them, in one statement. Deltas being
+     * folded by another node are skipped.
+     *
+     * @return how many deltas were folded
+     */
+    public int fold(int limit) {
+        Integer folded = jdbcTemplate.queryForObject(FOLD_BATCH, Integer.class, limit);
+        return folded == null ? 0 : folded;
+    }
+
+    public Map<Integer, ChallengeStats> findAll() {
+        Map<Integer, ChallengeStats> stats = new HashMap<>();
+        jdbcTemplate.query("SELECT challenge_number, completions, completers, starters FROM challenge_stats",
+                rs -> {
+                    stats.put(rs.getInt("challenge_number"), new ChallengeStats(
+                            rs.getLong("completions"), rs.getLong("completers"), rs.getLong("starters")));
+                });
+        return stats;
+    }
+
+    /**
+     * Corrects the counters by the difference between the base tables and the counters plus the deltas not folded
+     * yet. All of them are read at the same instant and the difference is added rather than set, so neither
+     * deltas folded nor commands committed meanwhile are counted twice or lost. Scans the base tables, so it
+     * should run rarely.
+     */
+    public void reconcile() {
+        jdbcTemplate.update(RECONCILE);
+    }
+}
@@ -0,0 +1,24 @@
+package com.github.hippoom.runner.challenges.domain.team;
+
+import lombok.Value;
+
+import java.time.Instant;
+
+/**
+ * A distance target shared by the members of a team within a time window, e.g. 1,000 km in a month.
+ * Distances are fixed-point millimetres, see {@link TeamDistance}.
+ */
+@Value
+public class TeamChallenge {
+    private final String id;
+    private final String teamId;
+    private final long targetDistance;
+    private final long distance;
+    private final Instant startsAt;
+    private final Instant endsAt;
+    private final Instant completedAt;
+
+    public boolean isCompleted() {
+        return completedAt != null;
+    }
+}
@@ -0,0 +1,127 @@
+package com.github.hippoom.runner.challenges.domain.team;
+
+import com.github.hippoom.runner.challenges.domain.user.UserId;
+import lombok.RequiredArgsConstructor;
+import lombok.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.UUID;
+
+@Repository
+@RequiredArgsConstructor
+public class TeamChallengeRepository {
+
+    private static final RowMapper<TeamChallenge> TEAM_CHALLENGE = (rs, rowNum) -> new TeamChallenge(
+            rs.getString("id"),
+            rs.getString("team_id"),
+            rs.getLong("target_distance"),
+            rs.getLong("distance"),
+            rs.getTimestamp("starts_at").toInstant(),
+            rs.getTimestamp("ends_at").toInstant(),
+            Optional.ofNullable(rs.getTimestamp("completed_at")).map(Timestamp::toInstant).orElse(null));
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public void replaceMembers(String teamId, List<UserId> members) {
+        jdbcTemplate.update("DELETE FROM team_member WHERE team_id = ?", teamId);
+        String[] userIds = members.stream().map(UserId::getValue).distinct().toArray(String[]::new);
+        jdbcTemplate.update("INSERT INTO team_member (team_id, user_id) SELECT ?, user_id FROM unnest(?) AS m(user_id)",
+                teamId, userIds);
+    }
+
+    public TeamChallenge create(String teamId, long targetDistance, Instant startsAt, Instant endsAt) {
+        TeamChallenge challenge = new TeamChallenge(UUID.randomUUID().toString(), teamId,
+                targetDistance, 0L, startsAt, endsAt, null);
+        jdbcTemplate.update("INSERT INTO team_challenge (id, team_id, target_distance, starts_at, ends_at) "
+                        + "VALUES (?, ?, ?, ?, ?)",
+                challenge.getId(), teamId, targetDistance, Timestamp.from(startsAt), Timestamp.from(endsAt));
+        return challenge;
+    }
+
+    public List<TeamChallenge> findByTeamId(String teamId) {
+        return jdbcTemplate.query("SELECT * FROM team_challenge WHERE team_id = ? ORDER BY starts_at, id",
+                TEAM_CHALLENGE, teamId);
+    }
+
+    /**
+     * Ids of the uncompleted team challenges the user contributes an activity done at the given time to.
+     */
+    public List<String> findOpenIdsFor(UserId userId, Instant when) {
+        return jdbcTemplate.queryForList("SELECT c.id FROM team_member m "
+                        + "JOIN team_challenge c ON c.team_id = m.team_id "
+                        + "WHERE m.user_id = ? AND c.completed_at IS NULL AND ? >= c.starts_at AND ? < c.ends_at",
+                String.class, userId.getValue(), Timestamp.from(when), Timestamp.from(when));
+    }
+
+    /**
+     * Records the distance an activity contributes to team challenges. Must run in the activity's transaction.
+     */
+    public void contribute(List<String> teamChallengeIds, long distance) {
+        jdbcTemplate.update("INSERT INTO team_distance_contribution (team_challenge_id, distance) "
+                        + "SELECT id, ? FROM unnest(?::varchar[]) AS c(id)",
+                distance, teamChallengeIds.toArray(new String[0]));
+    }
+
+    /**
+     * Moves a batch of contributions, oldest first, into their team challenges, marking the challenges whose
+     * target they reach as completed. Contributions being folded by another transaction are skipped. Must run
+     * in a transaction.
+     */
+    public Fold fold(int limit) {
+        Map<String, Long> deltas = new TreeMap<>();
+        int[] contributions = new int[1];
+        jdbcTemplate.query("WITH folded AS ("
+                        + "  DELETE FROM team_distance_contribution WHERE id IN ("
+                        + "    SELECT id FROM team_distance_contribution ORDER BY id LIMIT ? FOR UPDATE SKIP LOCKED)"
+                        + "  RETURNING team_challenge_id, distance"
+                        + ") SELECT team_challenge_id, sum(distance) AS delta, count(*) AS contributions "
+                        + "FROM folded GROUP BY team_challenge_id",
+                rs -> {
+                    deltas.put(rs.getString("team_challenge_id"), rs.getLong("delta"));
+                    contributions[0] += rs.getInt("contributions");
+                }, limit);
+        if (deltas.isEmpty()) {
+            return new Fold(0, Collections.emptyList());
+        }
+
+        String[] ids = deltas.keySet().toArray(new String[0]);
+        long[] amounts = deltas.values().stream().mapToLong(Long::longValue).toArray();
+        // Lock in id order, so that nodes folding the same teams cannot deadlock
+        jdbcTemplate.query("SELECT id FROM team_challenge WHERE id = ANY (?) ORDER BY id FOR UPDATE",
+                rs -> null, (Object) ids);
+        List<String> completed = new ArrayList<>();
+        jdbcTemplate.query("UPDATE team_challenge c SET distance = c.distance + d.delta, "
+                        + "completed_at = CASE "
+                        + "WHEN c.completed_at IS NULL AND c.distance + d.delta >= c.target_distance THEN now() "
+                        + "ELSE c.completed_at END "
+                        + "FROM unnest(?::varchar[], ?::bigint[]) AS d(id, delta) "
+                        + "WHERE c.id = d.id "
+                        + "RETURNING c.id, c.distance - d.delta < c.target_distance "
+                        + "AND c.distance >= c.target_distance AS crossed",
+                rs -> {
+                    if (rs.getBoolean("crossed")) {
+                        completed.add(rs.getString("id"));
+                    }
+                }, ids, amounts);
+        return new Fold(contributions[0], completed);
+    }
+
+    /**
+     * Outcome of folding a batch of contributions: how many were folded, and the team challenges they completed.
+     */
+    @Value
+    public static class Fold {
+        private final int contributions;
+        private final List<String> completed;
+    }
+}
@@ -0,0 +1,21 @@
+package com.github.hippoom.runner.challenges.domain.team;
+
+/**
+ * Team distances are summed as fixed-point millimetres, so that adding up many activities never
+ * accumulates floating point error and partial sums can be added in any order.
+ */
+public final class TeamDistance {
+
+    private static final double MILLIMETRES_PER_KM = 1_000_000d;
+
+    private TeamDistance() {
+    }
+
+    public static long fromKilometres(double kilometres) {
+        return Math.round(kilometres * MILLIMETRES_PER_KM);
+    }
+
+    public static double toKilometres(long millimetres) {
+        return millimetres / MILLIMETRES_PER_KM;
+    }
+}
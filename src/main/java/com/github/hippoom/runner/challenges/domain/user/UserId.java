@@ -1,22 +1,51 @@
 package com.github.hippoom.runner.challenges.domain.user;
 
-import lombok.Data;
+import lombok.AccessLevel;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
 import lombok.NoArgsConstructor;
+import lombok.ToString;
+import org.hibernate.annotations.Type;
+
 import javax.persistence.Embeddable;
 import java.io.Serializable;
 import java.util.UUID;
 
-@Data
-@NoArgsConstructor
+/**
+ * Immutable user id, a UUID in its canonical lowercase form. The value is validated and canonicalized once on
+ * creation, so ids read back from the database, taken from sessions or given by other services are equal and
+ * hash alike as map keys, cache keys and lock stripes. A value already canonical is kept as is, sharing the
+ * caller's string and its cached hash.
+ * <p>
+ * Ids are stored in native {@code uuid} columns, so only UUIDs can be persisted.
+ */
+@Getter
+@EqualsAndHashCode
+@ToString
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
 @Embeddable
 public class UserId implements Serializable {
+    @Type(type = UuidStringType.NAME)
     private String value;
 
+    /**
+     * @throws IllegalArgumentException if the value is not a UUID
+     */
     public UserId(String value) {
-        if (value == null || value.trim().isEmpty()) {
+        if (value == null) {
+            throw new IllegalArgumentException("UserId cannot be null or empty");
+        }
+        String trimmed = value.trim();
+        if (trimmed.isEmpty()) {
             throw new IllegalArgumentException("UserId cannot be null or empty");
         }
-        this.value = value.trim();
+        String canonical;
+        try {
+            canonical = UUID.fromString(trimmed).toString();
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("UserId must be a UUID: " + trimmed, e);
+        }
+        this.value = canonical.equals(trimmed) ? trimmed : canonical;
     }
 
     public static UserId of(String value) {
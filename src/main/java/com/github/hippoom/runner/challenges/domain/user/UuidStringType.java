@@ -0,0 +1,104 @@
+package com.github.hippoom.runner.challenges.domain.user;
+
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.usertype.UserType;
+import org.springframework.jdbc.core.SqlParameterValue;
+
+import java.io.Serializable;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.Objects;
+
+/**
+ * Maps an id held as a String to a native {@code uuid} column, so ids keep their String form in the domain
+ * while the database stores and indexes them in 16 bytes rather than 36 characters.
+ * <p>
+ * Ids are bound untyped, so that the database reads them as the type of the column they are compared with or
+ * written to: the same statements work before and after {@code NativeUuidKeysCutover} swaps the columns,
+ * while nodes of both releases run side by side. Plain JDBC statements bind ids with {@link #parameter} and
+ * {@link #arrayParameter} for the same reason.
+ */
+public class UuidStringType implements UserType {
+
+    public static final String NAME = "com.github.hippoom.runner.challenges.domain.user.UuidStringType";
+
+    private static final int[] SQL_TYPES = {Types.OTHER};
+
+    /**
+     * An id as an untyped JDBC parameter.
+     */
+    public static SqlParameterValue parameter(String id) {
+        return new SqlParameterValue(Types.OTHER, id);
+    }
+
+    /**
+     * Ids as an untyped array literal, e.g. for {@code user_id = ANY (?)}. The ids must be canonical UUIDs,
+     * which need no quoting.
+     */
+    public static SqlParameterValue arrayParameter(String[] ids) {
+        return new SqlParameterValue(Types.OTHER, "{" + String.join(",", ids) + "}");
+    }
+
+    @Override
+    public int[] sqlTypes() {
+        return SQL_TYPES.clone();
+    }
+
+    @Override
+    public Class<?> returnedClass() {
+        return String.class;
+    }
+
+    @Override
+    public boolean equals(Object x, Object y) {
+        return Objects.equals(x, y);
+    }
+
+    @Override
+    public int hashCode(Object x) {
+        return Objects.hashCode(x);
+    }
+
+    @Override
+    public Object nullSafeGet(ResultSet rs, String[] names, SharedSessionContractImplementor session, Object owner)
+            throws SQLException {
+        return rs.getString(names[0]);
+    }
+
+    @Override
+    public void nullSafeSet(PreparedStatement st, Object value, int index, SharedSessionContractImplementor session)
+            throws SQLException {
+        if (value == null) {
+            st.setNull(index, Types.OTHER);
+        } else {
+            st.setObject(index, value, Types.OTHER);
+        }
+    }
+
+    @Override
+    public Object deepCopy(Object value) {
+        return value;
+    }
+
+    @Override
+    public boolean isMutable() {
+        return false;
+    }
+
+    @Override
+    public Serializable disassemble(Object value) {
+        return (Serializable) value;
+    }
+
+    @Override
+    public Object assemble(Serializable cached, Object owner) {
+        return cached;
+    }
+
+    @Override
+    public Object replace(Object original, Object target, Object owner) {
+        return original;
+    }
+}
@@ -0,0 +1,221 @@
+package com.github.hippoom.runner.challenges.http;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.github.hippoom.runner.challenges.application.ActivityImportProperties;
+import com.github.hippoom.runner.challenges.application.ActivityImporter;
+import com.github.hippoom.runner.challenges.domain.activity.UserActivity;
+import com.github.hippoom.runner.challenges.domain.activity.UserActivityMetricSummary;
+import com.github.hippoom.runner.challenges.domain.user.UserId;
+import com.github.hippoom.runner.challenges.http.representation.ActivityImportEventRepresentation;
+import com.github.hippoom.runner.challenges.http.representation.ImportedActivityRequest;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.actuate.endpoint.web.annotation.RestControllerEndpoint;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.server.ResponseStatusException;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Semaphore;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Imports historical activities in bulk on the management port, e.g. when onboarding a partner app:
+ * {@code POST /actuator/import/activities?from=0} with an NDJSON body of {@link ImportedActivityRequest},
+ * gzipped or not.
+ * <p>
+ * The body is read a line at a time and recorded a group at a time, and the next lines are only read once the
+ * group is recorded, so a fast uploader is slowed down to the import's pace by TCP flow control rather than
+ * buffered. The response streams NDJSON {@link ActivityImportEventRepresentation events} as the import goes:
+ * progress once every group is committed, rejected lines and a last {@code done} event. Their {@code line}
+ * counts the lines read and either recorded or rejected; an interrupted import resumes after the last one it
+ * reported with {@code from} set to it, the lines before it being skipped without being parsed. Resuming from
+ * an earlier line is safe too: every activity is recorded once, by the id of its line or else the one derived
+ * from it.
+ * <p>
+ * Activities are recorded on this node whichever node owns their users, so imports are best run before the
+ * partner's live activities start flowing.
+ */
+@Slf4j
+@Component
+@RestControllerEndpoint(id = "import")
+public class ActivityImportEndpoint {
+
+    private static final String GZIP = "gzip";
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final ActivityImporter activityImporter;
+    private final ActivityImportProperties properties;
+    private final ObjectMapper objectMapper;
+    private final ObjectReader lineReader;
+    private final Semaphore imports;
+
+    public ActivityImportEndpoint(ActivityImporter activityImporter,
+                                  ActivityImportProperties properties,
+                                  ObjectMapper objectMapper) {
+        this.activityImporter = activityImporter;
+        this.properties = properties;
+        this.objectMapper = objectMapper;
+        this.lineReader = objectMapper.readerFor(ImportedActivityRequest.class);
+        this.imports = new Semaphore(properties.getMaxConcurrentImports());
+    }
+
+    @PostMapping("/activities")
+    public void importActivities(@RequestParam(name = "from", defaultValue = "0") long from,
+                                 @RequestHeader(name = HttpHeaders.CONTENT_ENCODING, required = false)
+                                 String contentEncoding,
+                                 HttpServletRequest request,
+                                 HttpServletResponse response) throws IOException {
+        // 1. Validate the import before anything is read
+        if (from < 0) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "From must not be negative");
+        }
+        if (!imports.tryAcquire()) {
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Too many imports running");
+        }
+
+        // 2. Record the lines after the offset a group at a time, reporting as the import goes
+        try {
+            InputStream in = request.getInputStream();
+            if (GZIP.equalsIgnoreCase(contentEncoding)) {
+                in = new GZIPInputStream(in, BUFFER_SIZE);
+            }
+            BufferedReader lines = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8), BUFFER_SIZE);
+            response.setContentType("application/x-ndjson");
+            response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+            ImportRun run = new ImportRun(from, response.getOutputStream());
+            try {
+                run.read(lines);
+            } catch (IOException e) {
+                log.warn("Activity import aborted after line {}: {}", run.recorded, e.getMessage());
+                throw e;
+            }
+            log.info("Imported activities up to line {}: {} recorded, {} rejected",
+                    run.recorded, run.imported, run.failed);
+        } finally {
+            imports.release();
+        }
+    }
+
+    private UserActivity toActivity(String line) throws JsonProcessingException {
+        ImportedActivityRequest request = lineReader.readValue(line);
+        if (request.getUserId() == null) {
+            throw new IllegalArgumentException("Missing user_id");
+        }
+        if (request.getWhen() == null) {
+            throw new IllegalArgumentException("Missing when");
+        }
+        if ((request.getDistance() == null) != (request.getDuration() == null)) {
+            throw new IllegalArgumentException("Distance and duration go together");
+        }
+        UserActivity activity = new UserActivity();
+        // Validated here rather than when the group is written, which would reject the whole group
+        activity.setUserId(UserId.of(request.getUserId()));
+        if (request.getId() != null) {
+            activity.setId(request.getId());
+        }
+        activity.setWhen(request.getWhen());
+        activity.setType(request.getType());
+        if (request.getDistance() != null) {
+            UserActivityMetricSummary summary = new UserActivityMetricSummary();
+            summary.setDistance(request.getDistance());
+            summary.setDuration(request.getDuration());
+            activity.setMetricSummary(summary);
+        }
+        return activity;
+    }
+
+    /**
+     * State of an import, read and reported by the request's thread.
+     */
+    private final class ImportRun {
+        private final long from;
+        private final OutputStream out;
+        private final List<UserActivity> group = new ArrayList<>();
+        private final List<Long> groupLines = new ArrayList<>();
+        private long read;
+        private long recorded;
+        private long imported;
+        private long failed;
+
+        private ImportRun(long from, OutputStream out) {
+            this.from = from;
+            this.out = out;
+            this.recorded = from;
+        }
+
+        private void read(BufferedReader lines) throws IOException {
+            String line;
+            while ((line = lines.readLine()) != null) {
+                read++;
+                if (read <= from) {
+                    continue;
+                }
+                if (!line.isBlank()) {
+                    try {
+                        group.add(toActivity(line));
+                        groupLines.add(read);
+                    } catch (JsonProcessingException | IllegalArgumentException e) {
+                        reject(read, e instanceof JsonProcessingException
+                                ? ((JsonProcessingException) e).getOriginalMessage() : e.getMessage());
+                    }
+                }
+                if (group.size() == properties.getGroupSize()) {
+                    recordGroup();
+                } else if (group.isEmpty()) {
+                    recorded = read;
+                }
+            }
+            recordGroup();
+            recorded = Math.max(recorded, read);
+            send(ActivityImportEventRepresentation.progress("done", recorded, imported, failed));
+        }
+
+        private void recordGroup() throws IOException {
+            if (group.isEmpty()) {
+                return;
+            }
+            Map<Integer, String> failures = activityImporter.importGroup(group);
+            failures.forEach((index, error) -> reject(groupLines.get(index), error));
+            imported += group.size() - failures.size();
+            recorded = groupLines.get(groupLines.size() - 1);
+            group.clear();
+            groupLines.clear();
+            // Reported as soon as the group is committed, so that a resumed import never records it again
+            send(ActivityImportEventRepresentation.progress("progress", recorded, imported, failed));
+        }
+
+        private void reject(long line, String error) {
+            failed++;
+            if (failed <= properties.getMaxReportedErrors()) {
+                try {
+                    send(ActivityImportEventRepresentation.error(line, error));
+                } catch (IOException e) {
+                    // The client went away, the next read or progress event fails the import
+                    log.debug("Cannot report the error of line {}", line, e);
+                }
+            }
+        }
+
+        private void send(ActivityImportEventRepresentation event) throws IOException {
+            out.write(objectMapper.writeValueAsBytes(event));
+            out.write('\n');
+            out.flush();
+        }
+    }
+}
@@ -0,0 +1,51 @@
+package com.github.hippoom.runner.challenges.http;
+
+import com.github.hippoom.runner.challenges.application.ChallengeStatistics;
+import com.github.hippoom.runner.challenges.domain.challenge.Challenge;
+import com.github.hippoom.runner.challenges.domain.challenge.ChallengeNumber;
+import com.github.hippoom.runner.challenges.domain.challenge.ChallengeRepository;
+import com.github.hippoom.runner.challenges.domain.challenge.stats.ChallengeStats;
+import com.github.hippoom.runner.challenges.http.representation.ChallengeStatsRepresentation;
+import lombok.RequiredArgsConstructor;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/challenges")
+@RequiredArgsConstructor
+public class ChallengeStatsController {
+
+    private final ChallengeRepository challengeRepository;
+    private final ChallengeStatistics challengeStatistics;
+
+    @GetMapping("/stats")
+    public List<ChallengeStatsRepresentation> listStats() {
+        List<Challenge> challenges = challengeRepository.findAll();
+        List<ChallengeStatsRepresentation> stats = new ArrayList<>(challenges.size());
+        for (Challenge challenge : challenges) {
+            stats.add(toModel(challenge.getNumber()));
+        }
+        return stats;
+    }
+
+    @GetMapping("/{number}/stats")
+    public ChallengeStatsRepresentation getStats(@PathVariable("number") int number) {
+        // Resolve the challenge first, so that unknown challenges are not found rather than empty
+        return toModel(challengeRepository.getOrThrow(ChallengeNumber.of(number)).getNumber());
+    }
+
+    private ChallengeStatsRepresentation toModel(ChallengeNumber number) {
+        ChallengeStats stats = challengeStatistics.of(number);
+        ChallengeStatsRepresentation repr = new ChallengeStatsRepresentation();
+        repr.setNumber(number.getValue());
+        repr.setCompletions(stats.getCompletions());
+        repr.setRunnersCompleted(stats.getCompleters());
+        repr.setRunnersStarted(stats.getStarters());
+        return repr;
+    }
+}
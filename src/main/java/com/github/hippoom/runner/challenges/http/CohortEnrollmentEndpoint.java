@@ -0,0 +1,83 @@
+package com.github.hippoom.runner.challenges.http;
+
+import com.github.hippoom.runner.challenges.application.CohortEnrollmentProperties;
+import com.github.hippoom.runner.challenges.application.EnrollCohortCommandHandler;
+import com.github.hippoom.runner.challenges.application.EnrollmentOutcome;
+import com.github.hippoom.runner.challenges.command.EnrollCohortCommand;
+import com.github.hippoom.runner.challenges.domain.challenge.ChallengeNumber;
+import com.github.hippoom.runner.challenges.domain.challenge.NoSuchChallengeException;
+import com.github.hippoom.runner.challenges.domain.user.UserId;
+import com.github.hippoom.runner.challenges.http.representation.CohortEnrollmentRepresentation;
+import com.github.hippoom.runner.challenges.http.representation.CohortEnrollmentRequest;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.actuate.endpoint.web.annotation.RestControllerEndpoint;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Enrolls cohorts of users on behalf of other services, e.g. coaching, on the management port like the other
+ * admin operations: {@code POST /actuator/enrollments/{number}} with the users' ids.
+ */
+@Component
+@RestControllerEndpoint(id = "enrollments")
+@RequiredArgsConstructor
+public class CohortEnrollmentEndpoint {
+
+    private final EnrollCohortCommandHandler commandHandler;
+    private final CohortEnrollmentProperties properties;
+
+    @PostMapping("/{number}")
+    public CohortEnrollmentRepresentation enroll(@PathVariable("number") int number,
+                                                 @RequestBody CohortEnrollmentRequest request) {
+        // 1. Validate the whole cohort before anyone is enrolled
+        if (request.getUserIds().size() > properties.getMaxCohortSize()) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "A cohort has at most " + properties.getMaxCohortSize() + " users");
+        }
+        List<UserId> userIds = new ArrayList<>(request.getUserIds().size());
+        for (String userId : request.getUserIds()) {
+            try {
+                userIds.add(UserId.of(userId));
+            } catch (IllegalArgumentException e) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage(), e);
+            }
+        }
+
+        // 2. Enroll, a batch at a time
+        List<EnrollmentOutcome> outcomes;
+        try {
+            outcomes = commandHandler.handle(new EnrollCohortCommand(ChallengeNumber.of(number), userIds));
+        } catch (NoSuchChallengeException e) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, e.getMessage(), e);
+        }
+
+        CohortEnrollmentRepresentation repr = new CohortEnrollmentRepresentation();
+        repr.setNumber(number);
+        List<CohortEnrollmentRepresentation.Outcome> outcomeReprs = new ArrayList<>(outcomes.size());
+        for (EnrollmentOutcome outcome : outcomes) {
+            switch (outcome.getStatus()) {
+                case STARTED:
+                    repr.setStarted(repr.getStarted() + 1);
+                    break;
+                case ALREADY_STARTED:
+                    repr.setAlreadyStarted(repr.getAlreadyStarted() + 1);
+                    break;
+                default:
+                    repr.setUnavailable(repr.getUnavailable() + 1);
+                    break;
+            }
+            outcomeReprs.add(new CohortEnrollmentRepresentation.Outcome(outcome.getUserId().getValue(),
+                    outcome.getStatus().name().toLowerCase(Locale.ROOT), outcome.getReason()));
+        }
+        repr.setOutcomes(outcomeReprs);
+        return repr;
+    }
+}
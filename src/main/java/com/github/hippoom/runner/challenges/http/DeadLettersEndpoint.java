@@ -0,0 +1,34 @@
+package com.github.hippoom.runner.challenges.http;
+
+import com.github.hippoom.runner.challenges.messaging.wal.DurableActivityQueue;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.actuate.endpoint.web.annotation.RestControllerEndpoint;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.springframework.web.bind.annotation.PostMapping;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.Map;
+
+/**
+ * Redrives the activities parked by the {@link DurableActivityQueue} on the management port, once whatever
+ * failed them is fixed: {@code POST /actuator/deadletters/redrive}.
+ */
+@Slf4j
+@Component
+@RestControllerEndpoint(id = "deadletters")
+@ConditionalOnProperty(prefix = "challenges.activity-log", name = "enabled", havingValue = "true")
+@RequiredArgsConstructor
+public class DeadLettersEndpoint {
+
+    private final DurableActivityQueue durableActivityQueue;
+
+    @PostMapping("/redrive")
+    public Map<String, Integer> redrive() throws IOException {
+        int redriven = durableActivityQueue.redriveDeadLetters();
+        log.info("Redrove {} parked activities", redriven);
+        return Collections.singletonMap("redriven", redriven);
+    }
+}
@@ -0,0 +1,28 @@
+package com.github.hippoom.runner.challenges.http;
+
+import com.github.hippoom.runner.challenges.cluster.ActivityRouter;
+import com.github.hippoom.runner.challenges.domain.activity.UserActivity;
+import com.github.hippoom.runner.challenges.messaging.http.HttpActivityForwarder;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.ResponseStatus;
+import org.springframework.web.bind.annotation.RestController;
+
+/**
+ * Receives activities forwarded by other nodes of the cluster, which authenticate with the cluster secret,
+ * see {@link com.github.hippoom.runner.challenges.http.support.ClusterSecretFilter}.
+ */
+@RestController
+@RequiredArgsConstructor
+public class InternalActivitiesController {
+
+    private final ActivityRouter activityRouter;
+
+    @PostMapping(HttpActivityForwarder.PATH)
+    @ResponseStatus(HttpStatus.ACCEPTED)
+    public void acceptForwardedActivity(@RequestBody UserActivity activity) {
+        activityRouter.accept(activity);
+    }
+}
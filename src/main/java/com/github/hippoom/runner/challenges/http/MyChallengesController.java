@@ -1,49 +1,164 @@
 package com.github.hippoom.runner.challenges.http;
 
+import com.github.hippoom.runner.challenges.application.CoalescingUserProgressLoader;
+import com.github.hippoom.runner.challenges.application.FanOutLoader;
 import com.github.hippoom.runner.challenges.application.StartChallengeCommandHandler;
 import com.github.hippoom.runner.challenges.command.StartChallengeCommand;
 import com.github.hippoom.runner.challenges.domain.challenge.Challenge;
 import com.github.hippoom.runner.challenges.domain.challenge.ChallengeNumber;
 import com.github.hippoom.runner.challenges.domain.challenge.ChallengeRepository;
+import com.github.hippoom.runner.challenges.domain.challenge.NoSuchChallengeException;
+import com.github.hippoom.runner.challenges.domain.challenge.catalog.ChallengeCatalog;
 import com.github.hippoom.runner.challenges.domain.challenge.progress.StartedChallenge;
+import com.github.hippoom.runner.challenges.domain.challenge.progress.UserProgress;
 import com.github.hippoom.runner.challenges.domain.user.UserId;
 import com.github.hippoom.runner.challenges.http.assembler.MyChallengeRepresentationAssembler;
+import com.github.hippoom.runner.challenges.http.representation.ChallengePathRepresentation;
 import com.github.hippoom.runner.challenges.http.representation.MyChallengeRepresentation;
+import com.github.hippoom.runner.challenges.http.support.ChallengeStatus;
 import com.github.hippoom.runner.challenges.http.support.CurrentUser;
-import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.hateoas.CollectionModel;
+import org.springframework.hateoas.IanaLinkRelations;
+import org.springframework.http.HttpStatus;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
 
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Set;
+
+import static org.springframework.hateoas.server.mvc.WebMvcLinkBuilder.linkTo;
+import static org.springframework.hateoas.server.mvc.WebMvcLinkBuilder.methodOn;
 
 @RestController
 @RequestMapping("/api/my/challenges")
-@RequiredArgsConstructor
 public class MyChallengesController {
 
     private final ChallengeRepository challengeRepository;
     private final MyChallengeRepresentationAssembler assembler;
     private final StartChallengeCommandHandler commandHandler;
+    private final CoalescingUserProgressLoader userProgressLoader;
+    private final FanOutLoader fanOutLoader;
+    private final int defaultPageSize;
+    private final int maxPageSize;
+
+    public MyChallengesController(ChallengeRepository challengeRepository,
+                                  MyChallengeRepresentationAssembler assembler,
+                                  StartChallengeCommandHandler commandHandler,
+                                  CoalescingUserProgressLoader userProgressLoader,
+                                  FanOutLoader fanOutLoader,
+                                  @Value("${challenges.listing.default-page-size}") int defaultPageSize,
+                                  @Value("${challenges.listing.max-page-size}") int maxPageSize) {
+        this.challengeRepository = challengeRepository;
+        this.assembler = assembler;
+        this.commandHandler = commandHandler;
+        this.userProgressLoader = userProgressLoader;
+        this.fanOutLoader = fanOutLoader;
+        this.defaultPageSize = defaultPageSize;
+        this.maxPageSize = maxPageSize;
+    }
 
+    /**
+     * The user's challenges ordered by number, one page at a time, optionally only those numbered within a
+     * range or having any of the given statuses. Challenges are selected against the user's progress before
+     * any representation is built, so a request costs its page, not the catalog.
+     *
+     * @param cursor number of the last challenge of the previous page, as in the {@code next} link
+     */
     @GetMapping
-    public CollectionModel<MyChallengeRepresentation> listMyChallenges(@CurrentUser UserId userId) {
-        // Get all challenges sorted by number
-        List<Challenge> challenges = challengeRepository.findAll();
+    public CollectionModel<MyChallengeRepresentation> listMyChallenges(
+            @CurrentUser UserId userId,
+            @RequestParam(name = "status", required = false) List<String> status,
+            @RequestParam(name = "from", required = false) Integer from,
+            @RequestParam(name = "to", required = false) Integer to,
+            @RequestParam(name = "limit", required = false) Integer limit,
+            @RequestParam(name = "cursor", required = false) Integer cursor) {
+        // 1. Validate the page request
+        int pageSize = limit == null ? defaultPageSize : Math.min(limit, maxPageSize);
+        if (pageSize < 1) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Limit must be positive");
+        }
+        Set<ChallengeStatus> statuses;
+        try {
+            statuses = ChallengeStatus.parseAll(status);
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Unknown status in " + status, e);
+        }
+
+        // 2. Load the user's progress once, sharing the load with concurrent requests of the same user.
+        // Without it in time, challenges are still listed with their status unknown, but not filtered by it
+        FanOutLoader.Branch<UserProgress> progressLoad = fanOutLoader.submit("progress",
+                () -> userProgressLoader.load(userId));
+
+        // 3. Find the challenges in range, sorted by number, after the cursor
+        int first = Math.max(from == null ? 0 : from, cursor == null ? 0 : cursor + 1);
+        List<Challenge> candidates = challengeRepository.snapshot()
+                .findBetween(first, to == null ? Integer.MAX_VALUE : to);
+        UserProgress progress = progressLoad.await().orElse(null);
+        if (progress == null && !statuses.isEmpty()) {
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Progress is unavailable");
+        }
+
+        // 4. Select the page, looking one challenge past it to know whether another page follows
+        List<Challenge> page = new ArrayList<>(Math.min(pageSize, candidates.size()));
+        boolean more = false;
+        for (int i = 0; i < candidates.size() && !more; i++) {
+            Challenge challenge = candidates.get(i);
+            if (statuses.isEmpty() || assembler.hasAnyStatus(challenge, progress, statuses)) {
+                more = page.size() == pageSize;
+                if (!more) {
+                    page.add(challenge);
+                }
+            }
+        }
+
+        CollectionModel<MyChallengeRepresentation> model = CollectionModel.of(assembler.toModels(page, progress));
+        if (more) {
+            int last = page.get(page.size() - 1).getNumber().getValue();
+            model.add(linkTo(methodOn(MyChallengesController.class)
+                    .listMyChallenges(null, status, from, to, limit, last)).withRel(IanaLinkRelations.NEXT).expand());
+        }
+        return model;
+    }
+
+    /**
+     * What the user still has to complete to reach a challenge, in an order they can complete it.
+     */
+    @GetMapping("/{number}/path")
+    public ChallengePathRepresentation pathToChallenge(@PathVariable("number") int number,
+                                                       @CurrentUser UserId userId) {
+        ChallengeNumber target = ChallengeNumber.of(number);
+        ChallengeCatalog catalog = challengeRepository.snapshot();
+        if (catalog.find(target) == null) {
+            throw new NoSuchChallengeException(target);
+        }
+        UserProgress progress = userProgressLoader.load(userId);
 
-        // Use optimized toModels method to avoid N+1 queries
-        List<MyChallengeRepresentation> challengeRepresentations =
-                assembler.toModels(challenges, userId);
+        List<ChallengeNumber> path = catalog.getPrerequisites().pathTo(target, progress);
+        List<Challenge> steps = new ArrayList<>(path.size());
+        boolean reachable = true;
+        for (ChallengeNumber step : path) {
+            Challenge challenge = catalog.find(step);
+            steps.add(challenge);
+            reachable &= !challenge.isLocked();
+        }
 
-        return CollectionModel.of(challengeRepresentations);
+        ChallengePathRepresentation repr = new ChallengePathRepresentation();
+        repr.setTarget(number);
+        repr.setReachable(reachable);
+        repr.setSteps(assembler.toModels(steps, progress));
+        return repr;
     }
 
     @PostMapping("/{number}/start")
     public MyChallengeRepresentation startChallenge(@PathVariable("number") int number, @CurrentUser UserId userId) {
-        ChallengeNumber challengeNumber = new ChallengeNumber(number);
+        ChallengeNumber challengeNumber = ChallengeNumber.of(number);
         StartChallengeCommand command = new StartChallengeCommand(challengeNumber, userId);
         StartedChallenge startedChallenge = commandHandler.handle(command);
 
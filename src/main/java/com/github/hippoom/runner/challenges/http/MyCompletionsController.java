@@ -0,0 +1,115 @@
+package com.github.hippoom.runner.challenges.http;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.hippoom.runner.challenges.domain.challenge.ChallengeNumber;
+import com.github.hippoom.runner.challenges.domain.challenge.progress.CompletionCursor;
+import com.github.hippoom.runner.challenges.domain.challenge.progress.CompletionHistory;
+import com.github.hippoom.runner.challenges.domain.user.UserId;
+import com.github.hippoom.runner.challenges.http.support.CurrentUser;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Instant;
+
+/**
+ * Serves a user's completion history newest first, one bounded page at a time. Each page is written to the
+ * response as its rows are read, and the {@code next_cursor} it ends with fetches the following page.
+ */
+@RestController
+@RequestMapping("/api/my/challenges/completions")
+public class MyCompletionsController {
+
+    private final CompletionHistory completionHistory;
+    private final ObjectMapper objectMapper;
+    private final int defaultPageSize;
+    private final int maxPageSize;
+
+    public MyCompletionsController(CompletionHistory completionHistory,
+                                   ObjectMapper objectMapper,
+                                   @Value("${challenges.completions.default-page-size}") int defaultPageSize,
+                                   @Value("${challenges.completions.max-page-size}") int maxPageSize) {
+        this.completionHistory = completionHistory;
+        this.objectMapper = objectMapper;
+        this.defaultPageSize = defaultPageSize;
+        this.maxPageSize = maxPageSize;
+    }
+
+    @GetMapping
+    public ResponseEntity<StreamingResponseBody> listMyCompletions(
+            @CurrentUser UserId userId,
+            @RequestParam(name = "cursor", required = false) String cursorToken,
+            @RequestParam(name = "limit", required = false) Integer limit) {
+        // 1. Validate the page request before anything is streamed
+        int pageSize = limit == null ? defaultPageSize : Math.min(limit, maxPageSize);
+        if (pageSize < 1) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Limit must be positive");
+        }
+        CompletionCursor cursor;
+        try {
+            cursor = cursorToken == null ? null : CompletionCursor.decode(cursorToken);
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid cursor", e);
+        }
+
+        // 2. Stream the page, reading one row more than the page to know whether another page follows
+        StreamingResponseBody body = out -> {
+            try (JsonGenerator json = objectMapper.getFactory().createGenerator(out)) {
+                json.writeStartObject();
+                json.writeArrayFieldStart("completions");
+                PageWriter page = new PageWriter(json, pageSize);
+                completionHistory.forEachAfter(userId, cursor, pageSize + 1, page);
+                json.writeEndArray();
+                json.writeStringField("next_cursor", page.nextCursor());
+                json.writeEndObject();
+            }
+        };
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).body(body);
+    }
+
+    private static final class PageWriter implements CompletionHistory.CompletionConsumer {
+        private final JsonGenerator json;
+        private final int pageSize;
+        private int written;
+        private CompletionCursor last;
+        private boolean more;
+
+        private PageWriter(JsonGenerator json, int pageSize) {
+            this.json = json;
+            this.pageSize = pageSize;
+        }
+
+        @Override
+        public void accept(String id, ChallengeNumber number, String activityId, Instant when) {
+            if (written == pageSize) {
+                more = true;
+                return;
+            }
+            try {
+                json.writeStartObject();
+                json.writeNumberField("number", number.getValue());
+                json.writeStringField("activity_id", activityId);
+                json.writeStringField("completed_at", when.toString());
+                json.writeEndObject();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            last = new CompletionCursor(when, id);
+            written++;
+        }
+
+        private String nextCursor() {
+            return more ? last.encode() : null;
+        }
+    }
+}
@@ -0,0 +1,33 @@
+package com.github.hippoom.runner.challenges.http;
+
+import com.github.hippoom.runner.challenges.domain.user.UserId;
+import com.github.hippoom.runner.challenges.http.support.CurrentUser;
+import com.github.hippoom.runner.challenges.http.support.ProgressStreams;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+/**
+ * Streams changes of the user's progress as Server-Sent Events, instead of having clients poll the listing.
+ * <p>
+ * The first event is a {@code snapshot} of started, completed and available challenges, later ones are
+ * {@code delta}s, including challenges that opened or closed. A client reconnecting with {@code Last-Event-ID}
+ * gets no snapshot if it missed nothing.
+ */
+@RestController
+@RequestMapping("/api/my/challenges/stream")
+@RequiredArgsConstructor
+public class MyProgressStreamController {
+
+    private final ProgressStreams progressStreams;
+
+    @GetMapping(produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamMyProgress(@CurrentUser UserId userId,
+                                       @RequestHeader(name = "Last-Event-ID", required = false) String lastEventId) {
+        return progressStreams.open(userId, lastEventId);
+    }
+}
@@ -0,0 +1,187 @@
+package com.github.hippoom.runner.challenges.http;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.github.hippoom.runner.challenges.application.ProgressExportProperties;
+import com.github.hippoom.runner.challenges.application.ProgressExporter;
+import com.github.hippoom.runner.challenges.application.ProgressExporter.Dataset;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.actuate.endpoint.web.annotation.RestControllerEndpoint;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.server.ResponseStatusException;
+
+import javax.servlet.http.HttpServletResponse;
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.format.DateTimeParseException;
+import java.util.concurrent.Semaphore;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Exports progress tables in bulk on the management port, e.g.
+ * {@code GET /actuator/export/completions?format=csv&since=2024-05-01T00:00:00Z}, as NDJSON or CSV, gzipped
+ * when the client accepts it.
+ * <p>
+ * Rows are written to the response as they are read, on the management connector's own request thread, so an
+ * export takes neither API threads nor their asynchronous executor, and holds a fetch size of rows at most.
+ * Once the first rows are sent the status can no longer change: an export failing midway is cut off, without
+ * the end of its chunked and gzip streams, so clients see a failed transfer rather than a shorter export.
+ */
+@Slf4j
+@Component
+@RestControllerEndpoint(id = "export")
+public class ProgressExportEndpoint {
+
+    private static final String NDJSON = "ndjson";
+    private static final String CSV = "csv";
+    private static final String GZIP = "gzip";
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final ProgressExporter progressExporter;
+    private final JsonFactory jsonFactory = new JsonFactory().setRootValueSeparator(null);
+    private final Semaphore exports;
+
+    public ProgressExportEndpoint(ProgressExporter progressExporter, ProgressExportProperties properties) {
+        this.progressExporter = progressExporter;
+        this.exports = new Semaphore(properties.getMaxConcurrentExports());
+    }
+
+    @GetMapping("/{dataset}")
+    public void export(@PathVariable("dataset") String datasetName,
+                       @RequestParam(name = "format", defaultValue = NDJSON) String format,
+                       @RequestParam(name = "since", required = false) String since,
+                       @RequestHeader(name = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding,
+                       HttpServletResponse response) throws IOException {
+        // 1. Validate the export before anything is streamed
+        Dataset dataset;
+        try {
+            dataset = Dataset.of(datasetName);
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, e.getMessage(), e);
+        }
+        if (!NDJSON.equals(format) && !CSV.equals(format)) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Format must be ndjson or csv");
+        }
+        Instant watermark;
+        try {
+            watermark = since == null ? null : Instant.parse(since);
+        } catch (DateTimeParseException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Since must be an ISO-8601 instant", e);
+        }
+        if (!exports.tryAcquire()) {
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Too many exports running");
+        }
+
+        // 2. Stream the rows, compressed when the client accepts it
+        try {
+            boolean gzip = acceptEncoding != null && acceptEncoding.contains(GZIP);
+            response.setContentType(NDJSON.equals(format) ? "application/x-ndjson" : "text/csv");
+            response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+            response.setHeader(HttpHeaders.CONTENT_DISPOSITION,
+                    "attachment; filename=\"" + dataset.getPath() + "." + format + "\"");
+            OutputStream out = response.getOutputStream();
+            if (gzip) {
+                response.setHeader(HttpHeaders.CONTENT_ENCODING, GZIP);
+                out = new GZIPOutputStream(out, BUFFER_SIZE) {
+                    {
+                        // Exports are large and fetched once: compressing fast matters more than compressing hard
+                        def.setLevel(Deflater.BEST_SPEED);
+                    }
+                };
+            }
+            RowWriter writer = NDJSON.equals(format)
+                    ? new NdjsonWriter(jsonFactory.createGenerator(out), dataset.getColumns())
+                    : new CsvWriter(out, dataset.getColumns());
+            try {
+                progressExporter.export(dataset, watermark, writer);
+            } catch (UncheckedIOException e) {
+                log.warn("Export of {} aborted, the client went away", dataset.getPath());
+                throw e.getCause();
+            }
+            // Only a complete export ends its stream, a failed one never reads as a valid, shorter file
+            writer.close();
+        } finally {
+            exports.release();
+        }
+    }
+
+    private interface RowWriter extends ProgressExporter.RowWriter, Closeable {
+    }
+
+    private static final class NdjsonWriter implements RowWriter {
+        private final JsonGenerator json;
+        private final String[] columns;
+
+        private NdjsonWriter(JsonGenerator json, String[] columns) {
+            this.json = json;
+            this.columns = columns;
+        }
+
+        @Override
+        public void write(Object[] values) throws IOException {
+            json.writeStartObject();
+            for (int i = 0; i < columns.length; i++) {
+                json.writeFieldName(columns[i]);
+                if (values[i] == null) {
+                    json.writeNull();
+                } else if (values[i] instanceof Integer) {
+                    json.writeNumber((Integer) values[i]);
+                } else {
+                    json.writeString(values[i].toString());
+                }
+            }
+            json.writeEndObject();
+            json.writeRaw('\n');
+        }
+
+        @Override
+        public void close() throws IOException {
+            json.close();
+        }
+    }
+
+    /**
+     * Writes values unquoted: ids, numbers and instants never contain separators or quotes.
+     */
+    private static final class CsvWriter implements RowWriter {
+        private final Writer csv;
+
+        private CsvWriter(OutputStream out, String[] columns) throws IOException {
+            this.csv = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), BUFFER_SIZE);
+            csv.write(String.join(",", columns));
+            csv.write('\n');
+        }
+
+        @Override
+        public void write(Object[] values) throws IOException {
+            for (int i = 0; i < values.length; i++) {
+                if (i > 0) {
+                    csv.write(',');
+                }
+                if (values[i] != null) {
+                    csv.write(values[i].toString());
+                }
+            }
+            csv.write('\n');
+        }
+
+        @Override
+        public void close() throws IOException {
+            csv.close();
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package com.github.hippoom.runner.challenges.http;
+
+import com.github.hippoom.runner.challenges.domain.team.TeamChallenge;
+import com.github.hippoom.runner.challenges.domain.team.TeamChallengeRepository;
+import com.github.hippoom.runner.challenges.domain.team.TeamDistance;
+import com.github.hippoom.runner.challenges.domain.user.UserId;
+import com.github.hippoom.runner.challenges.http.representation.TeamMembersRequest;
+import com.github.hippoom.runner.challenges.http.representation.TeamChallengeRepresentation;
+import com.github.hippoom.runner.challenges.http.representation.TeamChallengeRequest;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.actuate.endpoint.web.annotation.RestControllerEndpoint;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.PutMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.ResponseStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Manages teams and their challenges on behalf of other services, e.g. coaching, on the management port like
+ * the other admin operations: {@code /actuator/teams/{teamId}/members} and
+ * {@code /actuator/teams/{teamId}/challenges}.
+ */
+@Component
+@RestControllerEndpoint(id = "teams")
+@RequiredArgsConstructor
+public class TeamsEndpoint {
+
+    private final TeamChallengeRepository teamChallengeRepository;
+
+    @PutMapping("/{teamId}/members")
+    @ResponseStatus(HttpStatus.NO_CONTENT)
+    @Transactional
+    public void replaceMembers(@PathVariable("teamId") String teamId, @RequestBody TeamMembersRequest request) {
+        List<UserId> members;
+        try {
+            members = request.getUserIds().stream().map(UserId::of).collect(Collectors.toList());
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage(), e);
+        }
+        teamChallengeRepository.replaceMembers(teamId, members);
+    }
+
+    @PostMapping("/{teamId}/challenges")
+    @ResponseStatus(HttpStatus.CREATED)
+    public TeamChallengeRepresentation createChallenge(@PathVariable("teamId") String teamId,
+                                                       @RequestBody TeamChallengeRequest request) {
+        if (request.getStartsAt() == null || request.getEndsAt() == null
+                || !request.getStartsAt().isBefore(request.getEndsAt()) || request.getTargetDistance() <= 0) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "A team challenge needs a positive target and a non-empty window");
+        }
+        return toModel(teamChallengeRepository.create(teamId,
+                TeamDistance.fromKilometres(request.getTargetDistance()), request.getStartsAt(), request.getEndsAt()));
+    }
+
+    @GetMapping("/{teamId}/challenges")
+    public List<TeamChallengeRepresentation> listChallenges(@PathVariable("teamId") String teamId) {
+        return teamChallengeRepository.findByTeamId(teamId).stream()
+                .map(this::toModel)
+                .collect(Collectors.toList());
+    }
+
+    private TeamChallengeRepresentation toModel(TeamChallenge challenge) {
+        TeamChallengeRepresentation repr = new TeamChallengeRepresentation();
+        repr.setId(challenge.getId());
+        repr.setTeamId(challenge.getTeamId());
+        repr.setTargetDistance(TeamDistance.toKilometres(challenge.getTargetDistance()));
+        repr.setDistance(TeamDistance.toKilometres(challenge.getDistance()));
+        repr.setStartsAt(challenge.getStartsAt());
+        repr.setEndsAt(challenge.getEndsAt());
+        repr.setCompleted(challenge.isCompleted());
+        repr.setCompletedAt(challenge.getCompletedAt());
+        return repr;
+    }
+}
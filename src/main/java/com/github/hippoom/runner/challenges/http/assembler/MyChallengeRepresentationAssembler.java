@@ -1,51 +1,64 @@
 package com.github.hippoom.runner.challenges.http.assembler;
 
+import com.github.hippoom.runner.challenges.application.ChallengeStatistics;
 import com.github.hippoom.runner.challenges.domain.challenge.Challenge;
-import com.github.hippoom.runner.challenges.domain.challenge.progress.CompletedChallenge;
-import com.github.hippoom.runner.challenges.domain.challenge.progress.CompletedChallengeRepository;
 import com.github.hippoom.runner.challenges.domain.challenge.availability.StartChallengeSpecification;
 import com.github.hippoom.runner.challenges.domain.challenge.progress.StartedChallenge;
-import com.github.hippoom.runner.challenges.domain.challenge.progress.StartedChallengeRepository;
-import com.github.hippoom.runner.challenges.domain.user.UserId;
+import com.github.hippoom.runner.challenges.domain.challenge.progress.UserProgress;
+import com.github.hippoom.runner.challenges.domain.challenge.stats.ChallengeStats;
 import com.github.hippoom.runner.challenges.http.representation.MyChallengeRepresentation;
+import com.github.hippoom.runner.challenges.http.support.ChallengeStatus;
 import lombok.RequiredArgsConstructor;
 import org.springframework.hateoas.server.RepresentationModelAssembler;
 import org.springframework.stereotype.Component;
 
+import java.util.ArrayList;
 import java.util.List;
-import java.util.Objects;
-import java.util.Optional;
 import java.util.Set;
-import java.util.stream.Collectors;
 
 @Component
 @RequiredArgsConstructor
 public class MyChallengeRepresentationAssembler
     implements RepresentationModelAssembler<Challenge, MyChallengeRepresentation> {
 
-    private final CompletedChallengeRepository completedChallengeRepository;
-    private final StartedChallengeRepository startedChallengeRepository;
     private final StartChallengeSpecification startChallengeSpecification;
+    private final ChallengeStatistics challengeStatistics;
 
     /**
-     * Optimized method to convert multiple challenges, avoiding N+1 queries
-     * by loading all completed challenges for the user at once.
+     * Converts multiple challenges against the user's progress loaded once by the caller,
+     * so no query is issued per challenge.
+     *
+     * @param progress the user's progress, or null if it could not be loaded: the status of each challenge is
+     *                 then left unknown
      */
-    public List<MyChallengeRepresentation> toModels(List<Challenge> challenges, UserId userId) {
-        // Phase 1: Create basic representations with availability
-        List<MyChallengeRepresentation> representations = createBasicRepresentations(challenges, userId);
-
-        // Phase 2: Populate status fields
-        populateStatusFields(representations, userId);
+    public List<MyChallengeRepresentation> toModels(List<Challenge> challenges, UserProgress progress) {
+        List<MyChallengeRepresentation> models = new ArrayList<>(challenges.size());
+        for (Challenge challenge : challenges) {
+            models.add(toModel(challenge, progress));
+        }
+        return models;
+    }
 
-        return representations;
+    /**
+     * Whether the challenge has any of the statuses for the user, evaluated without building its representation.
+     */
+    public boolean hasAnyStatus(Challenge challenge, UserProgress progress, Set<ChallengeStatus> statuses) {
+        if (statuses.contains(ChallengeStatus.COMPLETED) && progress.hasCompleted(challenge.getNumber())
+                || statuses.contains(ChallengeStatus.STARTED) && progress.hasStarted(challenge.getNumber())) {
+            return true;
+        }
+        if (!statuses.contains(ChallengeStatus.AVAILABLE) && !statuses.contains(ChallengeStatus.LOCKED)) {
+            return false;
+        }
+        boolean available = startChallengeSpecification.test(challenge, progress);
+        return statuses.contains(available ? ChallengeStatus.AVAILABLE : ChallengeStatus.LOCKED);
     }
 
     @Override
     public MyChallengeRepresentation toModel(Challenge challenge) {
         // This method is required by RepresentationModelAssembler interface
         // but should not be used as it would cause N+1 queries
-        throw new UnsupportedOperationException("Use toModels(List<Challenge>, UserId) instead to avoid N+1 queries");
+        throw new UnsupportedOperationException("Use toModels(List<Challenge>, UserProgress) instead");
     }
 
     public MyChallengeRepresentation toModel(StartedChallenge startedChallenge) {
@@ -59,52 +72,32 @@ public class MyChallengeRepresentationAssembler
         return repr;
     }
 
-    /**
-     * Phase 1: Create basic representations with core fields and availability
-     */
-    private List<MyChallengeRepresentation> createBasicRepresentations(List<Challenge> challenges, UserId userId) {
-
-        return challenges.stream()
-            .map(challenge -> {
-                MyChallengeRepresentation repr = new MyChallengeRepresentation();
-                repr.setNumber(challenge.getNumber().getValue());
-
-                // Use specification to determine availability
-                repr.setAvailable(startChallengeSpecification.test(challenge, userId));
-
-                // Set completion criteria fields
-                repr.setMinimumDistance(challenge.getMinimumDistance());
-                repr.setMinimumPace(challenge.getMinimumPace());
-
-                return repr;
-            })
-            .collect(Collectors.toList());
-    }
-
-    /**
-     * Phase 2: Populate status fields using batch-loaded data
-     */
-    private void populateStatusFields(List<MyChallengeRepresentation> representations, UserId userId) {
-
-        // Load completed challenges for user in one query
-        List<CompletedChallenge> completedChallenges = completedChallengeRepository
-            .findByUserId(userId);
-
-        Set<Integer> completedNumbers = completedChallenges.stream()
-            .map(completed -> completed.getNumber().getValue())
-            .collect(Collectors.toSet());
-
-        // Load current started challenge for user
-        Optional<StartedChallenge> currentStartedChallenge = startedChallengeRepository.findById(userId);
-        Integer startedChallengeNumber = currentStartedChallenge
-            .map(started -> started.getNumber().getValue())
-            .orElse(null);
+    private MyChallengeRepresentation toModel(Challenge challenge, UserProgress progress) {
+        MyChallengeRepresentation repr = new MyChallengeRepresentation();
+        repr.setNumber(challenge.getNumber().getValue());
+
+        if (progress != null) {
+            // Use specification to determine availability
+            repr.setAvailable(startChallengeSpecification.test(challenge, progress));
+
+            // Set status fields
+            repr.setCompleted(progress.hasCompleted(challenge.getNumber().getValue()));
+            repr.setStarted(progress.hasStarted(challenge.getNumber()));
+        }
+
+        // Set completion criteria fields
+        repr.setMinimumDistance(challenge.getMinimumDistance());
+        repr.setMinimumPace(challenge.getMinimumPace());
+        repr.setMinimumTotalDistance(challenge.getMinimumTotalDistance());
+        repr.setMinimumTotalDuration(challenge.getMinimumTotalDuration());
+        repr.setWindowDays(challenge.getWindowDays());
+
+        // Set statistics fields, kept up to date in memory
+        ChallengeStats stats = challengeStatistics.of(challenge.getNumber());
+        repr.setCompletions(stats.getCompletions());
+        repr.setRunnersCompleted(stats.getCompleters());
+        repr.setRunnersStarted(stats.getStarters());
 
-        // Populate status fields for each representation
-        representations.forEach(repr -> {
-            repr.setCompleted(completedNumbers.contains(repr.getNumber()));
-            repr.setStarted(Objects.equals(repr.getNumber(), startedChallengeNumber));
-            // Availability is already set in createBasicRepresentations
-        });
+        return repr;
     }
 }
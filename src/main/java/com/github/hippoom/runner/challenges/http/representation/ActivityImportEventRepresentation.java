@@ -0,0 +1,34 @@
+package com.github.hippoom.runner.challenges.http.representation;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Event of an activity import. A {@code progress} or {@code done} event tells the lines read and recorded so far,
+ * which is where a new import resumes; an {@code error} event tells why a line was rejected.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class ActivityImportEventRepresentation {
+    private String event;
+
+    private long line;
+
+    private Long imported;
+
+    private Long failed;
+
+    private String error;
+
+    public static ActivityImportEventRepresentation progress(String event, long line, long imported, long failed) {
+        return new ActivityImportEventRepresentation(event, line, imported, failed, null);
+    }
+
+    public static ActivityImportEventRepresentation error(long line, String error) {
+        return new ActivityImportEventRepresentation("error", line, null, null, error);
+    }
+}
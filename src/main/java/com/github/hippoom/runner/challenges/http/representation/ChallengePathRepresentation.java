@@ -0,0 +1,16 @@
+package com.github.hippoom.runner.challenges.http.representation;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+public class ChallengePathRepresentation {
+    private Integer target;
+
+    @JsonProperty("is_reachable")
+    private boolean isReachable;
+
+    private List<MyChallengeRepresentation> steps;
+}
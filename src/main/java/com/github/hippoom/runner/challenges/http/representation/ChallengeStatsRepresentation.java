@@ -0,0 +1,17 @@
+package com.github.hippoom.runner.challenges.http.representation;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.Data;
+
+@Data
+public class ChallengeStatsRepresentation {
+    private Integer number;
+
+    private long completions;
+
+    @JsonProperty("runners_completed")
+    private long runnersCompleted;
+
+    @JsonProperty("runners_started")
+    private long runnersStarted;
+}
@@ -0,0 +1,32 @@
+package com.github.hippoom.runner.challenges.http.representation;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+public class CohortEnrollmentRepresentation {
+    private Integer number;
+
+    private int started;
+
+    @JsonProperty("already_started")
+    private int alreadyStarted;
+
+    private int unavailable;
+
+    private List<Outcome> outcomes;
+
+    @Data
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    public static class Outcome {
+        @JsonProperty("user_id")
+        private final String userId;
+
+        private final String status;
+
+        private final String reason;
+    }
+}
@@ -0,0 +1,13 @@
+package com.github.hippoom.runner.challenges.http.representation;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.Data;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+public class CohortEnrollmentRequest {
+    @JsonProperty("user_ids")
+    private List<String> userIds = new ArrayList<>();
+}
@@ -0,0 +1,26 @@
+package com.github.hippoom.runner.challenges.http.representation;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.Data;
+
+import java.time.Instant;
+
+/**
+ * A line of an activity import. Distance and duration are optional, but go together. The id is optional too: it
+ * is derived from the rest of the line when missing.
+ */
+@Data
+public class ImportedActivityRequest {
+    private String id;
+
+    @JsonProperty("user_id")
+    private String userId;
+
+    private Instant when;
+
+    private String type;
+
+    private Double distance;
+
+    private Integer duration;
+}
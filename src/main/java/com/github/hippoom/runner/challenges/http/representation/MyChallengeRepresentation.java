@@ -12,18 +12,38 @@ import org.springframework.hateoas.server.core.Relation;
 public class MyChallengeRepresentation extends RepresentationModel<MyChallengeRepresentation> {
     private Integer number;
 
+    /**
+     * Status fields are null when the user's progress could not be loaded in time.
+     */
     @JsonProperty("is_completed")
-    private boolean isCompleted;
+    private Boolean completed;
 
     @JsonProperty("is_available")
-    private boolean isAvailable;
+    private Boolean available;
 
     @JsonProperty("is_started")
-    private boolean isStarted;
+    private Boolean started;
 
     @JsonProperty("minimum_distance")
     private Double minimumDistance;
 
     @JsonProperty("minimum_pace")
     private Double minimumPace;
+
+    @JsonProperty("minimum_total_distance")
+    private Double minimumTotalDistance;
+
+    @JsonProperty("minimum_total_duration")
+    private Integer minimumTotalDuration;
+
+    @JsonProperty("window_days")
+    private Integer windowDays;
+
+    private long completions;
+
+    @JsonProperty("runners_completed")
+    private long runnersCompleted;
+
+    @JsonProperty("runners_started")
+    private long runnersStarted;
 }
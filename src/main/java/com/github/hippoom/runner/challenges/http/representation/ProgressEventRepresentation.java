@@ -0,0 +1,30 @@
+package com.github.hippoom.runner.challenges.http.representation;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * Data of a progress stream event. A {@code snapshot} lists everything, a {@code delta} only what changed since
+ * the previous event: a newly started challenge, the one that stopped being started, whether it was completed
+ * or expired, new completions, the challenges they unlocked by completing their prerequisites, and challenges
+ * that became available or unavailable.
+ */
+@Data
+@JsonInclude(JsonInclude.Include.NON_EMPTY)
+public class ProgressEventRepresentation {
+    private long version;
+
+    private Integer started;
+
+    private Integer stopped;
+
+    private List<Integer> completed;
+
+    private List<Integer> unlocked;
+
+    private List<Integer> available;
+
+    private List<Integer> unavailable;
+}
@@ -0,0 +1,31 @@
+package com.github.hippoom.runner.challenges.http.representation;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.Data;
+
+import java.time.Instant;
+
+@Data
+public class TeamChallengeRepresentation {
+    private String id;
+
+    @JsonProperty("team_id")
+    private String teamId;
+
+    @JsonProperty("target_distance")
+    private double targetDistance;
+
+    private double distance;
+
+    @JsonProperty("starts_at")
+    private Instant startsAt;
+
+    @JsonProperty("ends_at")
+    private Instant endsAt;
+
+    @JsonProperty("is_completed")
+    private boolean isCompleted;
+
+    @JsonProperty("completed_at")
+    private Instant completedAt;
+}
@@ -0,0 +1,18 @@
+package com.github.hippoom.runner.challenges.http.representation;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.Data;
+
+import java.time.Instant;
+
+@Data
+public class TeamChallengeRequest {
+    @JsonProperty("target_distance")
+    private double targetDistance;
+
+    @JsonProperty("starts_at")
+    private Instant startsAt;
+
+    @JsonProperty("ends_at")
+    private Instant endsAt;
+}
@@ -0,0 +1,34 @@
+package com.github.hippoom.runner.challenges.http.support;
+
+import java.util.Collection;
+import java.util.EnumSet;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * Statuses a user's challenges can be filtered by. A challenge may have several, e.g. completed and
+ * available again.
+ */
+public enum ChallengeStatus {
+    AVAILABLE,
+    COMPLETED,
+    STARTED,
+    /**
+     * Not available to the user, whether locked for everyone, out of its window or for want of prerequisites.
+     */
+    LOCKED;
+
+    /**
+     * @param values status names, case insensitive; null or empty for no filter
+     * @throws IllegalArgumentException if a value names no status
+     */
+    public static Set<ChallengeStatus> parseAll(Collection<String> values) {
+        Set<ChallengeStatus> statuses = EnumSet.noneOf(ChallengeStatus.class);
+        if (values != null) {
+            for (String value : values) {
+                statuses.add(valueOf(value.trim().toUpperCase(Locale.ROOT)));
+            }
+        }
+        return statuses;
+    }
+}
@@ -0,0 +1,72 @@
+package com.github.hippoom.runner.challenges.http.support;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.hippoom.runner.challenges.config.ClusterProperties;
+import com.github.hippoom.runner.challenges.http.representation.ErrorResponse;
+import com.github.hippoom.runner.challenges.messaging.http.HttpActivityForwarder;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+
+/**
+ * Lets only the nodes of the cluster call the {@code /internal/} endpoints of the API port, which take
+ * activities on behalf of any user: a caller must present the cluster's shared secret in the
+ * {@value HttpActivityForwarder#SECRET_HEADER} header. With no secret configured, every such call is rejected.
+ */
+@Slf4j
+@Component
+public class ClusterSecretFilter extends OncePerRequestFilter {
+
+    private static final String INTERNAL_PREFIX = "/internal/";
+
+    private final byte[] secret;
+    private final byte[] rejection;
+    private final Counter rejections;
+
+    public ClusterSecretFilter(ClusterProperties properties,
+                               ObjectMapper objectMapper,
+                               MeterRegistry meterRegistry) throws IOException {
+        this.secret = StringUtils.hasText(properties.getSecret())
+                ? properties.getSecret().getBytes(StandardCharsets.UTF_8) : null;
+        this.rejection = objectMapper.writeValueAsBytes(new ErrorResponse("Not a node of this cluster"));
+        this.rejections = Counter.builder("challenges.cluster.rejections")
+                .description("Internal requests rejected for lacking the cluster secret")
+                .register(meterRegistry);
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !request.getRequestURI().startsWith(INTERNAL_PREFIX);
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        String presented = request.getHeader(HttpActivityForwarder.SECRET_HEADER);
+        // Compared in constant time, so that response times tell nothing about the secret
+        if (secret == null || presented == null
+                || !MessageDigest.isEqual(secret, presented.getBytes(StandardCharsets.UTF_8))) {
+            rejections.increment();
+            log.warn("Rejected {} {} from {}: missing or wrong cluster secret", request.getMethod(),
+                    request.getRequestURI(), request.getRemoteAddr());
+            response.setStatus(HttpStatus.FORBIDDEN.value());
+            response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+            response.getOutputStream().write(rejection);
+            return;
+        }
+        chain.doFilter(request, response);
+    }
+}
@@ -0,0 +1,109 @@
+package com.github.hippoom.runner.challenges.http.support;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.hippoom.runner.challenges.http.representation.ErrorResponse;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+
+/**
+ * Sheds API requests beyond an adaptive concurrency limit with a fast 503, before they queue up for Tomcat
+ * threads and database connections.
+ * <p>
+ * Reads and writes have limits of their own, each following the latency of its requests, so slow writes
+ * do not shed reads and the other way round. Only the request's own dispatch counts: an asynchronous
+ * request such as a progress stream releases its slot once it is started.
+ */
+@Component
+public class ConcurrencyLimitFilter extends OncePerRequestFilter {
+
+    private static final String API_PREFIX = "/api/";
+    private static final long MILLIS_PER_SECOND = 1000;
+
+    private final boolean enabled;
+    private final String retryAfterSeconds;
+    private final byte[] rejection;
+    private final GradientConcurrencyLimit reads;
+    private final GradientConcurrencyLimit writes;
+    private final Counter readRejections;
+    private final Counter writeRejections;
+
+    public ConcurrencyLimitFilter(ConcurrencyLimitProperties properties,
+                                  ObjectMapper objectMapper,
+                                  MeterRegistry meterRegistry) throws IOException {
+        this.enabled = properties.isEnabled();
+        long retryAfterMillis = properties.getRetryAfter().toMillis();
+        this.retryAfterSeconds = Long.toString((retryAfterMillis + MILLIS_PER_SECOND - 1) / MILLIS_PER_SECOND);
+        this.rejection = objectMapper.writeValueAsBytes(
+                new ErrorResponse("Too many concurrent requests, retry later"));
+        this.reads = limitOf(properties, properties.getRead());
+        this.writes = limitOf(properties, properties.getWrite());
+        this.readRejections = register(meterRegistry, "read", reads);
+        this.writeRejections = register(meterRegistry, "write", writes);
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !enabled || !request.getRequestURI().startsWith(API_PREFIX);
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        boolean read = isRead(request);
+        GradientConcurrencyLimit limit = read ? reads : writes;
+        if (!limit.tryAcquire()) {
+            (read ? readRejections : writeRejections).increment();
+            response.setStatus(HttpStatus.SERVICE_UNAVAILABLE.value());
+            response.setHeader(HttpHeaders.RETRY_AFTER, retryAfterSeconds);
+            response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+            response.getOutputStream().write(rejection);
+            return;
+        }
+        long started = System.nanoTime();
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            limit.release(System.nanoTime() - started);
+        }
+    }
+
+    private static boolean isRead(HttpServletRequest request) {
+        String method = request.getMethod();
+        return HttpMethod.GET.matches(method) || HttpMethod.HEAD.matches(method)
+                || HttpMethod.OPTIONS.matches(method);
+    }
+
+    private static GradientConcurrencyLimit limitOf(ConcurrencyLimitProperties properties,
+                                                    ConcurrencyLimitProperties.Limit bounds) {
+        return new GradientConcurrencyLimit(bounds, properties.getTolerance(), properties.getSmoothing(),
+                properties.getLongWindow());
+    }
+
+    private static Counter register(MeterRegistry meterRegistry, String kind, GradientConcurrencyLimit limit) {
+        Gauge.builder("challenges.concurrency.limit", limit, GradientConcurrencyLimit::getLimit)
+                .description("Concurrent API requests currently allowed")
+                .tag("kind", kind)
+                .register(meterRegistry);
+        Gauge.builder("challenges.concurrency.in-flight", limit, GradientConcurrencyLimit::getInFlight)
+                .description("API requests being processed")
+                .tag("kind", kind)
+                .register(meterRegistry);
+        return Counter.builder("challenges.concurrency.rejections")
+                .description("API requests shed for exceeding the concurrency limit")
+                .tag("kind", kind)
+                .register(meterRegistry);
+    }
+}
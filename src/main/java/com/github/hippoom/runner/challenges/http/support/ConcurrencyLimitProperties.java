@@ -0,0 +1,39 @@
+package com.github.hippoom.runner.challenges.http.support;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+@Data
+@Component
+@ConfigurationProperties(prefix = "challenges.concurrency-limit")
+public class ConcurrencyLimitProperties {
+    private boolean enabled;
+    /**
+     * Suggested to rejected clients, rounded up to whole seconds.
+     */
+    private Duration retryAfter;
+    /**
+     * How much slower than the long-term average a request may be before the limit decreases.
+     */
+    private double tolerance;
+    /**
+     * Weight of each new limit estimate against the current limit, between 0 and 1.
+     */
+    private double smoothing;
+    /**
+     * Samples averaged into the long-term latency.
+     */
+    private int longWindow;
+    private Limit read = new Limit();
+    private Limit write = new Limit();
+
+    @Data
+    public static class Limit {
+        private int initial;
+        private int min;
+        private int max;
+    }
+}
@@ -0,0 +1,95 @@
+package com.github.hippoom.runner.challenges.http.support;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Concurrency limit following the latency gradient: the limit shrinks as requests get slower than their
+ * long-term average and grows while they do not.
+ * <p>
+ * Each completed request is compared with an exponential average of many before it. A ratio within the
+ * tolerance keeps the gradient at 1 and lets the limit grow by a small headroom; a slower request pulls
+ * it down to at most half. Once load drops and requests get much faster than the average, the average
+ * decays towards them, so a slowdown does not keep the limit low forever.
+ */
+final class GradientConcurrencyLimit {
+
+    private static final double MIN_GRADIENT = 0.5;
+    private static final double RECOVERY_RATIO = 2.0;
+    private static final double RECOVERY_DECAY = 0.95;
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final double tolerance;
+    private final double smoothing;
+    private final double longRttWeight;
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final ReentrantLock lock = new ReentrantLock();
+    private volatile double limit;
+    // Guarded by lock
+    private double longRtt;
+
+    GradientConcurrencyLimit(ConcurrencyLimitProperties.Limit bounds, double tolerance, double smoothing,
+                             int longWindow) {
+        if (bounds.getMin() < 1 || bounds.getMin() > bounds.getInitial() || bounds.getInitial() > bounds.getMax()) {
+            throw new IllegalArgumentException("Limits must satisfy 1 <= min <= initial <= max: " + bounds);
+        }
+        this.minLimit = bounds.getMin();
+        this.maxLimit = bounds.getMax();
+        this.tolerance = tolerance;
+        this.smoothing = smoothing;
+        this.longRttWeight = 2.0 / (longWindow + 1);
+        this.limit = bounds.getInitial();
+    }
+
+    /**
+     * Takes a slot unless the limit is reached. A caller getting one must {@link #release} it.
+     */
+    boolean tryAcquire() {
+        while (true) {
+            int current = inFlight.get();
+            if (current >= getLimit()) {
+                return false;
+            }
+            if (inFlight.compareAndSet(current, current + 1)) {
+                return true;
+            }
+        }
+    }
+
+    void release(long rttNanos) {
+        int inFlightBefore = inFlight.getAndDecrement();
+        // A sample missed while another updates the limit is not worth waiting for
+        if (rttNanos > 0 && lock.tryLock()) {
+            try {
+                update(rttNanos, inFlightBefore);
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    int getLimit() {
+        return (int) limit;
+    }
+
+    int getInFlight() {
+        return inFlight.get();
+    }
+
+    private void update(double shortRtt, int inFlightBefore) {
+        longRtt = longRtt == 0 ? shortRtt : longRtt + (shortRtt - longRtt) * longRttWeight;
+        if (longRtt / shortRtt > RECOVERY_RATIO) {
+            longRtt *= RECOVERY_DECAY;
+        }
+        double current = limit;
+        // Latency below the limit says nothing about whether the limit itself is safe
+        if (inFlightBefore < current / 2) {
+            return;
+        }
+        double gradient = Math.max(MIN_GRADIENT, Math.min(1.0, tolerance * longRtt / shortRtt));
+        double estimate = current * gradient + Math.sqrt(current);
+        double smoothed = current * (1 - smoothing) + estimate * smoothing;
+        limit = Math.max(minLimit, Math.min(maxLimit, smoothed));
+    }
+}
@@ -0,0 +1,40 @@
+package com.github.hippoom.runner.challenges.http.support;
+
+import lombok.Value;
+
+import java.util.BitSet;
+
+/**
+ * What a progress stream last told its client, as challenge numbers. The bit sets are never modified.
+ */
+@Value
+class ProgressState {
+    private final long version;
+    /**
+     * How many times availability changed on this node before the state was loaded, which orders states of
+     * the same version.
+     */
+    private final long generation;
+    private final Integer started;
+    private final BitSet completed;
+    private final BitSet available;
+    /**
+     * Challenges the user's completions unlocked: not completed yet, and all of their prerequisites are.
+     */
+    private final BitSet unlocked;
+
+    /**
+     * Whether this state was loaded after the other one.
+     */
+    boolean isNewerThan(ProgressState other) {
+        return version > other.version || version == other.version && generation > other.generation;
+    }
+
+    /**
+     * Id of the events sending this state: the version, which tells progress apart, and a hash of the available
+     * challenges, which tells apart the states of a version on every node.
+     */
+    String eventId() {
+        return version + "-" + Integer.toHexString(available.hashCode());
+    }
+}
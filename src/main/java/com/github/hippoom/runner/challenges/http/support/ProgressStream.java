@@ -0,0 +1,176 @@
+package com.github.hippoom.runner.challenges.http.support;
+
+import com.github.hippoom.runner.challenges.domain.user.UserId;
+import com.github.hippoom.runner.challenges.http.representation.ProgressEventRepresentation;
+import lombok.Getter;
+import org.springframework.http.MediaType;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * One client connection of {@link ProgressStreams}.
+ * <p>
+ * Events wait in a bounded buffer and are written by at most one shared thread at a time, so the connection
+ * holds no thread while idle. A client too slow to drain its buffer is disconnected; it reconnects with its
+ * last event id and gets a snapshot.
+ */
+final class ProgressStream {
+
+    private static final String SNAPSHOT = "snapshot";
+    private static final String DELTA = "delta";
+    private static final String HEARTBEAT = "heartbeat";
+
+    @Getter
+    private final UserId userId;
+    @Getter
+    private final SseEmitter emitter;
+    private final BlockingQueue<SseEmitter.SseEventBuilder> pending;
+    private final Executor sender;
+    private final AtomicBoolean draining = new AtomicBoolean();
+    private final AtomicBoolean closed = new AtomicBoolean();
+    private final ReentrantLock lock = new ReentrantLock();
+    private ProgressState sent;
+
+    ProgressStream(UserId userId, SseEmitter emitter, int bufferSize, Executor sender) {
+        this.userId = userId;
+        this.emitter = emitter;
+        this.pending = new ArrayBlockingQueue<>(bufferSize);
+        this.sender = sender;
+    }
+
+    /**
+     * Starts the stream: a client that already saw this version gets nothing, any other a snapshot.
+     *
+     * @return false if the buffer overflowed and the stream was closed
+     */
+    boolean resume(ProgressState current, String lastEventId) {
+        lock.lock();
+        try {
+            if (sent != null) {
+                return true; // A change raced the connection and was sent as a snapshot already
+            }
+            sent = current;
+            if (current.eventId().equals(lastEventId)) {
+                return true;
+            }
+            return enqueue(SNAPSHOT, current, toEvent(current, null));
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Sends what changed since the previous event, unless a state as recent was sent already.
+     *
+     * @return false if the buffer overflowed and the stream was closed
+     */
+    boolean update(ProgressState current) {
+        lock.lock();
+        try {
+            if (sent != null && !current.isNewerThan(sent)) {
+                return true;
+            }
+            ProgressState previous = sent;
+            sent = current;
+            ProgressEventRepresentation delta = toEvent(current, previous);
+            if (delta.getStarted() == null && delta.getStopped() == null && delta.getCompleted().isEmpty()
+                    && delta.getUnlocked().isEmpty() && delta.getAvailable().isEmpty()
+                    && delta.getUnavailable().isEmpty()) {
+                return true;
+            }
+            return enqueue(previous == null ? SNAPSHOT : DELTA, current, delta);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    boolean heartbeat() {
+        return enqueue(SseEmitter.event().comment(HEARTBEAT));
+    }
+
+    void close() {
+        if (closed.compareAndSet(false, true)) {
+            pending.clear();
+            emitter.complete();
+        }
+    }
+
+    private boolean enqueue(String name, ProgressState state, ProgressEventRepresentation data) {
+        return enqueue(SseEmitter.event()
+                .id(state.eventId())
+                .name(name)
+                .data(data, MediaType.APPLICATION_JSON));
+    }
+
+    private boolean enqueue(SseEmitter.SseEventBuilder event) {
+        if (closed.get()) {
+            return true;
+        }
+        if (!pending.offer(event)) {
+            close();
+            return false;
+        }
+        if (draining.compareAndSet(false, true)) {
+            sender.execute(this::drain);
+        }
+        return true;
+    }
+
+    private void drain() {
+        try {
+            SseEmitter.SseEventBuilder event;
+            while (!closed.get() && (event = pending.poll()) != null) {
+                emitter.send(event);
+            }
+        } catch (IOException | IllegalStateException e) {
+            // The client is gone or the emitter completed meanwhile
+            close();
+        } finally {
+            draining.set(false);
+        }
+        // An event enqueued while the loop was finishing would otherwise wait for the next one
+        if (!pending.isEmpty() && !closed.get() && draining.compareAndSet(false, true)) {
+            sender.execute(this::drain);
+        }
+    }
+
+    private static ProgressEventRepresentation toEvent(ProgressState current, ProgressState previous) {
+        ProgressEventRepresentation event = new ProgressEventRepresentation();
+        event.setVersion(current.getVersion());
+        Integer started = current.getStarted();
+        Integer startedBefore = previous == null ? null : previous.getStarted();
+        if (!Objects.equals(started, startedBefore)) {
+            event.setStarted(started);
+            event.setStopped(startedBefore);
+        }
+        event.setCompleted(newlySet(current.getCompleted(), previous == null ? null : previous.getCompleted()));
+        event.setUnlocked(newlySet(current.getUnlocked(), previous == null ? null : previous.getUnlocked()));
+        event.setAvailable(newlySet(current.getAvailable(), previous == null ? null : previous.getAvailable()));
+        event.setUnavailable(previous == null
+                ? Collections.emptyList() : newlySet(previous.getAvailable(), current.getAvailable()));
+        return event;
+    }
+
+    private static List<Integer> newlySet(BitSet current, BitSet previous) {
+        BitSet newly = (BitSet) current.clone();
+        if (previous != null) {
+            newly.andNot(previous);
+        }
+        List<Integer> numbers = new ArrayList<>(newly.cardinality());
+        for (int number = newly.nextSetBit(0); number >= 0; number = newly.nextSetBit(number + 1)) {
+            numbers.add(number);
+        }
+        return numbers;
+    }
+}
@@ -0,0 +1,29 @@
+package com.github.hippoom.runner.challenges.http.support;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+@Data
+@Component
+@ConfigurationProperties(prefix = "challenges.stream")
+public class ProgressStreamProperties {
+    /**
+     * How long a stream stays open before the client has to reconnect, resuming from its last event.
+     */
+    private Duration timeout;
+    /**
+     * How often idle streams get a comment, keeping proxies from closing them and detecting gone clients.
+     */
+    private Duration heartbeatInterval;
+    /**
+     * Events a stream may have waiting to be sent before it is closed as too slow.
+     */
+    private int bufferSize;
+    /**
+     * Threads loading progress and writing events, shared by all streams.
+     */
+    private int threads;
+}
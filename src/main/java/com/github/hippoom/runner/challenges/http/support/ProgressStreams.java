@@ -0,0 +1,226 @@
+package com.github.hippoom.runner.challenges.http.support;
+
+import com.github.hippoom.runner.challenges.domain.challenge.Challenge;
+import com.github.hippoom.runner.challenges.domain.challenge.ChallengeNumber;
+import com.github.hippoom.runner.challenges.domain.challenge.ChallengeRepository;
+import com.github.hippoom.runner.challenges.domain.challenge.availability.StartChallengeSpecification;
+import com.github.hippoom.runner.challenges.domain.challenge.catalog.ChallengeCatalog;
+import com.github.hippoom.runner.challenges.domain.challenge.catalog.PrerequisiteGraph;
+import com.github.hippoom.runner.challenges.domain.challenge.progress.ProgressChangeBus;
+import com.github.hippoom.runner.challenges.domain.challenge.progress.ProgressChangeListener;
+import com.github.hippoom.runner.challenges.domain.challenge.progress.ProgressChanged;
+import com.github.hippoom.runner.challenges.domain.challenge.progress.UserProgress;
+import com.github.hippoom.runner.challenges.domain.challenge.progress.UserProgressRecord;
+import com.github.hippoom.runner.challenges.domain.challenge.progress.UserProgressRecordRepository;
+import com.github.hippoom.runner.challenges.domain.user.UserId;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.util.BitSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Pushes users' progress changes to their open Server-Sent Events streams.
+ * <p>
+ * Streams are asynchronous requests, so an idle one costs its buffer and the last state it sent, not a
+ * thread. When the {@link ProgressChangeBus} reports a change of a user with open streams, a shared worker
+ * reads the user's progress row once and every stream of that user sends what changed since its last event.
+ * When challenges open or close every stream is refreshed the same way, as what users may start changed.
+ * Event ids identify the state sent, so a client reconnecting with {@code Last-Event-ID} gets nothing if it is
+ * up to date and a snapshot otherwise.
+ */
+@Slf4j
+@Component
+public class ProgressStreams implements ProgressChangeListener, InitializingBean, DisposableBean {
+
+    private static final int REFRESH_QUEUE_PER_THREAD = 1024;
+    private static final long NO_PROGRESS_VERSION = -1;
+
+    private final UserProgressRecordRepository userProgressRecordRepository;
+    private final ChallengeRepository challengeRepository;
+    private final StartChallengeSpecification startChallengeSpecification;
+    private final ProgressStreamProperties properties;
+    private final ConcurrentMap<UserId, Set<ProgressStream>> streams = new ConcurrentHashMap<>();
+    private final AtomicInteger open = new AtomicInteger();
+    private final AtomicLong availabilityGeneration = new AtomicLong();
+    private final ThreadPoolExecutor workers;
+    private final ScheduledExecutorService heartbeats = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "progress-stream-heartbeat");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final Counter overflowCounter;
+
+    public ProgressStreams(UserProgressRecordRepository userProgressRecordRepository,
+                           ChallengeRepository challengeRepository,
+                           StartChallengeSpecification startChallengeSpecification,
+                           ProgressChangeBus progressChangeBus,
+                           ProgressStreamProperties properties,
+                           MeterRegistry meterRegistry) {
+        this.userProgressRecordRepository = userProgressRecordRepository;
+        this.challengeRepository = challengeRepository;
+        this.startChallengeSpecification = startChallengeSpecification;
+        this.properties = properties;
+        AtomicInteger threadNumber = new AtomicInteger();
+        // A full queue makes the bus wait: refreshes are what keeps streams correct, so none is dropped
+        this.workers = new ThreadPoolExecutor(properties.getThreads(), properties.getThreads(),
+                0, TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<>(properties.getThreads() * REFRESH_QUEUE_PER_THREAD),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "progress-stream-" + threadNumber.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.CallerRunsPolicy());
+        Gauge.builder("challenges.streams.open", open, AtomicInteger::get)
+                .description("Progress streams open on this node")
+                .register(meterRegistry);
+        this.overflowCounter = Counter.builder("challenges.streams.overflows")
+                .description("Progress streams closed because their client did not keep up")
+                .register(meterRegistry);
+        progressChangeBus.subscribe(this);
+    }
+
+    /**
+     * Opens a stream of the user's progress.
+     *
+     * @param lastEventId the id of the event the client saw last when it reconnects, if any
+     */
+    public SseEmitter open(UserId userId, String lastEventId) {
+        SseEmitter emitter = new SseEmitter(properties.getTimeout().toMillis());
+        ProgressStream stream = new ProgressStream(userId, emitter, properties.getBufferSize(), workers);
+        emitter.onCompletion(() -> remove(stream));
+        emitter.onTimeout(stream::close);
+        emitter.onError(error -> stream.close());
+
+        // Registered before reading, so a change committed meanwhile is not missed
+        streams.compute(userId, (id, userStreams) -> {
+            Set<ProgressStream> result = userStreams != null ? userStreams : ConcurrentHashMap.newKeySet();
+            result.add(stream);
+            return result;
+        });
+        open.incrementAndGet();
+        if (!stream.resume(load(userId), lastEventId)) {
+            overflowCounter.increment();
+        }
+        return emitter;
+    }
+
+    @Override
+    public void onProgressChanged(ProgressChanged change) {
+        if (streams.containsKey(change.getUserId())) {
+            workers.execute(() -> refreshSafely(change.getUserId()));
+        }
+    }
+
+    @Override
+    public void onChangesMissed() {
+        for (UserId userId : streams.keySet()) {
+            workers.execute(() -> refreshSafely(userId));
+        }
+    }
+
+    @Override
+    public void onAvailabilityChanged() {
+        // Moved first, so that the states loaded from now on supersede those loaded before
+        availabilityGeneration.incrementAndGet();
+        onChangesMissed();
+    }
+
+    @Override
+    public void afterPropertiesSet() {
+        long intervalMillis = properties.getHeartbeatInterval().toMillis();
+        heartbeats.scheduleWithFixedDelay(this::heartbeat, intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public void destroy() {
+        heartbeats.shutdownNow();
+        streams.values().forEach(userStreams -> userStreams.forEach(ProgressStream::close));
+        workers.shutdown();
+    }
+
+    private void refreshSafely(UserId userId) {
+        try {
+            Set<ProgressStream> userStreams = streams.get(userId);
+            if (userStreams == null) {
+                return;
+            }
+            ProgressState state = load(userId);
+            for (ProgressStream stream : userStreams) {
+                if (!stream.update(state)) {
+                    overflowCounter.increment();
+                }
+            }
+        } catch (RuntimeException e) {
+            log.warn("Failed to push progress of user {} to its streams", userId.getValue(), e);
+        }
+    }
+
+    private void heartbeat() {
+        for (Set<ProgressStream> userStreams : streams.values()) {
+            for (ProgressStream stream : userStreams) {
+                if (!stream.heartbeat()) {
+                    overflowCounter.increment();
+                }
+            }
+        }
+    }
+
+    private ProgressState load(UserId userId) {
+        long generation = availabilityGeneration.get();
+        Optional<UserProgressRecord> found = userProgressRecordRepository.findById(userId);
+        UserProgressRecord record = found.orElseGet(() -> new UserProgressRecord(userId));
+        UserProgress progress = record.toProgress();
+        ChallengeCatalog catalog = challengeRepository.snapshot();
+        List<Challenge> challenges = catalog.findAll();
+        PrerequisiteGraph prerequisites = catalog.getPrerequisites();
+        BitSet completed = new BitSet();
+        BitSet available = new BitSet();
+        BitSet unlocked = new BitSet();
+        for (int i = 0; i < challenges.size(); i++) {
+            Challenge challenge = challenges.get(i);
+            int number = challenge.getNumber().getValue();
+            if (progress.hasCompleted(number)) {
+                completed.set(number);
+                // Only the challenges requiring a completed one can have been unlocked
+                for (ChallengeNumber dependent : prerequisites.unlockedBy(challenge.getNumber(), progress)) {
+                    unlocked.set(dependent.getValue());
+                }
+            }
+            if (startChallengeSpecification.test(challenge, progress)) {
+                available.set(number);
+            }
+        }
+        Integer started = record.getStartedChallenge() == null ? null : record.getStartedChallenge().getValue();
+        // The first row written has version 0, so a user without one is behind it
+        long version = found.isPresent() ? record.getVersion() : NO_PROGRESS_VERSION;
+        return new ProgressState(version, generation, started, completed, available, unlocked);
+    }
+
+    private void remove(ProgressStream stream) {
+        streams.computeIfPresent(stream.getUserId(), (id, userStreams) -> {
+            if (userStreams.remove(stream)) {
+                open.decrementAndGet();
+            }
+            return userStreams.isEmpty() ? null : userStreams;
+        });
+    }
+}
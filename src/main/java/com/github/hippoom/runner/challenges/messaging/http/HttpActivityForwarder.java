@@ -0,0 +1,24 @@
+package com.github.hippoom.runner.challenges.messaging.http;
+
+import com.github.hippoom.runner.challenges.cluster.ActivityForwarder;
+import com.github.hippoom.runner.challenges.cluster.ClusterNode;
+import com.github.hippoom.runner.challenges.domain.activity.UserActivity;
+import lombok.RequiredArgsConstructor;
+import org.springframework.web.client.RestTemplate;
+
+@RequiredArgsConstructor
+public class HttpActivityForwarder implements ActivityForwarder {
+
+    public static final String PATH = "/internal/activities";
+    /**
+     * Header carrying the cluster's shared secret, which the receiving node checks.
+     */
+    public static final String SECRET_HEADER = "X-Cluster-Secret";
+
+    private final RestTemplate restTemplate;
+
+    @Override
+    public void forward(UserActivity activity, ClusterNode owner) {
+        restTemplate.postForEntity(owner.getBaseUrl() + PATH, activity, Void.class);
+    }
+}
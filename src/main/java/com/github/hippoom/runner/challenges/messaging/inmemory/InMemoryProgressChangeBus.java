@@ -0,0 +1,31 @@
+package com.github.hippoom.runner.challenges.messaging.inmemory;
+
+import com.github.hippoom.runner.challenges.domain.challenge.progress.ProgressChangeBus;
+import com.github.hippoom.runner.challenges.domain.challenge.progress.ProgressChangeListener;
+import com.github.hippoom.runner.challenges.domain.challenge.progress.ProgressChanged;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Delivers changes to listeners of this node only, for tests and single node deployments.
+ */
+public class InMemoryProgressChangeBus implements ProgressChangeBus {
+
+    private final List<ProgressChangeListener> listeners = new CopyOnWriteArrayList<>();
+
+    @Override
+    public void publish(ProgressChanged change) {
+        listeners.forEach(listener -> listener.onProgressChanged(change));
+    }
+
+    @Override
+    public void publishAvailabilityChanged() {
+        listeners.forEach(ProgressChangeListener::onAvailabilityChanged);
+    }
+
+    @Override
+    public void subscribe(ProgressChangeListener listener) {
+        listeners.add(listener);
+    }
+}
@@ -0,0 +1,238 @@
+package com.github.hippoom.runner.challenges.messaging.postgres;
+
+import com.github.hippoom.runner.challenges.domain.challenge.progress.ProgressChangeBus;
+import com.github.hippoom.runner.challenges.domain.challenge.progress.ProgressChangeListener;
+import com.github.hippoom.runner.challenges.domain.challenge.progress.ProgressChanged;
+import com.github.hippoom.runner.challenges.domain.user.UserId;
+import lombok.extern.slf4j.Slf4j;
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+/**
+ * Spreads progress changes across nodes with Postgres LISTEN/NOTIFY.
+ * <p>
+ * Local listeners are told right away. Changes for other nodes are coalesced per user, keeping the highest
+ * version, and sent every {@code flushInterval} as few NOTIFY payloads as possible. Each payload starts
+ * with the sending node's id so a node ignores its own notifications. Notifications are received on a
+ * dedicated connection; whenever it is lost, listeners are told that changes may have been missed.
+ */
+@Slf4j
+public class PostgresProgressChangeBus implements ProgressChangeBus, InitializingBean, DisposableBean {
+
+    private static final Pattern CHANNEL_NAME = Pattern.compile("[a-z_][a-z0-9_]*");
+    private static final int MAX_PAYLOAD_BYTES = 7900; // Postgres limit is 8000 bytes
+    private static final int POLL_MILLIS = 500;
+    private static final String LINE_SEPARATOR = "\n";
+    private static final String FIELD_SEPARATOR = " ";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ListenConnectionFactory listenConnectionFactory;
+    private final String channel;
+    private final Duration flushInterval;
+    private final Duration reconnectBackoff;
+    private final String nodeId = UUID.randomUUID().toString();
+    private final List<ProgressChangeListener> listeners = new CopyOnWriteArrayList<>();
+    private final ConcurrentMap<UserId, Long> pending = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService flusher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "progress-bus-flusher");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final Thread receiver = new Thread(this::receive, "progress-bus-receiver");
+    private volatile boolean running;
+
+    public PostgresProgressChangeBus(JdbcTemplate jdbcTemplate,
+                                     ListenConnectionFactory listenConnectionFactory,
+                                     String channel,
+                                     Duration flushInterval,
+                                     Duration reconnectBackoff) {
+        if (!CHANNEL_NAME.matcher(channel).matches()) {
+            throw new IllegalArgumentException("Invalid channel name: " + channel);
+        }
+        this.jdbcTemplate = jdbcTemplate;
+        this.listenConnectionFactory = listenConnectionFactory;
+        this.channel = channel;
+        this.flushInterval = flushInterval;
+        this.reconnectBackoff = reconnectBackoff;
+    }
+
+    @Override
+    public void publish(ProgressChanged change) {
+        dispatch(change);
+        pending.merge(change.getUserId(), change.getVersion(), Math::max);
+    }
+
+    @Override
+    public void publishAvailabilityChanged() {
+        listeners.forEach(ProgressChangeListener::onAvailabilityChanged);
+    }
+
+    @Override
+    public void subscribe(ProgressChangeListener listener) {
+        listeners.add(listener);
+    }
+
+    @Override
+    public void afterPropertiesSet() {
+        running = true;
+        receiver.setDaemon(true);
+        receiver.start();
+        flusher.scheduleWithFixedDelay(this::flushSafely,
+                flushInterval.toMillis(), flushInterval.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public void destroy() {
+        running = false;
+        flusher.shutdown();
+        flushSafely();
+        receiver.interrupt();
+    }
+
+    void flush() {
+        StringBuilder payload = new StringBuilder(nodeId);
+        int payloadBytes = utf8Length(nodeId);
+        Map<UserId, Long> sending = new HashMap<>();
+        for (Map.Entry<UserId, Long> entry : pending.entrySet()) {
+            String line = LINE_SEPARATOR + entry.getValue() + FIELD_SEPARATOR + entry.getKey().getValue();
+            int lineBytes = utf8Length(line);
+            if (payloadBytes + lineBytes > MAX_PAYLOAD_BYTES) {
+                send(payload.toString(), sending);
+                payload = new StringBuilder(nodeId);
+                payloadBytes = utf8Length(nodeId);
+            }
+            payload.append(line);
+            payloadBytes += lineBytes;
+            sending.put(entry.getKey(), entry.getValue());
+        }
+        if (!sending.isEmpty()) {
+            send(payload.toString(), sending);
+        }
+    }
+
+    /**
+     * Notifies other nodes of the changes, which stay pending unless the notification succeeds.
+     */
+    private void send(String payload, Map<UserId, Long> changes) {
+        notifyOthers(payload);
+        // Only drop what was sent, a newer version published meanwhile stays pending
+        changes.forEach(pending::remove);
+        changes.clear();
+    }
+
+    private void flushSafely() {
+        try {
+            flush();
+        } catch (RuntimeException e) {
+            log.warn("Failed to notify other nodes of progress changes", e);
+        }
+    }
+
+    private void notifyOthers(String payload) {
+        jdbcTemplate.query("SELECT pg_notify(?, ?)", rs -> null, channel, payload);
+    }
+
+    private void receive() {
+        while (running) {
+            try (Connection connection = listenConnectionFactory.open()) {
+                try (Statement statement = connection.createStatement()) {
+                    statement.execute("LISTEN " + channel);
+                }
+                // Anything published before LISTEN took effect went unnoticed
+                missed();
+                PGConnection pgConnection = connection.unwrap(PGConnection.class);
+                while (running) {
+                    PGNotification[] notifications = pgConnection.getNotifications(POLL_MILLIS);
+                    if (notifications != null) {
+                        for (PGNotification notification : notifications) {
+                            receivedSafely(notification.getParameter());
+                        }
+                    }
+                }
+            } catch (SQLException | RuntimeException e) {
+                log.warn("Lost the progress change listen connection, reconnecting in {}", reconnectBackoff, e);
+                missed();
+                if (!backOff()) {
+                    return;
+                }
+            }
+        }
+    }
+
+    private void receivedSafely(String payload) {
+        try {
+            received(payload);
+        } catch (RuntimeException e) {
+            log.warn("Failed to handle a progress change notification, ignoring it: {}", payload, e);
+        }
+    }
+
+    void received(String payload) {
+        String[] lines = payload.split(LINE_SEPARATOR);
+        if (lines[0].equals(nodeId)) {
+            return; // Local listeners were told when publishing
+        }
+        for (int i = 1; i < lines.length; i++) {
+            ProgressChanged change;
+            try {
+                int separator = lines[i].indexOf(FIELD_SEPARATOR);
+                long version = Long.parseLong(lines[i].substring(0, separator));
+                change = new ProgressChanged(UserId.of(lines[i].substring(separator + 1)), version);
+            } catch (RuntimeException e) {
+                log.warn("Ignoring malformed progress change '{}' from node {}", lines[i], lines[0]);
+                continue;
+            }
+            dispatch(change);
+        }
+    }
+
+    private void dispatch(ProgressChanged change) {
+        listeners.forEach(listener -> listener.onProgressChanged(change));
+    }
+
+    private void missed() {
+        listeners.forEach(ProgressChangeListener::onChangesMissed);
+    }
+
+    private boolean backOff() {
+        try {
+            Thread.sleep(reconnectBackoff.toMillis());
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    private static int utf8Length(String text) {
+        return text.getBytes(StandardCharsets.UTF_8).length;
+    }
+
+    /**
+     * Opens the connection notifications are received on. It is held for as long as the bus runs,
+     * so it should not come from the pool serving requests.
+     */
+    public interface ListenConnectionFactory {
+        Connection open() throws SQLException;
+    }
+}
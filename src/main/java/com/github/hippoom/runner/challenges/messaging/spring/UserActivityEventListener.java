@@ -1,6 +1,6 @@
 package com.github.hippoom.runner.challenges.messaging.spring;
 
-import com.github.hippoom.runner.challenges.application.CompleteChallengeCommandHandler;
+import com.github.hippoom.runner.challenges.cluster.ActivityRouter;
 import com.github.hippoom.runner.challenges.domain.activity.UserActivity;
 import lombok.RequiredArgsConstructor;
 import org.springframework.context.event.EventListener;
@@ -10,11 +10,11 @@ import org.springframework.stereotype.Component;
 @RequiredArgsConstructor
 public class UserActivityEventListener {
 
-    private final CompleteChallengeCommandHandler commandHandler;
+    private final ActivityRouter activityRouter;
 
     @EventListener
     public void handleUserActivity(UserActivity userActivity) {
-        // Delegate to command handler to complete challenge
-        commandHandler.handle(userActivity);
+        // Delegate to the router, which has the owning node of the user complete challenges
+        activityRouter.route(userActivity);
     }
-} 
\ No newline at end of file
+}
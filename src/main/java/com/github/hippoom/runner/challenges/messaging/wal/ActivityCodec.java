@@ -0,0 +1,90 @@
+package com.github.hippoom.runner.challenges.messaging.wal;
+
+import com.github.hippoom.runner.challenges.domain.activity.UserActivity;
+import com.github.hippoom.runner.challenges.domain.activity.UserActivityMetricSummary;
+import com.github.hippoom.runner.challenges.domain.user.UserId;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Instant;
+import java.util.UUID;
+
+/**
+ * Compact binary form of a {@link UserActivity} in the {@link WriteAheadLog}, led by a format version so
+ * records written by an older release can still be read after an upgrade. Activities are logged with their id,
+ * which records of the first format lack: those get the id derived from what the activity is.
+ */
+public final class ActivityCodec {
+
+    private static final byte VERSION = 2;
+    private static final byte VERSION_WITHOUT_ID = 1;
+    private static final int TYPICAL_SIZE = 112;
+
+    private ActivityCodec() {
+    }
+
+    public static byte[] encode(UserActivity activity) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(TYPICAL_SIZE);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeByte(VERSION);
+            UUID id = UUID.fromString(activity.getId());
+            out.writeLong(id.getMostSignificantBits());
+            out.writeLong(id.getLeastSignificantBits());
+            out.writeUTF(activity.getUserId().getValue());
+            out.writeBoolean(activity.getWhen() != null);
+            if (activity.getWhen() != null) {
+                out.writeLong(activity.getWhen().getEpochSecond());
+                out.writeInt(activity.getWhen().getNano());
+            }
+            out.writeBoolean(activity.getType() != null);
+            if (activity.getType() != null) {
+                out.writeUTF(activity.getType());
+            }
+            UserActivityMetricSummary summary = activity.getMetricSummary();
+            out.writeBoolean(summary != null);
+            if (summary != null) {
+                out.writeDouble(summary.getDistance());
+                out.writeInt(summary.getDuration());
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    /**
+     * @throws IllegalArgumentException if the record is not an activity of a known format
+     */
+    public static UserActivity decode(byte[] record) {
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(record))) {
+            byte version = in.readByte();
+            if (version != VERSION && version != VERSION_WITHOUT_ID) {
+                throw new IllegalArgumentException("Unknown activity record format " + version);
+            }
+            UserActivity activity = new UserActivity();
+            if (version == VERSION) {
+                activity.setId(new UUID(in.readLong(), in.readLong()).toString());
+            }
+            activity.setUserId(new UserId(in.readUTF()));
+            if (in.readBoolean()) {
+                activity.setWhen(Instant.ofEpochSecond(in.readLong(), in.readInt()));
+            }
+            if (in.readBoolean()) {
+                activity.setType(in.readUTF());
+            }
+            if (in.readBoolean()) {
+                UserActivityMetricSummary summary = new UserActivityMetricSummary();
+                summary.setDistance(in.readDouble());
+                summary.setDuration(in.readInt());
+                activity.setMetricSummary(summary);
+            }
+            return activity;
+        } catch (IOException e) {
+            throw new IllegalArgumentException("Truncated activity record", e);
+        }
+    }
+}
@@ -0,0 +1,43 @@
+package com.github.hippoom.runner.challenges.messaging.wal;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import java.nio.file.Path;
+import java.time.Duration;
+
+@Data
+@Component
+@ConfigurationProperties(prefix = "challenges.activity-log")
+public class ActivityLogProperties {
+    private boolean enabled;
+    private Path directory;
+    private DataSize segmentSize;
+    /**
+     * Segments the unprocessed activities may span before new ones are shed. Bounds the disk space used.
+     */
+    private int maxSegments;
+    /**
+     * How often appended activities are forced to disk. Appended activities survive a crash of the process
+     * right away, this bounds what a crash of the machine may lose.
+     */
+    private Duration flushInterval;
+    /**
+     * Whether publishing an activity waits until it is forced to disk, sharing that wait with concurrent
+     * publishers, so that not even a crash of the machine loses it.
+     */
+    private boolean awaitFlush;
+    /**
+     * How often the position up to which activities were processed is recorded. Activities processed after
+     * the last checkpoint are processed again after a restart.
+     */
+    private Duration checkpointInterval;
+    /**
+     * Threads processing activities, each taking the activities of a share of the users in order.
+     */
+    private int consumers;
+    private int maxAttempts;
+    private Duration retryBackoff;
+}
@@ -0,0 +1,322 @@
+package com.github.hippoom.runner.challenges.messaging.wal;
+
+import com.github.hippoom.runner.challenges.domain.activity.UserActivity;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Local, durable queue of activities waiting to be processed, backed by a {@link WriteAheadLog}.
+ * <p>
+ * Publishing an activity appends it to the log, so publishers never wait for the database and an activity is
+ * not lost when its processing fails or the application restarts. A reader hands the logged activities to
+ * consumer threads, each taking a share of the users so that a user's activities are processed in order; a
+ * consumer retries an activity that fails before giving up on it. The checkpoint is the oldest activity still
+ * being processed, so after a restart processing resumes there and activities are delivered at least once; they
+ * are logged with their id, which the consumer records in the transaction processing the activity to skip
+ * redeliveries.
+ * <p>
+ * Activities given up on, records that cannot be read and activities published while the log is full are parked
+ * in a dead-letter log next to the log rather than dropped, and {@link #redriveDeadLetters()} logs them again
+ * once whatever failed them is fixed.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(prefix = "challenges.activity-log", name = "enabled", havingValue = "true")
+public class DurableActivityQueue implements DisposableBean {
+
+    private static final long IDLE_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+    private static final int CONSUMER_BACKLOG = 1024;
+    private static final String DEAD_LETTER_DIRECTORY = "dead-letter";
+
+    private final WriteAheadLog writeAheadLog;
+    private final WriteAheadLog deadLetters;
+    // Guards appending to, flushing and redriving the dead letters
+    private final ReentrantLock deadLetterLock = new ReentrantLock();
+    private final ActivityLogProperties properties;
+    private final ScheduledExecutorService flusher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "activity-log-flusher");
+        thread.setDaemon(true);
+        return thread;
+    });
+    // Start positions of the activities read but not processed yet
+    private final ConcurrentSkipListSet<Long> inProgress = new ConcurrentSkipListSet<>();
+    private final Counter retried;
+    private final Counter parked;
+    private final Counter dropped;
+    private Thread reader;
+    private Thread[] consumers;
+    private volatile long readPosition;
+
+    public DurableActivityQueue(ActivityLogProperties properties, MeterRegistry meterRegistry) throws IOException {
+        this.properties = properties;
+        this.writeAheadLog = WriteAheadLog.open(properties.getDirectory(),
+                (int) properties.getSegmentSize().toBytes(), properties.getMaxSegments());
+        this.deadLetters = openDeadLetters(properties);
+        this.readPosition = writeAheadLog.getCheckpoint();
+        this.retried = failureCounter(meterRegistry, "retried");
+        this.parked = failureCounter(meterRegistry, "parked");
+        this.dropped = failureCounter(meterRegistry, "dropped");
+        Gauge.builder("challenges.activity-log.backlog", writeAheadLog,
+                        wal -> wal.getWritePosition() - wal.getCheckpoint())
+                .description("Bytes of logged activities not processed yet")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+        Gauge.builder("challenges.activity-log.dead-letters", deadLetters,
+                        wal -> wal.getWritePosition() - wal.getCheckpoint())
+                .description("Bytes of activities parked in the dead-letter log")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+    }
+
+    private WriteAheadLog openDeadLetters(ActivityLogProperties properties) throws IOException {
+        try {
+            return WriteAheadLog.open(properties.getDirectory().resolve(DEAD_LETTER_DIRECTORY),
+                    (int) properties.getSegmentSize().toBytes(), properties.getMaxSegments());
+        } catch (IOException | RuntimeException e) {
+            writeAheadLog.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Logs an activity to be processed, or parks it in the dead letters when the log is full.
+     *
+     * @return false if neither the log nor the dead letters could take the activity
+     */
+    public boolean append(UserActivity activity) {
+        byte[] record = ActivityCodec.encode(activity);
+        long end = writeAheadLog.append(record);
+        if (end < 0) {
+            log.warn("Parking activity {} of {}, the activity log is full", activity.getId(), activity.getUserId());
+            return park(record);
+        }
+        if (properties.isAwaitFlush()) {
+            try {
+                writeAheadLog.awaitFlushed(end);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Starts processing the logged activities, those left from a previous run first.
+     */
+    public void start(ActivityConsumer consumer) {
+        long flushMillis = properties.getFlushInterval().toMillis();
+        flusher.scheduleWithFixedDelay(this::flushSafely, flushMillis, flushMillis, TimeUnit.MILLISECONDS);
+        long checkpointMillis = properties.getCheckpointInterval().toMillis();
+        flusher.scheduleWithFixedDelay(this::checkpointSafely, checkpointMillis, checkpointMillis,
+                TimeUnit.MILLISECONDS);
+
+        consumers = new Thread[properties.getConsumers()];
+        List<BlockingQueue<Entry>> backlogs = new ArrayList<>(consumers.length);
+        for (int i = 0; i < consumers.length; i++) {
+            BlockingQueue<Entry> backlog = new ArrayBlockingQueue<>(CONSUMER_BACKLOG);
+            backlogs.add(backlog);
+            consumers[i] = daemon("activity-log-consumer-" + (i + 1), () -> consume(backlog, consumer));
+        }
+        reader = daemon("activity-log-reader", () -> read(backlogs));
+    }
+
+    @Override
+    public void destroy() throws IOException, InterruptedException {
+        flusher.shutdownNow();
+        if (reader != null) {
+            reader.interrupt();
+            reader.join();
+            for (Thread thread : consumers) {
+                thread.interrupt();
+                thread.join();
+            }
+        }
+        checkpointSafely();
+        writeAheadLog.close();
+        deadLetters.close();
+    }
+
+    /**
+     * Logs the parked activities again to be processed, oldest first. Records that still cannot be read are
+     * parked again.
+     *
+     * @return how many were logged again, which stops short when the log is full
+     */
+    public int redriveDeadLetters() throws IOException {
+        deadLetterLock.lock();
+        try {
+            WriteAheadLog.Reader deadLetterReader = deadLetters.reader(deadLetters.getCheckpoint());
+            int redriven = 0;
+            while (true) {
+                long start = deadLetterReader.position();
+                byte[] record = deadLetterReader.next();
+                if (record == null) {
+                    deadLetters.checkpoint(deadLetterReader.position());
+                    return redriven;
+                }
+                if (writeAheadLog.append(record) < 0) {
+                    deadLetters.checkpoint(start); // Left parked from this one on
+                    return redriven;
+                }
+                redriven++;
+            }
+        } finally {
+            deadLetterLock.unlock();
+        }
+    }
+
+    private void read(List<BlockingQueue<Entry>> backlogs) {
+        WriteAheadLog.Reader logReader = writeAheadLog.reader(readPosition);
+        try {
+            while (!Thread.currentThread().isInterrupted()) {
+                long start = logReader.position();
+                byte[] record = logReader.next();
+                if (record == null) {
+                    LockSupport.parkNanos(IDLE_PARK_NANOS);
+                    continue;
+                }
+                UserActivity activity;
+                try {
+                    activity = ActivityCodec.decode(record);
+                } catch (IllegalArgumentException e) {
+                    log.error("Parking unreadable activity at {} of the activity log", start, e);
+                    park(record);
+                    readPosition = logReader.position();
+                    continue;
+                }
+                // Registered before the read position moves past it, so a checkpoint never skips it
+                inProgress.add(start);
+                int share = Math.floorMod(activity.getUserId().hashCode(), backlogs.size());
+                backlogs.get(share).put(new Entry(start, activity));
+                readPosition = logReader.position();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void consume(BlockingQueue<Entry> backlog, ActivityConsumer consumer) {
+        try {
+            while (!Thread.currentThread().isInterrupted()) {
+                Entry entry = backlog.take();
+                process(entry.activity, consumer);
+                inProgress.remove(entry.start);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void process(UserActivity activity, ActivityConsumer consumer) throws InterruptedException {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                consumer.accept(activity);
+                return;
+            } catch (RuntimeException e) {
+                if (attempt >= properties.getMaxAttempts()) {
+                    log.error("Giving up on activity {} of {} after {} attempts, parking it: {}", activity.getId(),
+                            activity.getUserId(), attempt, activity, e);
+                    park(ActivityCodec.encode(activity));
+                    return;
+                }
+                log.warn("Failed to process activity of {}, retrying: {}", activity.getUserId(), e.toString());
+                retried.increment();
+                TimeUnit.MILLISECONDS.sleep(properties.getRetryBackoff().toMillis() * attempt);
+            }
+        }
+    }
+
+    /**
+     * Appends the record to the dead letters, forcing it to disk right away as dead letters are rare. Only a
+     * full dead-letter log drops it.
+     *
+     * @return false if the record was dropped
+     */
+    private boolean park(byte[] record) {
+        deadLetterLock.lock();
+        try {
+            if (deadLetters.append(record) < 0) {
+                log.error("Dropping an activity, the dead-letter log is full");
+                dropped.increment();
+                return false;
+            }
+            deadLetters.flush();
+            parked.increment();
+            return true;
+        } catch (RuntimeException e) {
+            log.error("Dropping an activity, failed to park it", e);
+            dropped.increment();
+            return false;
+        } finally {
+            deadLetterLock.unlock();
+        }
+    }
+
+    private void flushSafely() {
+        try {
+            writeAheadLog.flush();
+        } catch (RuntimeException e) {
+            log.warn("Failed to flush the activity log", e);
+        }
+    }
+
+    private void checkpointSafely() {
+        // Read the position first: an activity read meanwhile is registered as in progress before it moves
+        long position = readPosition;
+        Long oldest = inProgress.ceiling(Long.MIN_VALUE);
+        try {
+            writeAheadLog.checkpoint(oldest == null ? position : Math.min(oldest, position));
+        } catch (IOException | RuntimeException e) {
+            log.warn("Failed to checkpoint the activity log", e);
+        }
+    }
+
+    private static Thread daemon(String name, Runnable task) {
+        Thread thread = new Thread(task, name);
+        thread.setDaemon(true);
+        thread.start();
+        return thread;
+    }
+
+    private static Counter failureCounter(MeterRegistry meterRegistry, String outcome) {
+        return Counter.builder("challenges.activity-log.failures")
+                .description("Failed attempts to process logged activities")
+                .tag("outcome", outcome)
+                .register(meterRegistry);
+    }
+
+    /**
+     * Processes an activity, waiting as long as it takes to be allowed to.
+     */
+    @FunctionalInterface
+    public interface ActivityConsumer {
+        void accept(UserActivity activity) throws InterruptedException;
+    }
+
+    private static final class Entry {
+        private final long start;
+        private final UserActivity activity;
+
+        private Entry(long start, UserActivity activity) {
+            this.start = start;
+            this.activity = activity;
+        }
+    }
+}
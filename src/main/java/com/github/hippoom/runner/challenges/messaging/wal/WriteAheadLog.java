@@ -0,0 +1,419 @@
+package com.github.hippoom.runner.challenges.messaging.wal;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+
+/**
+ * Append-only log of byte records in fixed-size, memory-mapped segment files.
+ * <p>
+ * Appending copies a record into the mapped head segment under a short lock, so a record is safe from a crash
+ * of the process as soon as it is appended. {@link #flush()} forces everything appended since the previous
+ * flush to disk at once, making it safe from a crash of the machine too; appenders that need that wait for it
+ * with {@link #awaitFlushed(long)}, sharing one fsync between them.
+ * <p>
+ * A consumer reads from its {@link #checkpoint(long) checkpoint} on. Segments it has left behind are renamed
+ * into spares and mapped again as new head segments, so steady traffic creates no files. Each record's checksum
+ * is salted with its position: stale records left in a recycled segment, or a record torn by a crash, fail it
+ * and mark the end of the log when it is opened again.
+ * <p>
+ * Positions are logical: a segment's index times the segment size, plus the offset within it.
+ */
+@Slf4j
+public final class WriteAheadLog implements Closeable {
+
+    static final int HEADER_SIZE = 8;
+    private static final int PADDING = -1;
+    private static final long POSITION_SALT = 0x9E3779B97F4A7C15L;
+    private static final int SALT_SHIFT = 32;
+    private static final int CHECKPOINT_SIZE = 12;
+    private static final int MAX_SPARES = 2;
+    private static final String SEGMENT_SUFFIX = ".segment";
+    private static final String SPARE_SUFFIX = ".spare";
+    private static final String CHECKPOINT_FILE = "checkpoint";
+
+    private final Path directory;
+    private final int segmentSize;
+    private final int maxSegments;
+    private final ConcurrentNavigableMap<Long, Segment> segments = new ConcurrentSkipListMap<>();
+    // Guarded by appendLock
+    private final Deque<Path> spares = new ArrayDeque<>();
+    private final ReentrantLock appendLock = new ReentrantLock();
+    private final ReentrantLock flushLock = new ReentrantLock();
+    private final Condition flushed = flushLock.newCondition();
+    private final FileChannel checkpointChannel;
+    private volatile long writePosition;
+    private volatile long flushedPosition;
+    private volatile long checkpoint;
+
+    private WriteAheadLog(Path directory, int segmentSize, int maxSegments) throws IOException {
+        this.directory = directory;
+        this.segmentSize = segmentSize;
+        this.maxSegments = maxSegments;
+        this.checkpointChannel = FileChannel.open(directory.resolve(CHECKPOINT_FILE),
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+    }
+
+    /**
+     * Opens the log in the directory, creating it if needed, and finds where the previous writer stopped.
+     *
+     * @param maxSegments segments the log may span from the checkpoint to the head before appends are refused
+     */
+    public static WriteAheadLog open(Path directory, int segmentSize, int maxSegments) throws IOException {
+        if (segmentSize < HEADER_SIZE * 2 || maxSegments < 1) {
+            throw new IllegalArgumentException("Segments too small or too few: " + segmentSize + " x " + maxSegments);
+        }
+        Files.createDirectories(directory);
+        WriteAheadLog opened = new WriteAheadLog(directory, segmentSize, maxSegments);
+        try {
+            opened.recover();
+        } catch (IOException | RuntimeException e) {
+            opened.close();
+            throw e;
+        }
+        return opened;
+    }
+
+    /**
+     * Appends a record.
+     *
+     * @return the position right after the record, to {@link #awaitFlushed} it, or -1 if the log spans its
+     *         maximum number of segments and the record was not appended
+     */
+    public long append(byte[] record) {
+        if (record.length == 0 || HEADER_SIZE + record.length > segmentSize) {
+            throw new IllegalArgumentException("Record of " + record.length + " bytes does not fit a segment");
+        }
+        int crc = crc(record);
+        appendLock.lock();
+        try {
+            long position = writePosition;
+            int offset = offsetOf(position);
+            if (offset + HEADER_SIZE + record.length > segmentSize) {
+                if (offset + HEADER_SIZE <= segmentSize) {
+                    segmentAt(position).buffer.putInt(offset, PADDING).putInt(offset + Integer.BYTES,
+                            salt(position) ^ PADDING);
+                }
+                position = nextSegment(position);
+                offset = 0;
+            }
+            if (indexOf(position) - indexOf(checkpoint) >= maxSegments) {
+                return -1;
+            }
+            MappedByteBuffer buffer = segmentAt(position).buffer;
+            buffer.put(offset + HEADER_SIZE, record);
+            buffer.putInt(offset, record.length).putInt(offset + Integer.BYTES, crc ^ salt(position));
+            long end = position + HEADER_SIZE + record.length;
+            writePosition = end;
+            return end;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot open a segment in " + directory, e);
+        } finally {
+            appendLock.unlock();
+        }
+    }
+
+    /**
+     * Forces what was appended since the previous flush to disk. Meant to be called by one thread at a time.
+     */
+    public void flush() {
+        long target = writePosition;
+        long from = flushedPosition;
+        if (target == from) {
+            return;
+        }
+        for (Segment segment : segments.subMap(indexOf(from), true, indexOf(target), true).values()) {
+            segment.buffer.force();
+        }
+        flushLock.lock();
+        try {
+            flushedPosition = target;
+            flushed.signalAll();
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    /**
+     * Waits until the log is flushed up to the position.
+     */
+    public void awaitFlushed(long position) throws InterruptedException {
+        if (flushedPosition >= position) {
+            return;
+        }
+        flushLock.lock();
+        try {
+            while (flushedPosition < position) {
+                flushed.await();
+            }
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    /**
+     * Records that everything before the position was consumed, durably, and recycles the segments behind it.
+     */
+    public void checkpoint(long position) throws IOException {
+        if (position <= checkpoint) {
+            return;
+        }
+        ByteBuffer content = ByteBuffer.allocate(CHECKPOINT_SIZE);
+        content.putLong(position).putInt(salt(position)).flip();
+        checkpointChannel.write(content, 0);
+        checkpointChannel.force(false);
+        checkpoint = position;
+
+        appendLock.lock();
+        try {
+            Map<Long, Segment> consumed = segments.headMap(indexOf(position));
+            for (Segment segment : consumed.values()) {
+                segment.channel.close();
+                recycle(segment.path, segment.index);
+            }
+            consumed.clear();
+        } finally {
+            appendLock.unlock();
+        }
+    }
+
+    public long getCheckpoint() {
+        return checkpoint;
+    }
+
+    public long getWritePosition() {
+        return writePosition;
+    }
+
+    /**
+     * A reader starting at the position, which must be the start of a record, e.g. the checkpoint.
+     * Readers are not thread-safe.
+     */
+    public Reader reader(long position) {
+        return new Reader(position);
+    }
+
+    @Override
+    public void close() throws IOException {
+        flush();
+        for (Segment segment : segments.values()) {
+            segment.channel.close();
+        }
+        checkpointChannel.close();
+    }
+
+    public final class Reader {
+
+        private long position;
+
+        private Reader(long position) {
+            this.position = position;
+        }
+
+        public long position() {
+            return position;
+        }
+
+        /**
+         * The next record, or null if none was appended past the reader yet.
+         */
+        public byte[] next() {
+            while (position < writePosition) {
+                int offset = offsetOf(position);
+                Segment segment = segments.get(indexOf(position));
+                if (offset + HEADER_SIZE > segmentSize || segment.buffer.getInt(offset) == PADDING) {
+                    position = nextSegment(position);
+                    continue;
+                }
+                byte[] record = new byte[segment.buffer.getInt(offset)];
+                segment.buffer.get(offset + HEADER_SIZE, record);
+                if ((crc(record) ^ salt(position)) != segment.buffer.getInt(offset + Integer.BYTES)) {
+                    throw new IllegalStateException("Corrupt record at " + position + " in " + segment.path);
+                }
+                position += HEADER_SIZE + record.length;
+                return record;
+            }
+            return null;
+        }
+    }
+
+    private void recover() throws IOException {
+        TreeMap<Long, Path> found = new TreeMap<>();
+        try (Stream<Path> files = Files.list(directory)) {
+            for (Path file : (Iterable<Path>) files::iterator) {
+                String name = file.getFileName().toString();
+                if (name.endsWith(SEGMENT_SUFFIX)) {
+                    found.put(Long.parseLong(name.substring(0, name.length() - SEGMENT_SUFFIX.length())), file);
+                } else if (name.endsWith(SPARE_SUFFIX)) {
+                    spares.add(file);
+                }
+            }
+        }
+        long start = readCheckpoint();
+        if (start < 0) {
+            start = found.isEmpty() ? 0 : found.firstKey() * segmentSize;
+        }
+        checkpoint = start;
+
+        // Map the segments from the checkpoint on and scan them for the last intact record
+        for (Map.Entry<Long, Path> entry : found.entrySet()) {
+            if (entry.getKey() >= indexOf(start)) {
+                segments.put(entry.getKey(), Segment.open(entry.getValue(), entry.getKey(), segmentSize));
+            }
+        }
+        long end = start;
+        while (true) {
+            Segment segment = segments.get(indexOf(end));
+            int offset = offsetOf(end);
+            if (segment == null) {
+                break;
+            }
+            if (offset + HEADER_SIZE > segmentSize) {
+                end = nextSegment(end);
+                continue;
+            }
+            int length = segment.buffer.getInt(offset);
+            int checksum = segment.buffer.getInt(offset + Integer.BYTES);
+            if (length == PADDING && checksum == (salt(end) ^ PADDING)) {
+                end = nextSegment(end);
+                continue;
+            }
+            if (length <= 0 || offset + HEADER_SIZE + length > segmentSize) {
+                break;
+            }
+            byte[] record = new byte[length];
+            segment.buffer.get(offset + HEADER_SIZE, record);
+            if ((crc(record) ^ salt(end)) != checksum) {
+                break;
+            }
+            end += HEADER_SIZE + length;
+        }
+        writePosition = end;
+        flushedPosition = end;
+
+        // Anything before the checkpoint or after the end holds no record to read
+        for (Map.Entry<Long, Path> entry : found.entrySet()) {
+            long index = entry.getKey();
+            if (index < indexOf(start) || index > indexOf(end)) {
+                Segment segment = segments.remove(index);
+                if (segment != null) {
+                    segment.channel.close();
+                }
+                recycle(entry.getValue(), index);
+            }
+        }
+        log.info("Opened write-ahead log in {} from {} to {}", directory, start, end);
+    }
+
+    private long readCheckpoint() throws IOException {
+        ByteBuffer content = ByteBuffer.allocate(CHECKPOINT_SIZE);
+        if (checkpointChannel.read(content, 0) < CHECKPOINT_SIZE) {
+            return -1;
+        }
+        content.flip();
+        long position = content.getLong();
+        if (content.getInt() != salt(position)) {
+            log.warn("Ignoring corrupt checkpoint in {}, reading from the oldest segment", directory);
+            return -1;
+        }
+        return position;
+    }
+
+    /**
+     * The segment holding the position, opening it as the new head if needed.
+     */
+    private Segment segmentAt(long position) throws IOException {
+        long index = indexOf(position);
+        Segment segment = segments.get(index);
+        if (segment == null) {
+            Path path = segmentPath(index);
+            Path spare = spares.pollFirst();
+            if (spare != null) {
+                Files.move(spare, path, StandardCopyOption.ATOMIC_MOVE);
+            }
+            segment = Segment.open(path, index, segmentSize);
+            segments.put(index, segment);
+        }
+        return segment;
+    }
+
+    private void recycle(Path path, long index) throws IOException {
+        if (spares.size() < MAX_SPARES) {
+            Path spare = directory.resolve(String.format("%020d%s", index, SPARE_SUFFIX));
+            Files.move(path, spare, StandardCopyOption.ATOMIC_MOVE);
+            spares.add(spare);
+        } else {
+            Files.delete(path);
+        }
+    }
+
+    private Path segmentPath(long index) {
+        return directory.resolve(String.format("%020d%s", index, SEGMENT_SUFFIX));
+    }
+
+    private long indexOf(long position) {
+        return position / segmentSize;
+    }
+
+    private int offsetOf(long position) {
+        return (int) (position % segmentSize);
+    }
+
+    private long nextSegment(long position) {
+        return (indexOf(position) + 1) * segmentSize;
+    }
+
+    private static int salt(long position) {
+        return (int) ((position * POSITION_SALT) >>> SALT_SHIFT);
+    }
+
+    private static int crc(byte[] record) {
+        CRC32C crc = new CRC32C();
+        crc.update(record);
+        return (int) crc.getValue();
+    }
+
+    private static final class Segment {
+        private final long index;
+        private final Path path;
+        private final FileChannel channel;
+        private final MappedByteBuffer buffer;
+
+        private Segment(long index, Path path, FileChannel channel, MappedByteBuffer buffer) {
+            this.index = index;
+            this.path = path;
+            this.channel = channel;
+            this.buffer = buffer;
+        }
+
+        static Segment open(Path path, long index, int size) throws IOException {
+            FileChannel channel = FileChannel.open(path,
+                    StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            try {
+                return new Segment(index, path, channel, channel.map(FileChannel.MapMode.READ_WRITE, 0, size));
+            } catch (IOException e) {
+                channel.close();
+                throw e;
+            }
+        }
+    }
+}
@@ -0,0 +1,12 @@
+-- Distance contributed to team challenges by activities, written in each activity's transaction and folded
+-- into team_challenge.distance in batches by the flushes. Rows left by a node that crashed are folded by the next
+-- flush of any node.
+CREATE TABLE team_distance_contribution (
+    id BIGSERIAL PRIMARY KEY,
+    team_challenge_id VARCHAR(36) NOT NULL,
+    distance BIGINT NOT NULL
+);
+
+-- Flush sequences of nodes of the previous release, which keep flushing from memory until they are stopped.
+-- Nothing writes them afterwards; those older than a day are left from processes long gone
+DELETE FROM team_challenge_flush WHERE when_ < now() - interval '1 day';
@@ -0,0 +1,13 @@
+-- Ids of the recorded activities, claimed in each activity's transaction, so that an activity delivered more than
+-- once (redelivered by a queue, forwarded again, imported again) is recorded once. The retention job forgets the
+-- oldest ones.
+CREATE TABLE processed_activity (
+    activity_id UUID PRIMARY KEY,
+    processed_at TIMESTAMP NOT NULL
+);
+
+CREATE INDEX idx_processed_activity_processed_at ON processed_activity(processed_at);
+
+-- Start of the attempt the rolling totals are kept for; totals of an earlier attempt are discarded on the next
+-- activity
+ALTER TABLE user_activity_totals ADD COLUMN attempt_started_at TIMESTAMP;
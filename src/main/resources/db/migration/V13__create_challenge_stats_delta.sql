@@ -0,0 +1,10 @@
+-- Deltas of the challenge stats, written by each command right before it commits and folded into challenge_stats
+-- in batches by the flushes of any node, so that the counters lose nothing when a node crashes and reconciling
+-- can tell the deltas not folded yet apart from drift.
+CREATE TABLE challenge_stats_delta (
+    id BIGSERIAL PRIMARY KEY,
+    challenge_number INTEGER NOT NULL,
+    completions BIGINT NOT NULL,
+    completers BIGINT NOT NULL,
+    starters BIGINT NOT NULL
+);
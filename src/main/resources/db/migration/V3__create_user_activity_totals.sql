@@ -0,0 +1,7 @@
+CREATE TABLE user_activity_totals (
+    user_id VARCHAR(36) PRIMARY KEY,
+    latest_day BIGINT NOT NULL,
+    distances BYTEA NOT NULL,
+    durations BYTEA NOT NULL,
+    version BIGINT NOT NULL
+);
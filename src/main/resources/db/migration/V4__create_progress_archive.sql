@@ -0,0 +1,19 @@
+CREATE TABLE started_challenge_archive (
+    user_id VARCHAR(36) NOT NULL,
+    challenge_number INTEGER NOT NULL,
+    when_ TIMESTAMP NOT NULL,
+    archived_at TIMESTAMP NOT NULL
+);
+
+CREATE INDEX idx_started_challenge_archive_user ON started_challenge_archive(user_id);
+
+CREATE TABLE challenge_completed_archive (
+    id VARCHAR(36) PRIMARY KEY,
+    user_id VARCHAR(36) NOT NULL,
+    challenge_number INTEGER NOT NULL,
+    activity_id VARCHAR(36) NOT NULL,
+    when_ TIMESTAMP NOT NULL,
+    archived_at TIMESTAMP NOT NULL
+);
+
+CREATE INDEX idx_challenge_completed_archive_user ON challenge_completed_archive(user_id);
@@ -0,0 +1,27 @@
+CREATE TABLE team_member (
+    team_id VARCHAR(36) NOT NULL,
+    user_id VARCHAR(36) NOT NULL,
+    PRIMARY KEY (team_id, user_id)
+);
+
+CREATE INDEX idx_team_member_user ON team_member(user_id);
+
+-- Distances are fixed-point millimetres
+CREATE TABLE team_challenge (
+    id VARCHAR(36) PRIMARY KEY,
+    team_id VARCHAR(36) NOT NULL,
+    target_distance BIGINT NOT NULL,
+    distance BIGINT NOT NULL DEFAULT 0,
+    starts_at TIMESTAMP NOT NULL,
+    ends_at TIMESTAMP NOT NULL,
+    completed_at TIMESTAMP
+);
+
+CREATE INDEX idx_team_challenge_team ON team_challenge(team_id);
+
+-- Last flush of team distances applied per node process, so that a retried flush is applied once
+CREATE TABLE team_challenge_flush (
+    node_id VARCHAR(36) PRIMARY KEY,
+    sequence BIGINT NOT NULL,
+    when_ TIMESTAMP NOT NULL
+);
@@ -0,0 +1,21 @@
+-- Counters maintained incrementally by the application and reconciled periodically with the base tables
+CREATE TABLE challenge_stats (
+    challenge_number INTEGER PRIMARY KEY,
+    completions BIGINT NOT NULL DEFAULT 0,
+    completers BIGINT NOT NULL DEFAULT 0,
+    starters BIGINT NOT NULL DEFAULT 0,
+    reconciled_at TIMESTAMP
+);
+
+INSERT INTO challenge_stats (challenge_number, completions, completers, starters, reconciled_at)
+SELECT challenge_number,
+       coalesce(c.completions, 0) + coalesce(a.completions, 0),
+       coalesce(c.completers, 0),
+       coalesce(s.starters, 0),
+       now()
+FROM (SELECT challenge_number, count(*) AS completions, count(DISTINCT user_id) AS completers
+      FROM challenge_completed GROUP BY challenge_number) c
+FULL JOIN (SELECT challenge_number, count(*) AS completions
+           FROM challenge_completed_archive GROUP BY challenge_number) a USING (challenge_number)
+FULL JOIN (SELECT challenge_number, count(*) AS starters
+           FROM started_challenge GROUP BY challenge_number) s USING (challenge_number);
@@ -0,0 +1,4 @@
+-- Serves keyset pages of a user's completion history, newest first, and replaces the user-only index
+CREATE INDEX CONCURRENTLY idx_challenge_completed_user_when ON challenge_completed(user_id, when_ DESC, id DESC);
+
+DROP INDEX CONCURRENTLY idx_challenge_completed_user;
@@ -0,0 +1,26 @@
+-- One row per user, so reading a user's progress is a single primary key lookup whatever their history.
+-- Bit n of completed (byte n / 8, bit n % 8 from the least significant) is set once challenge n was completed.
+CREATE TABLE user_progress (
+    user_id VARCHAR(36) PRIMARY KEY,
+    completed BYTEA NOT NULL,
+    started_challenge INTEGER,
+    version BIGINT NOT NULL
+);
+
+INSERT INTO user_progress (user_id, completed, started_challenge, version)
+WITH completed_bytes AS (
+    SELECT user_id, challenge_number / 8 AS byte_index, bit_or(1 << (challenge_number % 8)) AS byte_value
+    FROM (SELECT DISTINCT user_id, challenge_number FROM challenge_completed) c
+    GROUP BY user_id, challenge_number / 8
+), bitmasks AS (
+    SELECT u.user_id,
+           string_agg(set_byte('\x00'::bytea, 0, coalesce(b.byte_value, 0)), ''::bytea ORDER BY i.byte_index)
+               AS completed
+    FROM (SELECT user_id, max(byte_index) AS last_byte FROM completed_bytes GROUP BY user_id) u
+    CROSS JOIN LATERAL generate_series(0, u.last_byte) AS i(byte_index)
+    LEFT JOIN completed_bytes b ON b.user_id = u.user_id AND b.byte_index = i.byte_index
+    GROUP BY u.user_id
+)
+SELECT coalesce(m.user_id, s.user_id), coalesce(m.completed, ''::bytea), s.challenge_number, 0
+FROM bitmasks m
+FULL JOIN started_challenge s ON s.user_id = m.user_id;
@@ -0,0 +1,269 @@
+package com.github.hippoom.runner.challenges.application;
+
+import com.github.hippoom.runner.challenges.application.ActivityAdmissionProperties.OverflowPolicy;
+import com.github.hippoom.runner.challenges.domain.activity.UserActivity;
+import com.github.hippoom.runner.challenges.messaging.wal.ActivityLogProperties;
+import com.github.hippoom.runner.challenges.messaging.wal.DurableActivityQueue;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static com.github.hippoom.runner.challenges.domain.activity.UserActivityTestDataBuilder.aUserActivity;
+import static org.awaitility.Awaitility.await;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ActivityAdmissionControlTest {
+
+    private static final int MAX_ATTEMPTS = 2;
+
+    @TempDir
+    private Path directory;
+
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final ActivityAdmissionProperties properties = new ActivityAdmissionProperties();
+    private final BlockingCommandHandler commandHandler = new BlockingCommandHandler();
+    private final List<ActivityAdmissionControl> started = new ArrayList<>();
+
+    @BeforeEach
+    void configure() {
+        properties.setPermitsPerSecond(1_000);
+        properties.setBurst(1_000);
+        properties.setMaxInFlight(1);
+        properties.setOverflowPolicy(OverflowPolicy.BUFFER);
+        properties.setBufferCapacity(10);
+        properties.setSpillDirectory(directory.resolve("spilled"));
+        properties.setSpillSegmentSize(DataSize.ofKilobytes(64));
+        properties.setSpillMaxSegments(4);
+        properties.setMaxAttempts(MAX_ATTEMPTS);
+        properties.setRetryBackoff(Duration.ofMillis(1));
+    }
+
+    @AfterEach
+    void stop() throws Exception {
+        commandHandler.release.countDown();
+        for (ActivityAdmissionControl admissionControl : started) {
+            admissionControl.destroy();
+        }
+    }
+
+    @Test
+    void spendsNoRatePermitWhileNoSlotIsFree() throws Exception {
+        // A permit every 2 seconds, two of them right away
+        properties.setPermitsPerSecond(0.5);
+        properties.setBurst(2);
+        ActivityAdmissionControl admissionControl = start();
+        UserActivity holding = holding(aUserActivity().build());
+        CompletableFuture<Void> first = CompletableFuture.runAsync(() -> admissionControl.submit(holding));
+        await().until(() -> commandHandler.handling.get() == 1);
+
+        UserActivity buffered = aUserActivity().build();
+        admissionControl.submit(buffered);
+        commandHandler.release.countDown();
+
+        // The second permit is still there for the buffered activity once the slot is free
+        await().atMost(Duration.ofSeconds(1)).until(() -> commandHandler.handled.contains(buffered));
+        first.get();
+        assertEquals(2, outcome("admitted"));
+        assertEquals(1, outcome("deferred"));
+    }
+
+    @Test
+    void drainsTheBufferWithAsManyThreadsAsSlots() throws Exception {
+        properties.setMaxInFlight(2);
+        ActivityAdmissionControl admissionControl = start();
+        UserActivity first = holding(aUserActivity().build());
+        UserActivity second = holding(aUserActivity().build());
+        CompletableFuture.runAsync(() -> admissionControl.submit(first));
+        CompletableFuture.runAsync(() -> admissionControl.submit(second));
+        await().until(() -> commandHandler.handling.get() == 2);
+
+        // Each buffered activity waits until the other one is being processed too
+        CountDownLatch together = new CountDownLatch(2);
+        UserActivity third = meeting(aUserActivity().build(), together);
+        UserActivity fourth = meeting(aUserActivity().build(), together);
+        admissionControl.submit(third);
+        admissionControl.submit(fourth);
+        commandHandler.release.countDown();
+
+        await().until(() -> commandHandler.handled.size() == 4);
+        assertTrue(commandHandler.met.containsAll(List.of(third, fourth)));
+    }
+
+    @Test
+    void spillsWhatCannotBeAdmittedAndReplaysItOnceIngestionCatchesUp() throws IOException {
+        properties.setOverflowPolicy(OverflowPolicy.SPILL);
+        ActivityAdmissionControl admissionControl = start();
+        UserActivity holding = holding(aUserActivity().build());
+        CompletableFuture.runAsync(() -> admissionControl.submit(holding));
+        await().until(() -> commandHandler.handling.get() == 1);
+
+        UserActivity spilled = aUserActivity().build();
+        admissionControl.submit(spilled);
+        assertEquals(1, outcome("spilled"));
+        commandHandler.release.countDown();
+
+        await().until(() -> commandHandler.handled.contains(spilled));
+        assertEquals(0, outcome("shed"));
+    }
+
+    @Test
+    void retriesFailedActivitiesAndSpillsAgainThoseThatFailedEveryAttempt() throws IOException {
+        ActivityAdmissionControl admissionControl = start();
+        UserActivity holding = holding(aUserActivity().build());
+        CompletableFuture.runAsync(() -> admissionControl.submit(holding));
+        await().until(() -> commandHandler.handling.get() == 1);
+
+        // One fails once and is retried, the other fails every attempt and succeeds once replayed
+        UserActivity retried = failing(aUserActivity().build(), 1);
+        UserActivity respilled = failing(aUserActivity().build(), MAX_ATTEMPTS);
+        admissionControl.submit(retried);
+        admissionControl.submit(respilled);
+        commandHandler.release.countDown();
+
+        await().until(() -> commandHandler.handled.containsAll(List.of(retried, respilled)));
+        assertEquals(1, outcome("failed"));
+        assertEquals(1, outcome("spilled"));
+        assertEquals(0, outcome("shed"));
+    }
+
+    @Test
+    void spillsTheBufferOnShutdownAndReplaysItAfterARestart() throws Exception {
+        ActivityAdmissionControl admissionControl = new ActivityAdmissionControl(commandHandler, properties, null,
+                new StaticListableBeanFactory().getBeanProvider(DurableActivityQueue.class), meterRegistry);
+        UserActivity holding = holding(aUserActivity().build());
+        CompletableFuture.runAsync(() -> admissionControl.submit(holding));
+        await().until(() -> commandHandler.handling.get() == 1);
+        UserActivity buffered = aUserActivity().build();
+        admissionControl.submit(buffered);
+
+        admissionControl.destroy();
+        commandHandler.release.countDown();
+        await().until(() -> commandHandler.handled.contains(holding));
+        assertFalse(commandHandler.handled.contains(buffered));
+
+        start();
+        await().until(() -> commandHandler.handled.contains(buffered));
+    }
+
+    @Test
+    void logsEveryActivityWithTheActivityLog() throws Exception {
+        ActivityLogProperties logProperties = new ActivityLogProperties();
+        logProperties.setDirectory(directory.resolve("activity-log"));
+        logProperties.setSegmentSize(DataSize.ofKilobytes(64));
+        logProperties.setMaxSegments(4);
+        logProperties.setFlushInterval(Duration.ofMillis(10));
+        logProperties.setCheckpointInterval(Duration.ofMillis(10));
+        logProperties.setConsumers(1);
+        logProperties.setMaxAttempts(1);
+        logProperties.setRetryBackoff(Duration.ofMillis(1));
+        DurableActivityQueue durableQueue = new DurableActivityQueue(logProperties, meterRegistry);
+        StaticListableBeanFactory beans = new StaticListableBeanFactory();
+        beans.addBean("durableActivityQueue", durableQueue);
+        ActivityAdmissionControl admissionControl = new ActivityAdmissionControl(commandHandler, properties, null,
+                beans.getBeanProvider(DurableActivityQueue.class), meterRegistry);
+        admissionControl.afterPropertiesSet();
+        try {
+            UserActivity activity = aUserActivity().build();
+            admissionControl.submit(activity);
+
+            await().until(() -> commandHandler.handled.contains(activity));
+            assertEquals(1, outcome("logged"));
+            assertFalse(Files.exists(properties.getSpillDirectory()), "Nothing is spilled with the activity log");
+        } finally {
+            admissionControl.destroy();
+            durableQueue.destroy();
+        }
+    }
+
+    private ActivityAdmissionControl start() throws IOException {
+        ActivityAdmissionControl admissionControl = new ActivityAdmissionControl(commandHandler, properties, null,
+                new StaticListableBeanFactory().getBeanProvider(DurableActivityQueue.class), meterRegistry);
+        admissionControl.afterPropertiesSet();
+        started.add(admissionControl);
+        return admissionControl;
+    }
+
+    private UserActivity holding(UserActivity activity) {
+        commandHandler.holding.add(activity.getId());
+        return activity;
+    }
+
+    private UserActivity failing(UserActivity activity, int failures) {
+        commandHandler.failures.put(activity.getId(), new AtomicInteger(failures));
+        return activity;
+    }
+
+    private UserActivity meeting(UserActivity activity, CountDownLatch together) {
+        commandHandler.meetings.put(activity.getId(), together);
+        return activity;
+    }
+
+    private double outcome(String outcome) {
+        return meterRegistry.get("challenges.ingestion.activities").tag("outcome", outcome).counter().count();
+    }
+
+    /**
+     * Records the activities it handles, holding some until released, having others wait for each other and
+     * failing others a number of times first.
+     */
+    private static final class BlockingCommandHandler extends CompleteChallengeCommandHandler {
+        private final Set<String> holding = ConcurrentHashMap.newKeySet();
+        private final ConcurrentHashMap<String, CountDownLatch> meetings = new ConcurrentHashMap<>();
+        private final ConcurrentHashMap<String, AtomicInteger> failures = new ConcurrentHashMap<>();
+        private final CountDownLatch release = new CountDownLatch(1);
+        private final AtomicInteger handling = new AtomicInteger();
+        private final List<UserActivity> handled = new CopyOnWriteArrayList<>();
+        private final List<UserActivity> met = new CopyOnWriteArrayList<>();
+
+        private BlockingCommandHandler() {
+            super(null, null, null, null, null, null, null, null, null, null, null, null);
+        }
+
+        @Override
+        public void handle(UserActivity activity) {
+            AtomicInteger failuresLeft = failures.get(activity.getId());
+            if (failuresLeft != null && failuresLeft.getAndDecrement() > 0) {
+                throw new IllegalStateException("Database down");
+            }
+            handling.incrementAndGet();
+            try {
+                if (holding.contains(activity.getId())) {
+                    release.await();
+                }
+                CountDownLatch together = meetings.get(activity.getId());
+                if (together != null) {
+                    together.countDown();
+                    if (together.await(5, TimeUnit.SECONDS)) {
+                        met.add(activity);
+                    }
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                handling.decrementAndGet();
+                handled.add(activity);
+            }
+        }
+    }
+}
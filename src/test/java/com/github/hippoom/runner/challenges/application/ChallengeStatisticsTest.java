@@ -0,0 +1,100 @@
+package com.github.hippoom.runner.challenges.application;
+
+import com.github.hippoom.runner.challenges.config.ScratchSchema;
+import com.github.hippoom.runner.challenges.domain.challenge.ChallengeNumber;
+import com.github.hippoom.runner.challenges.domain.challenge.stats.ChallengeStats;
+import com.github.hippoom.runner.challenges.domain.challenge.stats.ChallengeStatsRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class ChallengeStatisticsTest {
+
+    private static final ChallengeNumber FIRST = ChallengeNumber.of(1);
+    private static final ChallengeNumber SECOND = ChallengeNumber.of(2);
+    private static final String RUNNER = "3f2a6c1e-8b4d-4e5f-9a0b-1c2d3e4f5a6b";
+    private static final String OTHER_RUNNER = "0c1d2e3f-4a5b-4c6d-8e7f-9a0b1c2d3e4f";
+
+    private JdbcTemplate jdbcTemplate;
+    private TransactionTemplate transactionTemplate;
+    private ChallengeStatistics statistics;
+
+    @BeforeEach
+    void migrateAnEmptySchema() {
+        ScratchSchema schema = ScratchSchema.clean("challenge_statistics_test");
+        schema.migrate("latest");
+        jdbcTemplate = schema.jdbcTemplate();
+        transactionTemplate = new TransactionTemplate(new DataSourceTransactionManager(schema.dataSource()));
+        statistics = new ChallengeStatistics(new ChallengeStatsRepository(jdbcTemplate),
+                Duration.ofSeconds(1), Duration.ofHours(1), 2);
+    }
+
+    @Test
+    void countsTheCommandsThatCommittedOnceTheirDeltasAreFolded() {
+        transactionTemplate.executeWithoutResult(status -> {
+            statistics.started(FIRST, null);
+            statistics.completed(FIRST, false);
+        });
+        transactionTemplate.executeWithoutResult(status -> {
+            statistics.started(SECOND, FIRST);
+            status.setRollbackOnly();
+        });
+
+        assertEquals(ChallengeStats.NONE, statistics.of(FIRST));
+        statistics.flush();
+
+        assertEquals(new ChallengeStats(1, 1, 1), statistics.of(FIRST));
+        assertEquals(ChallengeStats.NONE, statistics.of(SECOND));
+        assertEquals(0, pendingDeltas());
+    }
+
+    @Test
+    void foldsEveryPendingBatch() {
+        for (int i = 0; i < 5; i++) {
+            transactionTemplate.executeWithoutResult(status -> statistics.completed(FIRST, true));
+        }
+
+        statistics.flush();
+
+        assertEquals(new ChallengeStats(5, 0, 0), statistics.of(FIRST));
+        assertEquals(0, pendingDeltas());
+    }
+
+    @Test
+    void reconcilingCorrectsDriftWithoutCountingPendingDeltasTwice() {
+        // Three completions by a runner and another runner on the challenge
+        for (int i = 0; i < 3; i++) {
+            jdbcTemplate.update("INSERT INTO challenge_completed (id, user_id, challenge_number, activity_id, when_) "
+                    + "VALUES (gen_random_uuid()::varchar, ?, 1, gen_random_uuid()::varchar, now())", RUNNER);
+        }
+        jdbcTemplate.update("INSERT INTO user_progress (user_id, completed, started_challenge, version) "
+                + "VALUES (?, '\\x02'::bytea, NULL, 0)", RUNNER);
+        jdbcTemplate.update("INSERT INTO user_progress (user_id, completed, started_challenge, version) "
+                + "VALUES (?, ''::bytea, 1, 0)", OTHER_RUNNER);
+        jdbcTemplate.update("INSERT INTO started_challenge (user_id, challenge_number, when_) VALUES (?, 1, now())",
+                OTHER_RUNNER);
+        // Counters folded so far, a delta not folded yet, and a completion lost to drift
+        jdbcTemplate.update("INSERT INTO challenge_stats (challenge_number, completions, completers, starters) "
+                + "VALUES (1, 1, 1, 0)");
+        jdbcTemplate.update("INSERT INTO challenge_stats_delta (challenge_number, completions, completers, starters) "
+                + "VALUES (1, 1, 0, 1)");
+
+        statistics.reconcile();
+
+        assertEquals(new ChallengeStats(2, 1, 0), statistics.of(FIRST));
+        statistics.flush();
+        assertEquals(new ChallengeStats(3, 1, 1), statistics.of(FIRST));
+        statistics.reconcile();
+        assertEquals(new ChallengeStats(3, 1, 1), statistics.of(FIRST));
+    }
+
+    private int pendingDeltas() {
+        return jdbcTemplate.queryForObject("SELECT count(*) FROM challenge_stats_delta", Integer.class);
+    }
+}
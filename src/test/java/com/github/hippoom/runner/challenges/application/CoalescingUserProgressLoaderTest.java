@@ -0,0 +1,131 @@
+package com.github.hippoom.runner.challenges.application;
+
+import com.github.hippoom.runner.challenges.domain.challenge.ChallengeNumber;
+import com.github.hippoom.runner.challenges.domain.challenge.progress.ProgressChanged;
+import com.github.hippoom.runner.challenges.domain.challenge.progress.UserProgress;
+import com.github.hippoom.runner.challenges.domain.challenge.progress.UserProgressLoader;
+import com.github.hippoom.runner.challenges.domain.user.UserId;
+import com.github.hippoom.runner.challenges.messaging.inmemory.InMemoryProgressChangeBus;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.awaitility.Awaitility.await;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CoalescingUserProgressLoaderTest {
+
+    private static final UserId RUNNER = UserId.of("3f2a6c1e-8b4d-4e5f-9a0b-1c2d3e4f5a6b");
+
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final InMemoryProgressChangeBus bus = new InMemoryProgressChangeBus();
+    private final UserProgressCache cache = new UserProgressCache(bus, Duration.ofMinutes(1), 16);
+    private final FirstLoadBlockingLoader database = new FirstLoadBlockingLoader();
+
+    @AfterEach
+    void releaseTheLeader() {
+        database.release.countDown();
+    }
+
+    @Test
+    void sharesOneLoadBetweenConcurrentReadsOfAUser() throws Exception {
+        CoalescingUserProgressLoader loader = loader(Duration.ofSeconds(5));
+        FutureTask<UserProgress> leader = startLoading(loader, "leader");
+        assertTrue(database.loading.await(5, TimeUnit.SECONDS));
+
+        FutureTask<UserProgress> follower = new FutureTask<>(() -> loader.load(RUNNER));
+        Thread followerThread = new Thread(follower, "follower");
+        followerThread.start();
+        await().until(() -> followerThread.getState() == Thread.State.TIMED_WAITING);
+        database.release.countDown();
+
+        UserProgress loaded = leader.get(5, TimeUnit.SECONDS);
+        assertSame(loaded, follower.get(5, TimeUnit.SECONDS));
+        assertEquals(1, database.loads.get());
+        assertEquals(1, loads("coalesced"));
+        assertSame(loaded, loader.load(RUNNER));
+        assertEquals(1, loads("cached"));
+    }
+
+    @Test
+    void startsAFreshLoadForReadsArrivingAfterAChange() throws Exception {
+        CoalescingUserProgressLoader loader = loader(Duration.ofSeconds(5));
+        FutureTask<UserProgress> leader = startLoading(loader, "leader");
+        assertTrue(database.loading.await(5, TimeUnit.SECONDS));
+
+        bus.publish(new ProgressChanged(RUNNER, 1));
+        UserProgress fresh = loader.load(RUNNER);
+
+        assertEquals(ChallengeNumber.of(2), fresh.getStarted());
+        assertFalse(leader.isDone(), "The stale load should still be running");
+        assertEquals(2, loads("leader"));
+        assertEquals(0, loads("coalesced") + loads("fallback"));
+        database.release.countDown();
+        assertEquals(ChallengeNumber.of(1), leader.get(5, TimeUnit.SECONDS).getStarted());
+        // The stale load does not replace the fresh one in the cache either
+        assertSame(fresh, loader.load(RUNNER));
+    }
+
+    @Test
+    void fallsBackToItsOwnLoadWhenTheSharedOneIsTooSlow() throws Exception {
+        CoalescingUserProgressLoader loader = loader(Duration.ofMillis(50));
+        startLoading(loader, "leader");
+        assertTrue(database.loading.await(5, TimeUnit.SECONDS));
+
+        assertEquals(ChallengeNumber.of(2), loader.load(RUNNER).getStarted());
+        assertEquals(1, loads("fallback"));
+    }
+
+    private CoalescingUserProgressLoader loader(Duration maxWait) {
+        return new CoalescingUserProgressLoader(database, cache, bus, maxWait, meterRegistry);
+    }
+
+    private FutureTask<UserProgress> startLoading(CoalescingUserProgressLoader loader, String name) {
+        FutureTask<UserProgress> load = new FutureTask<>(() -> loader.load(RUNNER));
+        Thread thread = new Thread(load, name);
+        thread.setDaemon(true);
+        thread.start();
+        return load;
+    }
+
+    private double loads(String role) {
+        return meterRegistry.get("challenges.progress.loads").tag("role", role).counter().count();
+    }
+
+    /**
+     * Tells loads apart by their started challenge, the number of the load, and holds the first one until released.
+     */
+    private static final class FirstLoadBlockingLoader extends UserProgressLoader {
+        private final AtomicInteger loads = new AtomicInteger();
+        private final CountDownLatch loading = new CountDownLatch(1);
+        private final CountDownLatch release = new CountDownLatch(1);
+
+        private FirstLoadBlockingLoader() {
+            super(null, null);
+        }
+
+        @Override
+        public UserProgress load(UserId userId) {
+            int load = loads.incrementAndGet();
+            if (load == 1) {
+                loading.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            return UserProgress.of(userId, new byte[0], ChallengeNumber.of(load));
+        }
+    }
+}
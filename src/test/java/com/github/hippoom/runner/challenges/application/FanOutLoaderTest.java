@@ -0,0 +1,104 @@
+package com.github.hippoom.runner.challenges.application;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class FanOutLoaderTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final CountDownLatch release = new CountDownLatch(1);
+    private FanOutLoader fanOutLoader = fanOutLoader(4, 4, Duration.ofSeconds(5));
+
+    @AfterEach
+    void shutDown() {
+        release.countDown();
+        fanOutLoader.destroy();
+    }
+
+    @Test
+    void waitsForTheSlowestLoadRatherThanTheirSum() {
+        long started = System.nanoTime();
+        FanOutLoader.Branch<String> first = fanOutLoader.submit("first", sleeping(300, "a"));
+        FanOutLoader.Branch<String> second = fanOutLoader.submit("second", sleeping(300, "b"));
+
+        assertEquals(Optional.of("a"), first.await());
+        assertEquals(Optional.of("b"), second.await());
+        assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started) < 550);
+        assertEquals(1, meterRegistry.get("challenges.fan-out.loads")
+                .tag("branch", "second").tag("outcome", "success").timer().count());
+    }
+
+    @Test
+    void givesUpOnALoadPastItsDeadline() {
+        fanOutLoader = fanOutLoader(1, 1, Duration.ofMillis(100));
+
+        assertFalse(fanOutLoader.submit("slow", blocked()).await().isPresent());
+        assertEquals(1, meterRegistry.get("challenges.fan-out.loads")
+                .tag("branch", "slow").tag("outcome", "timeout").timer().count());
+    }
+
+    @Test
+    void yieldsNothingWhenTheLoadFails() {
+        FanOutLoader.Branch<String> failing = fanOutLoader.submit("failing", () -> {
+            throw new IllegalStateException("database is down");
+        });
+
+        assertFalse(failing.await().isPresent());
+        assertEquals(1, meterRegistry.get("challenges.fan-out.loads")
+                .tag("branch", "failing").tag("outcome", "failed").timer().count());
+    }
+
+    @Test
+    void rejectsLoadsBeyondTheQueueRightAway() {
+        fanOutLoader = fanOutLoader(1, 1, Duration.ofSeconds(5));
+        fanOutLoader.submit("running", blocked());
+        fanOutLoader.submit("queued", blocked());
+
+        long started = System.nanoTime();
+        assertFalse(fanOutLoader.submit("rejected", () -> "c").await().isPresent());
+        assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started) < 1000);
+        assertEquals(1, meterRegistry.get("challenges.fan-out.loads")
+                .tag("branch", "rejected").tag("outcome", "rejected").timer().count());
+    }
+
+    private FanOutLoader fanOutLoader(int threads, int queueCapacity, Duration timeout) {
+        FanOutProperties properties = new FanOutProperties();
+        properties.setThreads(threads);
+        properties.setQueueCapacity(queueCapacity);
+        properties.setTimeout(timeout);
+        return new FanOutLoader(properties, meterRegistry);
+    }
+
+    private Supplier<String> blocked() {
+        return () -> {
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return "late";
+        };
+    }
+
+    private static Supplier<String> sleeping(long millis, String value) {
+        return () -> {
+            try {
+                TimeUnit.MILLISECONDS.sleep(millis);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return value;
+        };
+    }
+}
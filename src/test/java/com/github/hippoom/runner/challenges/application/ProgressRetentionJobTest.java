@@ -0,0 +1,157 @@
+package com.github.hippoom.runner.challenges.application;
+
+import com.github.hippoom.runner.challenges.config.ScratchSchema;
+import com.github.hippoom.runner.challenges.domain.activity.ProcessedActivityRepository;
+import com.github.hippoom.runner.challenges.domain.challenge.progress.ProgressChangeListener;
+import com.github.hippoom.runner.challenges.domain.challenge.progress.ProgressChangePublisher;
+import com.github.hippoom.runner.challenges.domain.challenge.progress.ProgressChanged;
+import com.github.hippoom.runner.challenges.domain.challenge.stats.ChallengeStats;
+import com.github.hippoom.runner.challenges.domain.challenge.stats.ChallengeStatsRepository;
+import com.github.hippoom.runner.challenges.domain.user.UserId;
+import com.github.hippoom.runner.challenges.messaging.inmemory.InMemoryProgressChangeBus;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class ProgressRetentionJobTest {
+
+    private static final String OLD = "now() - interval '100 days'";
+    private static final String RECENT = "now() - interval '1 day'";
+    private static final String[] ABANDONING_RUNNERS = {
+        "3f2a6c1e-8b4d-4e5f-9a0b-1c2d3e4f5a6b",
+        "0c1d2e3f-4a5b-4c6d-8e7f-9a0b1c2d3e4f",
+        "5e6f7a8b-9c0d-4e1f-a2b3-c4d5e6f7a8b9"
+    };
+    private static final String ACTIVE_RUNNER = "a1b2c3d4-e5f6-4a7b-8c9d-0e1f2a3b4c5d";
+
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final List<ProgressChanged> published = new CopyOnWriteArrayList<>();
+    private JdbcTemplate jdbcTemplate;
+    private ChallengeStatsRepository challengeStatsRepository;
+    private ProgressRetentionJob job;
+
+    @BeforeEach
+    void seedStaleAndRecentProgress() {
+        ScratchSchema schema = ScratchSchema.clean("progress_retention_test");
+        schema.migrate("latest");
+        jdbcTemplate = schema.jdbcTemplate();
+        challengeStatsRepository = new ChallengeStatsRepository(jdbcTemplate);
+        ProgressRetentionProperties properties = new ProgressRetentionProperties();
+        properties.setStartedMaxAge(Duration.ofDays(90));
+        properties.setCompletedHorizon(Duration.ofDays(90));
+        properties.setProcessedActivityHorizon(Duration.ofDays(30));
+        // Smaller than what is stale, so that the job goes through several batches
+        properties.setBatchSize(2);
+        properties.setPauseBetweenBatches(Duration.ofMillis(1));
+        properties.setMaxBatchesPerRun(10);
+        InMemoryProgressChangeBus bus = new InMemoryProgressChangeBus();
+        bus.subscribe(new ProgressChangeListener() {
+            @Override
+            public void onProgressChanged(ProgressChanged change) {
+                published.add(change);
+            }
+
+            @Override
+            public void onChangesMissed() {
+            }
+
+            @Override
+            public void onAvailabilityChanged() {
+            }
+        });
+        job = new ProgressRetentionJob(jdbcTemplate,
+                new TransactionTemplate(new DataSourceTransactionManager(schema.dataSource())),
+                new ProcessedActivityRepository(jdbcTemplate), new ProgressChangePublisher(bus), properties,
+                meterRegistry);
+
+        for (String runner : ABANDONING_RUNNERS) {
+            start(runner, 1, OLD);
+            complete(runner, 2, OLD);
+        }
+        start(ACTIVE_RUNNER, 1, RECENT);
+        complete(ACTIVE_RUNNER, 2, RECENT);
+        jdbcTemplate.update("INSERT INTO processed_activity (activity_id, processed_at) VALUES "
+                + "(gen_random_uuid(), " + OLD + "), (gen_random_uuid(), " + RECENT + ")");
+        challengeStatsRepository.reconcile();
+    }
+
+    @Test
+    void archivesStaleProgressKeepingStatsAndUserProgressConsistent() {
+        job.run();
+
+        assertEquals(1, count("started_challenge"));
+        assertEquals(3, count("started_challenge_archive"));
+        assertEquals(1, count("challenge_completed"));
+        assertEquals(3, count("challenge_completed_archive"));
+        assertEquals(1, count("processed_activity"));
+        for (String runner : ABANDONING_RUNNERS) {
+            Map<String, Object> progress = progressOf(runner);
+            assertNull(progress.get("started_challenge"), runner);
+            assertEquals(1L, progress.get("version"), runner);
+        }
+        Map<String, Object> active = progressOf(ACTIVE_RUNNER);
+        assertEquals(1, active.get("started_challenge"));
+        assertEquals(0L, active.get("version"));
+
+        // Only the starters of the archived attempts are taken off, completions stay counted
+        assertEquals(new ChallengeStats(0, 0, 1), stats(1));
+        assertEquals(new ChallengeStats(4, 4, 0), stats(2));
+        challengeStatsRepository.reconcile();
+        assertEquals(new ChallengeStats(0, 0, 1), stats(1));
+        assertEquals(new ChallengeStats(4, 4, 0), stats(2));
+        assertEquals(3, meterRegistry.get("challenges.retention.archived").tag("table", "started_challenge")
+                .counter().count());
+    }
+
+    @Test
+    void publishesTheProgressOfUsersWhoseStartedChallengeWasArchived() {
+        job.run();
+
+        Set<ProgressChanged> expected = new HashSet<>();
+        for (String runner : ABANDONING_RUNNERS) {
+            expected.add(new ProgressChanged(UserId.of(runner), 1));
+        }
+        assertEquals(ABANDONING_RUNNERS.length, published.size());
+        assertEquals(expected, new HashSet<>(published));
+    }
+
+    private void start(String userId, int number, String when) {
+        jdbcTemplate.update("INSERT INTO started_challenge (user_id, challenge_number, when_) "
+                + "VALUES (?, ?, " + when + ")", userId, number);
+        jdbcTemplate.update("INSERT INTO user_progress (user_id, completed, started_challenge, version) "
+                + "VALUES (?, '\\x04'::bytea, ?, 0)", userId, number);
+    }
+
+    private void complete(String userId, int number, String when) {
+        jdbcTemplate.update("INSERT INTO challenge_completed (id, user_id, challenge_number, activity_id, when_) "
+                + "VALUES (gen_random_uuid()::varchar, ?, ?, gen_random_uuid()::varchar, " + when + ")",
+                userId, number);
+    }
+
+    private int count(String table) {
+        return jdbcTemplate.queryForObject("SELECT count(*) FROM " + table, Integer.class);
+    }
+
+    private Map<String, Object> progressOf(String userId) {
+        return jdbcTemplate.queryForMap("SELECT started_challenge, version FROM user_progress WHERE user_id = ?",
+                userId);
+    }
+
+    private ChallengeStats stats(int number) {
+        return challengeStatsRepository.findAll().getOrDefault(number, ChallengeStats.NONE);
+    }
+}
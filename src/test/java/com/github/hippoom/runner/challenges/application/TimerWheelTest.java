@@ -0,0 +1,66 @@
+package com.github.hippoom.runner.challenges.application;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class TimerWheelTest {
+
+    private static final long TICK = 100;
+    private static final int SIZE = 8;
+
+    private final TimerWheel<String> wheel = new TimerWheel<>(TICK, SIZE, 0);
+
+    @Test
+    void returnsItemsOnceTheirDeadlineIsDue() {
+        wheel.schedule("a", 250);
+        wheel.schedule("b", 420);
+
+        assertEquals(Collections.emptySet(), wheel.advance(200));
+        assertEquals(Collections.singleton("a"), wheel.advance(300));
+        assertEquals(Collections.singleton("b"), wheel.advance(500));
+        assertEquals(0, wheel.pending());
+    }
+
+    @Test
+    void keepsTheSameItemDueAtTheSameTickOnce() {
+        wheel.schedule("a", 210);
+        wheel.schedule("a", 290);
+        wheel.schedule("a", 310);
+
+        assertEquals(2, wheel.pending());
+        assertEquals(Collections.singleton("a"), wheel.advance(1_000));
+        assertEquals(0, wheel.pending());
+    }
+
+    @Test
+    void waitsForLaterTurnsOfTheWheel() {
+        wheel.schedule("a", TICK * SIZE * 3 + 50);
+
+        assertEquals(Collections.emptySet(), wheel.advance(TICK * SIZE * 2));
+        assertEquals(Collections.emptySet(), wheel.advance(TICK * SIZE * 3));
+        assertEquals(Collections.singleton("a"), wheel.advance(TICK * SIZE * 3 + TICK));
+    }
+
+    @Test
+    void catchesUpWithTicksMissedForMoreThanATurn() {
+        wheel.schedule("a", 150);
+        wheel.schedule("b", 650);
+        wheel.schedule("c", TICK * SIZE * 5);
+
+        assertEquals(new HashSet<>(Arrays.asList("a", "b")), wheel.advance(TICK * SIZE * 4));
+        assertEquals(1, wheel.pending());
+    }
+
+    @Test
+    void schedulesPastDeadlinesForTheNextTick() {
+        wheel.advance(1_000);
+        wheel.schedule("late", 100);
+
+        assertEquals(Collections.singleton("late"), wheel.advance(1_100));
+    }
+}
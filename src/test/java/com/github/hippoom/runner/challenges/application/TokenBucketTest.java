@@ -0,0 +1,45 @@
+package com.github.hippoom.runner.challenges.application;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TokenBucketTest {
+
+    private static final int BURST = 3;
+
+    @Test
+    void grantsABurstThenPermitsAtTheRate() throws InterruptedException {
+        TokenBucket bucket = new TokenBucket(10, BURST);
+
+        for (int i = 0; i < BURST; i++) {
+            assertTrue(bucket.tryAcquire(), "Permit " + i + " of the burst");
+        }
+        assertFalse(bucket.tryAcquire());
+
+        TimeUnit.MILLISECONDS.sleep(150);
+        assertTrue(bucket.tryAcquire());
+        assertFalse(bucket.tryAcquire());
+    }
+
+    @Test
+    void waitsForTheNextPermit() throws InterruptedException {
+        TokenBucket bucket = new TokenBucket(20, 1);
+        assertTrue(bucket.tryAcquire());
+
+        long start = System.nanoTime();
+        bucket.acquire();
+
+        assertTrue(System.nanoTime() - start >= TimeUnit.MILLISECONDS.toNanos(40));
+    }
+
+    @Test
+    void rejectsANonPositiveRateOrBurst() {
+        assertThrows(IllegalArgumentException.class, () -> new TokenBucket(0, 1));
+        assertThrows(IllegalArgumentException.class, () -> new TokenBucket(1, 0));
+    }
+}
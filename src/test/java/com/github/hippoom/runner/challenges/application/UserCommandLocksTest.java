@@ -0,0 +1,117 @@
+package com.github.hippoom.runner.challenges.application;
+
+import com.github.hippoom.runner.challenges.domain.user.UserId;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class UserCommandLocksTest {
+
+    private static final int STRIPES = 8;
+    private static final long WAIT_MILLIS = 200;
+
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final UserCommandLocks locks = new UserCommandLocks(STRIPES, meterRegistry);
+    private final ExecutorService executor = Executors.newCachedThreadPool();
+    private final CountDownLatch holding = new CountDownLatch(1);
+    private final CountDownLatch release = new CountDownLatch(1);
+
+    @AfterEach
+    void shutdown() {
+        release.countDown();
+        executor.shutdownNow();
+    }
+
+    @Test
+    void runsCommandsOfTheSameUserOneAtATime() throws Exception {
+        UserId runner = aUser(0);
+        holdLockOf(runner);
+
+        CountDownLatch ran = new CountDownLatch(1);
+        Future<?> waiting = executor.submit(() -> locks.runWithLock(runner, ran::countDown));
+
+        assertFalse(ran.await(WAIT_MILLIS, TimeUnit.MILLISECONDS), "Should wait for the command holding the lock");
+        release.countDown();
+        waiting.get(5, TimeUnit.SECONDS);
+        assertEquals(1, meterRegistry.get("challenges.user.locks.contended").counter().count());
+    }
+
+    @Test
+    void runsCommandsOfUsersInOtherStripesConcurrently() throws Exception {
+        UserId runner = aUser(0);
+        UserId other = aUserOutsideTheStripeOf(runner);
+        holdLockOf(runner);
+
+        Future<String> command = executor.submit(() -> locks.callWithLock(other, () -> "done"));
+
+        assertEquals("done", command.get(5, TimeUnit.SECONDS));
+        assertEquals(0, meterRegistry.get("challenges.user.locks.contended").counter().count());
+    }
+
+    @Test
+    void holdsTheStripesOfEveryUserOfAMultiUserCommand() throws Exception {
+        UserId runner = aUser(0);
+        UserId other = aUserOutsideTheStripeOf(runner);
+        executor.submit(() -> locks.callWithLocks(Arrays.asList(runner, other), () -> {
+            holding.countDown();
+            awaitRelease();
+            return null;
+        }));
+        assertTrue(holding.await(5, TimeUnit.SECONDS));
+
+        CountDownLatch ran = new CountDownLatch(1);
+        Future<?> waiting = executor.submit(() -> locks.runWithLock(other, ran::countDown));
+
+        assertFalse(ran.await(WAIT_MILLIS, TimeUnit.MILLISECONDS), "Should wait for the multi-user command");
+        release.countDown();
+        waiting.get(5, TimeUnit.SECONDS);
+    }
+
+    @Test
+    void rejectsStripesThatAreNotAPowerOfTwo() {
+        assertThrows(IllegalArgumentException.class, () -> new UserCommandLocks(12, meterRegistry));
+    }
+
+    private void holdLockOf(UserId userId) throws InterruptedException {
+        executor.submit(() -> locks.runWithLock(userId, () -> {
+            holding.countDown();
+            awaitRelease();
+        }));
+        assertTrue(holding.await(5, TimeUnit.SECONDS));
+    }
+
+    private void awaitRelease() {
+        try {
+            release.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private UserId aUserOutsideTheStripeOf(UserId userId) {
+        for (int seed = 1; ; seed++) {
+            UserId candidate = aUser(seed);
+            if (locks.stripeIndexOf(candidate) != locks.stripeIndexOf(userId)) {
+                return candidate;
+            }
+        }
+    }
+
+    private static UserId aUser(int seed) {
+        return UserId.of(UUID.nameUUIDFromBytes(Integer.toString(seed).getBytes()).toString());
+    }
+}
@@ -0,0 +1,81 @@
+package com.github.hippoom.runner.challenges.application;
+
+import com.github.hippoom.runner.challenges.domain.challenge.ChallengeNumber;
+import com.github.hippoom.runner.challenges.domain.challenge.progress.ProgressChanged;
+import com.github.hippoom.runner.challenges.domain.challenge.progress.UserProgress;
+import com.github.hippoom.runner.challenges.domain.user.UserId;
+import com.github.hippoom.runner.challenges.messaging.inmemory.InMemoryProgressChangeBus;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class UserProgressCacheTest {
+
+    private static final UserId RUNNER = UserId.of("3f2a6c1e-8b4d-4e5f-9a0b-1c2d3e4f5a6b");
+    private static final UserId OTHER_RUNNER = UserId.of("0c1d2e3f-4a5b-4c6d-8e7f-9a0b1c2d3e4f");
+
+    private final InMemoryProgressChangeBus bus = new InMemoryProgressChangeBus();
+    private final UserProgressCache cache = new UserProgressCache(bus, Duration.ofMinutes(1), 2);
+
+    @Test
+    void keepsALoadedProgressUntilItChanges() {
+        UserProgress progress = progressOf(RUNNER);
+        cache.put(progress, cache.epoch(RUNNER));
+
+        assertEquals(progress, cache.get(RUNNER));
+
+        bus.publish(new ProgressChanged(RUNNER, 1));
+        assertNull(cache.get(RUNNER));
+    }
+
+    @Test
+    void dropsALoadRacingAChangeOfTheSameUser() {
+        long epoch = cache.epoch(RUNNER);
+        bus.publish(new ProgressChanged(RUNNER, 1));
+
+        cache.put(progressOf(RUNNER), epoch);
+
+        assertNull(cache.get(RUNNER));
+    }
+
+    @Test
+    void keepsALoadRacingAChangeOfAnotherUser() {
+        long epoch = cache.epoch(RUNNER);
+        bus.publish(new ProgressChanged(OTHER_RUNNER, 1));
+
+        UserProgress progress = progressOf(RUNNER);
+        cache.put(progress, epoch);
+
+        assertEquals(progress, cache.get(RUNNER));
+    }
+
+    @Test
+    void dropsEveryLoadWhenChangesWereMissed() {
+        long epoch = cache.epoch(RUNNER);
+        cache.put(progressOf(OTHER_RUNNER), cache.epoch(OTHER_RUNNER));
+
+        cache.onChangesMissed();
+        cache.put(progressOf(RUNNER), epoch);
+
+        assertNull(cache.get(RUNNER));
+        assertNull(cache.get(OTHER_RUNNER));
+    }
+
+    @Test
+    void cachesNothingBeyondItsCapacity() {
+        cache.put(progressOf(RUNNER), cache.epoch(RUNNER));
+        cache.put(progressOf(OTHER_RUNNER), cache.epoch(OTHER_RUNNER));
+        UserId third = UserId.of("5e6f7a8b-9c0d-4e1f-a2b3-c4d5e6f7a8b9");
+
+        cache.put(progressOf(third), cache.epoch(third));
+
+        assertNull(cache.get(third));
+    }
+
+    private static UserProgress progressOf(UserId userId) {
+        return UserProgress.of(userId, new byte[] {2}, ChallengeNumber.of(1));
+    }
+}
@@ -0,0 +1,73 @@
+package com.github.hippoom.runner.challenges.cluster;
+
+import com.github.hippoom.runner.challenges.domain.user.UserId;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ConsistentHashRingTest {
+
+    private static final int USERS = 100_000;
+    private static final int POINTS_PER_NODE = 128;
+
+    private final ClusterNode a = new ClusterNode("a", "http://a");
+    private final ClusterNode b = new ClusterNode("b", "http://b");
+    private final ClusterNode c = new ClusterNode("c", "http://c");
+    private final ClusterNode d = new ClusterNode("d", "http://d");
+
+    @Test
+    void everyNodeAgreesOnWhoOwnsAUser() {
+        List<ClusterNode> members = Arrays.asList(a, b, c);
+        UserPartitioning onA = new UserPartitioning(new StaticClusterMembership("a", members), POINTS_PER_NODE);
+        UserPartitioning onB = new UserPartitioning(new StaticClusterMembership("b", members), POINTS_PER_NODE);
+        UserPartitioning onC = new UserPartitioning(new StaticClusterMembership("c", members), POINTS_PER_NODE);
+
+        for (int i = 0; i < USERS; i++) {
+            UserId userId = new UserId(new UUID(0, i).toString());
+            int owners = (onA.isOwnedLocally(userId) ? 1 : 0)
+                    + (onB.isOwnedLocally(userId) ? 1 : 0)
+                    + (onC.isOwnedLocally(userId) ? 1 : 0);
+            assertEquals(1, owners, "owners of " + userId);
+            assertEquals(onA.ownerOf(userId), onB.ownerOf(userId));
+        }
+    }
+
+    @Test
+    void usersAreSpreadEvenly() {
+        ConsistentHashRing ring = new ConsistentHashRing(Arrays.asList(a, b, c, d), POINTS_PER_NODE);
+
+        Map<ClusterNode, Integer> owned = new HashMap<>();
+        for (int i = 0; i < USERS; i++) {
+            owned.merge(ring.ownerOf("user-" + i), 1, Integer::sum);
+        }
+
+        int fairShare = USERS / 4;
+        owned.forEach((node, count) ->
+                assertTrue(Math.abs(count - fairShare) < fairShare * 0.2, node + " owns " + count));
+    }
+
+    @Test
+    void addingANodeOnlyMovesItsShareOfUsers() {
+        ConsistentHashRing before = new ConsistentHashRing(Arrays.asList(a, b, c), POINTS_PER_NODE);
+        ConsistentHashRing after = new ConsistentHashRing(Arrays.asList(a, b, c, d), POINTS_PER_NODE);
+
+        int moved = 0;
+        for (int i = 0; i < USERS; i++) {
+            String key = "user-" + i;
+            ClusterNode newOwner = after.ownerOf(key);
+            if (!newOwner.equals(before.ownerOf(key))) {
+                assertEquals(d, newOwner, "users only move to the new node");
+                moved++;
+            }
+        }
+
+        assertTrue(Math.abs(moved - USERS / 4) < USERS / 4 * 0.2, moved + " users moved");
+    }
+}
@@ -0,0 +1,160 @@
+package com.github.hippoom.runner.challenges.config;
+
+import org.flywaydb.core.Flyway;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Reports table sizes, index sizes and lookup latencies of the progress tables before and after
+ * {@link NativeUuidKeysMigration} and {@link NativeUuidKeysCutover}, on generated data.
+ * <p>
+ * Run with {@code jdbcUrl user password users completionsPerUser}, the last two optional. The database is
+ * cleaned first, so point it at a scratch database.
+ */
+public final class NativeUuidKeysMigrationConsole {
+
+    private static final int DEFAULT_USERS = 200_000;
+    private static final int DEFAULT_COMPLETIONS_PER_USER = 10;
+    private static final int LOOKUPS = 20_000;
+    private static final int WARM_UP_LOOKUPS = 5_000;
+    private static final int PAGE_SIZE = 20;
+    private static final double P50 = 0.50;
+    private static final double P99 = 0.99;
+    private static final double NANOS_PER_MICRO = 1_000.0;
+    private static final double BYTES_PER_MB = 1024.0 * 1024.0;
+    private static final int ARCHIVED_SHARE = 4;
+    private static final List<String> TABLES = Arrays.asList("challenge_completed", "user_progress",
+            "started_challenge", "challenge_completed_archive");
+
+    private final String url;
+    private final String user;
+    private final String password;
+    private final int users;
+    private final int completionsPerUser;
+
+    private NativeUuidKeysMigrationConsole(String[] args) {
+        this.url = args[0];
+        this.user = args[1];
+        this.password = args[2];
+        this.users = args.length > 3 ? Integer.parseInt(args[3]) : DEFAULT_USERS;
+        this.completionsPerUser = args.length > 4 ? Integer.parseInt(args[4]) : DEFAULT_COMPLETIONS_PER_USER;
+    }
+
+    public static void main(String[] args) throws Exception {
+        new NativeUuidKeysMigrationConsole(args).run();
+    }
+
+    private void run() throws Exception {
+        Flyway.configure().dataSource(url, user, password).load().clean();
+        Flyway.configure().dataSource(url, user, password).target("8").load().migrate();
+        try (Connection connection = DriverManager.getConnection(url, user, password)) {
+            System.out.printf("%d users, %d completions each%n", users, completionsPerUser);
+            populate(connection);
+            List<String> userIds = sampleUserIds(connection);
+            report(connection, "varchar(36)", userIds, "?");
+
+            long started = System.nanoTime();
+            Flyway.configure().dataSource(url, user, password)
+                    .javaMigrations(new NativeUuidKeysMigration(), new NativeUuidKeysCutover()).load().migrate();
+            System.out.printf("%nMigrated in %.1f s%n", (System.nanoTime() - started) / NANOS_PER_MICRO / 1e6);
+            report(connection, "uuid", userIds, "?::uuid");
+
+            try (Statement statement = connection.createStatement()) {
+                statement.execute("VACUUM FULL " + String.join(", ", TABLES));
+            }
+            report(connection, "uuid, after VACUUM FULL", userIds, "?::uuid");
+        }
+    }
+
+    private void populate(Connection connection) throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("CREATE TEMPORARY TABLE generated_user AS "
+                    + "SELECT gen_random_uuid()::varchar AS user_id FROM generate_series(1, " + users + ")");
+            statement.execute("INSERT INTO user_progress (user_id, completed, started_challenge, version) "
+                    + "SELECT user_id, '\\xff03'::bytea, 11, 1 FROM generated_user");
+            statement.execute("INSERT INTO started_challenge (user_id, challenge_number, when_) "
+                    + "SELECT user_id, 11, now() - random() * interval '30 days' FROM generated_user");
+            statement.execute("INSERT INTO challenge_completed (id, user_id, challenge_number, activity_id, when_) "
+                    + "SELECT gen_random_uuid(), user_id, n, gen_random_uuid(), now() - random() * interval '365 days' "
+                    + "FROM generated_user, generate_series(1, " + completionsPerUser + ") AS n");
+            statement.execute("INSERT INTO challenge_completed_archive "
+                    + "(id, user_id, challenge_number, activity_id, when_, archived_at) "
+                    + "SELECT id, user_id, challenge_number, activity_id, when_, now() FROM challenge_completed "
+                    + "WHERE challenge_number <= " + Math.max(1, completionsPerUser / ARCHIVED_SHARE));
+            statement.execute("VACUUM ANALYZE");
+        }
+    }
+
+    private List<String> sampleUserIds(Connection connection) throws SQLException {
+        List<String> userIds = new ArrayList<>();
+        try (Statement statement = connection.createStatement();
+             ResultSet rs = statement.executeQuery(
+                     "SELECT user_id FROM user_progress ORDER BY random() LIMIT " + LOOKUPS)) {
+            while (rs.next()) {
+                userIds.add(rs.getString(1));
+            }
+        }
+        return userIds;
+    }
+
+    private void report(Connection connection, String title, List<String> userIds, String parameter)
+            throws SQLException {
+        System.out.printf("%n%s%n", title);
+        try (Statement statement = connection.createStatement()) {
+            for (String table : TABLES) {
+                try (ResultSet rs = statement.executeQuery("SELECT pg_table_size('" + table + "')")) {
+                    rs.next();
+                    System.out.printf("  %-45s table %8.1f MB%n", table, rs.getLong(1) / BYTES_PER_MB);
+                }
+                try (ResultSet rs = statement.executeQuery("SELECT indexrelid::regclass, pg_relation_size(indexrelid) "
+                        + "FROM pg_index WHERE indrelid = '" + table + "'::regclass ORDER BY 1")) {
+                    while (rs.next()) {
+                        System.out.printf("    %-43s index %8.1f MB%n", rs.getString(1), rs.getLong(2) / BYTES_PER_MB);
+                    }
+                }
+            }
+        }
+        latency(connection, "progress by user", "SELECT completed, started_challenge FROM user_progress "
+                + "WHERE user_id = " + parameter, userIds);
+        latency(connection, "completion history page", "SELECT id, challenge_number, activity_id, when_ "
+                + "FROM challenge_completed WHERE user_id = " + parameter
+                + " ORDER BY when_ DESC, id DESC LIMIT " + PAGE_SIZE, userIds);
+    }
+
+    private static void latency(Connection connection, String name, String sql, List<String> userIds)
+            throws SQLException {
+        long[] latencies = new long[userIds.size()];
+        try (PreparedStatement statement = connection.prepareStatement(sql)) {
+            for (int i = 0; i < WARM_UP_LOOKUPS; i++) {
+                lookUp(statement, userIds.get(ThreadLocalRandom.current().nextInt(userIds.size())));
+            }
+            for (int i = 0; i < userIds.size(); i++) {
+                long started = System.nanoTime();
+                lookUp(statement, userIds.get(i));
+                latencies[i] = System.nanoTime() - started;
+            }
+        }
+        Arrays.sort(latencies);
+        System.out.printf("  %-45s p50 %6.0f us, p99 %6.0f us%n", name,
+                latencies[(int) (latencies.length * P50)] / NANOS_PER_MICRO,
+                latencies[(int) (latencies.length * P99)] / NANOS_PER_MICRO);
+    }
+
+    private static void lookUp(PreparedStatement statement, String userId) throws SQLException {
+        statement.setString(1, userId);
+        try (ResultSet rs = statement.executeQuery()) {
+            while (rs.next()) {
+                rs.getObject(1);
+            }
+        }
+    }
+}
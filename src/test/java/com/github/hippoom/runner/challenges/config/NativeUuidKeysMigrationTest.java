@@ -0,0 +1,125 @@
+package com.github.hippoom.runner.challenges.config;
+
+import com.github.hippoom.runner.challenges.domain.challenge.ChallengeNumber;
+import com.github.hippoom.runner.challenges.domain.challenge.progress.CompletionHistory;
+import com.github.hippoom.runner.challenges.domain.challenge.progress.UserProgress;
+import com.github.hippoom.runner.challenges.domain.challenge.progress.UserProgressLoader;
+import com.github.hippoom.runner.challenges.domain.user.UserId;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class NativeUuidKeysMigrationTest {
+
+    private static final String RUNNER = "3f2a6c1e-8b4d-4e5f-9a0b-1c2d3e4f5a6b";
+    private static final String SHOUTING_RUNNER = "A1B2C3D4-E5F6-4A7B-8C9D-0E1F2A3B4C5D";
+    private static final String COMPLETION = "5e6f7a8b-9c0d-4e1f-a2b3-c4d5e6f7a8b9";
+    private static final List<String> TABLES = Arrays.asList("started_challenge", "user_progress",
+            "user_activity_totals", "challenge_completed", "started_challenge_archive",
+            "challenge_completed_archive");
+
+    private ScratchSchema schema;
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void seedTablesOfTheLastReleaseBeforeTheMigration() {
+        schema = ScratchSchema.clean("uuid_keys_migration_test");
+        schema.migrate("8");
+        jdbcTemplate = schema.jdbcTemplate();
+        for (String userId : Arrays.asList(RUNNER, SHOUTING_RUNNER)) {
+            jdbcTemplate.update("INSERT INTO user_progress (user_id, completed, started_challenge, version) "
+                    + "VALUES (?, '\\x02'::bytea, 2, 3)", userId);
+            jdbcTemplate.update("INSERT INTO started_challenge (user_id, challenge_number, when_) "
+                    + "VALUES (?, 2, now())", userId);
+            jdbcTemplate.update("INSERT INTO user_activity_totals (user_id, latest_day, distances, durations, version) "
+                    + "VALUES (?, 20000, '\\x05'::bytea, '\\x1e'::bytea, 1)", userId);
+            jdbcTemplate.update("INSERT INTO started_challenge_archive (user_id, challenge_number, when_, archived_at) "
+                    + "VALUES (?, 3, now() - interval '1 year', now())", userId);
+        }
+        jdbcTemplate.update("INSERT INTO challenge_completed (id, user_id, challenge_number, activity_id, when_) "
+                + "VALUES (?, ?, 1, gen_random_uuid()::varchar, now())", COMPLETION, RUNNER);
+        jdbcTemplate.update("INSERT INTO challenge_completed_archive "
+                + "(id, user_id, challenge_number, activity_id, when_, archived_at) "
+                + "VALUES (gen_random_uuid()::varchar, ?, 1, gen_random_uuid()::varchar, now(), now())",
+                SHOUTING_RUNNER);
+    }
+
+    @Test
+    void expandKeepsTheOldColumnsAndFillsTheNewOnesForOldAndNewRows() {
+        schema.migrate("9", new NativeUuidKeysMigration());
+        // A node of the previous release writing after the migration
+        String lateRunner = "0c1d2e3f-4a5b-4c6d-8e7f-9a0b1c2d3e4f";
+        jdbcTemplate.update("INSERT INTO user_progress (user_id, completed, started_challenge, version) "
+                + "VALUES (?, ''::bytea, NULL, 0)", lateRunner);
+
+        for (String table : TABLES) {
+            assertEquals("character varying", schema.columnType(table, "user_id"), table);
+            assertEquals(0, count("SELECT count(*) FROM " + table + " WHERE user_id_uuid IS NULL"
+                    + " OR user_id_uuid <> user_id::uuid"), table);
+        }
+        assertProgressReadBy(new UserId(RUNNER), new UserId(lateRunner));
+        assertHistoryReadOf(RUNNER);
+    }
+
+    @Test
+    void cutoverSwapsInTheNewColumnsKeepingEveryRowAndIndex() {
+        schema.migrate("9", new NativeUuidKeysMigration());
+        List<Long> rowsBefore = rowCounts();
+
+        schema.migrate("10", new NativeUuidKeysMigration(), new NativeUuidKeysCutover());
+
+        for (String table : TABLES) {
+            assertEquals("uuid", schema.columnType(table, "user_id"), table);
+        }
+        assertEquals("uuid", schema.columnType("challenge_completed", "activity_id"));
+        assertEquals(rowsBefore, rowCounts());
+        assertEquals(0, count("SELECT count(*) FROM pg_trigger WHERE tgname LIKE '%_uuid_sync'"));
+        for (String index : Arrays.asList("user_progress_pkey", "challenge_completed_pkey",
+                "idx_challenge_completed_user_when", "idx_challenge_completed_archive_user")) {
+            assertEquals(1, count("SELECT count(*) FROM pg_indexes WHERE schemaname = current_schema() "
+                    + "AND indexname = '" + index + "'"), index);
+        }
+        // Ids stored in upper case are read back canonical, and found by ids given in either case
+        assertProgressReadBy(new UserId(RUNNER), new UserId(SHOUTING_RUNNER));
+        assertEquals(1, count("SELECT count(*) FROM user_progress WHERE user_id::text = '"
+                + new UserId(SHOUTING_RUNNER).getValue() + "'"));
+        assertHistoryReadOf(RUNNER);
+    }
+
+    private void assertProgressReadBy(UserId... userIds) {
+        Map<UserId, UserProgress> progresses =
+                new UserProgressLoader(null, jdbcTemplate).loadAll(Arrays.asList(userIds));
+        for (UserId userId : userIds) {
+            assertEquals(userId, progresses.get(userId).getUserId(), "progress of " + userId);
+        }
+        assertTrue(progresses.get(userIds[0]).hasStarted(ChallengeNumber.of(2)), "Seeded progress should be read back");
+    }
+
+    private void assertHistoryReadOf(String userId) {
+        List<String> completions = new ArrayList<>();
+        new CompletionHistory(jdbcTemplate).forEachAfter(new UserId(userId), null, 10,
+                (id, number, activityId, when) -> completions.add(id));
+        assertEquals(Collections.singletonList(COMPLETION), completions);
+    }
+
+    private List<Long> rowCounts() {
+        List<Long> counts = new ArrayList<>();
+        for (String table : TABLES) {
+            counts.add(count("SELECT count(*) FROM " + table));
+        }
+        return counts;
+    }
+
+    private long count(String sql) {
+        return jdbcTemplate.queryForObject(sql, Long.class);
+    }
+}
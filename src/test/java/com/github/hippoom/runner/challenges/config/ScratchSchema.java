@@ -0,0 +1,71 @@
+package com.github.hippoom.runner.challenges.config;
+
+import org.flywaydb.core.Flyway;
+import org.flywaydb.core.api.configuration.FluentConfiguration;
+import org.flywaydb.core.api.migration.JavaMigration;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.Properties;
+
+/**
+ * A schema of its own in the test database, for tests running migrations against seeded tables without
+ * touching the schema of the application under test.
+ */
+public final class ScratchSchema {
+
+    private final String name;
+    private final DriverManagerDataSource dataSource;
+
+    private ScratchSchema(String name, Properties properties) {
+        this.name = name;
+        String url = properties.getProperty("spring.datasource.url");
+        this.dataSource = new DriverManagerDataSource(url + (url.contains("?") ? "&" : "?") + "currentSchema=" + name,
+                properties.getProperty("spring.datasource.username"),
+                properties.getProperty("spring.datasource.password"));
+    }
+
+    /**
+     * An empty schema, cleaned of whatever a previous run left behind.
+     */
+    public static ScratchSchema clean(String name) {
+        Properties properties = new Properties();
+        try (InputStream in = ScratchSchema.class.getResourceAsStream("/application-test.properties")) {
+            properties.load(in);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        ScratchSchema schema = new ScratchSchema(name, properties);
+        schema.flyway().load().clean();
+        return schema;
+    }
+
+    /**
+     * Applies the SQL migrations up to the given version, then the given Java ones.
+     */
+    public void migrate(String target, JavaMigration... javaMigrations) {
+        flyway().target(target).javaMigrations(javaMigrations).load().migrate();
+    }
+
+    public JdbcTemplate jdbcTemplate() {
+        return new JdbcTemplate(dataSource);
+    }
+
+    public DataSource dataSource() {
+        return dataSource;
+    }
+
+    public String columnType(String table, String column) {
+        return jdbcTemplate().queryForObject("SELECT data_type FROM information_schema.columns "
+                + "WHERE table_schema = ? AND table_name = ? AND column_name = ?",
+                String.class, name, table, column);
+    }
+
+    private FluentConfiguration flyway() {
+        return Flyway.configure().dataSource(dataSource).schemas(name);
+    }
+}
@@ -0,0 +1,69 @@
+package com.github.hippoom.runner.challenges.config;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class UserProgressBackfillMigrationTest {
+
+    private static final String RUNNER = "3f2a6c1e-8b4d-4e5f-9a0b-1c2d3e4f5a6b";
+    private static final String STARTING_RUNNER = "0c1d2e3f-4a5b-4c6d-8e7f-9a0b1c2d3e4f";
+    private static final String FINISHED_RUNNER = "5e6f7a8b-9c0d-4e1f-a2b3-c4d5e6f7a8b9";
+
+    private ScratchSchema schema;
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void seedTablesOfTheReleaseBeforeUserProgress() {
+        schema = ScratchSchema.clean("user_progress_backfill_test");
+        schema.migrate("7");
+        jdbcTemplate = schema.jdbcTemplate();
+        // Challenges 1 and 3, completed twice, and 9 in the next byte; challenge 4 started
+        for (int number : new int[] {1, 3, 3, 9}) {
+            complete(RUNNER, number);
+        }
+        start(RUNNER, 4);
+        start(STARTING_RUNNER, 2);
+        complete(FINISHED_RUNNER, 0);
+    }
+
+    @Test
+    void backfillsARowPerUserWithTheBitsOfTheirCompletionsAndTheirStartedChallenge() {
+        schema.migrate("8");
+
+        assertEquals(3, jdbcTemplate.queryForObject("SELECT count(*) FROM user_progress", Integer.class));
+        Map<String, Object> runner = progressOf(RUNNER);
+        assertArrayEquals(new byte[] {0x0a, 0x02}, (byte[]) runner.get("completed"));
+        assertEquals(4, runner.get("started_challenge"));
+        assertEquals(0L, runner.get("version"));
+
+        Map<String, Object> startingRunner = progressOf(STARTING_RUNNER);
+        assertArrayEquals(new byte[0], (byte[]) startingRunner.get("completed"));
+        assertEquals(2, startingRunner.get("started_challenge"));
+
+        Map<String, Object> finishedRunner = progressOf(FINISHED_RUNNER);
+        assertArrayEquals(new byte[] {0x01}, (byte[]) finishedRunner.get("completed"));
+        assertNull(finishedRunner.get("started_challenge"));
+    }
+
+    private void complete(String userId, int number) {
+        jdbcTemplate.update("INSERT INTO challenge_completed (id, user_id, challenge_number, activity_id, when_) "
+                + "VALUES (gen_random_uuid()::varchar, ?, ?, gen_random_uuid()::varchar, now())", userId, number);
+    }
+
+    private void start(String userId, int number) {
+        jdbcTemplate.update("INSERT INTO started_challenge (user_id, challenge_number, when_) VALUES (?, ?, now())",
+                userId, number);
+    }
+
+    private Map<String, Object> progressOf(String userId) {
+        return jdbcTemplate.queryForMap("SELECT completed, started_challenge, version FROM user_progress "
+                + "WHERE user_id = ?", userId);
+    }
+}
@@ -0,0 +1,116 @@
+package com.github.hippoom.runner.challenges.domain.challenge;
+
+import com.github.hippoom.runner.challenges.domain.challenge.availability.ChallengeNotLockedSpecification;
+import com.github.hippoom.runner.challenges.domain.challenge.availability.ChallengeOpenSpecification;
+import com.github.hippoom.runner.challenges.domain.challenge.availability.PrerequisitesMetSpecification;
+import com.github.hippoom.runner.challenges.domain.challenge.availability.StartChallengeSpecification;
+import com.github.hippoom.runner.challenges.domain.challenge.catalog.ChallengeCatalog;
+import com.github.hippoom.runner.challenges.domain.challenge.catalog.ChallengeDefinition;
+import com.github.hippoom.runner.challenges.domain.challenge.progress.UserProgress;
+import com.github.hippoom.runner.challenges.domain.challenge.progress.UserProgressRecord;
+import com.github.hippoom.runner.challenges.domain.user.UserId;
+import com.github.hippoom.runner.challenges.messaging.inmemory.InMemoryProgressChangeBus;
+import com.sun.management.ThreadMXBean;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.IntSupplier;
+
+/**
+ * Reports the bytes the current thread allocates per operation on the paths resolving and checking challenges:
+ * listing a user's challenges, i.e. the catalog, the user's progress and the availability of each challenge, and
+ * starting one, i.e. resolving its number, the user's progress and validating it. The progress is built from a
+ * {@link UserProgressRecord} as the loader does, without a database, and representations are left out.
+ * <p>
+ * Run with {@code challenges completed operations}, all optional. Challenge n requires challenge n - 1 and the
+ * user completed the first ones.
+ */
+public final class ChallengeAllocationConsole {
+
+    private static final int DEFAULT_CHALLENGES = 20;
+    private static final int DEFAULT_COMPLETED = 10;
+    private static final int DEFAULT_OPERATIONS = 1_000_000;
+    private static final UserId USER = UserId.of("3f2a6c1e-8b4d-4e5f-9a0b-1c2d3e4f5a6b");
+
+    private final int completed;
+    private final int operations;
+    private final ChallengeRepository challengeRepository = new ChallengeRepository();
+    private final ChallengeOpenSpecification openSpecification;
+    private final StartChallengeSpecification startSpecification;
+    private final UserProgressRecord record = new UserProgressRecord(USER);
+    // Read by the operations so that the JIT cannot drop them
+    private int sink;
+
+    private ChallengeAllocationConsole(String[] args) {
+        int challenges = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_CHALLENGES;
+        this.completed = args.length > 1 ? Integer.parseInt(args[1]) : DEFAULT_COMPLETED;
+        this.operations = args.length > 2 ? Integer.parseInt(args[2]) : DEFAULT_OPERATIONS;
+        List<ChallengeDefinition> definitions = new ArrayList<>(challenges);
+        for (int number = 1; number <= challenges; number++) {
+            ChallengeDefinition definition = new ChallengeDefinition();
+            definition.setNumber(ChallengeNumber.of(number));
+            definition.setPrerequisites(number == 1
+                    ? Collections.emptyList() : Collections.singletonList(ChallengeNumber.of(number - 1)));
+            definitions.add(definition);
+        }
+        challengeRepository.replace(ChallengeCatalog.compile(definitions));
+        this.openSpecification = new ChallengeOpenSpecification(challengeRepository, new InMemoryProgressChangeBus());
+        this.startSpecification = new StartChallengeSpecification(Arrays.asList(new ChallengeNotLockedSpecification(),
+                openSpecification, new PrerequisitesMetSpecification(challengeRepository)));
+        for (int number = 1; number <= completed; number++) {
+            record.complete(ChallengeNumber.of(number));
+        }
+    }
+
+    public static void main(String[] args) {
+        ChallengeAllocationConsole console = new ChallengeAllocationConsole(args);
+        console.openSpecification.afterPropertiesSet();
+        try {
+            System.out.printf("%d challenges, %d completed, %d operations%n",
+                    console.challengeRepository.findAll().size(), console.completed, console.operations);
+            console.report("listing", console::list);
+            console.report("start", console::start);
+        } finally {
+            console.openSpecification.destroy();
+        }
+    }
+
+    private int list() {
+        UserProgress progress = record.toProgress();
+        List<Challenge> challenges = challengeRepository.findAll();
+        int available = 0;
+        for (int i = 0; i < challenges.size(); i++) {
+            Challenge challenge = challenges.get(i);
+            if (!progress.hasCompleted(challenge.getNumber()) && !progress.hasStarted(challenge.getNumber())
+                    && startSpecification.test(challenge, progress)) {
+                available++;
+            }
+        }
+        return available;
+    }
+
+    private int start() {
+        Challenge challenge = challengeRepository.getOrThrow(ChallengeNumber.of(completed + 1));
+        UserProgress progress = record.toProgress();
+        startSpecification.validate(challenge, progress);
+        return challenge.getNumber().getValue();
+    }
+
+    private void report(String name, IntSupplier operation) {
+        ThreadMXBean threads = (ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long thread = Thread.currentThread().getId();
+        // Warm up, so that what the JIT can avoid allocating is not counted
+        for (int i = 0; i < operations; i++) {
+            sink += operation.getAsInt();
+        }
+        long before = threads.getThreadAllocatedBytes(thread);
+        for (int i = 0; i < operations; i++) {
+            sink += operation.getAsInt();
+        }
+        long allocated = threads.getThreadAllocatedBytes(thread) - before;
+        System.out.printf("%s: %d B/op (checksum %d)%n", name, allocated / operations, sink);
+    }
+}
@@ -0,0 +1,64 @@
+package com.github.hippoom.runner.challenges.domain.challenge.availability;
+
+import com.github.hippoom.runner.challenges.domain.challenge.ChallengeNumber;
+import com.github.hippoom.runner.challenges.domain.challenge.ChallengeRepository;
+import com.github.hippoom.runner.challenges.domain.challenge.catalog.ChallengeCatalog;
+import com.github.hippoom.runner.challenges.domain.challenge.catalog.ChallengeDefinition;
+import com.github.hippoom.runner.challenges.domain.challenge.progress.ProgressChangeListener;
+import com.github.hippoom.runner.challenges.domain.challenge.progress.ProgressChanged;
+import com.github.hippoom.runner.challenges.messaging.inmemory.InMemoryProgressChangeBus;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.util.Collections;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.awaitility.Awaitility.await;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ChallengeOpenSpecificationTest {
+
+    private static final ChallengeNumber CHALLENGE = ChallengeNumber.of(1);
+
+    private final ChallengeRepository challengeRepository = new ChallengeRepository();
+    private final InMemoryProgressChangeBus bus = new InMemoryProgressChangeBus();
+    private final AtomicInteger availabilityChanges = new AtomicInteger();
+    private final ChallengeOpenSpecification specification = new ChallengeOpenSpecification(challengeRepository, bus);
+
+    @AfterEach
+    void stop() {
+        specification.destroy();
+    }
+
+    @Test
+    void tellsListenersWhenAChallengeOpens() {
+        ChallengeDefinition definition = new ChallengeDefinition();
+        definition.setNumber(CHALLENGE);
+        definition.setOpensAt(Instant.now().plusMillis(300));
+        challengeRepository.replace(ChallengeCatalog.compile(Collections.singletonList(definition)));
+        bus.subscribe(new ProgressChangeListener() {
+            @Override
+            public void onProgressChanged(ProgressChanged change) {
+            }
+
+            @Override
+            public void onChangesMissed() {
+            }
+
+            @Override
+            public void onAvailabilityChanged() {
+                availabilityChanges.incrementAndGet();
+            }
+        });
+        specification.afterPropertiesSet();
+        assertFalse(specification.test(challengeRepository.getOrThrow(CHALLENGE), null));
+
+        await().until(() -> availabilityChanges.get() == 1);
+
+        assertTrue(specification.test(challengeRepository.getOrThrow(CHALLENGE), null));
+        assertEquals(1, availabilityChanges.get());
+    }
+}
@@ -0,0 +1,83 @@
+package com.github.hippoom.runner.challenges.domain.challenge.catalog;
+
+import com.github.hippoom.runner.challenges.domain.challenge.ChallengeNumber;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ChallengeWindowsTest {
+
+    private static final Instant NOVEMBER = Instant.parse("2026-11-01T00:00:00Z");
+    private static final Instant DECEMBER = Instant.parse("2026-12-01T00:00:00Z");
+    private static final Instant JANUARY = Instant.parse("2027-01-01T00:00:00Z");
+
+    // 1 runs in November, 2 from December on, 3 until December
+    private final ChallengeWindows windows = ChallengeCatalog.compile(Arrays.asList(
+            definition(1, NOVEMBER, DECEMBER), definition(2, DECEMBER, null), definition(3, null, DECEMBER),
+            definition(4, null, null))).getWindows();
+
+    @Test
+    void findsTheChallengesOpenAtAnInstantAndUntilWhen() {
+        ChallengeWindows.Active october = windows.activeAt(NOVEMBER.minusSeconds(1));
+        assertOpen(october, 3);
+        assertEquals(NOVEMBER, october.getUntil());
+
+        ChallengeWindows.Active november = windows.activeAt(NOVEMBER.plus(Duration.ofDays(10)));
+        assertOpen(november, 1, 3);
+        assertEquals(DECEMBER, november.getUntil());
+
+        ChallengeWindows.Active later = windows.activeAt(JANUARY);
+        assertOpen(later, 2);
+        assertNull(later.getUntil());
+    }
+
+    @Test
+    void opensAndClosesOnTheBoundaryItself() {
+        assertOpen(windows.activeAt(NOVEMBER), 1, 3);
+        assertOpen(windows.activeAt(DECEMBER), 2);
+    }
+
+    @Test
+    void hasNothingToSwapWithoutWindows() {
+        ChallengeWindows.Active active = ChallengeCatalog.compile(Collections.singletonList(definition(4, null, null)))
+                .getWindows().activeAt(NOVEMBER);
+
+        assertNull(active.getUntil());
+    }
+
+    @Test
+    void rejectsAWindowClosingBeforeItOpens() {
+        InvalidChallengeCatalogException e = assertThrows(InvalidChallengeCatalogException.class,
+                () -> ChallengeCatalog.compile(Collections.singletonList(definition(1, DECEMBER, NOVEMBER))));
+
+        assertEquals("Challenge 1 closes before it opens", e.getMessage());
+    }
+
+    private static void assertOpen(ChallengeWindows.Active active, int... open) {
+        for (int number = 1; number <= 3; number++) {
+            boolean expected = Arrays.stream(open).anyMatch(Integer.valueOf(number)::equals);
+            if (expected) {
+                assertTrue(active.isOpen(ChallengeNumber.of(number)), "Challenge " + number + " should be open");
+            } else {
+                assertFalse(active.isOpen(ChallengeNumber.of(number)), "Challenge " + number + " should be closed");
+            }
+        }
+    }
+
+    private static ChallengeDefinition definition(int number, Instant opensAt, Instant closesAt) {
+        ChallengeDefinition definition = new ChallengeDefinition();
+        definition.setNumber(ChallengeNumber.of(number));
+        definition.setOpensAt(opensAt);
+        definition.setClosesAt(closesAt);
+        return definition;
+    }
+}
@@ -0,0 +1,136 @@
+package com.github.hippoom.runner.challenges.domain.challenge.catalog;
+
+import com.github.hippoom.runner.challenges.domain.activity.UserActivityTotals;
+import com.github.hippoom.runner.challenges.domain.challenge.Challenge;
+import com.github.hippoom.runner.challenges.domain.challenge.ChallengeNumber;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class FileChallengeCatalogSourceTest {
+
+    @Test
+    void compilesTheFileInTheApplicationPropertiesFormat(@TempDir Path directory) throws IOException {
+        Path file = write(directory, "catalog.properties",
+                "challenges[0].number=2",
+                "challenges[0].locked=true",
+                "challenges[1].number=1",
+                "challenges[1].minimumDistance=5.0",
+                "challenges[2].number=3",
+                "challenges[2].prerequisites=1,2");
+
+        ChallengeCatalog catalog = ChallengeCatalog.compile(
+                new FileChallengeCatalogSource(file).readIfChanged().get());
+
+        assertEquals(Arrays.asList(ChallengeNumber.of(1), ChallengeNumber.of(2), ChallengeNumber.of(3)),
+                Arrays.asList(catalog.findAll().stream().map(Challenge::getNumber).toArray()));
+        assertTrue(catalog.find(ChallengeNumber.of(2)).isLocked());
+        assertEquals(5.0, catalog.find(ChallengeNumber.of(1)).getMinimumDistance());
+        assertEquals(Arrays.asList(ChallengeNumber.of(1), ChallengeNumber.of(2)),
+                catalog.find(ChallengeNumber.of(3)).getPrerequisites());
+    }
+
+    @Test
+    void readsAgainOnlyWhenTheFileChanges(@TempDir Path directory) throws IOException {
+        Path file = write(directory, "catalog.properties", "challenges[0].number=1");
+        FileChallengeCatalogSource source = new FileChallengeCatalogSource(file);
+        ChallengeCatalog first = ChallengeCatalog.compile(source.readIfChanged().get());
+
+        assertFalse(source.readIfChanged().isPresent());
+
+        write(directory, "catalog.properties", "challenges[0].number=1", "challenges[0].locked=true");
+        Files.setLastModifiedTime(file, FileTime.fromMillis(System.currentTimeMillis() + 1000));
+        ChallengeCatalog second = ChallengeCatalog.compile(source.readIfChanged().get());
+
+        assertNotEquals(first.getVersion(), second.getVersion());
+        assertTrue(second.find(ChallengeNumber.of(1)).isLocked());
+    }
+
+    @Test
+    void versionDependsOnlyOnTheContent(@TempDir Path directory) throws IOException {
+        Path one = write(directory, "one.properties", "challenges[0].number=1", "challenges[1].number=2");
+        Path other = write(directory, "other.properties", "challenges[0].number=2", "challenges[1].number=1");
+
+        assertEquals(
+                ChallengeCatalog.compile(new FileChallengeCatalogSource(one).readIfChanged().get()).getVersion(),
+                ChallengeCatalog.compile(new FileChallengeCatalogSource(other).readIfChanged().get()).getVersion());
+    }
+
+    @Test
+    void rejectsDuplicateNumbersAndUnknownPrerequisites() {
+        ChallengeDefinition first = definition(1);
+        ChallengeDefinition duplicate = definition(1);
+        assertThrows(InvalidChallengeCatalogException.class,
+                () -> ChallengeCatalog.compile(Arrays.asList(first, duplicate)));
+
+        ChallengeDefinition dangling = definition(2);
+        dangling.setPrerequisites(Collections.singletonList(ChallengeNumber.of(3)));
+        assertThrows(InvalidChallengeCatalogException.class,
+                () -> ChallengeCatalog.compile(Arrays.asList(first, dangling)));
+    }
+
+    @Test
+    void rejectsCumulativeCriteriaWithoutAWindow() {
+        ChallengeDefinition distance = definition(1);
+        distance.setMinimumTotalDistance(50.0);
+        assertThrows(InvalidChallengeCatalogException.class,
+                () -> ChallengeCatalog.compile(Collections.singletonList(distance)));
+
+        ChallengeDefinition duration = definition(1);
+        duration.setMinimumTotalDuration(3600);
+        assertThrows(InvalidChallengeCatalogException.class,
+                () -> ChallengeCatalog.compile(Collections.singletonList(duration)));
+    }
+
+    @Test
+    void rejectsWindowsOutOfRange() {
+        ChallengeDefinition empty = definition(1);
+        empty.setMinimumTotalDistance(50.0);
+        empty.setWindowDays(0);
+        assertThrows(InvalidChallengeCatalogException.class,
+                () -> ChallengeCatalog.compile(Collections.singletonList(empty)));
+
+        ChallengeDefinition tooLong = definition(1);
+        tooLong.setMinimumTotalDistance(50.0);
+        tooLong.setWindowDays(UserActivityTotals.MAX_WINDOW_DAYS + 1);
+        assertThrows(InvalidChallengeCatalogException.class,
+                () -> ChallengeCatalog.compile(Collections.singletonList(tooLong)));
+
+        ChallengeDefinition longest = definition(1);
+        longest.setMinimumTotalDistance(50.0);
+        longest.setWindowDays(UserActivityTotals.MAX_WINDOW_DAYS);
+        assertEquals(UserActivityTotals.MAX_WINDOW_DAYS, ChallengeCatalog.compile(Collections.singletonList(longest))
+                .find(ChallengeNumber.of(1)).getWindowDays());
+    }
+
+    @Test
+    void rejectsValuesThatCannotBeBound(@TempDir Path directory) throws IOException {
+        Path file = write(directory, "catalog.properties", "challenges[0].number=one");
+
+        assertThrows(InvalidChallengeCatalogException.class,
+                () -> new FileChallengeCatalogSource(file).readIfChanged());
+    }
+
+    private static Path write(Path directory, String name, String... lines) throws IOException {
+        return Files.write(directory.resolve(name), Arrays.asList(lines), StandardCharsets.UTF_8);
+    }
+
+    private static ChallengeDefinition definition(int number) {
+        ChallengeDefinition definition = new ChallengeDefinition();
+        definition.setNumber(ChallengeNumber.of(number));
+        return definition;
+    }
+}
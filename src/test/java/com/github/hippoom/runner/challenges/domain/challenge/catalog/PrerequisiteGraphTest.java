@@ -0,0 +1,116 @@
+package com.github.hippoom.runner.challenges.domain.challenge.catalog;
+
+import com.github.hippoom.runner.challenges.domain.challenge.ChallengeNumber;
+import com.github.hippoom.runner.challenges.domain.challenge.progress.UserProgress;
+import com.github.hippoom.runner.challenges.domain.user.UserId;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PrerequisiteGraphTest {
+
+    private static final UserId USER = UserId.of("7d4b6c1e-2f3a-4b5c-8d9e-0a1b2c3d4e5f");
+
+    // 1 <- 2 <- 4, 1 <- 3 <- 4, 4 <- 5, 70 stands alone
+    private final PrerequisiteGraph graph = ChallengeCatalog.compile(Arrays.asList(
+            definition(5, 4), definition(4, 2, 3), definition(3, 1), definition(2, 1), definition(1),
+            definition(70))).getPrerequisites();
+
+    @Test
+    void ordersEveryChallengeAfterItsPrerequisites() {
+        List<ChallengeNumber> order = graph.topologicalOrder();
+
+        assertEquals(6, order.size());
+        assertTrue(order.indexOf(number(1)) < order.indexOf(number(2)));
+        assertTrue(order.indexOf(number(1)) < order.indexOf(number(3)));
+        assertTrue(order.indexOf(number(2)) < order.indexOf(number(4)));
+        assertTrue(order.indexOf(number(3)) < order.indexOf(number(4)));
+        assertTrue(order.indexOf(number(4)) < order.indexOf(number(5)));
+    }
+
+    @Test
+    void knowsTransitivePrerequisites() {
+        assertTrue(graph.requires(number(5), number(1)));
+        assertTrue(graph.requires(number(5), number(3)));
+        assertFalse(graph.requires(number(3), number(2)));
+        assertFalse(graph.requires(number(70), number(1)));
+    }
+
+    @Test
+    void tellsWhatACompletionUnlocked() {
+        assertEquals(Arrays.asList(number(2), number(3)), graph.unlockedBy(number(1), progress(1)));
+        assertEquals(Collections.emptyList(), graph.unlockedBy(number(2), progress(1, 2)));
+        assertEquals(Collections.singletonList(number(4)), graph.unlockedBy(number(3), progress(1, 2, 3)));
+    }
+
+    @Test
+    void pathListsOnlyOutstandingPrerequisitesInOrder() {
+        assertEquals(Arrays.asList(number(1), number(2), number(3), number(4), number(5)),
+                graph.pathTo(number(5), progress()));
+        assertEquals(Arrays.asList(number(3), number(4), number(5)), graph.pathTo(number(5), progress(1, 2, 70)));
+        assertEquals(Collections.emptyList(), graph.pathTo(number(70), progress(70)));
+    }
+
+    @Test
+    void checksDirectPrerequisitesAgainstProgress() {
+        assertTrue(graph.prerequisitesMet(number(4), progress(2, 3)));
+        assertFalse(graph.prerequisitesMet(number(4), progress(2, 70)));
+        assertTrue(graph.prerequisitesMet(number(70), progress()));
+    }
+
+    @Test
+    void indexesSparseNumbersByPositionInTheCatalog() {
+        PrerequisiteGraph sparse = ChallengeCatalog.compile(Arrays.asList(
+                definition(3), definition(40_000, 3), definition(65_000, 40_000))).getPrerequisites();
+
+        assertTrue(sparse.requires(number(65_000), number(3)));
+        assertFalse(sparse.requires(number(3), number(65_000)));
+        assertFalse(sparse.requires(number(64), number(3)));
+        assertEquals(Collections.singletonList(number(40_000)), sparse.unlockedBy(number(3), progress(3)));
+        assertEquals(Arrays.asList(number(40_000), number(65_000)), sparse.pathTo(number(65_000), progress(3)));
+    }
+
+    @Test
+    void rejectsCycles() {
+        InvalidChallengeCatalogException e = assertThrows(InvalidChallengeCatalogException.class,
+                () -> ChallengeCatalog.compile(Arrays.asList(
+                        definition(1), definition(2, 1, 4), definition(3, 2), definition(4, 3))));
+
+        assertEquals("Prerequisites form a cycle through challenges 2, 3, 4", e.getMessage());
+    }
+
+    private static ChallengeDefinition definition(int number, int... prerequisites) {
+        ChallengeDefinition definition = new ChallengeDefinition();
+        definition.setNumber(number(number));
+        List<ChallengeNumber> numbers = new ArrayList<>();
+        for (int prerequisite : prerequisites) {
+            numbers.add(number(prerequisite));
+        }
+        definition.setPrerequisites(numbers);
+        return definition;
+    }
+
+    private static UserProgress progress(int... completed) {
+        int max = 0;
+        for (int number : completed) {
+            max = Math.max(max, number);
+        }
+        byte[] bitmask = new byte[max / Byte.SIZE + 1];
+        for (int number : completed) {
+            bitmask[number / Byte.SIZE] |= (byte) (1 << (number % Byte.SIZE));
+        }
+        return UserProgress.of(USER, bitmask, null);
+    }
+
+    private static ChallengeNumber number(int value) {
+        return ChallengeNumber.of(value);
+    }
+}
@@ -0,0 +1,67 @@
+package com.github.hippoom.runner.challenges.domain.challenge.progress;
+
+import com.github.hippoom.runner.challenges.config.ScratchSchema;
+import com.github.hippoom.runner.challenges.domain.user.UserId;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class CompletionHistoryTest {
+
+    private static final UserId RUNNER = UserId.of("3f2a6c1e-8b4d-4e5f-9a0b-1c2d3e4f5a6b");
+    private static final Instant NOW = Instant.parse("2026-10-01T00:00:00Z");
+
+    private JdbcTemplate jdbcTemplate;
+    private CompletionHistory completionHistory;
+    private CompletionCursor lastRead;
+
+    @BeforeEach
+    void migrateAnEmptySchema() {
+        ScratchSchema schema = ScratchSchema.clean("completion_history_test");
+        schema.migrate("latest");
+        jdbcTemplate = schema.jdbcTemplate();
+        completionHistory = new CompletionHistory(jdbcTemplate);
+    }
+
+    @Test
+    void pagesThroughHotAndArchivedCompletionsNewestFirst() {
+        complete(4, NOW);
+        archive(3, NOW.minusSeconds(10));
+        complete(2, NOW.minusSeconds(20));
+        archive(1, NOW.minusSeconds(30));
+
+        assertEquals(Arrays.asList(4, 3, 2), page(null));
+        assertEquals(Collections.singletonList(1), page(lastRead));
+    }
+
+    private List<Integer> page(CompletionCursor cursor) {
+        List<Integer> numbers = new ArrayList<>();
+        completionHistory.forEachAfter(RUNNER, cursor, 3, (id, number, activityId, when) -> {
+            numbers.add(number.getValue());
+            lastRead = new CompletionCursor(when, id);
+        });
+        return numbers;
+    }
+
+    private void complete(int number, Instant when) {
+        jdbcTemplate.update("INSERT INTO challenge_completed (id, user_id, challenge_number, activity_id, when_) "
+                + "VALUES (gen_random_uuid()::varchar, ?, ?, gen_random_uuid()::varchar, ?)",
+                RUNNER.getValue(), number, Timestamp.from(when));
+    }
+
+    private void archive(int number, Instant when) {
+        jdbcTemplate.update("INSERT INTO challenge_completed_archive "
+                + "(id, user_id, challenge_number, activity_id, when_, archived_at) "
+                + "VALUES (gen_random_uuid()::varchar, ?, ?, gen_random_uuid()::varchar, ?, now())",
+                RUNNER.getValue(), number, Timestamp.from(when));
+    }
+}
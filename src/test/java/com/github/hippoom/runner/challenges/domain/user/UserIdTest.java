@@ -0,0 +1,30 @@
+package com.github.hippoom.runner.challenges.domain.user;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class UserIdTest {
+
+    private static final String CANONICAL = "a1b2c3d4-e5f6-4a7b-8c9d-0e1f2a3b4c5d";
+
+    @Test
+    void keepsACanonicalIdAsGiven() {
+        assertSame(CANONICAL, new UserId(CANONICAL).getValue());
+    }
+
+    @Test
+    void canonicalizesIdsInAnyCaseOrPadding() {
+        assertEquals(new UserId(CANONICAL), new UserId(" " + CANONICAL.toUpperCase() + " "));
+        assertEquals(CANONICAL, new UserId(CANONICAL.toUpperCase()).getValue());
+    }
+
+    @Test
+    void rejectsIdsThatAreNotUuids() {
+        assertThrows(IllegalArgumentException.class, () -> new UserId("runner"));
+        assertThrows(IllegalArgumentException.class, () -> new UserId(" "));
+        assertThrows(IllegalArgumentException.class, () -> new UserId(null));
+    }
+}
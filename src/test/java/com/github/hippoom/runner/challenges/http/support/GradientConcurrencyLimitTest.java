@@ -0,0 +1,95 @@
+package com.github.hippoom.runner.challenges.http.support;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class GradientConcurrencyLimitTest {
+
+    private static final long FAST = TimeUnit.MILLISECONDS.toNanos(10);
+    private static final long SLOW = TimeUnit.MILLISECONDS.toNanos(100);
+
+    private final GradientConcurrencyLimit limit = new GradientConcurrencyLimit(bounds(4, 10, 40), 1.5, 0.2, 100);
+
+    @Test
+    void rejectsRequestsBeyondTheLimit() {
+        for (int i = 0; i < 10; i++) {
+            assertTrue(limit.tryAcquire());
+        }
+
+        assertFalse(limit.tryAcquire());
+        limit.release(FAST);
+        assertTrue(limit.tryAcquire());
+    }
+
+    @Test
+    void growsWhileLatencyHoldsAtFullUse() {
+        saturate(FAST, 50);
+
+        assertEquals(40, limit.getLimit());
+    }
+
+    @Test
+    void shrinksWhenLatencyRises() {
+        saturate(FAST, 5);
+        int before = limit.getLimit();
+
+        saturate(SLOW, 5);
+
+        assertTrue(limit.getLimit() < before, limit.getLimit() + " should be below " + before);
+    }
+
+    @Test
+    void neverDropsBelowTheMinimum() {
+        saturate(FAST, 5);
+        for (long rtt = SLOW; rtt < SLOW * 1000; rtt *= 2) {
+            saturate(rtt, 1);
+        }
+
+        assertEquals(4, limit.getLimit());
+    }
+
+    @Test
+    void ignoresLatencyWhileWellBelowTheLimit() {
+        limit.tryAcquire();
+        limit.release(FAST);
+        limit.tryAcquire();
+        limit.release(SLOW * 10);
+
+        assertEquals(10, limit.getLimit());
+    }
+
+    @Test
+    void rejectsInconsistentBounds() {
+        assertThrows(IllegalArgumentException.class,
+                () -> new GradientConcurrencyLimit(bounds(10, 5, 40), 1.5, 0.2, 100));
+    }
+
+    /**
+     * Fills the limit, then completes every request with the given latency, a number of times.
+     */
+    private void saturate(long rttNanos, int rounds) {
+        for (int round = 0; round < rounds; round++) {
+            int acquired = 0;
+            while (limit.tryAcquire()) {
+                acquired++;
+            }
+            for (int i = 0; i < acquired; i++) {
+                limit.release(rttNanos);
+            }
+        }
+    }
+
+    private static ConcurrencyLimitProperties.Limit bounds(int min, int initial, int max) {
+        ConcurrencyLimitProperties.Limit bounds = new ConcurrencyLimitProperties.Limit();
+        bounds.setMin(min);
+        bounds.setInitial(initial);
+        bounds.setMax(max);
+        return bounds;
+    }
+}
@@ -0,0 +1,73 @@
+package com.github.hippoom.runner.challenges.http.support;
+
+import com.github.hippoom.runner.challenges.domain.user.UserId;
+import com.github.hippoom.runner.challenges.http.representation.ProgressEventRepresentation;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ProgressStreamTest {
+
+    private static final UserId USER = UserId.of("7d4b6c1e-2f3a-4b5c-8d9e-0a1b2c3d4e5f");
+
+    private final List<ProgressEventRepresentation> events = new ArrayList<>();
+    private final ProgressStream stream = new ProgressStream(USER, new SseEmitter() {
+        @Override
+        public void send(SseEventBuilder builder) {
+            for (ResponseBodyEmitter.DataWithMediaType data : builder.build()) {
+                if (data.getData() instanceof ProgressEventRepresentation) {
+                    events.add((ProgressEventRepresentation) data.getData());
+                }
+            }
+        }
+    }, 8, Runnable::run);
+
+    @Test
+    void tellsWhatACompletionUnlocked() {
+        assertTrue(stream.resume(state(0, 1, bits(), bits(1, 2)), null));
+
+        assertTrue(stream.update(state(1, null, bits(1), bits(2, 3, 4))));
+
+        assertEquals(2, events.size());
+        ProgressEventRepresentation delta = events.get(1);
+        assertEquals(1, delta.getStopped());
+        assertEquals(Collections.singletonList(1), delta.getCompleted());
+        assertEquals(List.of(3, 4), delta.getUnlocked());
+        assertEquals(List.of(3, 4), delta.getAvailable());
+    }
+
+    @Test
+    void sendsNothingForAStateAlreadySent() {
+        ProgressState state = state(3, null, bits(1), bits(3));
+        assertTrue(stream.resume(state, null));
+
+        assertTrue(stream.update(state));
+
+        assertEquals(1, events.size());
+    }
+
+    /**
+     * A state whose completions unlocked the available challenges above 2.
+     */
+    private static ProgressState state(long version, Integer started, BitSet completed, BitSet available) {
+        BitSet unlocked = (BitSet) available.clone();
+        unlocked.clear(0, 3);
+        return new ProgressState(version, 0, started, completed, available, unlocked);
+    }
+
+    private static BitSet bits(int... numbers) {
+        BitSet bits = new BitSet();
+        for (int number : numbers) {
+            bits.set(number);
+        }
+        return bits;
+    }
+}
@@ -0,0 +1,106 @@
+package com.github.hippoom.runner.challenges.messaging.postgres;
+
+import com.github.hippoom.runner.challenges.domain.challenge.progress.ProgressChangeListener;
+import com.github.hippoom.runner.challenges.domain.challenge.progress.ProgressChanged;
+import com.github.hippoom.runner.challenges.domain.user.UserId;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ResultSetExtractor;
+
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import static java.util.Arrays.asList;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PostgresProgressChangeBusTest {
+
+    private static final UserId RUNNER = UserId.of("3f2a6c1e-8b4d-4e5f-9a0b-1c2d3e4f5a6b");
+    private static final UserId OTHER_RUNNER = UserId.of("0c1d2e3f-4a5b-4c6d-8e7f-9a0b1c2d3e4f");
+
+    private final NotifyingJdbcTemplate jdbcTemplate = new NotifyingJdbcTemplate();
+    private final List<ProgressChanged> dispatched = new ArrayList<>();
+    private PostgresProgressChangeBus bus;
+
+    @BeforeEach
+    void createBus() {
+        bus = new PostgresProgressChangeBus(jdbcTemplate, () -> {
+            throw new SQLException("Not listening in this test");
+        }, "progress_changes", Duration.ofSeconds(1), Duration.ofSeconds(1));
+        bus.subscribe(new ProgressChangeListener() {
+            @Override
+            public void onProgressChanged(ProgressChanged change) {
+                dispatched.add(change);
+            }
+
+            @Override
+            public void onChangesMissed() {
+            }
+
+            @Override
+            public void onAvailabilityChanged() {
+            }
+        });
+    }
+
+    @Test
+    void keepsChangesPendingUntilTheyAreSent() {
+        bus.publish(new ProgressChanged(RUNNER, 1));
+        jdbcTemplate.failing = true;
+
+        assertThrows(DataAccessResourceFailureException.class, bus::flush);
+
+        jdbcTemplate.failing = false;
+        bus.flush();
+        assertEquals(1, jdbcTemplate.payloads.size());
+        assertTrue(jdbcTemplate.payloads.get(0).endsWith("\n1 " + RUNNER.getValue()));
+
+        bus.flush();
+        assertEquals(1, jdbcTemplate.payloads.size(), "Sent changes should not be sent again");
+    }
+
+    @Test
+    void sendsTheHighestVersionOfAUser() {
+        bus.publish(new ProgressChanged(RUNNER, 1));
+        bus.publish(new ProgressChanged(RUNNER, 3));
+        bus.publish(new ProgressChanged(RUNNER, 2));
+
+        bus.flush();
+
+        assertTrue(jdbcTemplate.payloads.get(0).endsWith("\n3 " + RUNNER.getValue()));
+    }
+
+    @Test
+    void skipsMalformedChangesOfOtherNodes() {
+        bus.received(String.join("\n", "other-node",
+                "4 " + RUNNER.getValue(),
+                "garbage",
+                "5 not-a-user-id",
+                "6 " + OTHER_RUNNER.getValue()));
+
+        assertEquals(asList(new ProgressChanged(RUNNER, 4), new ProgressChanged(OTHER_RUNNER, 6)), dispatched);
+    }
+
+    /**
+     * Records the payloads of {@code pg_notify}, or fails like a lost connection.
+     */
+    private static final class NotifyingJdbcTemplate extends JdbcTemplate {
+        private final List<String> payloads = new ArrayList<>();
+        private boolean failing;
+
+        @Override
+        public <T> T query(String sql, ResultSetExtractor<T> extractor, Object... args) {
+            if (failing) {
+                throw new DataAccessResourceFailureException("Connection refused");
+            }
+            payloads.add((String) args[1]);
+            return null;
+        }
+    }
+}
@@ -0,0 +1,140 @@
+package com.github.hippoom.runner.challenges.messaging.wal;
+
+import com.github.hippoom.runner.challenges.domain.activity.UserActivity;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.util.unit.DataSize;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static com.github.hippoom.runner.challenges.domain.activity.UserActivityTestDataBuilder.aUserActivity;
+import static org.awaitility.Awaitility.await;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class DurableActivityQueueTest {
+
+    private static final int MAX_ATTEMPTS = 2;
+
+    @TempDir
+    private Path directory;
+
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final ActivityLogProperties properties = new ActivityLogProperties();
+    private final List<UserActivity> processed = new CopyOnWriteArrayList<>();
+    private final AtomicBoolean failing = new AtomicBoolean();
+    private final AtomicInteger attempts = new AtomicInteger();
+    private DurableActivityQueue queue;
+
+    @BeforeEach
+    void configure() {
+        properties.setDirectory(directory);
+        properties.setSegmentSize(DataSize.ofKilobytes(64));
+        properties.setMaxSegments(4);
+        properties.setFlushInterval(Duration.ofMillis(10));
+        properties.setCheckpointInterval(Duration.ofMillis(10));
+        properties.setConsumers(2);
+        properties.setMaxAttempts(MAX_ATTEMPTS);
+        properties.setRetryBackoff(Duration.ofMillis(1));
+    }
+
+    @AfterEach
+    void close() throws Exception {
+        if (queue != null) {
+            queue.destroy();
+        }
+    }
+
+    @Test
+    void logsActivitiesWithTheirId() {
+        UserActivity activity = aUserActivity().withDistance(5.0).withDuration(1800).build();
+
+        UserActivity decoded = ActivityCodec.decode(ActivityCodec.encode(activity));
+
+        assertEquals(activity.getId(), decoded.getId());
+        assertEquals(activity, decoded);
+    }
+
+    @Test
+    void derivesTheIdOfActivitiesLoggedWithoutOne() throws IOException {
+        UserActivity activity = aUserActivity().build();
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeByte(1);
+            out.writeUTF(activity.getUserId().getValue());
+            out.writeBoolean(true);
+            out.writeLong(activity.getWhen().getEpochSecond());
+            out.writeInt(activity.getWhen().getNano());
+            out.writeBoolean(false);
+            out.writeBoolean(false);
+        }
+
+        assertEquals(activity.getId(), ActivityCodec.decode(bytes.toByteArray()).getId());
+    }
+
+    @Test
+    void parksAnActivityThatKeepsFailingAndRedrivesIt() throws Exception {
+        failing.set(true);
+        start();
+        UserActivity activity = aUserActivity().at(Instant.now()).build();
+
+        assertTrue(queue.append(activity));
+        await().until(() -> parked() == 1);
+        assertEquals(MAX_ATTEMPTS, attempts.get());
+        assertTrue(processed.isEmpty());
+
+        failing.set(false);
+        assertEquals(1, queue.redriveDeadLetters());
+        await().until(() -> processed.size() == 1);
+        assertEquals(activity.getId(), processed.get(0).getId());
+        assertEquals(0, queue.redriveDeadLetters());
+    }
+
+    @Test
+    void parksRecordsThatCannotBeRead() throws Exception {
+        try (WriteAheadLog log = WriteAheadLog.open(directory, (int) properties.getSegmentSize().toBytes(),
+                properties.getMaxSegments())) {
+            log.append(new byte[] {Byte.MAX_VALUE});
+        }
+        start();
+        UserActivity readable = aUserActivity().build();
+        queue.append(readable);
+
+        await().until(() -> processed.size() == 1);
+        assertEquals(1, parked());
+        assertEquals(readable.getId(), processed.get(0).getId());
+
+        // Still unreadable, so parked again
+        assertEquals(1, queue.redriveDeadLetters());
+        await().until(() -> parked() == 2);
+        assertEquals(1, processed.size());
+    }
+
+    private void start() throws IOException {
+        queue = new DurableActivityQueue(properties, meterRegistry);
+        queue.start(activity -> {
+            attempts.incrementAndGet();
+            if (failing.get()) {
+                throw new IllegalStateException("Database down");
+            }
+            processed.add(activity);
+        });
+    }
+
+    private double parked() {
+        return meterRegistry.get("challenges.activity-log.failures").tag("outcome", "parked").counter().count();
+    }
+}
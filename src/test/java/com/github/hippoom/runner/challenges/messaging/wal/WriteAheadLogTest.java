@@ -0,0 +1,145 @@
+package com.github.hippoom.runner.challenges.messaging.wal;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static java.util.Arrays.asList;
+import static java.util.Collections.singletonList;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class WriteAheadLogTest {
+
+    private static final int SEGMENT_SIZE = 64;
+
+    @TempDir
+    private Path directory;
+
+    @Test
+    void readsRecordsInTheOrderTheyWereAppended() throws IOException {
+        try (WriteAheadLog log = WriteAheadLog.open(directory, SEGMENT_SIZE, 4)) {
+            append(log, "first", "second");
+            WriteAheadLog.Reader reader = log.reader(log.getCheckpoint());
+
+            assertEquals(asList("first", "second"), readAll(reader));
+
+            append(log, "third");
+            assertEquals(singletonList("third"), readAll(reader));
+        }
+    }
+
+    @Test
+    void resumesFromTheCheckpointAfterReopening() throws IOException {
+        long checkpoint;
+        try (WriteAheadLog log = WriteAheadLog.open(directory, SEGMENT_SIZE, 4)) {
+            checkpoint = append(log, "consumed");
+            append(log, "pending");
+            log.checkpoint(checkpoint);
+        }
+
+        try (WriteAheadLog log = WriteAheadLog.open(directory, SEGMENT_SIZE, 4)) {
+            assertEquals(checkpoint, log.getCheckpoint());
+            assertEquals(singletonList("pending"), readAll(log.reader(log.getCheckpoint())));
+
+            append(log, "next");
+            assertEquals(asList("pending", "next"), readAll(log.reader(log.getCheckpoint())));
+        }
+    }
+
+    @Test
+    void ignoresATornRecordAtTheEnd() throws IOException {
+        long torn;
+        try (WriteAheadLog log = WriteAheadLog.open(directory, SEGMENT_SIZE, 4)) {
+            torn = append(log, "intact");
+            append(log, "torn");
+        }
+        try (FileChannel segment = FileChannel.open(segments().get(0), StandardOpenOption.WRITE)) {
+            segment.write(ByteBuffer.wrap(new byte[] {'x'}), torn + WriteAheadLog.HEADER_SIZE);
+        }
+
+        try (WriteAheadLog log = WriteAheadLog.open(directory, SEGMENT_SIZE, 4)) {
+            assertEquals(torn, log.getWritePosition());
+            append(log, "rewritten");
+            assertEquals(asList("intact", "rewritten"), readAll(log.reader(log.getCheckpoint())));
+        }
+    }
+
+    @Test
+    void rollsOverToNewSegmentsAndRecyclesConsumedOnes() throws IOException {
+        try (WriteAheadLog log = WriteAheadLog.open(directory, SEGMENT_SIZE, 8)) {
+            List<String> appended = new ArrayList<>();
+            for (int i = 0; i < 10; i++) {
+                appended.add("record-" + i);
+                append(log, "record-" + i);
+            }
+            WriteAheadLog.Reader reader = log.reader(log.getCheckpoint());
+            assertEquals(appended, readAll(reader));
+            assertTrue(segments().size() > 2);
+
+            log.checkpoint(reader.position());
+
+            assertEquals(1, segments().size());
+            append(log, "after");
+            assertEquals(singletonList("after"), readAll(reader));
+        }
+
+        // Recycled segments still hold old records, which must not be mistaken for new ones
+        try (WriteAheadLog log = WriteAheadLog.open(directory, SEGMENT_SIZE, 8)) {
+            assertEquals(singletonList("after"), readAll(log.reader(log.getCheckpoint())));
+        }
+    }
+
+    @Test
+    void refusesRecordsOnceTheUnconsumedOnesSpanTheMaximumSegments() throws IOException {
+        try (WriteAheadLog log = WriteAheadLog.open(directory, SEGMENT_SIZE, 2)) {
+            long end = 0;
+            while (end >= 0) {
+                end = log.append(bytes("filling"));
+            }
+            WriteAheadLog.Reader reader = log.reader(log.getCheckpoint());
+            readAll(reader);
+
+            log.checkpoint(reader.position());
+
+            assertTrue(log.append(bytes("room again")) > 0);
+        }
+    }
+
+    private static long append(WriteAheadLog log, String... records) {
+        long end = -1;
+        for (String record : records) {
+            end = log.append(bytes(record));
+        }
+        return end;
+    }
+
+    private static List<String> readAll(WriteAheadLog.Reader reader) {
+        List<String> records = new ArrayList<>();
+        for (byte[] record = reader.next(); record != null; record = reader.next()) {
+            records.add(new String(record, StandardCharsets.UTF_8));
+        }
+        return records;
+    }
+
+    private List<Path> segments() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(file -> file.toString().endsWith(".segment")).sorted().collect(Collectors.toList());
+        }
+    }
+
+    private static byte[] bytes(String record) {
+        return record.getBytes(StandardCharsets.UTF_8);
+    }
+}
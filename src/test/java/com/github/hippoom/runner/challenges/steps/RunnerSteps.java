@@ -1,6 +1,7 @@
 package com.github.hippoom.runner.challenges.steps;
 
 import io.cucumber.java.Before;
+import io.micrometer.core.instrument.MeterRegistry;
 import io.cucumber.java.en.Given;
 import io.cucumber.java.en.Then;
 import io.cucumber.java.en.When;
@@ -13,18 +14,46 @@ import org.springframework.http.HttpEntity;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpMethod;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.jdbc.core.JdbcTemplate;
+import com.github.hippoom.runner.challenges.config.ClusterProperties;
 import com.github.hippoom.runner.challenges.domain.activity.UserActivity;
 import com.github.hippoom.runner.challenges.domain.user.UserId;
 import com.github.hippoom.runner.challenges.http.support.TestSessionTokenService;
+import com.github.hippoom.runner.challenges.messaging.http.HttpActivityForwarder;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
-
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.net.HttpURLConnection;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.Types;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.UUID;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPInputStream;
+import javax.sql.DataSource;
 
 import static com.github.hippoom.runner.challenges.domain.activity.UserActivityTestDataBuilder.aUserActivity;
 import static com.github.hippoom.runner.challenges.domain.user.UserIdTestDataBuilder.aUserId;
+import static org.awaitility.Awaitility.await;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 
@@ -53,9 +82,36 @@ public class RunnerSteps {
     @Autowired
     private TestSessionTokenService testSessionTokenService;
 
+    @Autowired
+    private ClusterProperties clusterProperties;
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
     private ResponseEntity<String> challengesResponse;
     private ResponseEntity<String> startChallengeResponse;
     private int startedChallengeNumber;
+    private ResponseEntity<String> enrollmentResponse;
+    private ResponseEntity<String> forwardResponse;
+    private ResponseEntity<String> teamChallengeResponse;
+    private int clubSize;
+    private String teamId;
+    private UserId teammateId;
+    private List<JsonNode> completionPages;
+    private String exportFormat;
+    private List<String> exportedLines;
+    private String importBody;
+    private List<JsonNode> importEvents;
+    private double retriedGroupsBefore;
+    private HttpURLConnection progressStream;
+    private List<List<String>> challengePages;
+    private final BlockingQueue<String> progressEvents = new LinkedBlockingQueue<>();
     private String currentSessionToken;
     private UserId currentUserId;
 
@@ -75,6 +131,16 @@ public class RunnerSteps {
         return headers;
     }
 
+    /**
+     * Creates HTTP headers of a JSON request made by another node of the cluster.
+     */
+    private HttpHeaders createClusterHeaders() {
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.APPLICATION_JSON);
+        headers.set(HttpActivityForwarder.SECRET_HEADER, clusterProperties.getSecret());
+        return headers;
+    }
+
     /**
      * Makes HTTP GET request to challenges endpoint and returns the response.
      */
@@ -127,6 +193,83 @@ public class RunnerSteps {
                    "Challenges should be sorted in ascending order by number");
     }
 
+    @When("I list my challenges {int} at a time")
+    public void iListMyChallengesAtATime(int limit) throws Exception {
+        challengePages = new ArrayList<>();
+        String url = "http://localhost:" + mainPort + CHALLENGES_ENDPOINT + "?limit=" + limit;
+        while (url != null) {
+            challengesResponse = restTemplate.exchange(url, HttpMethod.GET,
+                    new HttpEntity<>(createAuthenticatedHeaders()), String.class);
+            JsonNode page = objectMapper.readTree(challengesResponse.getBody());
+            challengePages.add(numbersIn(page));
+            JsonNode next = page.path("_links").path("next").path("href");
+            url = next.isMissingNode() ? null : next.asText();
+        }
+    }
+
+    @When("I list my {string} challenges")
+    public void iListMyChallengesWithStatus(String status) {
+        challengesResponse = restTemplate.exchange(
+                "http://localhost:" + mainPort + CHALLENGES_ENDPOINT + "?status=" + status, HttpMethod.GET,
+                new HttpEntity<>(createAuthenticatedHeaders()), String.class);
+    }
+
+    @When("I list my {string} challenges numbered from {int} to {int}")
+    public void iListMyChallengesWithStatusBetween(String status, int from, int to) {
+        challengesResponse = restTemplate.exchange(
+                "http://localhost:" + mainPort + CHALLENGES_ENDPOINT + "?status=" + status + "&from=" + from
+                        + "&to=" + to, HttpMethod.GET, new HttpEntity<>(createAuthenticatedHeaders()), String.class);
+    }
+
+    @Then("I should get the pages {string}")
+    public void iShouldGetThePages(String pages) {
+        List<String> actual = new ArrayList<>();
+        for (List<String> page : challengePages) {
+            actual.add(String.join(", ", page));
+        }
+        assertEquals(pages, String.join(" | ", actual), "Pages should list the challenges in order");
+    }
+
+    @Then("I should see the challenges {string}")
+    public void iShouldSeeTheChallenges(String numbers) throws Exception {
+        assertEquals(HttpStatus.OK, challengesResponse.getStatusCode(),
+                "Challenges endpoint should return HTTP 200");
+        assertEquals(numbers, String.join(", ", numbersIn(objectMapper.readTree(challengesResponse.getBody()))),
+                "Only matching challenges should be listed");
+    }
+
+    private static List<String> numbersIn(JsonNode page) {
+        List<String> numbers = new ArrayList<>();
+        for (JsonNode challenge : page.path("_embedded").path("challenges")) {
+            numbers.add(challenge.get("number").asText());
+        }
+        return numbers;
+    }
+
+    @When("I ask for my path to the challenge {int}")
+    public void iAskForMyPathToTheChallenge(int challengeNumber) {
+        String pathUrl = "http://localhost:" + mainPort + CHALLENGES_ENDPOINT + "/" + challengeNumber + "/path";
+        HttpEntity<String> entity = new HttpEntity<>(createAuthenticatedHeaders());
+        challengesResponse = restTemplate.exchange(pathUrl, HttpMethod.GET, entity, String.class);
+    }
+
+    @Then("my path should go through the challenges {string}")
+    public void myPathShouldGoThroughTheChallenges(String numbers) throws Exception {
+        assertEquals(HttpStatus.OK, challengesResponse.getStatusCode(), "Path endpoint should return HTTP 200");
+
+        List<String> steps = new ArrayList<>();
+        for (JsonNode step : objectMapper.readTree(challengesResponse.getBody()).get("steps")) {
+            steps.add(step.get("number").asText());
+        }
+        assertEquals(numbers, String.join(", ", steps), "Path should list outstanding challenges in order");
+    }
+
+    @Then("my path should be blocked by a locked challenge")
+    public void myPathShouldBeBlockedByALockedChallenge() throws Exception {
+        assertFalse(objectMapper.readTree(challengesResponse.getBody()).get("is_reachable").asBoolean(),
+                "Path through a locked challenge should not be reachable");
+    }
+
     @When("I select the challenge {int} to start")
     public void iSelectTheChallengeToStart(int challengeNumber) {
         this.startedChallengeNumber = challengeNumber;
@@ -148,6 +291,68 @@ public class RunnerSteps {
                 "Challenge " + startedChallengeNumber + " should be marked as started");
     }
 
+    @When("my running club of {int} runners is enrolled in the challenge {int}")
+    public void myRunningClubIsEnrolledInTheChallenge(int runners, int challengeNumber) {
+        this.startedChallengeNumber = challengeNumber;
+        this.clubSize = runners;
+        ObjectNode request = objectMapper.createObjectNode();
+        ArrayNode userIds = request.putArray("user_ids");
+        userIds.add(currentUserId.getValue());
+        for (int i = 1; i < runners; i++) {
+            userIds.add(aUserId().build().getValue());
+        }
+        String enrollmentsUrl = "http://localhost:" + managementPort + "/actuator/enrollments/" + challengeNumber;
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.APPLICATION_JSON);
+        enrollmentResponse = restTemplate.exchange(enrollmentsUrl, HttpMethod.POST,
+                new HttpEntity<>(request.toString(), headers), String.class);
+    }
+
+    @When("a cohort with me and the user {string} is enrolled in the challenge {int}")
+    public void aCohortWithMeAndTheUserIsEnrolledInTheChallenge(String userId, int challengeNumber) {
+        ObjectNode request = objectMapper.createObjectNode();
+        request.putArray("user_ids").add(currentUserId.getValue()).add(userId);
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.APPLICATION_JSON);
+        enrollmentResponse = restTemplate.exchange(
+                "http://localhost:" + managementPort + "/actuator/enrollments/" + challengeNumber, HttpMethod.POST,
+                new HttpEntity<>(request.toString(), headers), String.class);
+    }
+
+    @Then("the enrollment should be rejected as invalid")
+    public void theEnrollmentShouldBeRejectedAsInvalid() {
+        assertEquals(HttpStatus.BAD_REQUEST, enrollmentResponse.getStatusCode(),
+                "Enrollments endpoint should return HTTP 400");
+    }
+
+    @Then("the challenge {int} should not be marked as started")
+    public void theChallengeShouldNotBeMarkedAsStarted(int challengeNumber) throws Exception {
+        JsonNode challenge = findChallengeInResponse(
+                objectMapper.readTree(getChallengesResponse().getBody()), challengeNumber);
+        assertNotNull(challenge, "Challenge " + challengeNumber + " should be found in the response");
+        assertFalse(challenge.get("is_started").asBoolean(),
+                "Challenge " + challengeNumber + " should not be marked as started");
+    }
+
+    @Then("everyone in the club should have started the challenge")
+    public void everyoneInTheClubShouldHaveStartedTheChallenge() throws Exception {
+        assertEquals(HttpStatus.OK, enrollmentResponse.getStatusCode(),
+                "Enrollments endpoint should return HTTP 200");
+
+        JsonNode enrollmentJson = objectMapper.readTree(enrollmentResponse.getBody());
+        assertEquals(clubSize, enrollmentJson.get("started").asInt(), "Every runner should be started");
+        for (JsonNode outcome : enrollmentJson.get("outcomes")) {
+            assertEquals("started", outcome.get("status").asText(), "Outcome of " + outcome.get("user_id"));
+        }
+
+        JsonNode responseJson = objectMapper.readTree(getChallengesResponse().getBody());
+        JsonNode startedChallenge = findChallengeInResponse(responseJson, startedChallengeNumber);
+        assertNotNull(startedChallenge,
+                "Challenge " + startedChallengeNumber + " should be found in the response");
+        assertTrue(startedChallenge.get("is_started").asBoolean(),
+                "Challenge " + startedChallengeNumber + " should be marked as started");
+    }
+
     @When("I upload a running activity")
     public void iUploadARunningActivity() {
         // Create and publish UserActivity event using test data builder
@@ -176,6 +381,313 @@ public class RunnerSteps {
         eventPublisher.publishEvent(userActivity);
     }
 
+    @When("I upload a running activity of {double} km")
+    public void iUploadARunningActivityOfKm(double distance) {
+        UserActivity userActivity = aUserActivity()
+                .withUserId(currentUserId)
+                .withDistance(distance)
+                .withDuration(1800) // 30 minutes
+                .build();
+        eventPublisher.publishEvent(userActivity);
+    }
+
+    @When("I upload a running activity of {double} km done before I started the challenge")
+    public void iUploadARunningActivityOfKmDoneBeforeIStartedTheChallenge(double distance) {
+        UserActivity userActivity = aUserActivity()
+                .withUserId(currentUserId)
+                .at(Instant.now().minus(1, ChronoUnit.HOURS))
+                .withDistance(distance)
+                .withDuration(1800) // 30 minutes
+                .build();
+        eventPublisher.publishEvent(userActivity);
+    }
+
+    @When("my running activity of {double} km is delivered twice")
+    public void myRunningActivityOfKmIsDeliveredTwice(double distance) {
+        UserActivity userActivity = aUserActivity()
+                .withUserId(currentUserId)
+                .withDistance(distance)
+                .withDuration(1800) // 30 minutes
+                .build();
+        eventPublisher.publishEvent(userActivity);
+        eventPublisher.publishEvent(userActivity);
+    }
+
+    @When("another node forwards my running activity")
+    public void anotherNodeForwardsMyRunningActivity() throws Exception {
+        forwardMyRunningActivity(createClusterHeaders());
+        assertEquals(HttpStatus.ACCEPTED, forwardResponse.getStatusCode(), "Forwarded activity should be accepted");
+    }
+
+    @When("my running activity is forwarded without the cluster secret")
+    public void myRunningActivityIsForwardedWithoutTheClusterSecret() throws Exception {
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.APPLICATION_JSON);
+        forwardMyRunningActivity(headers);
+    }
+
+    @Then("the forwarded activity should be forbidden")
+    public void theForwardedActivityShouldBeForbidden() {
+        assertEquals(HttpStatus.FORBIDDEN, forwardResponse.getStatusCode(),
+                "Activities forwarded without the cluster secret should be rejected");
+    }
+
+    private void forwardMyRunningActivity(HttpHeaders headers) throws Exception {
+        UserActivity userActivity = aUserActivity().withUserId(currentUserId).build();
+        forwardResponse = restTemplate.exchange("http://localhost:" + mainPort + HttpActivityForwarder.PATH,
+                HttpMethod.POST, new HttpEntity<>(objectMapper.writeValueAsString(userActivity), headers),
+                String.class);
+    }
+
+    @Given("my running club has a team challenge of {double} km")
+    public void myRunningClubHasATeamChallengeOfKm(double targetDistance) {
+        createTeamChallenge(targetDistance, Instant.now().plus(30, ChronoUnit.DAYS));
+        assertEquals(HttpStatus.CREATED, teamChallengeResponse.getStatusCode(), "Team challenge should be created");
+    }
+
+    @When("my running club creates a team challenge of {double} km without an end")
+    public void myRunningClubCreatesATeamChallengeOfKmWithoutAnEnd(double targetDistance) {
+        createTeamChallenge(targetDistance, null);
+    }
+
+    @Then("the team challenge should be rejected as invalid")
+    public void theTeamChallengeShouldBeRejectedAsInvalid() {
+        assertEquals(HttpStatus.BAD_REQUEST, teamChallengeResponse.getStatusCode(),
+                "Teams endpoint should return HTTP 400");
+    }
+
+    private void createTeamChallenge(double targetDistance, Instant endsAt) {
+        teamId = UUID.randomUUID().toString();
+        teammateId = aUserId().build();
+        String teamUrl = "http://localhost:" + managementPort + "/actuator/teams/" + teamId;
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.APPLICATION_JSON);
+
+        ObjectNode members = objectMapper.createObjectNode();
+        members.putArray("user_ids").add(currentUserId.getValue()).add(teammateId.getValue());
+        restTemplate.exchange(teamUrl + "/members", HttpMethod.PUT,
+                new HttpEntity<>(members.toString(), headers), String.class);
+
+        ObjectNode challenge = objectMapper.createObjectNode();
+        challenge.put("target_distance", targetDistance);
+        challenge.put("starts_at", Instant.now().minus(1, ChronoUnit.DAYS).toString());
+        if (endsAt != null) {
+            challenge.put("ends_at", endsAt.toString());
+        }
+        teamChallengeResponse = restTemplate.exchange(teamUrl + "/challenges", HttpMethod.POST,
+                new HttpEntity<>(challenge.toString(), headers), String.class);
+    }
+
+    @When("a teammate uploads a running activity of {double} km")
+    public void aTeammateUploadsARunningActivityOfKm(double distance) {
+        UserActivity userActivity = aUserActivity()
+                .withUserId(teammateId)
+                .withDistance(distance)
+                .withDuration(1800) // 30 minutes
+                .build();
+        eventPublisher.publishEvent(userActivity);
+    }
+
+    @Then("the team challenge should be completed with {double} km")
+    public void theTeamChallengeShouldBeCompletedWithKm(double distance) {
+        String challengesUrl = "http://localhost:" + managementPort + "/actuator/teams/" + teamId + "/challenges";
+        await().atMost(Duration.ofSeconds(5)).untilAsserted(() -> {
+            JsonNode challenge = objectMapper.readTree(
+                    restTemplate.getForEntity(challengesUrl, String.class).getBody()).get(0);
+            assertTrue(challenge.get("is_completed").asBoolean(), "Team challenge should be completed");
+            assertEquals(distance, challenge.get("distance").asDouble(), ASSERTION_DELTA,
+                    "Team distance should add up the members' activities");
+        });
+    }
+
+    @Then("the challenge should show at least {int} runner who completed it")
+    public void theChallengeShouldShowAtLeastRunnersWhoCompletedIt(int runners) {
+        String statsUrl = "http://localhost:" + mainPort + "/api/challenges/" + startedChallengeNumber + "/stats";
+        await().atMost(Duration.ofSeconds(5)).untilAsserted(() -> {
+            JsonNode stats = objectMapper.readTree(restTemplate.getForEntity(statsUrl, String.class).getBody());
+            assertTrue(stats.get("runners_completed").asLong() >= runners,
+                    "Challenge " + startedChallengeNumber + " should count the runners who completed it");
+
+            JsonNode challenge = findChallengeInResponse(
+                    objectMapper.readTree(getChallengesResponse().getBody()), startedChallengeNumber);
+            assertTrue(challenge.get("runners_completed").asLong() >= runners,
+                    "Challenge " + startedChallengeNumber + " should show the runners who completed it");
+        });
+    }
+
+    @When("I list my completions {int} at a time")
+    public void iListMyCompletionsAtATime(int limit) throws Exception {
+        completionPages = new ArrayList<>();
+        String cursor = null;
+        do {
+            String completionsUrl = "http://localhost:" + mainPort + CHALLENGES_ENDPOINT + "/completions?limit=" + limit
+                    + (cursor == null ? "" : "&cursor=" + cursor);
+            ResponseEntity<String> response = restTemplate.exchange(completionsUrl, HttpMethod.GET,
+                    new HttpEntity<>(createAuthenticatedHeaders()), String.class);
+            assertEquals(HttpStatus.OK, response.getStatusCode(), "Completions endpoint should return HTTP 200");
+            JsonNode page = objectMapper.readTree(response.getBody());
+            completionPages.add(page);
+            cursor = page.get("next_cursor").isNull() ? null : page.get("next_cursor").asText();
+        } while (cursor != null);
+    }
+
+    @Then("I should get {int} pages with {int} completions newest first")
+    public void iShouldGetPagesWithCompletionsNewestFirst(int pages, int completions) {
+        assertEquals(pages, completionPages.size(), "Number of pages");
+        List<String> completedAt = new ArrayList<>();
+        for (JsonNode page : completionPages) {
+            for (JsonNode completion : page.get("completions")) {
+                completedAt.add(completion.get("completed_at").asText());
+            }
+        }
+        assertEquals(completions, completedAt.size(), "Number of completions");
+        for (int i = 1; i < completedAt.size(); i++) {
+            assertTrue(Instant.parse(completedAt.get(i - 1)).compareTo(Instant.parse(completedAt.get(i))) >= 0,
+                    "Completions should be listed newest first");
+        }
+    }
+
+    @When("the completions of the last hour are exported as {string}")
+    public void theCompletionsOfTheLastHourAreExportedAs(String format) throws Exception {
+        exportFormat = format;
+        URL exportUrl = new URL("http://localhost:" + managementPort + "/actuator/export/completions?format="
+                + format + "&since=" + Instant.now().minus(1, ChronoUnit.HOURS));
+        HttpURLConnection connection = (HttpURLConnection) exportUrl.openConnection();
+        connection.setRequestProperty("Accept-Encoding", "gzip");
+        assertEquals(HttpStatus.OK.value(), connection.getResponseCode(), "Export should return HTTP 200");
+        assertEquals("gzip", connection.getHeaderField("Content-Encoding"), "Export should be compressed");
+        exportedLines = new ArrayList<>();
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(
+                new GZIPInputStream(connection.getInputStream()), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                exportedLines.add(line);
+            }
+        }
+    }
+
+    @Then("the export should contain my {int} completions")
+    public void theExportShouldContainMyCompletions(int completions) throws Exception {
+        int mine = 0;
+        if ("csv".equals(exportFormat)) {
+            assertEquals("id,user_id,challenge_number,activity_id,completed_at", exportedLines.get(0),
+                    "CSV export should start with its header");
+            for (String line : exportedLines.subList(1, exportedLines.size())) {
+                if (line.split(",")[1].equals(currentUserId.getValue())) {
+                    mine++;
+                }
+            }
+        } else {
+            for (String line : exportedLines) {
+                if (objectMapper.readTree(line).get("user_id").asText().equals(currentUserId.getValue())) {
+                    mine++;
+                }
+            }
+        }
+        assertEquals(completions, mine, "Export should contain my completions");
+    }
+
+    @When("my {int} historical activities are imported with an invalid line in between")
+    public void myHistoricalActivitiesAreImportedWithAnInvalidLineInBetween(int activities) throws Exception {
+        List<String> lines = new ArrayList<>();
+        for (int i = 0; i < activities; i++) {
+            ObjectNode activity = objectMapper.createObjectNode();
+            activity.put("user_id", currentUserId.getValue());
+            activity.put("when", Instant.now().minus(activities - i, ChronoUnit.DAYS).toString());
+            activity.put("type", "run");
+            activity.put("distance", 5.0);
+            activity.put("duration", 1800);
+            lines.add(activity.toString());
+        }
+        lines.add(1, "{\"user_id\": \"not-a-uuid\"}");
+        importBody = String.join("\n", lines) + "\n";
+        importActivitiesFrom(0);
+    }
+
+    @When("my historical activity is imported while a live command of mine is being recorded")
+    public void myHistoricalActivityIsImportedWhileALiveCommandOfMineIsBeingRecorded() throws Exception {
+        ObjectNode activity = objectMapper.createObjectNode();
+        activity.put("user_id", currentUserId.getValue());
+        activity.put("when", Instant.now().minus(1, ChronoUnit.DAYS).toString());
+        activity.put("type", "run");
+        importBody = activity + "\n";
+        retriedGroupsBefore = retriedGroups();
+        try (Connection live = dataSource.getConnection()) {
+            // Holds my progress row the way a live command does until it commits
+            live.setAutoCommit(false);
+            try (PreparedStatement update = live.prepareStatement(
+                    "UPDATE user_progress SET version = version + 1 WHERE user_id = ?")) {
+                update.setObject(1, currentUserId.getValue(), Types.OTHER);
+                assertEquals(1, update.executeUpdate(), "My progress should be recorded");
+            }
+            CompletableFuture<Void> importing = CompletableFuture.runAsync(() -> {
+                try {
+                    importActivitiesFrom(0);
+                } catch (Exception e) {
+                    throw new IllegalStateException(e);
+                }
+            });
+            await().atMost(Duration.ofSeconds(10)).until(() -> jdbcTemplate.queryForObject(
+                    "SELECT count(*) FROM pg_stat_activity WHERE wait_event_type = 'Lock' "
+                            + "AND datname = current_database()", Integer.class) > 0);
+            live.commit();
+            importing.get(30, TimeUnit.SECONDS);
+        }
+    }
+
+    @Then("the import should have retried its group")
+    public void theImportShouldHaveRetriedItsGroup() {
+        assertEquals(retriedGroupsBefore + 1, retriedGroups(), "The group should have failed and been retried");
+    }
+
+    private double retriedGroups() {
+        return meterRegistry.get("challenges.import.retried-groups").counter().count();
+    }
+
+    @When("the import is resumed from line {int}")
+    public void theImportIsResumedFromLine(int line) throws Exception {
+        importActivitiesFrom(line);
+    }
+
+    @Then("the import should be done at line {int} with {int} activities imported")
+    public void theImportShouldBeDoneAtLineWithActivitiesImported(int line, int imported) {
+        JsonNode done = importEvents.get(importEvents.size() - 1);
+        assertEquals("done", done.get("event").asText(), "Import should end with its done event");
+        assertEquals(line, done.get("line").asLong(), "Import should have gone through every line");
+        assertEquals(imported, done.get("imported").asLong(), "Imported activities");
+    }
+
+    @Then("the import should be done at line {int} with {int} activities imported and the line {int} rejected")
+    public void theImportShouldBeDoneAtLineWithActivitiesImportedAndTheLineRejected(int line, int imported,
+                                                                                    int rejected) {
+        theImportShouldBeDoneAtLineWithActivitiesImported(line, imported);
+        assertEquals(1, importEvents.get(importEvents.size() - 1).get("failed").asLong(), "Rejected lines");
+        JsonNode error = importEvents.stream()
+                .filter(event -> "error".equals(event.get("event").asText()))
+                .findFirst()
+                .orElseThrow(() -> new AssertionError("Import should report the rejected line"));
+        assertEquals(rejected, error.get("line").asLong(), "Import should tell which line was rejected");
+    }
+
+    private void importActivitiesFrom(int from) throws Exception {
+        URL importUrl = new URL("http://localhost:" + managementPort + "/actuator/import/activities?from=" + from);
+        HttpURLConnection connection = (HttpURLConnection) importUrl.openConnection();
+        connection.setRequestMethod("POST");
+        connection.setDoOutput(true);
+        connection.setChunkedStreamingMode(0);
+        connection.setRequestProperty("Content-Type", "application/x-ndjson");
+        connection.getOutputStream().write(importBody.getBytes(StandardCharsets.UTF_8));
+        assertEquals(HttpStatus.OK.value(), connection.getResponseCode(), "Import should return HTTP 200");
+        importEvents = new ArrayList<>();
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(
+                connection.getInputStream(), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                importEvents.add(objectMapper.readTree(line));
+            }
+        }
+    }
+
     @Then("the challenge should be marked as completed")
     public void theChallengeShouldBeMarkedAsCompleted() throws Exception {
         ResponseEntity<String> response = getChallengesResponse();
@@ -192,6 +704,87 @@ public class RunnerSteps {
                 "Challenge " + startedChallengeNumber + " should be marked as completed");
     }
 
+    @Then("the challenge should not be marked as completed")
+    public void theChallengeShouldNotBeMarkedAsCompleted() throws Exception {
+        ResponseEntity<String> response = getChallengesResponse();
+
+        assertEquals(HttpStatus.OK, response.getStatusCode(),
+                "Challenges endpoint should return HTTP 200");
+
+        JsonNode responseJson = objectMapper.readTree(response.getBody());
+        JsonNode startedChallenge = findChallengeInResponse(responseJson, startedChallengeNumber);
+
+        assertNotNull(startedChallenge,
+                "Challenge " + startedChallengeNumber + " should be found in the response");
+        assertFalse(startedChallenge.get("is_completed").asBoolean(),
+                "Challenge " + startedChallengeNumber + " should not be marked as completed yet");
+    }
+
+    @Given("I watch my challenge progress")
+    public void iWatchMyChallengeProgress() throws Exception {
+        URL streamUrl = new URL("http://localhost:" + mainPort + CHALLENGES_ENDPOINT + "/stream");
+        progressStream = (HttpURLConnection) streamUrl.openConnection();
+        progressStream.setRequestProperty(SESSION_TOKEN_HEADER, currentSessionToken);
+        progressStream.setRequestProperty(HttpHeaders.ACCEPT, MediaType.TEXT_EVENT_STREAM_VALUE);
+        BufferedReader reader = new BufferedReader(
+                new InputStreamReader(progressStream.getInputStream(), StandardCharsets.UTF_8));
+        Thread streamReader = new Thread(() -> readProgressEvents(reader), "progress-stream-reader");
+        streamReader.setDaemon(true);
+        streamReader.start();
+
+        String snapshot = progressEvents.poll(5, TimeUnit.SECONDS);
+        assertNotNull(snapshot, "Stream should start with a snapshot");
+        assertTrue(snapshot.startsWith("snapshot "), "Stream should start with a snapshot: " + snapshot);
+    }
+
+    @Then("my progress stream should tell me the challenge {int} was started")
+    public void myProgressStreamShouldTellMeTheChallengeWasStarted(int challengeNumber) throws Exception {
+        try {
+            String delta = progressEvents.poll(5, TimeUnit.SECONDS);
+            assertNotNull(delta, "Stream should push the change");
+            assertTrue(delta.startsWith("delta "), "Change should be a delta: " + delta);
+            JsonNode data = objectMapper.readTree(delta.substring("delta ".length()));
+            assertEquals(challengeNumber, data.get("started").asInt());
+        } finally {
+            progressStream.disconnect();
+        }
+    }
+
+    @Then("my progress stream should tell me the challenge {int} was started instead of the challenge {int}")
+    public void myProgressStreamShouldTellMeTheChallengeWasStartedInsteadOf(int startedNumber, int stoppedNumber)
+            throws Exception {
+        try {
+            String delta = progressEvents.poll(5, TimeUnit.SECONDS);
+            assertNotNull(delta, "Stream should push the change");
+            assertTrue(delta.startsWith("delta "), "Change should be a delta: " + delta);
+            JsonNode data = objectMapper.readTree(delta.substring("delta ".length()));
+            assertEquals(startedNumber, data.path("started").asInt(), "Challenge should be started: " + delta);
+            assertEquals(stoppedNumber, data.path("stopped").asInt(), "Challenge should be stopped: " + delta);
+        } finally {
+            progressStream.disconnect();
+        }
+    }
+
+    private void readProgressEvents(BufferedReader reader) {
+        String name = null;
+        StringBuilder data = new StringBuilder();
+        try {
+            for (String line = reader.readLine(); line != null; line = reader.readLine()) {
+                if (line.startsWith("event:")) {
+                    name = line.substring("event:".length()).trim();
+                } else if (line.startsWith("data:")) {
+                    data.append(line.substring("data:".length()));
+                } else if (line.isEmpty() && name != null) {
+                    progressEvents.add(name + " " + data);
+                    name = null;
+                    data.setLength(0);
+                }
+            }
+        } catch (IOException e) {
+            // Disconnected
+        }
+    }
+
     @Then("I should be told that the challenge is unavailable")
     public void iShouldBeToldThatTheChallengeIsUnavailable() {
         assertEquals(HttpStatus.PRECONDITION_FAILED, startChallengeResponse.getStatusCode(),
@@ -240,6 +833,25 @@ public class RunnerSteps {
                 "Challenge " + startedChallengeNumber + " minimum pace should be " + expectedPace + " minutes per km");
     }
 
+    @Given("the challenge requires a total distance of {double} km within {int} days")
+    public void theChallengeRequiresATotalDistanceOfKmWithinDays(double expectedDistance, int expectedDays)
+            throws Exception {
+        ResponseEntity<String> response = getChallengesResponse();
+
+        assertEquals(HttpStatus.OK, response.getStatusCode(),
+                "Challenges endpoint should return HTTP 200");
+
+        JsonNode responseJson = objectMapper.readTree(response.getBody());
+        JsonNode targetChallenge = findChallengeInResponse(responseJson, startedChallengeNumber);
+
+        assertNotNull(targetChallenge,
+                "Challenge " + startedChallengeNumber + " should be found in the response");
+        assertEquals(expectedDistance, targetChallenge.get("minimum_total_distance").asDouble(), ASSERTION_DELTA,
+                "Challenge " + startedChallengeNumber + " total distance should be " + expectedDistance + " km");
+        assertEquals(expectedDays, targetChallenge.get("window_days").asInt(),
+                "Challenge " + startedChallengeNumber + " window should be " + expectedDays + " days");
+    }
+
     @Given("the challenge does not require any completion criteria")
     public void theChallengeDoesNotRequireAnyCompletionCriteria() throws Exception {
         ResponseEntity<String> response = getChallengesResponse();
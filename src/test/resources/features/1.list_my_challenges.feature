@@ -6,3 +6,20 @@ Feature: List My Challenges
   Scenario: View all challenges
     When I request to list my challenges
     Then I should see all challenges sorted by number
+
+  Scenario: See what stands between me and a challenge
+    When I ask for my path to the challenge 3
+    Then my path should go through the challenges "2, 3"
+    And my path should be blocked by a locked challenge
+
+  Scenario: List my challenges a page at a time
+    When I list my challenges 4 at a time
+    Then I should get the pages "1, 2, 3, 4 | 5, 6"
+
+  Scenario: List only the challenges available to me
+    When I list my "available" challenges
+    Then I should see the challenges "1, 4, 5, 6"
+
+  Scenario: List the challenges locked to me within a range
+    When I list my "locked" challenges numbered from 3 to 6
+    Then I should see the challenges "3"
@@ -16,3 +16,22 @@ Feature: Start a Challenge
     Then I should be told that the challenge is unavailable
 
 
+  Scenario: Enroll my running club in a challenge
+    When my running club of 3 runners is enrolled in the challenge 1
+    Then everyone in the club should have started the challenge
+
+  Scenario: Reject a cohort holding an id that is not a user id
+    When a cohort with me and the user "not-a-uuid" is enrolled in the challenge 1
+    Then the enrollment should be rejected as invalid
+    And the challenge 1 should not be marked as started
+
+  Scenario: Watch my progress as it happens
+    Given I watch my challenge progress
+    When I select the challenge 1 to start
+    Then my progress stream should tell me the challenge 1 was started
+
+  Scenario: Watch the challenge I started before stop being started
+    Given I select the challenge 1 to start
+    And I watch my challenge progress
+    When I select the challenge 4 to start
+    Then my progress stream should tell me the challenge 4 was started instead of the challenge 1
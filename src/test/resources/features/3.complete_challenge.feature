@@ -24,4 +24,75 @@ Feature: Complete a Challenge
     When I upload a running activity with required pace
     Then the challenge should be marked as completed
 
+  Scenario: Complete a challenge when activities within the window meet total distance criteria
+    Given I select the challenge 6 to start
+    And the challenge requires a total distance of 10.0 km within 7 days
+    And the challenge should be marked as started
+    When I upload a running activity of 5.5 km
+    Then the challenge should not be marked as completed
+    When I upload a running activity of 5.5 km
+    Then the challenge should be marked as completed
+
+  Scenario: Leave out of the total distance the activities done before I started the challenge
+    Given I select the challenge 6 to start
+    And the challenge requires a total distance of 10.0 km within 7 days
+    When I upload a running activity of 5.5 km done before I started the challenge
+    And I upload a running activity of 5.5 km
+    Then the challenge should not be marked as completed
+
+  Scenario: Count an activity delivered twice once towards the total distance
+    Given I select the challenge 6 to start
+    And the challenge requires a total distance of 10.0 km within 7 days
+    When my running activity of 5.5 km is delivered twice
+    Then the challenge should not be marked as completed
+
+  Scenario: Complete a challenge with an activity forwarded by the node owning me
+    Given I select the challenge 1 to start
+    When another node forwards my running activity
+    Then the challenge should be marked as completed
+
+  Scenario: Reject activities forwarded by callers outside the cluster
+    Given I select the challenge 1 to start
+    When my running activity is forwarded without the cluster secret
+    Then the forwarded activity should be forbidden
+    And the challenge should not be marked as completed
+
+  Scenario: Count the runners who completed a challenge
+    Given I select the challenge 1 to start
+    When I upload a running activity
+    Then the challenge should show at least 1 runner who completed it
+
+  Scenario: Page through my completion history
+    Given I select the challenge 1 to start
+    And I upload a running activity
+    And I upload a running activity
+    And I upload a running activity
+    When I list my completions 2 at a time
+    Then I should get 2 pages with 3 completions newest first
+
+  Scenario Outline: Export the latest completions in bulk
+    Given I select the challenge 1 to start
+    And I upload a running activity
+    And I upload a running activity
+    When the completions of the last hour are exported as "<format>"
+    Then the export should contain my 2 completions
+
+    Examples:
+      | format |
+      | ndjson |
+      | csv    |
 
+  Scenario: Import historical activities in bulk and resume the import
+    Given I select the challenge 1 to start
+    When my 2 historical activities are imported with an invalid line in between
+    Then the import should be done at line 3 with 2 activities imported and the line 2 rejected
+    And the challenge should be marked as completed
+    When the import is resumed from line 3
+    Then the import should be done at line 3 with 0 activities imported
+
+  Scenario: Retry an import group that races a live command of mine
+    Given I select the challenge 1 to start
+    When my historical activity is imported while a live command of mine is being recorded
+    Then the import should be done at line 1 with 1 activities imported
+    And the import should have retried its group
+    And the challenge should be marked as completed
@@ -0,0 +1,14 @@
+Feature: Complete a Team Challenge
+  As a member of a running club
+  I want the activities of all members to add up
+  So that we can reach a distance target together
+
+  Scenario: Complete a team challenge with the combined distance of its members
+    Given my running club has a team challenge of 10.0 km
+    When I upload a running activity of 6.0 km
+    And a teammate uploads a running activity of 5.0 km
+    Then the team challenge should be completed with 11.0 km
+
+  Scenario: Reject a team challenge without an end
+    When my running club creates a team challenge of 10.0 km without an end
+    Then the team challenge should be rejected as invalid